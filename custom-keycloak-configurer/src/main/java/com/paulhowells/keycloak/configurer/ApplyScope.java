@@ -0,0 +1,257 @@
+package com.paulhowells.keycloak.configurer;
+
+import com.paulhowells.keycloak.configurer.model.AuthenticationFlowDefinition;
+import com.paulhowells.keycloak.configurer.model.ClientDefinition;
+import com.paulhowells.keycloak.configurer.model.GoogleIdentityProvider;
+import com.paulhowells.keycloak.configurer.model.KeycloakDefinition;
+import com.paulhowells.keycloak.configurer.model.RealmDefinition;
+import org.slf4j.Logger;
+
+import java.util.*;
+
+/**
+ * The realms and the kinds of resource a run is restricted to.
+ * <p>
+ * A restricted run never removes anything outside its scope.  A realm that does not exist yet is always created in
+ * full, whatever the kinds in scope.
+ *
+ * @param realmNames the realms to apply, empty for all the realms
+ * @param kinds the kinds of resource to apply
+ */
+record ApplyScope(
+        Set<String> realmNames,
+        Set<Kind> kinds
+) {
+
+    enum Kind {
+        REALM("realm"),
+        SCOPES("scopes"),
+        ROLES("roles"),
+        IDPS("idps"),
+        FLOWS("flows"),
+        CLIENTS("clients");
+
+        private final String argument;
+
+        Kind(String argument) {
+            this.argument = argument;
+        }
+
+        static Kind fromArgument(String argument) {
+
+            for (Kind kind:values()) {
+                if (kind.argument.equalsIgnoreCase(argument.trim())) {
+                    return kind;
+                }
+            }
+
+            throw new IllegalArgumentException(String.format("Unknown resource kind '%s', expected one of %s", argument, getArguments()));
+        }
+
+        static List<String> getArguments() {
+            return Arrays.stream(values()).map(it -> it.argument).toList();
+        }
+
+        @Override
+        public String toString() {
+            return argument;
+        }
+    }
+
+    static final ApplyScope ALL = new ApplyScope(Set.of(), EnumSet.allOf(Kind.class));
+
+    ApplyScope {
+        realmNames = Set.copyOf(realmNames);
+        kinds = Collections.unmodifiableSet(kinds.isEmpty() ? EnumSet.noneOf(Kind.class) : EnumSet.copyOf(kinds));
+    }
+
+    /**
+     * @param realms a comma separated list of realm names, null or blank for all the realms
+     * @param only a comma separated list of resource kinds, null or blank for all the kinds
+     */
+    static ApplyScope parse(String realms, String only) {
+
+        Set<String> realmNames = new LinkedHashSet<>();
+        if (realms != null) {
+            for (String realmName:realms.split(",")) {
+                if (!realmName.isBlank()) {
+                    realmNames.add(realmName.trim());
+                }
+            }
+        }
+
+        Set<Kind> kinds = EnumSet.noneOf(Kind.class);
+        if (only != null) {
+            for (String kind:only.split(",")) {
+                if (!kind.isBlank()) {
+                    kinds.add(Kind.fromArgument(kind));
+                }
+            }
+        }
+
+        return new ApplyScope(realmNames, kinds.isEmpty() ? EnumSet.allOf(Kind.class) : kinds);
+    }
+
+    boolean isRestricted() {
+        return !realmNames.isEmpty() || isKindRestricted();
+    }
+
+    boolean isKindRestricted() {
+        return kinds.size() < Kind.values().length;
+    }
+
+    boolean includesRealm(String realmName) {
+        return realmNames.isEmpty() || realmNames.contains(realmName);
+    }
+
+    boolean includes(Kind kind) {
+        return kinds.contains(kind);
+    }
+
+    /**
+     * @return true when any of the kinds applied by the realm configurer is in scope
+     */
+    boolean includesRealmResources() {
+        return includes(Kind.REALM) || includes(Kind.SCOPES) || includes(Kind.ROLES) || includes(Kind.IDPS);
+    }
+
+    /**
+     * Add the kinds that the kinds in scope depend on, for the realms in scope, until nothing more is added.
+     * <p>
+     * Only references to resources in the definitions count, a reference to a built-in flow or scope needs nothing
+     * more to be applied.
+     */
+    ApplyScope withDependencies(
+            KeycloakDefinition keycloakDefinition,
+            Logger logger
+    ) {
+        Set<Kind> result = EnumSet.copyOf(kinds);
+
+        Set<String> flowAliases = new HashSet<>();
+        for (AuthenticationFlowDefinition flowDefinition:keycloakDefinition.getAuthenticationFlows()) {
+            if (includesRealm(flowDefinition.getRealmName())) {
+                flowAliases.add(getKey(flowDefinition.getRealmName(), flowDefinition.getAlias()));
+            }
+        }
+
+        Set<String> scopeNames = new HashSet<>();
+        Set<String> clientIds = new HashSet<>();
+        for (RealmDefinition realmDefinition:keycloakDefinition.getRealms()) {
+            if (includesRealm(realmDefinition.getRealmName())) {
+                realmDefinition.getScopes().keySet().forEach(it -> scopeNames.add(getKey(realmDefinition.getRealmName(), it)));
+            }
+        }
+        for (ClientDefinition clientDefinition:keycloakDefinition.getClients()) {
+            if (includesRealm(clientDefinition.getRealmName())) {
+                clientIds.add(getKey(clientDefinition.getRealmName(), clientDefinition.getClientId()));
+            }
+        }
+
+        boolean added = true;
+        while (added) {
+            added = false;
+
+            for (RealmDefinition realmDefinition:keycloakDefinition.getRealms()) {
+
+                String realmName = realmDefinition.getRealmName();
+
+                if (!includesRealm(realmName)) {
+                    continue;
+                }
+
+                if (result.contains(Kind.REALM) && !result.contains(Kind.FLOWS)
+                        && containsAny(flowAliases, realmName, getDefaultFlowAliases(realmDefinition))) {
+                    added = add(result, Kind.FLOWS, Kind.REALM, logger);
+                }
+
+                GoogleIdentityProvider identityProvider = realmDefinition.getGoogleIdentityProvider();
+                if (result.contains(Kind.IDPS) && !result.contains(Kind.FLOWS) && identityProvider != null
+                        && containsAny(flowAliases, realmName, Arrays.asList(identityProvider.getFirstLoginFlowAlias(), identityProvider.getPostLoginFlowAlias()))) {
+                    added = add(result, Kind.FLOWS, Kind.IDPS, logger) || added;
+                }
+
+                if (result.contains(Kind.ROLES) && !result.contains(Kind.CLIENTS)
+                        && containsAny(clientIds, realmName, realmDefinition.getDefaultRoles().values().stream().map(RealmDefinition.DefaultRole::getClientId).toList())) {
+                    added = add(result, Kind.CLIENTS, Kind.ROLES, logger) || added;
+                }
+            }
+
+            for (ClientDefinition clientDefinition:keycloakDefinition.getClients()) {
+
+                String realmName = clientDefinition.getRealmName();
+
+                if (!includesRealm(realmName) || !result.contains(Kind.CLIENTS)) {
+                    continue;
+                }
+
+                if (!result.contains(Kind.FLOWS) && containsAny(flowAliases, realmName, getFlowOverrideAliases(clientDefinition))) {
+                    added = add(result, Kind.FLOWS, Kind.CLIENTS, logger) || added;
+                }
+
+                if (!result.contains(Kind.SCOPES) && containsAny(scopeNames, realmName, clientDefinition.getScopes().keySet())) {
+                    added = add(result, Kind.SCOPES, Kind.CLIENTS, logger) || added;
+                }
+            }
+        }
+
+        return new ApplyScope(realmNames, result);
+    }
+
+    private static boolean add(Set<Kind> kinds, Kind dependency, Kind dependent, Logger logger) {
+
+        boolean result = kinds.add(dependency);
+
+        if (result) {
+            logger.info("Including {} because the {} in scope reference them", dependency, dependent);
+        }
+
+        return result;
+    }
+
+    private static boolean containsAny(Set<String> keys, String realmName, Collection<String> names) {
+
+        for (String name:names) {
+            if (name != null && keys.contains(getKey(realmName, name))) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static List<String> getDefaultFlowAliases(RealmDefinition realmDefinition) {
+
+        return Arrays.asList(
+                realmDefinition.getDefaultBrowserFlowAlias(),
+                realmDefinition.getDefaultRegistrationFlowAlias(),
+                realmDefinition.getDefaultDirectGrantFlowAlias(),
+                realmDefinition.getDefaultResetCredentialsFlowAlias(),
+                realmDefinition.getDefaultClientAuthenticationFlowAlias(),
+                realmDefinition.getDefaultFirstBrokerLoginFlowAlias()
+        );
+    }
+
+    private static List<String> getFlowOverrideAliases(ClientDefinition clientDefinition) {
+
+        List<String> result = new ArrayList<>();
+
+        ClientDefinition.GrantTypes grantTypes = clientDefinition.getGrantTypes();
+
+        if (grantTypes != null) {
+
+            if (grantTypes.getAuthorizationCode() != null) {
+                result.add(grantTypes.getAuthorizationCode().getFlowOverride());
+            }
+
+            if (grantTypes.getPassword() != null) {
+                result.add(grantTypes.getPassword().getFlowOverride());
+            }
+        }
+
+        return result;
+    }
+
+    private static String getKey(String realmName, String name) {
+        return String.format("%s/%s", realmName, name).toUpperCase();
+    }
+}
@@ -9,9 +9,11 @@ import com.paulhowells.keycloak.configurer.rest.client.model.Flow;
 import org.slf4j.Logger;
 
 import java.util.*;
+import java.util.function.Consumer;
 
 public class AuthenticationFlowConfigurer {
-    
+    private static final String EXECUTIONS_PROPERTY = "executions";
+
     private final Logger logger;
     private final KeycloakRestApi keycloakRestApi;
 
@@ -103,10 +105,43 @@ public class AuthenticationFlowConfigurer {
             KeycloakDefinition keycloakDefinition
     ) {
 
+        return applyAuthenticationFlows(keycloakDefinition, null);
+    }
+
+    /**
+     * Apply the authentication flow definitions, limiting the existing flows considered to the provided realm names.
+     * A null set of realm names will consider the flows of all the existing realms.
+     */
+    boolean applyAuthenticationFlows(
+            KeycloakDefinition keycloakDefinition,
+            Set<String> realmNames
+    ) {
+        return applyAuthenticationFlowsTo(keycloakDefinition, getResourceMap(realmNames));
+    }
+
+    /**
+     * Apply the authentication flow definitions of a single realm, starting from the top level flows already read from
+     * it.
+     */
+    boolean applyAuthenticationFlows(
+            KeycloakDefinition keycloakDefinition,
+            String realmName,
+            List<Flow> existingFlows
+    ) {
+        Map<String, Flow> existingAuthenticationFlowMap = new HashMap<>();
+        addResources(existingAuthenticationFlowMap, realmName, existingFlows);
+
+        return applyAuthenticationFlowsTo(keycloakDefinition, existingAuthenticationFlowMap);
+    }
+
+    private boolean applyAuthenticationFlowsTo(
+            KeycloakDefinition keycloakDefinition,
+            Map<String, Flow> existingAuthenticationFlowMap
+    ) {
+
         List<AuthenticationFlowDefinition> insertAuthenticationFlowDefinitions = new ArrayList<>();
         Map<String, AuthenticationFlowDefinition> updateAuthenticationFlowPkMap = new HashMap<>();
         Set<Flow> referencedAuthenticationFlows = new HashSet<>();
-        Map<String, Flow> existingAuthenticationFlowMap = getResourceMap();
 
         // Identify if the resource is new or if a resource needs to be updated
         // Keep track of which resource are in use, so we know which ones need to be deleted later
@@ -128,6 +163,105 @@ public class AuthenticationFlowConfigurer {
         );
     }
 
+    /**
+     * Identify the authentication flow operations without making any changes.
+     */
+    List<PlannedOperation> planAuthenticationFlows(
+            KeycloakDefinition keycloakDefinition,
+            Set<String> realmNames
+    ) {
+        List<PlannedOperation> result = new ArrayList<>();
+
+        List<AuthenticationFlowDefinition> insertAuthenticationFlowDefinitions = new ArrayList<>();
+        Map<String, AuthenticationFlowDefinition> updateAuthenticationFlowPkMap = new HashMap<>();
+        Set<Flow> referencedAuthenticationFlows = new HashSet<>();
+        Map<String, Flow> existingAuthenticationFlowMap = getResourceMap(realmNames);
+
+        identifyUpdates(
+                existingAuthenticationFlowMap,
+                keycloakDefinition,
+                insertAuthenticationFlowDefinitions,
+                updateAuthenticationFlowPkMap,
+                referencedAuthenticationFlows
+        );
+
+        List<String> referencedAuthenticationFlowKeys = getReferencedResourceKeys(referencedAuthenticationFlows);
+        Map<String, Flow> removedAuthenticationFlowMap = getRemovedResourceMap(existingAuthenticationFlowMap, referencedAuthenticationFlowKeys);
+
+        for (Flow resource:removedAuthenticationFlowMap.values()) {
+
+            if (isManaged(resource)) {
+
+                result.add(PlannedOperation.of(PlannedOperation.Type.DELETE, PlannedOperation.ResourceType.AUTHENTICATION_FLOW, resource.getRealm(), resource.getAlias(), resource.getId()));
+            }
+        }
+
+        for (AuthenticationFlowDefinition definition:insertAuthenticationFlowDefinitions) {
+
+            result.add(PlannedOperation.of(PlannedOperation.Type.CREATE, PlannedOperation.ResourceType.AUTHENTICATION_FLOW, definition.getRealmName(), definition.getAlias(), null));
+        }
+
+        for (AuthenticationFlowDefinition definition:updateAuthenticationFlowPkMap.values()) {
+
+            Flow resource = existingAuthenticationFlowMap.get(getKey(definition.getRealmName(), definition.getAlias()));
+
+            List<String> changes = new ArrayList<>();
+            getDefinition(resource).getChanges(definition, null).forEach(it -> changes.add(it.path()));
+
+            if (changes.isEmpty()) {
+
+                logger.debug("No change to {} authentication flow {}", definition.getRealmName(), definition.getAlias());
+            } else {
+
+                result.add(PlannedOperation.of(PlannedOperation.Type.UPDATE, PlannedOperation.ResourceType.AUTHENTICATION_FLOW, definition.getRealmName(), definition.getAlias(), definition.getId(), changes));
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Apply a single planned authentication flow operation.
+     */
+    boolean applyOperation(
+            PlannedOperation operation,
+            KeycloakDefinition keycloakDefinition
+    ) {
+        boolean result = false;
+
+        switch (operation.type()) {
+            case CREATE -> {
+                createResource(findDefinition(operation, keycloakDefinition));
+                result = true;
+            }
+            case UPDATE -> {
+                AuthenticationFlowDefinition definition = findDefinition(operation, keycloakDefinition);
+                definition.setId(operation.resourceId());
+                result = applyChanges(definition, operation.getChangedProperties());
+            }
+            case DISABLE, DELETE -> {
+                Flow resource = keycloakRestApi.getTopLevelFlow(operation.realmName(), operation.resourceId());
+                if (resource != null) {
+                    result = removeResource(resource);
+                }
+            }
+        }
+
+        return result;
+    }
+
+    private static AuthenticationFlowDefinition findDefinition(
+            PlannedOperation operation,
+            KeycloakDefinition keycloakDefinition
+    ) {
+        String key = getKey(operation.realmName(), operation.name());
+
+        return keycloakDefinition.getAuthenticationFlows().stream()
+                .filter(it -> getKey(it.getRealmName(), it.getAlias()).equals(key))
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException(String.format("No Authentication Flow Definition for %s", operation.id())));
+    }
+
     private RealmDefinition findRealmDefinition(String realmName, Map<String, KeycloakDefinition> keycloakDefinitionMap) {
         RealmDefinition result = null;
 
@@ -143,7 +277,7 @@ public class AuthenticationFlowConfigurer {
         return result;
     }
 
-    private Map<String, Flow> getResourceMap() {
+    private Map<String, Flow> getResourceMap(Set<String> realmNames) {
         Map<String, Flow> results = new HashMap<>();
 
         List<Realm> realms = keycloakRestApi.getRealms();
@@ -152,22 +286,32 @@ public class AuthenticationFlowConfigurer {
 
             String realmName = realm.getRealm();
 
-            List<Flow> flows = keycloakRestApi.getTopLevelFlows(realmName);
+            if (realmNames != null && !realmNames.contains(realmName)) {
+                continue;
+            }
 
-            for (Flow flow:flows) {
+            addResources(results, realmName, keycloakRestApi.getTopLevelFlows(realmName));
+        }
 
-                boolean builtIn = Boolean.TRUE.equals(flow.getBuiltIn());
+        return results;
+    }
 
-                if (!builtIn) {
+    private static void addResources(
+            Map<String, Flow> results,
+            String realmName,
+            List<Flow> flows
+    ) {
+        for (Flow flow:flows) {
 
-                    String key = getKey(realmName, flow.getAlias());
+            boolean builtIn = Boolean.TRUE.equals(flow.getBuiltIn());
 
-                    results.put(key, flow);
-                }
+            if (!builtIn) {
+
+                String key = getKey(realmName, flow.getAlias());
+
+                results.put(key, flow);
             }
         }
-
-        return results;
     }
 
     private void identifyUpdates(
@@ -278,7 +422,9 @@ public class AuthenticationFlowConfigurer {
 
         String id = keycloakRestApi.createTopLevelFlow(definition.getRealmName(), resource);
 
-        resource = keycloakRestApi.getTopLevelFlow(definition.getRealmName(), id);
+        resource.setId(id);
+        resource.setRealm(definition.getRealmName());
+        resource.setLevel(0);
 
         authenticationFlowExecutionConfigurer.applyFlowExecutions(
                 resource,
@@ -335,19 +481,72 @@ public class AuthenticationFlowConfigurer {
         return result;
     }
 
+    /**
+     * Write the planned changes without reading the current definition again.
+     *
+     * @param changedProperties the top level properties that differ from the flow, executions for its executions
+     */
+    private boolean applyChanges(
+            AuthenticationFlowDefinition definition,
+            Set<String> changedProperties
+    ) {
+        logger.debug("<applyChanges");
+
+        Flow resource = keycloakRestApi.getTopLevelFlow(definition.getRealmName(), definition.getId());
+
+        if (changedProperties.stream().anyMatch(it -> !EXECUTIONS_PROPERTY.equals(it))) {
+
+            logger.info("Updating {} authentication flow {}", definition.getRealmName(), definition.getAlias());
+
+            applyDefinition(
+                    definition,
+                    resource
+            );
+
+            keycloakRestApi.updateTopLevelFlow(
+                    definition.getRealmName(),
+                    definition.getId(),
+                    resource
+            );
+
+            resource = keycloakRestApi.getTopLevelFlow(definition.getRealmName(), definition.getId());
+        }
+
+        if (changedProperties.contains(EXECUTIONS_PROPERTY)) {
+
+            logger.info("Updating {} authentication flow {} executions", definition.getRealmName(), definition.getAlias());
+
+            authenticationFlowExecutionConfigurer.applyFlowExecutions(
+                    resource,
+                    definition.getExecutions()
+            );
+        }
+
+        logger.debug(">applyChanges");
+        return true;
+    }
+
     List<AuthenticationFlowDefinition> getDefinitions(Realm realm) {
         List<AuthenticationFlowDefinition> results = new ArrayList<>();
 
+        forEachDefinition(realm, results::add);
+
+        return results;
+    }
+
+    /**
+     * Provide the definition of each managed flow as it is read.
+     */
+    void forEachDefinition(Realm realm, Consumer<AuthenticationFlowDefinition> consumer) {
+
         for (Flow resource:keycloakRestApi.getTopLevelFlows(realm.getRealm())) {
 
             if (isManaged(resource)) {
 
                 AuthenticationFlowDefinition definition = getDefinition(resource);
-                results.add(definition);
+                consumer.accept(definition);
             }
         }
-
-        return results;
     }
 
     private AuthenticationFlowDefinition getDefinition(
@@ -14,6 +14,8 @@ public class AuthenticationFlowExecutionConfigurer {
     private final Logger logger;
     private final KeycloakRestApi keycloakRestApi;
 
+    private volatile Boolean supportsPriority;
+
     AuthenticationFlowExecutionConfigurer(
             KeycloakRestApi keycloakRestApi,
             Logger logger) {
@@ -102,60 +104,56 @@ public class AuthenticationFlowExecutionConfigurer {
             Flow parentFlow,
             List<AuthenticationFlowDefinition.Execution> executionDefinitions
     ) {
-        boolean reordered;
-        do {
-            reordered = false;
-
-            List<FlowExecution> flowExecutions = keycloakRestApi.getFlowExecutions(parentFlow);
+        List<FlowExecution> flowExecutions = keycloakRestApi.getFlowExecutions(parentFlow);
 
-            if (flowExecutions.size() != executionDefinitions.size()) {
-                throw new IllegalStateException("Not expecting the Flow Executions to out of sync with the Execution definitions");
-            }
+        List<String> displayNames = executionDefinitions.stream()
+                .map(AuthenticationFlowDefinition.Execution::getDisplayName)
+                .toList();
 
-            if (logger.isDebugEnabled()) {
+        if (logger.isDebugEnabled()) {
 
-                logger.info("Re-ordering executions {} ({})", parentFlow.getRealm(), parentFlow.getAlias());
-                logger.info("Current Order");
-                int i = 0;
-                for (FlowExecution flowExecution : flowExecutions) {
-                    logger.info("{} ({}) {}", ++i, parentFlow.getAlias(), flowExecution.getDisplayName());
-                }
-                logger.info("Desired Order");
-                i = 0;
-                for (AuthenticationFlowDefinition.Execution executionDefinition : executionDefinitions) {
-                    logger.info("{} ({}) {}", ++i, parentFlow.getAlias(), executionDefinition.getDisplayName());
-                }
-            }
-
-            Map<String, FlowExecution> flowExecutionMap = new HashMap<>();
+            logger.info("Re-ordering executions {} ({})", parentFlow.getRealm(), parentFlow.getAlias());
+            logger.info("Current Order");
+            int i = 0;
             for (FlowExecution flowExecution : flowExecutions) {
-                flowExecutionMap.put(flowExecution.getDisplayName(), flowExecution);
+                logger.info("{} ({}) {}", ++i, parentFlow.getAlias(), flowExecution.getDisplayName());
             }
+            logger.info("Desired Order");
+            i = 0;
+            for (String displayName : displayNames) {
+                logger.info("{} ({}) {}", ++i, parentFlow.getAlias(), displayName);
+            }
+        }
 
-            for (AuthenticationFlowDefinition.Execution executionDefinition : executionDefinitions) {
-
-                FlowExecution flowExecution = flowExecutionMap.get(executionDefinition.getDisplayName());
+        List<FlowExecutionReorderPlanner.Move> moves = FlowExecutionReorderPlanner.plan(
+                flowExecutions,
+                displayNames,
+                supportsPriority()
+        );
 
-                if (flowExecution == null) {
-                    throw new IllegalStateException(String.format("Not expecting a missing FlowExecution: %s", executionDefinition.getDisplayName()));
-                }
+        if (!moves.isEmpty()) {
 
-                int currentIndex = flowExecution.getIndex();
-                int requiredIndex = executionDefinition.getIndex();
-                if (currentIndex < requiredIndex) {
+            logger.debug("Re-ordering {} ({}) with {} moves", parentFlow.getRealm(), parentFlow.getAlias(), moves.size());
 
-                    throw new IllegalStateException(String.format("Not expecting the current index (%s) to be less than the required index (%s)", currentIndex, requiredIndex));
-                } else if (currentIndex > requiredIndex) {
+            FlowExecutionReorderPlanner.apply(keycloakRestApi, parentFlow, moves);
 
-                    for (int i=currentIndex;i!=requiredIndex;--i) {
+            List<String> currentDisplayNames = keycloakRestApi.getFlowExecutions(parentFlow).stream()
+                    .map(FlowExecution::getDisplayName)
+                    .toList();
 
-                        keycloakRestApi.raiseFlowExecutionPriority(parentFlow.getRealm(), flowExecution.getId());
-                    }
-                    reordered = true;
-                    break;
-                }
+            if (!currentDisplayNames.equals(displayNames)) {
+                throw new IllegalStateException(String.format("Failed to re-order the executions of %s (%s): %s", parentFlow.getRealm(), parentFlow.getAlias(), currentDisplayNames));
             }
-        } while (reordered);
+        }
+    }
+
+    private boolean supportsPriority() {
+
+        if (supportsPriority == null) {
+            supportsPriority = FlowExecutionReorderPlanner.supportsPriority(keycloakRestApi.getServerVersion());
+        }
+
+        return supportsPriority;
     }
 
     private void processUpdates(
@@ -273,7 +271,15 @@ public class AuthenticationFlowExecutionConfigurer {
                 definition.getRequirement()
         );
 
-        Flow subFlow = keycloakRestApi.getSubFlow(parentFlow, subFlowId);
+        // The sub-flow is created with the display name as its alias
+        Flow subFlow = new Flow();
+        subFlow.setId(subFlowId);
+        subFlow.setAlias(definition.getDisplayName());
+        subFlow.setDescription(definition.getDescription());
+        subFlow.setProviderId(definition.getProviderId());
+        subFlow.setTopLevel(false);
+        subFlow.setRealm(parentFlow.getRealm());
+        subFlow.setLevel(parentFlow.getLevel() + 1);
 
         // The flow id is returned when creating a flow execution instead of the execution id so we need to search the list of flow executions to find out new flow execution
         FlowExecution resource = keycloakRestApi.getFlowExecutions(parentFlow).stream().filter(t -> subFlowId.equals(t.getFlowId())).findFirst().get();
@@ -308,6 +314,7 @@ public class AuthenticationFlowExecutionConfigurer {
                 definition.getRequirement()
         );
 
+        // The priority is assigned by the server, and has to be sent back unchanged with the requirement
         FlowExecution resource = keycloakRestApi.getFlowExecution(parentFlow.getRealm(), id);
 
         // The requirement cannot be set during create so we have to follow up with an update
@@ -323,8 +330,6 @@ public class AuthenticationFlowExecutionConfigurer {
                 resource
         );
 
-        resource = keycloakRestApi.getFlowExecution(parentFlow.getRealm(), id);
-
         logger.debug(">createResource {}", resource);
     }
 
@@ -544,42 +549,41 @@ public class AuthenticationFlowExecutionConfigurer {
     ) {
         List<AuthenticationFlowDefinition.Execution> results = new ArrayList<>();
 
-        List<FlowExecution> flowExecutions = keycloakRestApi.getFlowExecutions(parentFlow);
-        Map<String, FlowExecution> flowExecutionMap = new HashMap<>();
-        Map<String, FlowExecution> authenticatorExecutionMap = new HashMap<>();
+        // The executions of the sub-flows come back with those of the flow, so the whole tree is rebuilt from one call
+        List<FlowExecution> flowExecutions = keycloakRestApi.getFlowExecutionTree(parentFlow);
+
+        Map<String, Config> configs = keycloakRestApi.getConfigs(
+                parentFlow.getRealm(),
+                flowExecutions.stream().map(FlowExecution::getAuthenticationConfig).filter(Objects::nonNull).toList()
+        );
+
+        // The executions of the flows enclosing the current execution, by level
+        List<List<AuthenticationFlowDefinition.Execution>> levels = new ArrayList<>();
+        levels.add(results);
+
         for (FlowExecution flowExecution:flowExecutions) {
-            flowExecutionMap.put(flowExecution.getDisplayName(), flowExecution);
-            String key = String.format("%s:%s", flowExecution.getProviderId(), flowExecution.getAlias());
-            authenticatorExecutionMap.put(key, flowExecution);
-        }
 
-        for (Flow.AuthenticationExecution authenticationExecution:parentFlow.getAuthenticationExecutions()) {
+            if (flowExecution.getLevel() >= levels.size()) {
+                throw new IllegalStateException(String.format("%s flow execution %s of %s has no parent", parentFlow.getRealm(), flowExecution.getDisplayName(), parentFlow.getAlias()));
+            }
+
+            List<AuthenticationFlowDefinition.Execution> siblings = levels.get(flowExecution.getLevel());
 
-            if (Boolean.TRUE.equals(authenticationExecution.getAuthenticatorFlow())) {
+            if (flowExecution.getFlowId() != null) {
 
-                FlowExecution flowExecution = flowExecutionMap.get(authenticationExecution.getFlowAlias());
                 AuthenticationFlowDefinition.Execution.Flow execution = new AuthenticationFlowDefinition.Execution.Flow();
+                execution.setProviderId(flowExecution.getProviderId());
                 execution.setDisplayName(flowExecution.getDisplayName());
                 execution.setDescription(flowExecution.getDescription());
                 execution.setRequirement(flowExecution.getRequirement());
                 execution.setIndex(flowExecution.getIndex());
-                String subFlowId = flowExecution.getFlowId();
-
-                Flow subFlow = keycloakRestApi.getSubFlow(parentFlow, subFlowId);
-
-                execution.setProviderId(subFlow.getProviderId());
 
-                List<AuthenticationFlowDefinition.Execution> executions = getExecutionDefinitions(subFlow);
+                siblings.add(execution);
 
-                execution.getExecutions().addAll(executions);
-
-                execution.getExecutions().sort(Comparator.comparingInt(AuthenticationFlowDefinition.Execution::getIndex));
-
-                results.add(execution);
+                // The executions that follow, down to the next one at this level or above, belong to this sub-flow
+                levels.subList(flowExecution.getLevel() + 1, levels.size()).clear();
+                levels.add(execution.getExecutions());
             } else {
-                String key = String.format("%s:%s", authenticationExecution.getAuthenticator(), authenticationExecution.getAuthenticatorConfig());
-                FlowExecution flowExecution = authenticatorExecutionMap.get(key);
-
 
                 AuthenticationFlowDefinition.Execution.Authenticator execution = new AuthenticationFlowDefinition.Execution.Authenticator();
                 execution.setProviderId(flowExecution.getProviderId());
@@ -589,18 +593,36 @@ public class AuthenticationFlowExecutionConfigurer {
 
                 String configId = flowExecution.getAuthenticationConfig();
                 if (configId!=null) {
-                    Config config = keycloakRestApi.getConfig(parentFlow.getRealm(), configId);
+                    Config config = configs.get(configId);
                     execution.getConfig().put("name", config.getAlias());
                     execution.getConfig().putAll(config.getConfig());
                 }
 
-                results.add(execution);
+                siblings.add(execution);
             }
         }
 
+        sortExecutions(results);
+
         return results;
     }
 
+    /**
+     * Ensure that the executions of the sub-flows are in the correct order, the caller orders the top level.
+     */
+    private static void sortExecutions(
+            List<AuthenticationFlowDefinition.Execution> executions
+    ) {
+        for (AuthenticationFlowDefinition.Execution execution:executions) {
+
+            if (execution instanceof AuthenticationFlowDefinition.Execution.Flow flow) {
+
+                flow.getExecutions().sort(Comparator.comparingInt(AuthenticationFlowDefinition.Execution::getIndex));
+                sortExecutions(flow.getExecutions());
+            }
+        }
+    }
+
     private void applyDefinition(
             AuthenticationFlowDefinition.Execution.Flow definition,
             FlowExecution resource
@@ -1,15 +1,19 @@
 package com.paulhowells.keycloak.configurer;
 
 import com.paulhowells.keycloak.configurer.model.ClientDefinition;
+import com.paulhowells.keycloak.configurer.model.DefinitionDiff;
 import com.paulhowells.keycloak.configurer.model.KeycloakDefinition;
 import com.paulhowells.keycloak.configurer.rest.client.KeycloakRestApi;
+import com.paulhowells.keycloak.configurer.rest.client.RealmLookupIndex;
 import com.paulhowells.keycloak.configurer.rest.client.model.Client;
 import com.paulhowells.keycloak.configurer.rest.client.model.ClientSecret;
-import com.paulhowells.keycloak.configurer.rest.client.model.Flow;
+import com.paulhowells.keycloak.configurer.rest.client.model.PartialImport;
 import com.paulhowells.keycloak.configurer.rest.client.model.Realm;
 import org.slf4j.Logger;
 
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 import static com.paulhowells.keycloak.configurer.rest.client.model.Client.*;
 import static com.paulhowells.keycloak.configurer.rest.client.model.Realm.BROWSER_FLOW_KEY;
@@ -18,10 +22,12 @@ import static com.paulhowells.keycloak.configurer.rest.client.model.Realm.DIRECT
 public class ClientConfigurer {
     private static final String MANAGED_BY_ATTRIBUTE = "managed-by";
     private static final String MANAGED_BY_ATTRIBUTE_VALUE = "client-configurer";
+    private static final String SCOPES_PROPERTY = "scopes";
 
     private final Logger logger;
     private final KeycloakRestApi keycloakRestApi;
     private final ClientScopeConfigurer clientScopeConfigurer;
+    private final PartialImporter partialImporter;
 
     ClientConfigurer(
             KeycloakRestApi keycloakRestApi,
@@ -32,6 +38,10 @@ public class ClientConfigurer {
                 keycloakRestApi,
                 logger
         );
+        this.partialImporter = new PartialImporter(
+                keycloakRestApi,
+                logger
+        );
     }
 
     boolean validateDefinitions(
@@ -94,10 +104,45 @@ public class ClientConfigurer {
             boolean deleteManagedResourcesWhenRemoved
     ) {
 
+        return applyClients(keycloakDefinition, deleteManagedResourcesWhenRemoved, null);
+    }
+
+    /**
+     * Apply the client definitions, limiting the existing clients considered to the provided realm names.
+     * A null set of realm names will consider the clients of all the existing realms.
+     */
+    boolean applyClients(
+            KeycloakDefinition keycloakDefinition,
+            boolean deleteManagedResourcesWhenRemoved,
+            Set<String> realmNames
+    ) {
+        return applyClientsTo(keycloakDefinition, deleteManagedResourcesWhenRemoved, getResourceMap(realmNames));
+    }
+
+    /**
+     * Apply the client definitions of a single realm, starting from the clients already read from it.
+     */
+    boolean applyClients(
+            KeycloakDefinition keycloakDefinition,
+            boolean deleteManagedResourcesWhenRemoved,
+            String realmName,
+            List<Client> existingClients
+    ) {
+        Map<String, Client> existingClientMap = new HashMap<>();
+        addResources(existingClientMap, realmName, existingClients.stream());
+
+        return applyClientsTo(keycloakDefinition, deleteManagedResourcesWhenRemoved, existingClientMap);
+    }
+
+    private boolean applyClientsTo(
+            KeycloakDefinition keycloakDefinition,
+            boolean deleteManagedResourcesWhenRemoved,
+            Map<String, Client> existingClientMap
+    ) {
+
         List<ClientDefinition> insertClientDefinitions = new ArrayList<>();
         Map<String, ClientDefinition> updateClientPkMap = new HashMap<>();
         Set<Client> referencedClients = new HashSet<>();
-        Map<String, Client> existingClientMap = getResourceMap();
 
         // Identify if the resource is new or if a resource needs to be updated
         // Keep track of which resource are in use, so we know which ones need to be deleted later
@@ -120,7 +165,137 @@ public class ClientConfigurer {
         );
     }
 
-    private Map<String, Client> getResourceMap() {
+    /**
+     * Identify the client operations without making any changes.
+     */
+    List<PlannedOperation> planClients(
+            KeycloakDefinition keycloakDefinition,
+            boolean deleteManagedResourcesWhenRemoved,
+            Set<String> realmNames
+    ) {
+        List<PlannedOperation> result = new ArrayList<>();
+
+        List<ClientDefinition> insertClientDefinitions = new ArrayList<>();
+        Map<String, ClientDefinition> updateClientPkMap = new HashMap<>();
+        Set<Client> referencedClients = new HashSet<>();
+        Map<String, Client> existingClientMap = getResourceMap(realmNames);
+
+        identifyUpdates(
+                existingClientMap,
+                keycloakDefinition,
+                insertClientDefinitions,
+                updateClientPkMap,
+                referencedClients
+        );
+
+        List<String> referencedClientKeys = getReferencedResourceKeys(referencedClients);
+        Map<String, Client> removedClientMap = getRemovedResourceMap(existingClientMap, referencedClientKeys);
+
+        for (Client client:removedClientMap.values()) {
+
+            if (isManaged(client)) {
+
+                if (deleteManagedResourcesWhenRemoved) {
+
+                    result.add(PlannedOperation.of(PlannedOperation.Type.DELETE, PlannedOperation.ResourceType.CLIENT, client.getRealm(), client.getClientId(), client.getId()));
+                } else if (Boolean.TRUE.equals(client.getEnabled())) {
+
+                    result.add(PlannedOperation.of(PlannedOperation.Type.DISABLE, PlannedOperation.ResourceType.CLIENT, client.getRealm(), client.getClientId(), client.getId()));
+                }
+            }
+        }
+
+        for (ClientDefinition clientDefinition:insertClientDefinitions) {
+
+            result.add(PlannedOperation.of(PlannedOperation.Type.CREATE, PlannedOperation.ResourceType.CLIENT, clientDefinition.getRealmName(), clientDefinition.getClientId(), null));
+        }
+
+        for (ClientDefinition clientDefinition:updateClientPkMap.values()) {
+
+            Client client = existingClientMap.get(getKey(clientDefinition.getRealmName(), clientDefinition.getClientId()));
+
+            // Don't update an unmanaged client
+            if (isManaged(client)) {
+
+                List<String> changes = getChanges(getDefinition(client), clientDefinition);
+
+                if (changes.isEmpty()) {
+
+                    logger.debug("No change to {} client {}", clientDefinition.getRealmName(), clientDefinition.getClientId());
+                } else {
+
+                    result.add(PlannedOperation.of(PlannedOperation.Type.UPDATE, PlannedOperation.ResourceType.CLIENT, clientDefinition.getRealmName(), clientDefinition.getClientId(), clientDefinition.getId(), changes));
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * @return the paths of the client properties, and of the scopes, that differ
+     */
+    private static List<String> getChanges(
+            ClientDefinition current,
+            ClientDefinition updated
+    ) {
+        List<String> result = new ArrayList<>();
+
+        current.getChanges(updated, null).forEach(it -> result.add(it.path()));
+
+        // The scopes are reconciled by name
+        Map<String, ClientDefinition.Scope> updatedScopes = new HashMap<>();
+        updated.getScopes().values().forEach(it -> updatedScopes.put(it.getName(), it));
+
+        DefinitionDiff.diff(current.getScopes(), updatedScopes, SCOPES_PROPERTY).forEach(it -> result.add(it.path()));
+
+        return result;
+    }
+
+    /**
+     * Apply a single planned client operation.
+     */
+    boolean applyOperation(
+            PlannedOperation operation,
+            KeycloakDefinition keycloakDefinition,
+            boolean deleteManagedResourcesWhenRemoved
+    ) {
+        boolean result = false;
+
+        switch (operation.type()) {
+            case CREATE -> {
+                createResource(findDefinition(operation, keycloakDefinition));
+                result = true;
+            }
+            case UPDATE -> {
+                ClientDefinition clientDefinition = findDefinition(operation, keycloakDefinition);
+                clientDefinition.setId(operation.resourceId());
+                result = applyChanges(clientDefinition, operation.getChangedProperties());
+            }
+            case DISABLE, DELETE -> {
+                Client client = keycloakRestApi.getClient(operation.realmName(), operation.resourceId());
+                if (client != null) {
+                    result = removeResource(client, deleteManagedResourcesWhenRemoved);
+                }
+            }
+        }
+
+        return result;
+    }
+
+    private static ClientDefinition findDefinition(
+            PlannedOperation operation,
+            KeycloakDefinition keycloakDefinition
+    ) {
+        String key = getKey(operation.realmName(), operation.name());
+
+        return keycloakDefinition.getClients().stream()
+                .filter(it -> getKey(it.getRealmName(), it.getClientId()).equals(key))
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException(String.format("No Client Definition for %s", operation.id())));
+    }
+
+    private Map<String, Client> getResourceMap(Set<String> realmNames) {
         Map<String, Client> results = new HashMap<>();
 
         List<Realm> realms = keycloakRestApi.getRealms();
@@ -129,25 +304,27 @@ public class ClientConfigurer {
 
             String realmName = realm.getRealm();
 
-            int pageOffset = 0;
-            int pageSize = 10;
-            int pageCount;
-            do {
-                List<Client> clients = keycloakRestApi.getClients(realmName, pageOffset, pageOffset + pageSize);
+            if (realmNames != null && !realmNames.contains(realmName)) {
+                continue;
+            }
 
-                for (Client client:clients) {
+            addResources(results, realmName, keycloakRestApi.getClientPager(realmName).stream());
+        }
 
-                    String clientKey = getKey(realmName, client.getClientId());
+        return results;
+    }
 
-                    results.put(clientKey, client);
-                }
+    private static void addResources(
+            Map<String, Client> results,
+            String realmName,
+            Stream<Client> clients
+    ) {
+        clients.forEach(client -> {
 
-                pageCount = clients.size();
-                pageOffset += pageCount;
-            } while (pageCount >= pageSize);
-        }
+            String clientKey = getKey(realmName, client.getClientId());
 
-        return results;
+            results.put(clientKey, client);
+        });
     }
 
     private void identifyUpdates(
@@ -196,11 +373,18 @@ public class ClientConfigurer {
             ) || result;
         }
 
-        // Insert the new  Clients
+        // Insert the new  Clients, importing each realm's in batches
+        Map<String, List<ClientDefinition>> insertDefinitionsByRealm = new LinkedHashMap<>();
         for (ClientDefinition clientDefinition:insertDefinitions) {
 
-            createResource(
-                    clientDefinition
+            insertDefinitionsByRealm.computeIfAbsent(clientDefinition.getRealmName(), k -> new ArrayList<>()).add(clientDefinition);
+        }
+
+        for (String realmName:insertDefinitionsByRealm.keySet()) {
+
+            createResources(
+                    realmName,
+                    insertDefinitionsByRealm.get(realmName)
             );
             result = true;
         }
@@ -258,27 +442,75 @@ public class ClientConfigurer {
         return result;
     }
 
-    private void createResource(
-            ClientDefinition clientDefinition
+    private void createResources(
+            String realmName,
+            List<ClientDefinition> clientDefinitions
     ) {
-        logger.debug("<createResource");
+        logger.debug("<createResources");
+
+        partialImporter.create(
+                realmName,
+                PartialImporter.RESOURCE_TYPE_CLIENT,
+                clientDefinitions,
+                batch -> PartialImport.ofClients(batch.stream().map(clientDefinition -> {
+
+                    Client client = newResource(clientDefinition);
+
+                    // The import assigns the scopes by name, so they do not have to be added one at a time
+                    clientDefinition.getScopes().values().forEach(scope -> {
+                        switch (scope.getType()) {
+                            case "default" -> client.getDefaultClientScopes().add(scope.getName());
+                            case "optional" -> client.getOptionalClientScopes().add(scope.getName());
+                            default -> { }
+                        }
+                    });
+
+                    return client;
+                }).toList()),
+                ClientDefinition::getClientId,
+                () -> {
+                    Map<String, String> ids = new HashMap<>();
+                    keycloakRestApi.getClientPager(realmName).stream().forEach(it -> ids.put(it.getClientId(), it.getId()));
+                    return ids;
+                },
+                // The imported scope lists are the complete assignment, so the scopes are not applied again
+                (clientDefinition, id) -> logger.debug("Created {} client {} {}", realmName, clientDefinition.getClientId(), id),
+                this::createResource
+        );
 
+        logger.debug(">createResources");
+    }
+
+    private Client newResource(
+            ClientDefinition clientDefinition
+    ) {
         logger.info("Creating {} client {}", clientDefinition.getRealmName(), clientDefinition.getClientId());
 
-        Client client = new Client();
+        Client result = new Client();
 
         // Apply changes to resource
         applyDefinition(
                 clientDefinition,
-                client
+                result
         );
 
         // Tag the resource as managed by the Keycloak Configurer
-        client.getAttributes().put(MANAGED_BY_ATTRIBUTE, MANAGED_BY_ATTRIBUTE_VALUE);
+        result.getAttributes().put(MANAGED_BY_ATTRIBUTE, MANAGED_BY_ATTRIBUTE_VALUE);
+
+        return result;
+    }
+
+    private void createResource(
+            ClientDefinition clientDefinition
+    ) {
+        logger.debug("<createResource");
+
+        Client client = newResource(clientDefinition);
 
         String id = keycloakRestApi.createClient(clientDefinition.getRealmName(), client);
 
-        client = keycloakRestApi.getClient(clientDefinition.getRealmName(), id);
+        client.setId(id);
+        client.setRealm(clientDefinition.getRealmName());
 
         clientScopeConfigurer.applyScopes(
                 client,
@@ -347,31 +579,82 @@ public class ClientConfigurer {
         return result;
     }
 
-    List<ClientDefinition> getDefinitions(Realm realm) {
-        List<ClientDefinition> results = new ArrayList<>();
+    /**
+     * Write the planned changes without reading the current definition again.
+     *
+     * @param changedProperties the top level properties that differ from the client, scopes for the client's scopes
+     */
+    private boolean applyChanges(
+            ClientDefinition clientDefinition,
+            Set<String> changedProperties
+    ) {
+        logger.debug("<applyChanges");
+        boolean result = false;
 
-        int pageOffset = 0;
-        int pageSize = 10;
-        int pageCount;
-        do {
-            List<Client> resources = keycloakRestApi.getClients(realm.getRealm(), pageOffset, pageOffset + pageSize);
+        Client client = keycloakRestApi.getClient(
+                clientDefinition.getRealmName(),
+                clientDefinition.getId()
+        );
 
-            for (Client resource:resources) {
+        if (client != null && isManaged(client)) {
 
-                if (ClientConfigurer.isManaged(resource)) {
+            if (changedProperties.stream().anyMatch(it -> !SCOPES_PROPERTY.equals(it))) {
 
-                    ClientDefinition definition = getDefinition(resource);
-                    results.add(definition);
-                }
+                logger.info("Updating {} client {}", clientDefinition.getRealmName(), clientDefinition.getClientId());
+
+                applyDefinition(
+                        clientDefinition,
+                        client
+                );
+
+                client.getAttributes().put(MANAGED_BY_ATTRIBUTE, MANAGED_BY_ATTRIBUTE_VALUE);
+
+                keycloakRestApi.updateClient(
+                        clientDefinition.getRealmName(),
+                        clientDefinition.getId(),
+                        client
+                );
+                result = true;
+            }
+
+            if (changedProperties.contains(SCOPES_PROPERTY)) {
+
+                result = clientScopeConfigurer.applyScopes(
+                        client,
+                        clientDefinition
+                ) || result;
             }
+        }
+
+        logger.debug(">applyChanges {}", result);
+        return result;
+    }
+
+    List<ClientDefinition> getDefinitions(Realm realm) {
+        List<ClientDefinition> results = new ArrayList<>();
 
-            pageCount = resources.size();
-            pageOffset += pageCount;
-        } while (pageCount >= pageSize);
+        forEachDefinition(realm, results::add);
 
         return results;
     }
 
+    /**
+     * Provide the definition of each managed client as it is read, a page of clients at a time.  What was read for
+     * each client is dropped from the snapshot once it has been provided.
+     */
+    void forEachDefinition(Realm realm, Consumer<ClientDefinition> consumer) {
+
+        keycloakRestApi.getClientPager(realm.getRealm()).stream()
+                .filter(ClientConfigurer::isManaged)
+                .forEach(resource -> {
+
+                    ClientDefinition definition = getDefinition(resource);
+                    consumer.accept(definition);
+
+                    keycloakRestApi.evictClientSnapshot(resource.getRealm(), resource.getId());
+                });
+    }
+
     private ClientDefinition getDefinition(
             Client resource
     ) {
@@ -405,8 +688,7 @@ public class ClientConfigurer {
             String authenticationFlowId = resource.getAuthenticationFlowBindingOverrides().get(BROWSER_FLOW_KEY);
             if (authenticationFlowId!=null) {
 
-                Flow authenticationFlow = keycloakRestApi.getTopLevelFlow(resource.getRealm(), authenticationFlowId);
-                authorizationCodeGrant.setFlowOverride(authenticationFlow.getAlias());
+                authorizationCodeGrant.setFlowOverride(keycloakRestApi.getLookupIndex().getFlowAlias(resource.getRealm(), authenticationFlowId));
             }
         }
 
@@ -417,8 +699,7 @@ public class ClientConfigurer {
             String authenticationFlowId = resource.getAuthenticationFlowBindingOverrides().get(DIRECT_GRANT_FLOW_KEY);
             if (authenticationFlowId!=null) {
 
-                Flow authenticationFlow = keycloakRestApi.getTopLevelFlow(resource.getRealm(), authenticationFlowId);
-                passwordGrant.setFlowOverride(authenticationFlow.getAlias());
+                passwordGrant.setFlowOverride(keycloakRestApi.getLookupIndex().getFlowAlias(resource.getRealm(), authenticationFlowId));
             }
         }
 
@@ -483,7 +764,7 @@ public class ClientConfigurer {
         resource.getAttributes().remove(OIDC_CIBA_GRANT_ATTRIBUTE);
         resource.getWebOrigins().clear();
 
-        List<Flow> authenticationFlows = keycloakRestApi.getTopLevelFlows(definition.getRealmName());
+        RealmLookupIndex lookupIndex = keycloakRestApi.getLookupIndex();
 
         ClientDefinition.GrantTypes grantTypes = definition.getGrantTypes();
 
@@ -505,12 +786,12 @@ public class ClientConfigurer {
             if (flowOverride != null) {
 
                 // locate the specified flow in keycloak:
-                Flow authenticationFlow = authenticationFlows.stream().filter(it -> flowOverride.equals(it.getAlias())).toList().get(0);
+                String authenticationFlowId = lookupIndex.getFlowId(definition.getRealmName(), flowOverride);
 
-                if (authenticationFlow != null) {
+                if (authenticationFlowId != null) {
 
                     // add the flow as an override:
-                    resource.getAuthenticationFlowBindingOverrides().put(BROWSER_FLOW_KEY, authenticationFlow.getId());
+                    resource.getAuthenticationFlowBindingOverrides().put(BROWSER_FLOW_KEY, authenticationFlowId);
                 } else {
 
                     // if the specified flow cannot be found, the service client cannot be configured as intended:
@@ -528,19 +809,12 @@ public class ClientConfigurer {
             if (flowOverride != null) {
 
                 // locate the specified flow in keycloak:
-                Flow authenticationFlow = null;
-                for (Flow flow:authenticationFlows) {
-                    logger.debug(flow.getAlias());
-                    if (flowOverride.equals(flow.getAlias())) {
-                        authenticationFlow = flow;
-                        break;
-                    }
-                }
+                String authenticationFlowId = lookupIndex.getFlowId(definition.getRealmName(), flowOverride);
 
-                if (authenticationFlow != null) {
+                if (authenticationFlowId != null) {
 
                     // add the flow as an override:
-                    resource.getAuthenticationFlowBindingOverrides().put(DIRECT_GRANT_FLOW_KEY, authenticationFlow.getId());
+                    resource.getAuthenticationFlowBindingOverrides().put(DIRECT_GRANT_FLOW_KEY, authenticationFlowId);
                 } else {
 
                     // if the specified flow cannot be found, the service client cannot be configured as intended:
@@ -59,15 +59,14 @@ public class DefaultRoleConfigurer {
         String realmName = realm.getRealm();
         String defaultRoleId = realm.getDefaultRole().getId();
         
-        List<Role> roles = keycloakRestApi.getChildRoles(realmName, defaultRoleId);
+        // Only the role keys and ids are needed, so the brief representations are sufficient
+        List<Role> roles = keycloakRestApi.getChildRoles(realmName, defaultRoleId, true);
 
         for (Role role:roles) {
 
             if (Boolean.TRUE.equals(role.getClientRole())) {
 
-                Client client = keycloakRestApi.getClient(realmName, role.getContainerId());
-
-                role.setClientId(client.getClientId());
+                role.setClientId(keycloakRestApi.getLookupIndex().getClientId(realmName, role.getContainerId()));
             }
 
             String roleKey = getKey(role.getClientId(), role.getName());
@@ -173,30 +172,19 @@ public class DefaultRoleConfigurer {
 
         Role role = roleMap.get(getKey(definition));
 
-        String id = keycloakRestApi.addChildRole(realm.getRealm(), realm.getDefaultRole().getId(), role.getId());
+        keycloakRestApi.addChildRole(realm.getRealm(), realm.getDefaultRole().getId(), role.getId());
 
-        role = keycloakRestApi.getRole(realm.getRealm(), id);
         logger.debug(">createResource {}", role);
     }
 
     Map<String, RealmDefinition.DefaultRole> getDefinitions(Realm realm) {
         Map<String, RealmDefinition.DefaultRole> result = new HashMap<>();
 
-        int pageOffset = 0;
-        int pageSize = 10;
-        int pageCount;
-        do {
-            List<Role> resources = keycloakRestApi.getRoles(realm.getRealm(), pageOffset, pageOffset + pageSize);
-
-            for (Role resource:resources) {
+        keycloakRestApi.getRolePager(realm.getRealm()).stream().forEach(resource -> {
 
-                RealmDefinition.DefaultRole definition = getDefinition(resource);
-                result.put(resource.getName(), definition);
-            }
-
-            pageCount = resources.size();
-            pageOffset += pageCount;
-        } while (pageCount >= pageSize);
+            RealmDefinition.DefaultRole definition = getDefinition(resource);
+            result.put(resource.getName(), definition);
+        });
 
         return result;
     }
@@ -210,8 +198,7 @@ public class DefaultRoleConfigurer {
 
         if (Boolean.TRUE.equals(resource.getClientRole())) {
 
-            Client client = keycloakRestApi.getClient(resource.getRealm(), resource.getContainerId());
-            result.setClientId(client.getClientId());
+            result.setClientId(keycloakRestApi.getLookupIndex().getClientId(resource.getRealm(), resource.getContainerId()));
         }
 
         return result;
@@ -255,41 +242,14 @@ public class DefaultRoleConfigurer {
 
         String realmName = realm.getRealm();
 
-        {
-            int pageOffset = 0;
-            int pageSize = 10;
-            int pageCount;
-            do {
-                List<Role> roles = keycloakRestApi.getRoles(realmName, pageOffset, pageOffset + pageSize);
-
-                for (Role role : roles) {
-
-                    String roleKey = getKey(null, role.getName());
-
-                    results.put(roleKey, role);
-                }
-
-                pageCount = roles.size();
-                pageOffset += pageCount;
-            } while (pageCount >= pageSize);
-        }
+        keycloakRestApi.getRolePager(realmName).stream().forEach(role -> {
 
-        {
-            int pageOffset = 0;
-            int pageSize = 10;
-            int pageCount;
-            do {
-                List<Client> clients = keycloakRestApi.getClients(realmName, pageOffset, pageOffset + pageSize);
+            String roleKey = getKey(null, role.getName());
 
-                for (Client client : clients) {
-
-                    results.putAll(getRoleMap(client));
-                }
+            results.put(roleKey, role);
+        });
 
-                pageCount = clients.size();
-                pageOffset += pageCount;
-            } while (pageCount >= pageSize);
-        }
+        keycloakRestApi.getClientPager(realmName).stream().forEach(client -> results.putAll(getRoleMap(client)));
 
         return results;
     }
@@ -297,27 +257,17 @@ public class DefaultRoleConfigurer {
     private Map<String, Role> getRoleMap(Client client) {
         Map<String, Role> results = new HashMap<>();
 
-        int pageOffset = 0;
-        int pageSize = 10;
-        int pageCount;
-        do {
-            List<Role> roles = keycloakRestApi.getClientRoles(client.getRealm(), client.getId(), pageOffset, pageOffset + pageSize);
-
-            for (Role role : roles) {
+        keycloakRestApi.getClientRolePager(client.getRealm(), client.getId()).stream().forEach(role -> {
 
-                if (!client.getId().equals(role.getContainerId())) {
+            if (!client.getId().equals(role.getContainerId())) {
 
-                    throw new IllegalStateException("Expecting roles containerId to match client id");
-                }
-
-                String roleKey = getKey(role.getContainerId(), role.getName());
-
-                results.put(roleKey, role);
+                throw new IllegalStateException("Expecting roles containerId to match client id");
             }
 
-            pageCount = roles.size();
-            pageOffset += pageCount;
-        } while (pageCount >= pageSize);
+            String roleKey = getKey(role.getContainerId(), role.getName());
+
+            results.put(roleKey, role);
+        });
 
         return results;
     }
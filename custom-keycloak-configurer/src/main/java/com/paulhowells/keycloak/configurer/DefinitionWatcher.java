@@ -0,0 +1,127 @@
+package com.paulhowells.keycloak.configurer;
+
+import org.slf4j.Logger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * Watches a definitions directory, and its sub directories, for changes.
+ * <p>
+ * Editors and deployments tend to write several files, or the same file several times, in quick succession, so once a
+ * change is seen the watcher waits until the directory has been quiet for the debounce period and reports the whole
+ * burst together.
+ */
+class DefinitionWatcher implements Closeable {
+
+    private final Logger logger;
+    private final long debounceMillis;
+    private final WatchService watchService;
+    private final Map<WatchKey, Path> directories = new HashMap<>();
+
+    DefinitionWatcher(
+            Path directory,
+            long debounceMillis,
+            Logger logger
+    ) throws IOException {
+        this.logger = logger;
+        this.debounceMillis = debounceMillis;
+        this.watchService = directory.getFileSystem().newWatchService();
+
+        register(directory);
+    }
+
+    /**
+     * Wait for the next burst of changes.
+     *
+     * @return the files and directories that were created, modified, or deleted, or null when the changes could not all
+     * be identified and every definition has to be reloaded
+     */
+    Set<Path> awaitChanges() throws IOException, InterruptedException {
+        logger.debug("<awaitChanges");
+
+        Set<Path> result = new LinkedHashSet<>();
+
+        WatchKey key = watchService.take();
+
+        boolean complete = true;
+        while (key != null) {
+
+            complete = poll(key, result) && complete;
+
+            key = watchService.poll(debounceMillis, TimeUnit.MILLISECONDS);
+        }
+
+        logger.debug(">awaitChanges {}", complete ? result.size() : "all");
+        return complete ? result : null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+    }
+
+    /**
+     * @return false when events were lost
+     */
+    private boolean poll(WatchKey key, Set<Path> changedPaths) throws IOException {
+
+        boolean result = true;
+
+        Path parent = directories.get(key);
+
+        for (WatchEvent<?> event:key.pollEvents()) {
+
+            if (event.kind() == OVERFLOW || parent == null) {
+
+                result = false;
+                continue;
+            }
+
+            Path path = parent.resolve((Path) event.context());
+
+            // A Kubernetes ConfigMap volume is updated by swapping its hidden ..data link, which only shows up as a
+            // change to the top directory
+            if (path.getFileName().toString().startsWith("..")) {
+
+                result = false;
+                continue;
+            }
+
+            logger.debug("{} {}", event.kind().name(), path);
+
+            changedPaths.add(path);
+
+            if (event.kind() == ENTRY_CREATE && Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)) {
+                register(path);
+            }
+        }
+
+        if (!key.reset()) {
+            directories.remove(key);
+        }
+
+        return result;
+    }
+
+    private void register(Path start) throws IOException {
+
+        try (Stream<Path> stream = Files.walk(start)) {
+
+            for (Path path:stream.filter(Files::isDirectory).toList()) {
+
+                directories.put(path.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE), path);
+                logger.debug("Watching {}", path);
+            }
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.paulhowells.keycloak.configurer;
 
 import com.paulhowells.keycloak.configurer.model.EmailSettings;
 import com.paulhowells.keycloak.configurer.rest.client.KeycloakRestApi;
+import com.paulhowells.keycloak.configurer.rest.client.model.NewRealm;
 import com.paulhowells.keycloak.configurer.rest.client.model.Realm;
 import com.paulhowells.keycloak.configurer.rest.client.model.SmtpServer;
 import org.slf4j.Logger;
@@ -50,6 +51,15 @@ public class EmailSettingsConfigurer {
         return result;
     }
 
+    void applyToNewRealm(
+            NewRealm realm,
+            EmailSettings definition
+    ) {
+        if (definition != null) {
+            applyDefinition(definition, realm);
+        }
+    }
+
     private boolean isDirty(
             EmailSettings current,
             EmailSettings updated) {
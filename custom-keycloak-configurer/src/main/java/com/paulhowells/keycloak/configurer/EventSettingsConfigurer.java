@@ -3,6 +3,7 @@ package com.paulhowells.keycloak.configurer;
 import com.paulhowells.keycloak.configurer.model.EventSettings;
 import com.paulhowells.keycloak.configurer.rest.client.KeycloakRestApi;
 import com.paulhowells.keycloak.configurer.rest.client.model.EventsConfig;
+import com.paulhowells.keycloak.configurer.rest.client.model.NewRealm;
 import com.paulhowells.keycloak.configurer.rest.client.model.Realm;
 import org.slf4j.Logger;
 
@@ -56,6 +57,25 @@ public class EventSettingsConfigurer {
         return result;
     }
 
+    void applyToNewRealm(
+            NewRealm realm,
+            EventSettings definition
+    ) {
+        if (definition != null) {
+
+            EventsConfig eventsConfig = new EventsConfig();
+
+            applyDefinition(definition, realm, eventsConfig);
+
+            realm.setEventsListeners(eventsConfig.getEventsListeners());
+            realm.setEventsEnabled(eventsConfig.getEventsEnabled());
+            realm.setEventsExpiration(eventsConfig.getEventsExpiration());
+            realm.setEnabledEventTypes(eventsConfig.getEnabledEventTypes());
+            realm.setAdminEventsEnabled(eventsConfig.getAdminEventsEnabled());
+            realm.setAdminEventsDetailsEnabled(eventsConfig.getAdminEventsDetailsEnabled());
+        }
+    }
+
     private boolean isDirty(
             EventSettings current,
             EventSettings updated) {
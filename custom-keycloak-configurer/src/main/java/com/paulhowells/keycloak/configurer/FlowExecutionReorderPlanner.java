@@ -0,0 +1,277 @@
+package com.paulhowells.keycloak.configurer;
+
+import com.paulhowells.keycloak.configurer.rest.client.KeycloakRestApi;
+import com.paulhowells.keycloak.configurer.rest.client.model.Flow;
+import com.paulhowells.keycloak.configurer.rest.client.model.FlowExecution;
+
+import java.util.*;
+
+/**
+ * Plans the REST calls required to re-order the executions of a flow.
+ * <p>
+ * Servers that support setting the priority of an execution (Keycloak 25 and later) only need one update for each
+ * execution that is not part of the longest increasing subsequence of the current order, as those executions can stay
+ * where they are.  Older servers can only move an execution one position at a time, so the executions are raised into
+ * place in the desired order, which takes one call for each pair of executions that are out of order.
+ */
+class FlowExecutionReorderPlanner {
+
+    static final int PRIORITY_STEP = 10;
+
+    private static final int MINIMUM_PRIORITY_VERSION = 25;
+
+    enum MoveType { RAISE_PRIORITY, SET_PRIORITY }
+
+    record Move(FlowExecution flowExecution, MoveType type, int priority) {
+
+        static Move raise(FlowExecution flowExecution) {
+            return new Move(flowExecution, MoveType.RAISE_PRIORITY, 0);
+        }
+
+        static Move setPriority(FlowExecution flowExecution, int priority) {
+            return new Move(flowExecution, MoveType.SET_PRIORITY, priority);
+        }
+    }
+
+    private FlowExecutionReorderPlanner() {
+    }
+
+    static boolean supportsPriority(String serverVersion) {
+        boolean result = false;
+
+        if (serverVersion != null) {
+
+            String major = serverVersion.split("[.-]")[0];
+
+            try {
+                result = Integer.parseInt(major) >= MINIMUM_PRIORITY_VERSION;
+            } catch (NumberFormatException e) {
+                result = false;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * @param flowExecutions the current executions in their current order
+     * @param displayNames the display names of the same executions in the desired order
+     */
+    static List<Move> plan(
+            List<FlowExecution> flowExecutions,
+            List<String> displayNames,
+            boolean supportsPriority
+    ) {
+        Map<String, FlowExecution> flowExecutionMap = getFlowExecutionMap(flowExecutions, displayNames);
+
+        List<Move> result;
+
+        if (supportsPriority && flowExecutions.stream().allMatch(it -> it.getPriority() != null)) {
+
+            result = planPriorityMoves(flowExecutions, displayNames, flowExecutionMap);
+        } else {
+
+            result = planStepMoves(flowExecutions, displayNames, flowExecutionMap);
+        }
+
+        return result;
+    }
+
+    static void apply(
+            KeycloakRestApi keycloakRestApi,
+            Flow parentFlow,
+            List<Move> moves
+    ) {
+        for (Move move:moves) {
+
+            FlowExecution flowExecution = move.flowExecution();
+
+            switch (move.type()) {
+                case RAISE_PRIORITY -> keycloakRestApi.raiseFlowExecutionPriority(parentFlow.getRealm(), flowExecution.getId());
+                case SET_PRIORITY -> {
+                    flowExecution.setPriority(move.priority());
+                    keycloakRestApi.updateFlowExecution(parentFlow, flowExecution);
+                }
+            }
+        }
+    }
+
+    private static List<Move> planStepMoves(
+            List<FlowExecution> flowExecutions,
+            List<String> displayNames,
+            Map<String, FlowExecution> flowExecutionMap
+    ) {
+        List<Move> result = new ArrayList<>();
+
+        List<String> order = new ArrayList<>(flowExecutions.stream().map(FlowExecution::getDisplayName).toList());
+
+        // Raise each execution into place, every raise swaps a pair that is out of order
+        for (int requiredIndex = 0; requiredIndex < displayNames.size(); ++requiredIndex) {
+
+            String displayName = displayNames.get(requiredIndex);
+            FlowExecution flowExecution = flowExecutionMap.get(displayName);
+
+            for (int currentIndex = order.indexOf(displayName); currentIndex > requiredIndex; --currentIndex) {
+
+                result.add(Move.raise(flowExecution));
+                Collections.swap(order, currentIndex, currentIndex - 1);
+            }
+        }
+
+        return result;
+    }
+
+    private static List<Move> planPriorityMoves(
+            List<FlowExecution> flowExecutions,
+            List<String> displayNames,
+            Map<String, FlowExecution> flowExecutionMap
+    ) {
+        List<Move> result = new ArrayList<>();
+
+        Set<String> stable = getStableDisplayNames(flowExecutions, displayNames);
+
+        Integer lower = null;
+        int index = 0;
+        while (index < displayNames.size()) {
+
+            FlowExecution flowExecution = flowExecutionMap.get(displayNames.get(index));
+
+            if (stable.contains(flowExecution.getDisplayName())) {
+
+                int priority = flowExecution.getPriority();
+                if (lower != null && priority <= lower) {
+                    // The current priorities are not distinct, so they need to be re-numbered
+                    return planRenumberMoves(displayNames, flowExecutionMap);
+                }
+
+                lower = priority;
+                ++index;
+            } else {
+
+                // Place the run of moved executions between the surrounding stable executions
+                int start = index;
+                while (index < displayNames.size() && !stable.contains(displayNames.get(index))) {
+                    ++index;
+                }
+                int count = index - start;
+
+                Integer upper = index < displayNames.size() ? flowExecutionMap.get(displayNames.get(index)).getPriority() : null;
+
+                if (lower != null && upper != null && upper - lower <= count) {
+                    // There is no room between the stable executions
+                    return planRenumberMoves(displayNames, flowExecutionMap);
+                }
+
+                for (int i = 1; i <= count; ++i) {
+
+                    int priority;
+                    if (upper == null) {
+                        priority = (lower == null ? 0 : lower) + i * PRIORITY_STEP;
+                    } else if (lower == null) {
+                        priority = upper - (count + 1 - i) * PRIORITY_STEP;
+                    } else {
+                        priority = lower + (int) ((long) (upper - lower) * i / (count + 1));
+                    }
+
+                    result.add(Move.setPriority(flowExecutionMap.get(displayNames.get(start + i - 1)), priority));
+                }
+
+                lower = result.get(result.size() - 1).priority();
+            }
+        }
+
+        return result;
+    }
+
+    private static List<Move> planRenumberMoves(
+            List<String> displayNames,
+            Map<String, FlowExecution> flowExecutionMap
+    ) {
+        List<Move> result = new ArrayList<>();
+
+        for (int index = 0; index < displayNames.size(); ++index) {
+
+            FlowExecution flowExecution = flowExecutionMap.get(displayNames.get(index));
+            int priority = (index + 1) * PRIORITY_STEP;
+
+            if (!Objects.equals(flowExecution.getPriority(), priority)) {
+                result.add(Move.setPriority(flowExecution, priority));
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * The executions in the longest increasing subsequence of desired positions, taken in the current order, are
+     * already in the correct relative order and do not need to move.
+     */
+    static Set<String> getStableDisplayNames(
+            List<FlowExecution> flowExecutions,
+            List<String> displayNames
+    ) {
+        Map<String, Integer> requiredIndexes = new HashMap<>();
+        for (int index = 0; index < displayNames.size(); ++index) {
+            requiredIndexes.put(displayNames.get(index), index);
+        }
+
+        int size = flowExecutions.size();
+        int[] positions = new int[size];
+        for (int index = 0; index < size; ++index) {
+            positions[index] = requiredIndexes.get(flowExecutions.get(index).getDisplayName());
+        }
+
+        // Patience sorting, tails holds the index of the smallest tail of each subsequence length
+        int[] tails = new int[size];
+        int[] previous = new int[size];
+        int length = 0;
+        for (int index = 0; index < size; ++index) {
+
+            int low = 0;
+            int high = length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (positions[tails[middle]] < positions[index]) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+
+            previous[index] = low > 0 ? tails[low - 1] : -1;
+            tails[low] = index;
+            if (low == length) {
+                ++length;
+            }
+        }
+
+        Set<String> result = new HashSet<>();
+        for (int index = length > 0 ? tails[length - 1] : -1; index >= 0; index = previous[index]) {
+            result.add(flowExecutions.get(index).getDisplayName());
+        }
+
+        return result;
+    }
+
+    private static Map<String, FlowExecution> getFlowExecutionMap(
+            List<FlowExecution> flowExecutions,
+            List<String> displayNames
+    ) {
+        if (flowExecutions.size() != displayNames.size()) {
+            throw new IllegalStateException("Not expecting the Flow Executions to out of sync with the Execution definitions");
+        }
+
+        Map<String, FlowExecution> result = new HashMap<>();
+        for (FlowExecution flowExecution:flowExecutions) {
+            result.put(flowExecution.getDisplayName(), flowExecution);
+        }
+
+        for (String displayName:displayNames) {
+            if (!result.containsKey(displayName)) {
+                throw new IllegalStateException(String.format("Not expecting a missing FlowExecution: %s", displayName));
+            }
+        }
+
+        return result;
+    }
+}
@@ -2,6 +2,7 @@ package com.paulhowells.keycloak.configurer;
 
 import com.paulhowells.keycloak.configurer.model.GeneralSettings;
 import com.paulhowells.keycloak.configurer.rest.client.KeycloakRestApi;
+import com.paulhowells.keycloak.configurer.rest.client.model.NewRealm;
 import com.paulhowells.keycloak.configurer.rest.client.model.Realm;
 import org.slf4j.Logger;
 
@@ -49,6 +50,15 @@ public class GeneralSettingsConfigurer {
         return result;
     }
 
+    void applyToNewRealm(
+            NewRealm realm,
+            GeneralSettings definition
+    ) {
+        if (definition != null) {
+            applyDefinition(definition, realm);
+        }
+    }
+
     private boolean isDirty(
             GeneralSettings current,
             GeneralSettings updated) {
@@ -5,6 +5,7 @@ import com.paulhowells.keycloak.configurer.model.IdentityProviderMapperDefinitio
 import com.paulhowells.keycloak.configurer.rest.client.KeycloakRestApi;
 import com.paulhowells.keycloak.configurer.rest.client.model.IdentityProvider;
 import com.paulhowells.keycloak.configurer.rest.client.model.IdentityProviderMapper;
+import com.paulhowells.keycloak.configurer.rest.client.model.NewRealm;
 import com.paulhowells.keycloak.configurer.rest.client.model.Realm;
 import org.slf4j.Logger;
 
@@ -233,22 +234,50 @@ public class GoolgeIdpConfigurer {
         return result;
     }
 
-    private void createResource(
-            Realm realm,
+    void applyToNewRealm(
+            NewRealm realm,
             GoogleIdentityProvider definition
     ) {
-        logger.debug("<createResource");
+        if (definition != null) {
+
+            realm.getIdentityProviders().add(newResource(realm, definition));
+
+            for (IdentityProviderMapperDefinition mapperDefinition:definition.getMappers()) {
+
+                realm.getIdentityProviderMappers().add(identityProviderMapperConfigurer.newResource(
+                        realm.getRealm(),
+                        GOOGLE_IDP_ALIAS,
+                        mapperDefinition
+                ));
+            }
+        }
+    }
 
+    private IdentityProvider newResource(
+            Realm realm,
+            GoogleIdentityProvider definition
+    ) {
         logger.info("Creating {} Google IDP", realm.getRealm());
 
-        IdentityProvider googleIdentityProvider = new IdentityProvider();
+        IdentityProvider result = new IdentityProvider();
 
         applyDefinition(
                 definition,
-                googleIdentityProvider
+                result
         );
 
-        googleIdentityProvider.getConfig().setManagedBy(MANAGED_BY_ATTRIBUTE_VALUE);
+        result.getConfig().setManagedBy(MANAGED_BY_ATTRIBUTE_VALUE);
+
+        return result;
+    }
+
+    private void createResource(
+            Realm realm,
+            GoogleIdentityProvider definition
+    ) {
+        logger.debug("<createResource");
+
+        IdentityProvider googleIdentityProvider = newResource(realm, definition);
 
         keycloakRestApi.addIdentityProvider(
                 realm.getRealm(),
@@ -155,31 +155,41 @@ public class IdentityProviderMapperConfigurer {
         return true;
     }
 
-    private void createResource(
+    IdentityProviderMapper newResource(
             String realmName,
             String idpAlias,
             IdentityProviderMapperDefinition definition
     ) {
-        logger.debug("<createResource");
-
         logger.info("Creating {} IDP mapper {} {}", realmName, idpAlias, definition.getName());
 
-        IdentityProviderMapper resource = new IdentityProviderMapper();
+        IdentityProviderMapper result = new IdentityProviderMapper();
 
         // Apply changes to resource
         applyDefinition(
                 definition,
-                resource
+                result
         );
 
-        resource.setIdentityProviderAlias(idpAlias);
+        result.setIdentityProviderAlias(idpAlias);
 
         // Tag the resource as managed by the Keycloak Configurer
-        resource.getConfig().put(MANAGED_BY_ATTRIBUTE, MANAGED_BY_ATTRIBUTE_VALUE);
+        result.getConfig().put(MANAGED_BY_ATTRIBUTE, MANAGED_BY_ATTRIBUTE_VALUE);
+
+        return result;
+    }
+
+    private void createResource(
+            String realmName,
+            String idpAlias,
+            IdentityProviderMapperDefinition definition
+    ) {
+        logger.debug("<createResource");
+
+        IdentityProviderMapper resource = newResource(realmName, idpAlias, definition);
 
         String id = keycloakRestApi.addIdentityProviderMapper(realmName, resource);
 
-        resource = keycloakRestApi.getIdentityProviderMapper(realmName, idpAlias, id);
+        resource.setId(id);
 
         logger.debug(">createResource {}", resource);
     }
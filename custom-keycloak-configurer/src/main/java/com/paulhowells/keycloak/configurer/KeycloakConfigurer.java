@@ -1,19 +1,26 @@
 package com.paulhowells.keycloak.configurer;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
 import com.paulhowells.keycloak.configurer.model.*;
+import com.paulhowells.keycloak.configurer.rest.client.KeycloakMetrics;
 import com.paulhowells.keycloak.configurer.rest.client.KeycloakRestApi;
 import com.paulhowells.keycloak.configurer.rest.client.model.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
 
 import java.io.IOException;
 import java.nio.file.*;
-import java.nio.file.attribute.BasicFileAttributes;
 import java.util.*;
-import java.util.function.Function;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static com.paulhowells.keycloak.configurer.rest.client.model.IdentityProvider.GOOGLE_IDP_ALIAS;
 
@@ -29,6 +36,10 @@ import static com.paulhowells.keycloak.configurer.rest.client.model.IdentityProv
 public class KeycloakConfigurer {
     private static final Logger logger = LoggerFactory.getLogger(KeycloakConfigurer.class);
 
+    private static final ObjectMapper planMapper = JsonMapper.builder()
+            .enable(SerializationFeature.INDENT_OUTPUT)
+            .build();
+
     private static final String DefaultBrowserFlowBindingReference = "Default Browser Flow Binding";
     private static final String DefaultRegistrationFlowBindingReference = "Default Registration Flow Binding";
     private static final String DefaultDirectGrantFlowBindingReference = "Default Direct Grant Flow Binding";
@@ -55,6 +66,9 @@ public class KeycloakConfigurer {
 
     private static final List<String> DefaultFlowAliases;
 
+    // How long the config directory has to be quiet before changes are applied in watch mode
+    private static final long WATCH_DEBOUNCE_MILLIS = 2000;
+
     static {
         DefaultFlowAliases = new ArrayList<>();
         DefaultFlowAliases.add(DefaultBrowserFlowAlias);
@@ -68,19 +82,60 @@ public class KeycloakConfigurer {
     public static final String KEYCLOAK_URL_ARG = "--keycloak-url=";
     public static final String KEYCLOAK_USERNAME_ARG = "--username=";
     public static final String KEYCLOAK_PASSWORD_ARG = "--password=";
+    public static final String PARALLELISM_ARG = "--parallelism=";
+    public static final String PAGE_SIZE_ARG = "--page-size=";
+    public static final String IMPORT_BATCH_SIZE_ARG = "--import-batch-size=";
+    public static final String FORCE_ARG = "--force";
+    public static final String HTTP2_ARG = "--http2";
+    public static final String PLAN_ARG = "--plan=";
+    public static final String APPLY_ARG = "--apply=";
+    public static final String DEFINITION_CACHE_ARG = "--definition-cache=";
+    public static final String EXPORT_ARG = "--export=";
+    public static final String METRICS_REPORT_ARG = "--metrics-report=";
+    public static final String REALM_ARG = "--realm=";
+    public static final String ONLY_ARG = "--only=";
+    public static final String WATCH_ARG = "--watch";
     public static final String KEYCLOAK_CONFIG_DIRECTORY_ENV_VARIABLE = "KEYCLOAK_CONFIG_DIRECTORY";
     public static final String KEYCLOAK_URL_ENV_VARIABLE = "KEYCLOAK_URL";
     public static final String MASTER_REALM_ADMIN_USERNAME_ENV_VARIABLE = "MASTER_REALM_ADMIN_USERNAME";
     public static final String MASTER_REALM_ADMIN_PASSWORD_ENV_VARIABLE = "MASTER_REALM_ADMIN_PASSWORD";
+    public static final String PARALLELISM_ENV_VARIABLE = "KEYCLOAK_CONFIGURER_PARALLELISM";
+    public static final String PAGE_SIZE_ENV_VARIABLE = "KEYCLOAK_CONFIGURER_PAGE_SIZE";
+    public static final String IMPORT_BATCH_SIZE_ENV_VARIABLE = "KEYCLOAK_CONFIGURER_IMPORT_BATCH_SIZE";
+    public static final String FORCE_ENV_VARIABLE = "KEYCLOAK_CONFIGURER_FORCE";
+    public static final String HTTP2_ENV_VARIABLE = "KEYCLOAK_CONFIGURER_HTTP2";
+    public static final String PLAN_ENV_VARIABLE = "KEYCLOAK_CONFIGURER_PLAN";
+    public static final String APPLY_ENV_VARIABLE = "KEYCLOAK_CONFIGURER_APPLY";
+    public static final String DEFINITION_CACHE_ENV_VARIABLE = "KEYCLOAK_CONFIGURER_DEFINITION_CACHE";
+    public static final String EXPORT_ENV_VARIABLE = "KEYCLOAK_CONFIGURER_EXPORT";
+    public static final String METRICS_REPORT_ENV_VARIABLE = "KEYCLOAK_CONFIGURER_METRICS_REPORT";
+    public static final String REALM_ENV_VARIABLE = "KEYCLOAK_CONFIGURER_REALM";
+    public static final String ONLY_ENV_VARIABLE = "KEYCLOAK_CONFIGURER_ONLY";
+    public static final String WATCH_ENV_VARIABLE = "KEYCLOAK_CONFIGURER_WATCH";
     public static final String MASTER_REALM_NAME = "master";
+    public static final String REALM_MDC_KEY = "realm";
+    public static final String TARGET_MDC_KEY = "target";
 
     public static void main(String[] args) throws IOException {
         logger.debug("<main");
 
         String configDirectory = null;
-        String keycloakUrl = null;
+        List<String> keycloakUrls = new ArrayList<>();
         String username = null;
         String password = null;
+        String parallelism = null;
+        String pageSize = null;
+        String importBatchSize = null;
+        boolean force = false;
+        boolean http2 = false;
+        String planFile = null;
+        String applyFile = null;
+        String definitionCache = null;
+        String exportDirectory = null;
+        String metricsReport = null;
+        String realms = null;
+        String only = null;
+        boolean watch = false;
         for (String arg:args) {
             logger.info("arg="+arg);
             if (arg.startsWith(KEYCLOAK_CONFIG_DIRECTORY_ARG)) {
@@ -90,7 +145,8 @@ public class KeycloakConfigurer {
             }
             if (arg.startsWith(KEYCLOAK_URL_ARG)) {
 
-                keycloakUrl = arg.substring(KEYCLOAK_URL_ARG.length());
+                String keycloakUrl = arg.substring(KEYCLOAK_URL_ARG.length());
+                keycloakUrls.addAll(parseKeycloakUrls(keycloakUrl));
                 logger.info("{} '{}' Found keycloak URL", KEYCLOAK_URL_ARG, keycloakUrl);
             }
             if (arg.startsWith(KEYCLOAK_USERNAME_ARG)) {
@@ -103,9 +159,74 @@ public class KeycloakConfigurer {
                 password = arg.substring(KEYCLOAK_PASSWORD_ARG.length());
                 logger.info("{} '{}' Found password", KEYCLOAK_PASSWORD_ARG, "********");
             }
+            if (arg.startsWith(PARALLELISM_ARG)) {
+
+                parallelism = arg.substring(PARALLELISM_ARG.length());
+                logger.info("{} '{}' Found parallelism", PARALLELISM_ARG, parallelism);
+            }
+            if (arg.startsWith(PAGE_SIZE_ARG)) {
+
+                pageSize = arg.substring(PAGE_SIZE_ARG.length());
+                logger.info("{} '{}' Found page size", PAGE_SIZE_ARG, pageSize);
+            }
+            if (arg.startsWith(IMPORT_BATCH_SIZE_ARG)) {
+
+                importBatchSize = arg.substring(IMPORT_BATCH_SIZE_ARG.length());
+                logger.info("{} '{}' Found import batch size", IMPORT_BATCH_SIZE_ARG, importBatchSize);
+            }
+            if (arg.equals(FORCE_ARG)) {
+
+                force = true;
+                logger.info("{} Found force", FORCE_ARG);
+            }
+            if (arg.equals(HTTP2_ARG)) {
+
+                http2 = true;
+                logger.info("{} Found HTTP/2", HTTP2_ARG);
+            }
+            if (arg.startsWith(PLAN_ARG)) {
+
+                planFile = arg.substring(PLAN_ARG.length());
+                logger.info("{} '{}' Found plan file", PLAN_ARG, planFile);
+            }
+            if (arg.startsWith(APPLY_ARG)) {
+
+                applyFile = arg.substring(APPLY_ARG.length());
+                logger.info("{} '{}' Found apply file", APPLY_ARG, applyFile);
+            }
+            if (arg.startsWith(DEFINITION_CACHE_ARG)) {
+
+                definitionCache = arg.substring(DEFINITION_CACHE_ARG.length());
+                logger.info("{} '{}' Found definition cache", DEFINITION_CACHE_ARG, definitionCache);
+            }
+            if (arg.startsWith(EXPORT_ARG)) {
+
+                exportDirectory = arg.substring(EXPORT_ARG.length());
+                logger.info("{} '{}' Found export directory", EXPORT_ARG, exportDirectory);
+            }
+            if (arg.startsWith(METRICS_REPORT_ARG)) {
+
+                metricsReport = arg.substring(METRICS_REPORT_ARG.length());
+                logger.info("{} '{}' Found metrics report", METRICS_REPORT_ARG, metricsReport);
+            }
+            if (arg.startsWith(REALM_ARG)) {
+
+                realms = arg.substring(REALM_ARG.length());
+                logger.info("{} '{}' Found realms", REALM_ARG, realms);
+            }
+            if (arg.startsWith(ONLY_ARG)) {
+
+                only = arg.substring(ONLY_ARG.length());
+                logger.info("{} '{}' Found resource kinds", ONLY_ARG, only);
+            }
+            if (arg.equals(WATCH_ARG)) {
+
+                watch = true;
+                logger.info("{} Found watch", WATCH_ARG);
+            }
         }
 
-        new KeycloakConfigurer().run(configDirectory, keycloakUrl, username, password);
+        new KeycloakConfigurer().run(configDirectory, keycloakUrls, username, password, parallelism, pageSize, importBatchSize, force, http2, planFile, applyFile, definitionCache, exportDirectory, metricsReport, realms, only, watch);
 
         logger.debug(">main");
     }
@@ -113,6 +234,11 @@ public class KeycloakConfigurer {
     private RealmConfigurer realmConfigurer;
     private AuthenticationFlowConfigurer authenticationFlowConfigurer;
     private ClientConfigurer clientConfigurer;
+    private RealmChangeDetector realmChangeDetector;
+    private boolean force;
+    private ApplyScope scope = ApplyScope.ALL;
+    // The flows and clients read by the last cross validation, by realm, until the realm is applied
+    private final Map<String, RealmState> validatedRealmStates = new ConcurrentHashMap<>();
 
     private KeycloakConfigurer() {
         logger.debug("<KeycloakConfigurer");
@@ -147,14 +273,94 @@ public class KeycloakConfigurer {
 
     private void run(
             String configDirectory,
-            String keycloakUrl,
+            List<String> keycloakUrls,
             String username,
-            String password
+            String password,
+            String parallelism,
+            String pageSize,
+            String importBatchSize,
+            boolean force,
+            boolean http2,
+            String planFile,
+            String applyFile,
+            String definitionCache,
+            String exportDirectory,
+            String metricsReport,
+            String realms,
+            String only,
+            boolean watch
     ) throws IOException {
-        logger.debug("<run "+keycloakUrl);
+        logger.debug("<run "+keycloakUrls);
 
         boolean configValid = true;
-        if (configDirectory == null) {
+        if (planFile==null || planFile.isBlank()) {
+            planFile = System.getenv(PLAN_ENV_VARIABLE);
+            if (planFile != null) {
+                logger.info("{} = '{}' Found plan file", PLAN_ENV_VARIABLE, planFile);
+            }
+        }
+        if (applyFile==null || applyFile.isBlank()) {
+            applyFile = System.getenv(APPLY_ENV_VARIABLE);
+            if (applyFile != null) {
+                logger.info("{} = '{}' Found apply file", APPLY_ENV_VARIABLE, applyFile);
+            }
+        }
+        if (definitionCache==null || definitionCache.isBlank()) {
+            definitionCache = System.getenv(DEFINITION_CACHE_ENV_VARIABLE);
+            if (definitionCache != null) {
+                logger.info("{} = '{}' Found definition cache", DEFINITION_CACHE_ENV_VARIABLE, definitionCache);
+            }
+        }
+        if (exportDirectory==null || exportDirectory.isBlank()) {
+            exportDirectory = System.getenv(EXPORT_ENV_VARIABLE);
+            if (exportDirectory != null) {
+                logger.info("{} = '{}' Found export directory", EXPORT_ENV_VARIABLE, exportDirectory);
+            }
+        }
+        if (metricsReport==null || metricsReport.isBlank()) {
+            metricsReport = System.getenv(METRICS_REPORT_ENV_VARIABLE);
+            if (metricsReport != null) {
+                logger.info("{} = '{}' Found metrics report", METRICS_REPORT_ENV_VARIABLE, metricsReport);
+            }
+        }
+        if (realms==null || realms.isBlank()) {
+            realms = System.getenv(REALM_ENV_VARIABLE);
+            if (realms != null) {
+                logger.info("{} = '{}' Found realms", REALM_ENV_VARIABLE, realms);
+            }
+        }
+        if (only==null || only.isBlank()) {
+            only = System.getenv(ONLY_ENV_VARIABLE);
+            if (only != null) {
+                logger.info("{} = '{}' Found resource kinds", ONLY_ENV_VARIABLE, only);
+            }
+        }
+        try {
+            this.scope = ApplyScope.parse(realms, only);
+        } catch (IllegalArgumentException e) {
+            configValid = false;
+            logger.warn("Invalid resource kinds '{}' provided. ({})", only, ONLY_ENV_VARIABLE);
+        }
+        boolean applyPlan = applyFile != null && !applyFile.isBlank();
+        boolean export = exportDirectory != null && !exportDirectory.isBlank();
+        boolean createPlan = planFile != null && !planFile.isBlank();
+        if ((applyPlan ? 1 : 0) + (export ? 1 : 0) + (createPlan ? 1 : 0) > 1) {
+            configValid = false;
+            logger.warn("Only one of {}, {}, and {} can be provided", PLAN_ARG, APPLY_ARG, EXPORT_ARG);
+        }
+        if (this.scope.isRestricted() && (applyPlan || export)) {
+            configValid = false;
+            logger.warn("{} and {} cannot be used with {} or {}", REALM_ARG, ONLY_ARG, APPLY_ARG, EXPORT_ARG);
+        }
+        if (!watch && Boolean.parseBoolean(System.getenv(WATCH_ENV_VARIABLE))) {
+            watch = true;
+            logger.info("{} = 'true' Found watch", WATCH_ENV_VARIABLE);
+        }
+        if (watch && (applyPlan || export || createPlan)) {
+            configValid = false;
+            logger.warn("{} cannot be used with {}, {}, or {}", WATCH_ARG, PLAN_ARG, APPLY_ARG, EXPORT_ARG);
+        }
+        if (configDirectory == null && !applyPlan && !export) {
             configDirectory = System.getenv(KEYCLOAK_CONFIG_DIRECTORY_ENV_VARIABLE);
             if (configDirectory == null) {
                 configValid = false;
@@ -163,15 +369,26 @@ public class KeycloakConfigurer {
                 logger.info("{} = '{}' Found config directory", KEYCLOAK_CONFIG_DIRECTORY_ENV_VARIABLE, configDirectory);
             }
         }
-        if (keycloakUrl==null || keycloakUrl.isBlank()) {
-            keycloakUrl = System.getenv(KEYCLOAK_URL_ENV_VARIABLE);
-            if (keycloakUrl == null) {
+        if (keycloakUrls.isEmpty()) {
+            String keycloakUrl = System.getenv(KEYCLOAK_URL_ENV_VARIABLE);
+            if (keycloakUrl != null) {
+                keycloakUrls = parseKeycloakUrls(keycloakUrl);
+            }
+            if (keycloakUrls.isEmpty()) {
                 configValid = false;
                 logger.warn("No keycloak URL provided.. ({})", KEYCLOAK_URL_ENV_VARIABLE);
             } else {
                 logger.info("{} = '{}' Found Keycloak URL", KEYCLOAK_URL_ENV_VARIABLE, keycloakUrl);
             }
         }
+        if (keycloakUrls.size() > 1 && (applyPlan || export || createPlan || watch)) {
+            configValid = false;
+            logger.warn("Several Keycloak URLs cannot be used with {}, {}, {}, or {}", PLAN_ARG, APPLY_ARG, EXPORT_ARG, WATCH_ARG);
+        }
+        if (new HashSet<>(keycloakUrls).size() < keycloakUrls.size()) {
+            configValid = false;
+            logger.warn("The Keycloak URLs {} are not distinct", keycloakUrls);
+        }
         if (username==null || username.isBlank()) {
             username = System.getenv(MASTER_REALM_ADMIN_USERNAME_ENV_VARIABLE);
             if (username == null) {
@@ -190,8 +407,99 @@ public class KeycloakConfigurer {
                 logger.info("{} = ******** Found Realm Admin password", MASTER_REALM_ADMIN_PASSWORD_ENV_VARIABLE);
             }
         }
+        if (parallelism==null || parallelism.isBlank()) {
+            parallelism = System.getenv(PARALLELISM_ENV_VARIABLE);
+            if (parallelism != null) {
+                logger.info("{} = '{}' Found parallelism", PARALLELISM_ENV_VARIABLE, parallelism);
+            }
+        }
+        int realmParallelism = 1;
+        if (parallelism != null && !parallelism.isBlank()) {
+            try {
+                realmParallelism = Integer.parseInt(parallelism.trim());
+            } catch (NumberFormatException e) {
+                realmParallelism = 0;
+            }
+            if (realmParallelism < 1) {
+                configValid = false;
+                logger.warn("Invalid parallelism '{}' provided. ({})", parallelism, PARALLELISM_ENV_VARIABLE);
+            }
+        }
+        if (pageSize==null || pageSize.isBlank()) {
+            pageSize = System.getenv(PAGE_SIZE_ENV_VARIABLE);
+            if (pageSize != null) {
+                logger.info("{} = '{}' Found page size", PAGE_SIZE_ENV_VARIABLE, pageSize);
+            }
+        }
+        if (importBatchSize==null || importBatchSize.isBlank()) {
+            importBatchSize = System.getenv(IMPORT_BATCH_SIZE_ENV_VARIABLE);
+            if (importBatchSize != null) {
+                logger.info("{} = '{}' Found import batch size", IMPORT_BATCH_SIZE_ENV_VARIABLE, importBatchSize);
+            }
+        }
+        if (!force && Boolean.parseBoolean(System.getenv(FORCE_ENV_VARIABLE))) {
+            force = true;
+            logger.info("{} = 'true' Found force", FORCE_ENV_VARIABLE);
+        }
+        this.force = force;
+        if (!http2 && Boolean.parseBoolean(System.getenv(HTTP2_ENV_VARIABLE))) {
+            http2 = true;
+            logger.info("{} = 'true' Found HTTP/2", HTTP2_ENV_VARIABLE);
+        }
+        int restApiPageSize = KeycloakRestApi.DEFAULT_PAGE_SIZE;
+        if (pageSize != null && !pageSize.isBlank()) {
+            try {
+                restApiPageSize = Integer.parseInt(pageSize.trim());
+            } catch (NumberFormatException e) {
+                restApiPageSize = 0;
+            }
+            if (restApiPageSize < 1) {
+                configValid = false;
+                logger.warn("Invalid page size '{}' provided. ({})", pageSize, PAGE_SIZE_ENV_VARIABLE);
+            }
+        }
+        int restApiImportBatchSize = KeycloakRestApi.DEFAULT_IMPORT_BATCH_SIZE;
+        if (importBatchSize != null && !importBatchSize.isBlank()) {
+            try {
+                restApiImportBatchSize = Integer.parseInt(importBatchSize.trim());
+            } catch (NumberFormatException e) {
+                restApiImportBatchSize = -1;
+            }
+            if (restApiImportBatchSize < 0) {
+                configValid = false;
+                logger.warn("Invalid import batch size '{}' provided. ({})", importBatchSize, IMPORT_BATCH_SIZE_ENV_VARIABLE);
+            }
+        }
 
-        if (configValid) {
+        if (configValid && keycloakUrls.size() > 1) {
+
+            try {
+                logger.info("********************************************************************************");
+                logger.info("********************************************************************************");
+                logger.info("Starting Keycloak Definition Import to {} targets", keycloakUrls.size());
+
+                importKeycloakDefinitions(
+                        keycloakUrls,
+                        username,
+                        password,
+                        realmParallelism,
+                        http2,
+                        restApiPageSize,
+                        restApiImportBatchSize,
+                        configDirectory,
+                        definitionCache,
+                        metricsReport
+                );
+            } catch (Exception e) {
+                logger.error("Keycloak Definition Import Failed", e);
+                throw e;
+            } finally {
+                logger.info("********************************************************************************");
+                logger.info("********************************************************************************");
+            }
+        } else if (configValid) {
+
+            String keycloakUrl = keycloakUrls.get(0);
 
             try {
                 logger.info("********************************************************************************");
@@ -202,41 +510,114 @@ public class KeycloakConfigurer {
                         keycloakUrl,
                         MASTER_REALM_NAME,
                         username,
-                        password
+                        password,
+                        realmParallelism,
+                        http2
                 )) {
-                    this.realmConfigurer = new RealmConfigurer(
-                            keycloakRestApi,
-                            logger
-                    );
-                    this.authenticationFlowConfigurer = new AuthenticationFlowConfigurer(
-                            keycloakRestApi,
-                            logger
-                    );
-                    this.clientConfigurer = new ClientConfigurer(
-                            keycloakRestApi,
-                            logger
-                    );
+                    keycloakRestApi.setPageSize(restApiPageSize);
+                    keycloakRestApi.setImportBatchSize(restApiImportBatchSize);
 
-                    final ObjectMapper objectMapper = new ObjectMapper(new YAMLFactory());
-
-                    Map<String, KeycloakDefinition> keycloakDefinitionMap = loadKeycloakDefinitions(objectMapper, configDirectory);
-                    logger.info("Found {} Keycloak definitions", keycloakDefinitionMap.size());
-    
-                    KeycloakDefinition keycloakDefinition = validateKeycloakDefinitions(keycloakRestApi, keycloakDefinitionMap);
-    
-                    boolean result = false;
-                    if (keycloakDefinition != null) {
-                        // The Keycloak Definitions are valid
-    
-                        result = applyKeycloakDefinition(
-                                keycloakDefinition
-                        );
-                    }
+                    createConfigurers(keycloakRestApi);
 
-                    if (result) {
-                        logger.info("Completed Keycloak Definition Import");
-                    } else {
-                        logger.warn("Aborted Keycloak Definition Import");
+                    try {
+                        boolean result = false;
+                        boolean planned = false;
+                        boolean exported = false;
+
+                        ApplyScope requestedScope = this.scope;
+                        KeycloakDefinitionLoader keycloakDefinitionLoader = null;
+                        Map<String, KeycloakDefinition> keycloakDefinitionMap = null;
+                        Set<String> pendingRealmNames = new TreeSet<>();
+
+                        if (export) {
+
+                            KeycloakExporter keycloakExporter = new KeycloakExporter(keycloakRestApi, logger);
+
+                            keycloakExporter.export(Paths.get(exportDirectory), realmParallelism);
+
+                            exported = true;
+                        } else if (applyPlan) {
+
+                            KeycloakPlan plan = readPlan(applyFile);
+
+                            if (!keycloakUrl.equals(plan.keycloakUrl())) {
+                                throw new IllegalStateException(String.format("The plan %s was made against %s not %s", applyFile, plan.keycloakUrl(), keycloakUrl));
+                            }
+
+                            result = applyPlan(keycloakRestApi, plan, realmParallelism);
+                        } else {
+
+                            keycloakDefinitionLoader = new KeycloakDefinitionLoader(
+                                    definitionCache == null || definitionCache.isBlank() ? null : Paths.get(definitionCache),
+                                    Runtime.getRuntime().availableProcessors(),
+                                    logger
+                            );
+
+                            Map<String, KeycloakDefinition> loadedDefinitionMap = keycloakDefinitionLoader.loadKeycloakDefinitions(configDirectory);
+                            logger.info("Found {} Keycloak definitions", loadedDefinitionMap.size());
+                            keycloakDefinitionMap = loadedDefinitionMap;
+
+                            int validationParallelism = realmParallelism;
+                            KeycloakDefinition keycloakDefinition = keycloakRestApi.getMetrics().time(
+                                    "validateDefinitions",
+                                    () -> validateKeycloakDefinitions(keycloakRestApi, loadedDefinitionMap, validationParallelism)
+                            );
+
+                            if (keycloakDefinition == null) {
+                                pendingRealmNames.addAll(getChangedRealmNames(Map.of(), loadedDefinitionMap));
+                            }
+
+                            if (keycloakDefinition != null && this.scope.isRestricted()) {
+
+                                this.scope = this.scope.withDependencies(keycloakDefinition, logger);
+                                logger.info("Restricted to realms {} and resource kinds {}",
+                                        this.scope.realmNames().isEmpty() ? "(all)" : this.scope.realmNames(), this.scope.kinds());
+                            }
+
+                            if (keycloakDefinition != null && createPlan) {
+                                // The Keycloak Definitions are valid, plan the changes without making them
+
+                                KeycloakPlan plan = planKeycloakDefinition(keycloakRestApi, keycloakUrl, keycloakDefinition);
+
+                                writePlan(planFile, plan);
+
+                                planned = true;
+                            } else if (keycloakDefinition != null) {
+                                // The Keycloak Definitions are valid
+
+                                result = applyKeycloakDefinition(
+                                        keycloakRestApi,
+                                        keycloakDefinition,
+                                        realmParallelism
+                                );
+                            }
+                        }
+
+                        if (exported) {
+                            logger.info("Completed Keycloak Definition Export");
+                        } else if (planned) {
+                            logger.info("Completed Keycloak Definition Plan");
+                        } else if (result) {
+                            logger.info("Completed Keycloak Definition Import");
+                        } else {
+                            logger.warn("Aborted Keycloak Definition Import");
+                        }
+
+                        if (watch) {
+
+                            watchKeycloakDefinitions(
+                                    keycloakRestApi,
+                                    keycloakDefinitionLoader,
+                                    configDirectory,
+                                    keycloakDefinitionMap,
+                                    pendingRealmNames,
+                                    requestedScope,
+                                    realmParallelism,
+                                    metricsReport
+                            );
+                        }
+                    } finally {
+                        reportMetrics(keycloakRestApi.getMetrics(), metricsReport);
                     }
 
                 }
@@ -252,53 +633,369 @@ public class KeycloakConfigurer {
         logger.debug(">run");
     }
 
-    private Map<String, KeycloakDefinition> loadKeycloakDefinitions(
-            ObjectMapper objectMapper,
-            String configDirectory
+    private void createConfigurers(KeycloakRestApi keycloakRestApi) {
+
+        this.realmConfigurer = new RealmConfigurer(
+                keycloakRestApi,
+                logger
+        );
+        this.authenticationFlowConfigurer = new AuthenticationFlowConfigurer(
+                keycloakRestApi,
+                logger
+        );
+        this.clientConfigurer = new ClientConfigurer(
+                keycloakRestApi,
+                logger
+        );
+        this.realmChangeDetector = new RealmChangeDetector(
+                keycloakRestApi,
+                logger
+        );
+    }
+
+    /**
+     * Import the Keycloak definitions to several Keycloak servers concurrently.
+     * <p>
+     * The definition files are read once and shared.  Each target is then imported on its own thread, with its own
+     * admin client, login, configurers, and metrics, so a target that is invalid or fails does not stop the others.
+     * The definitions are validated against each target separately, as the checks for the flows and clients that are
+     * still referenced depend on the state of that server.
+     *
+     * @throws IllegalStateException when any target was not imported, after all the targets have finished
+     */
+    private void importKeycloakDefinitions(
+            List<String> keycloakUrls,
+            String username,
+            String password,
+            int parallelism,
+            boolean http2,
+            int pageSize,
+            int importBatchSize,
+            String configDirectory,
+            String definitionCache,
+            String metricsReport
     ) throws IOException {
 
-        Map<String, KeycloakDefinition> results = new HashMap<>();
+        KeycloakDefinitionLoader keycloakDefinitionLoader = new KeycloakDefinitionLoader(
+                definitionCache == null || definitionCache.isBlank() ? null : Paths.get(definitionCache),
+                Runtime.getRuntime().availableProcessors(),
+                logger
+        );
 
-        logger.info("Loading Keycloak definitions from directory '{}'", configDirectory);
+        Map<String, KeycloakDefinition> keycloakDefinitionMap = keycloakDefinitionLoader.loadKeycloakDefinitions(configDirectory);
+        logger.info("Found {} Keycloak definitions", keycloakDefinitionMap.size());
 
-        Path configDirectoryPath = Paths.get(configDirectory);
+        Map<String, TargetResult> results = new LinkedHashMap<>();
 
-        Files.walkFileTree(
-                configDirectoryPath,
-                new SimpleFileVisitor<>() {
-                    public FileVisitResult visitFile(Path path, BasicFileAttributes attributes) throws IOException {
+        ExecutorService executorService = Executors.newFixedThreadPool(keycloakUrls.size(), new TargetThreadFactory());
+        try {
+            Map<String, Future<TargetResult>> futures = new LinkedHashMap<>();
 
-                        String fileName = path.toString();
-                        if (fileName.endsWith(".yaml") || fileName.endsWith(".yml")) {
+            for (int index = 0; index < keycloakUrls.size(); ++index) {
 
-                            logger.info("Found Keycloak definition file '{}'", path);
+                String keycloakUrl = keycloakUrls.get(index);
+                String targetMetricsReport = getTargetMetricsReport(metricsReport, index + 1);
 
-                            KeycloakDefinition keycloakDefinition;
-                            try {
-                                keycloakDefinition = objectMapper.readValue(path.toFile(), KeycloakDefinition.class);
-                            } catch (Exception e) {
-                                logger.error(String.format("Failed to read Keycloak definition %s", path), e);
-                                throw e;
-                            }
+                KeycloakConfigurer targetConfigurer = new KeycloakConfigurer();
+                targetConfigurer.force = this.force;
+                targetConfigurer.scope = this.scope;
 
-                            if (keycloakDefinition != null) {
-                                results.put(path.toString(), keycloakDefinition);
-                            }
-                        } else {
-                            logger.debug("Skipping {}", path);
-                        }
+                futures.put(keycloakUrl, executorService.submit(() -> targetConfigurer.importTargetKeycloakDefinitions(
+                        keycloakUrl,
+                        username,
+                        password,
+                        parallelism,
+                        http2,
+                        pageSize,
+                        importBatchSize,
+                        keycloakDefinitionMap,
+                        targetMetricsReport
+                )));
+            }
+
+            for (String keycloakUrl:futures.keySet()) {
+
+                try {
+                    results.put(keycloakUrl, futures.get(keycloakUrl).get());
+                } catch (ExecutionException e) {
+                    logger.error(String.format("Failed to import to %s", keycloakUrl), e.getCause());
+                    results.put(keycloakUrl, TargetResult.FAILED);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException(e);
+                }
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+
+        for (String keycloakUrl:results.keySet()) {
+            logger.info("Target {} {}", keycloakUrl, results.get(keycloakUrl));
+        }
+
+        List<String> incompleteUrls = results.keySet().stream()
+                .filter(it -> !results.get(it).isComplete())
+                .toList();
+
+        if (!incompleteUrls.isEmpty()) {
+            throw new IllegalStateException(String.format("The Keycloak definitions were not imported to %s", incompleteUrls));
+        }
+
+        logger.info("Completed Keycloak Definition Import to {} targets", results.size());
+    }
+
+    private TargetResult importTargetKeycloakDefinitions(
+            String keycloakUrl,
+            String username,
+            String password,
+            int parallelism,
+            boolean http2,
+            int pageSize,
+            int importBatchSize,
+            Map<String, KeycloakDefinition> keycloakDefinitionMap,
+            String metricsReport
+    ) {
+        MDC.put(TARGET_MDC_KEY, keycloakUrl);
+        try (KeycloakRestApi keycloakRestApi = new KeycloakRestApi(
+                keycloakUrl,
+                MASTER_REALM_NAME,
+                username,
+                password,
+                parallelism,
+                http2
+        )) {
+            keycloakRestApi.setPageSize(pageSize);
+            keycloakRestApi.setImportBatchSize(importBatchSize);
+
+            createConfigurers(keycloakRestApi);
+
+            try {
+                logger.info("Starting Keycloak Definition Import to {}", keycloakUrl);
+
+                KeycloakDefinition keycloakDefinition = keycloakRestApi.getMetrics().time(
+                        "validateDefinitions",
+                        () -> validateKeycloakDefinitions(keycloakRestApi, keycloakDefinitionMap, parallelism)
+                );
+
+                if (keycloakDefinition == null) {
+                    logger.warn("Aborted Keycloak Definition Import to {}", keycloakUrl);
+                    return TargetResult.INVALID;
+                }
+
+                if (this.scope.isRestricted()) {
+                    this.scope = this.scope.withDependencies(keycloakDefinition, logger);
+                }
+
+                boolean updateApplied = applyKeycloakDefinition(keycloakRestApi, keycloakDefinition, parallelism);
 
-                        return FileVisitResult.CONTINUE;
+                logger.info("Completed Keycloak Definition Import to {}", keycloakUrl);
+
+                return updateApplied ? TargetResult.APPLIED : TargetResult.UNCHANGED;
+            } finally {
+                reportMetrics(keycloakRestApi.getMetrics(), metricsReport);
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.error(String.format("Keycloak Definition Import to %s Failed", keycloakUrl), e);
+            return TargetResult.FAILED;
+        } finally {
+            MDC.remove(TARGET_MDC_KEY);
+        }
+    }
+
+    /**
+     * @return the URLs in the comma separated list
+     */
+    private static List<String> parseKeycloakUrls(String keycloakUrls) {
+
+        List<String> result = new ArrayList<>();
+
+        for (String keycloakUrl:keycloakUrls.split(",")) {
+            if (!keycloakUrl.isBlank()) {
+                result.add(keycloakUrl.trim());
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * @return the metrics report for the numbered target, e.g. metrics-2.json, so the targets do not overwrite each
+     * other's report
+     */
+    private static String getTargetMetricsReport(String metricsReport, int target) {
+
+        if (metricsReport == null || metricsReport.isBlank()) {
+            return metricsReport;
+        }
+
+        Path path = Paths.get(metricsReport);
+        String fileName = path.getFileName().toString();
+        int extension = fileName.lastIndexOf('.');
+
+        String targetFileName = extension > 0
+                ? String.format("%s-%d%s", fileName.substring(0, extension), target, fileName.substring(extension))
+                : String.format("%s-%d", fileName, target);
+
+        return path.resolveSibling(targetFileName).toString();
+    }
+
+    /**
+     * Keep the Keycloak definitions applied as the files in the config directory change, until the process is stopped.
+     * <p>
+     * Only the realms referenced by the changed files, before or after the change, are validated against the server and
+     * applied, reusing the logged in admin client.  The snapshot of those realms is discarded first, as they may have
+     * been changed by someone else since they were last read.  Realms that could not be applied, because the
+     * definitions were not valid or the apply failed, are applied again with the next change.
+     * <p>
+     * The metrics are reported and reset after the initial import and after each change, so each report covers a
+     * single cycle and the recorded latencies do not grow for the life of the process.
+     *
+     * @param pendingRealmNames the realms that still have to be applied
+     */
+    private void watchKeycloakDefinitions(
+            KeycloakRestApi keycloakRestApi,
+            KeycloakDefinitionLoader keycloakDefinitionLoader,
+            String configDirectory,
+            Map<String, KeycloakDefinition> keycloakDefinitionMap,
+            Set<String> pendingRealmNames,
+            ApplyScope requestedScope,
+            int parallelism,
+            String metricsReport
+    ) throws IOException {
+
+        reportMetrics(keycloakRestApi.getMetrics(), metricsReport);
+        keycloakRestApi.getMetrics().reset();
+
+        logger.info("Watching '{}' for changes", configDirectory);
+
+        try (DefinitionWatcher definitionWatcher = new DefinitionWatcher(Paths.get(configDirectory), WATCH_DEBOUNCE_MILLIS, logger)) {
+
+            while (!Thread.currentThread().isInterrupted()) {
+
+                Set<Path> changedPaths;
+                try {
+                    changedPaths = definitionWatcher.awaitChanges();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+
+                try {
+                    Map<String, KeycloakDefinition> updatedDefinitionMap = changedPaths == null
+                            ? keycloakDefinitionLoader.loadKeycloakDefinitions(configDirectory)
+                            : keycloakDefinitionLoader.reloadKeycloakDefinitions(keycloakDefinitionMap, changedPaths);
+
+                    pendingRealmNames.addAll(getChangedRealmNames(keycloakDefinitionMap, updatedDefinitionMap));
+                    keycloakDefinitionMap = updatedDefinitionMap;
+
+                    Set<String> realmNames = new TreeSet<>(pendingRealmNames);
+                    realmNames.removeIf(it -> !requestedScope.includesRealm(it));
+
+                    if (realmNames.isEmpty()) {
+                        logger.info("No realms in scope have changed");
+                        continue;
                     }
+
+                    logger.info("Applying changes to realms {}", realmNames);
+
+                    realmNames.forEach(keycloakRestApi::clearSnapshot);
+
+                    this.scope = new ApplyScope(realmNames, requestedScope.kinds());
+
+                    Map<String, KeycloakDefinition> validatedDefinitionMap = keycloakDefinitionMap;
+                    KeycloakDefinition keycloakDefinition = keycloakRestApi.getMetrics().time(
+                            "validateDefinitions",
+                            () -> validateKeycloakDefinitions(keycloakRestApi, validatedDefinitionMap, parallelism)
+                    );
+
+                    if (keycloakDefinition == null) {
+
+                        logger.warn("Changes to realms {} will be applied once the definitions are valid", realmNames);
+                    } else {
+
+                        this.scope = this.scope.withDependencies(keycloakDefinition, logger);
+
+                        applyKeycloakDefinition(keycloakRestApi, keycloakDefinition, parallelism);
+
+                        pendingRealmNames.removeAll(realmNames);
+                        logger.info("Applied changes to realms {}", realmNames);
+                    }
+                } catch (IOException | RuntimeException e) {
+                    // Keep watching, the next change may fix it
+                    logger.error("Failed to apply the changed Keycloak definitions", e);
+                } finally {
+                    reportMetrics(keycloakRestApi.getMetrics(), metricsReport);
+                    keycloakRestApi.getMetrics().reset();
                 }
-        );
+            }
+        }
 
-        return results;
+        logger.info("Stopped watching '{}'", configDirectory);
+    }
+
+    /**
+     * @return the realms referenced by the definitions that have been added, removed, or reloaded, before or after
+     */
+    private static Set<String> getChangedRealmNames(
+            Map<String, KeycloakDefinition> keycloakDefinitionMap,
+            Map<String, KeycloakDefinition> updatedDefinitionMap
+    ) {
+        Set<String> result = new TreeSet<>();
+
+        Set<String> paths = new HashSet<>(keycloakDefinitionMap.keySet());
+        paths.addAll(updatedDefinitionMap.keySet());
+
+        for (String path:paths) {
+
+            KeycloakDefinition current = keycloakDefinitionMap.get(path);
+            KeycloakDefinition updated = updatedDefinitionMap.get(path);
+
+            // Unchanged definitions are carried over as the same instance
+            if (current != updated) {
+                addRealmNames(result, current);
+                addRealmNames(result, updated);
+            }
+        }
+
+        return result;
+    }
+
+    private static void addRealmNames(
+            Set<String> realmNames,
+            KeycloakDefinition keycloakDefinition
+    ) {
+        if (keycloakDefinition != null) {
+            keycloakDefinition.getRealms().forEach(it -> realmNames.add(it.getRealmName()));
+            keycloakDefinition.getAuthenticationFlows().forEach(it -> realmNames.add(it.getRealmName()));
+            keycloakDefinition.getClients().forEach(it -> realmNames.add(it.getRealmName()));
+        }
+    }
+
+    /**
+     * Log the admin API calls made during the run, and write the report when a report file has been provided.
+     */
+    private void reportMetrics(
+            KeycloakMetrics metrics,
+            String metricsReport
+    ) {
+        metrics.logSummary(logger);
+
+        if (metricsReport != null && !metricsReport.isBlank()) {
+
+            try {
+                metrics.writeReport(Paths.get(metricsReport));
+                logger.info("Wrote metrics report {}", metricsReport);
+            } catch (IOException e) {
+                // The report is diagnostic, it should not fail the run
+                logger.warn("Failed to write metrics report {}", metricsReport, e);
+            }
+        }
     }
 
     private KeycloakDefinition validateKeycloakDefinitions(
             KeycloakRestApi keycloakRestApi,
-            Map<String, KeycloakDefinition> keycloakDefinitionMap
+            Map<String, KeycloakDefinition> keycloakDefinitionMap,
+            int parallelism
     ) {
         logger.info("Validating Keycloak Definitions");
 
@@ -330,7 +1027,7 @@ public class KeycloakConfigurer {
                 clients
         );
 
-        allValid = allValid & crossValidation(keycloakRestApi, keycloakDefinitionMap);
+        allValid = allValid & crossValidation(keycloakRestApi, keycloakDefinitionMap, parallelism);
 
         KeycloakDefinition result = null;
         
@@ -350,148 +1047,185 @@ public class KeycloakConfigurer {
         return result;
     }
 
+    /**
+     * Check that the authentication flows that are still bound, by the realm defaults, identity providers, and clients,
+     * will exist once the definitions have been applied.
+     * <p>
+     * The definitions are indexed by realm once, and the realms are then checked concurrently, each reading its own
+     * flows, realm, and clients.  The flows and clients of each existing realm are kept and handed to the apply of
+     * that realm, so that it starts from them rather than reading them again.
+     *
+     * @param parallelism the maximum number of realms to check concurrently
+     */
     private boolean crossValidation(
             KeycloakRestApi keycloakRestApi,
-            Map<String, KeycloakDefinition> keycloakDefinitionMap
+            Map<String, KeycloakDefinition> keycloakDefinitionMap,
+            int parallelism
     ) {
         boolean valid = true;
 
-        Map<String, List<AuthenticationFlowDefinition>> flowDefinitionsByRealm = getAuthenticationFlowDefinitionMap(keycloakDefinitionMap);
+        validatedRealmStates.clear();
 
-        Map<String, List<ClientDefinition>> clientDefinitionsByRealm = getClientDefinitionMap(keycloakDefinitionMap);
+        Map<String, RealmDefinitionIndex> definitionIndexesByRealm = getRealmDefinitionIndexes(keycloakDefinitionMap);
 
-        for (String path:keycloakDefinitionMap.keySet()) {
+        ExecutorService executorService = Executors.newFixedThreadPool(parallelism, new RealmThreadFactory());
+        try {
+            List<Future<Boolean>> futures = new ArrayList<>();
 
-            KeycloakDefinition keycloakDefinition = keycloakDefinitionMap.get(path);
+            // The realm threads log against the same target as this one
+            String target = MDC.get(TARGET_MDC_KEY);
 
-            for (int index = 0; index < keycloakDefinition.getRealms().size(); ++index) {
+            for (KeycloakDefinition keycloakDefinition:keycloakDefinitionMap.values()) {
 
-                RealmDefinition realmDefinition = keycloakDefinition.getRealms().get(index);
+                for (RealmDefinition realmDefinition:keycloakDefinition.getRealms()) {
 
-                String realmName = realmDefinition.getRealmName();
+                    String realmName = realmDefinition.getRealmName();
 
-                List<AuthenticationFlowDefinition> flowDefinitions = flowDefinitionsByRealm.get(realmName);
-                if (flowDefinitions == null) {
-                    flowDefinitions = new ArrayList<>();
+                    // Realms outside the scope of the run are left as they are, so their references cannot change
+                    if (!scope.includesRealm(realmName)) {
+                        continue;
+                    }
+
+                    RealmDefinitionIndex definitionIndex = definitionIndexesByRealm.getOrDefault(realmName, new RealmDefinitionIndex());
+
+                    futures.add(executorService.submit(() -> {
+                        if (target != null) {
+                            MDC.put(TARGET_MDC_KEY, target);
+                        }
+                        return crossValidateRealm(keycloakRestApi, realmDefinition, definitionIndex);
+                    }));
                 }
+            }
+
+            for (Future<Boolean> future:futures) {
 
-                List<ClientDefinition> clientDefinitions = clientDefinitionsByRealm.get(realmName);
-                if (clientDefinitions == null) {
-                    clientDefinitions = new ArrayList<>();
+                try {
+                    valid = future.get() & valid;
+                } catch (ExecutionException e) {
+                    throw new RuntimeException(e.getCause());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException(e);
                 }
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+
+        return valid;
+    }
 
-                List<Flow> existingFlows = keycloakRestApi.getTopLevelFlows(realmName);
+    private boolean crossValidateRealm(
+            KeycloakRestApi keycloakRestApi,
+            RealmDefinition realmDefinition,
+            RealmDefinitionIndex definitionIndex
+    ) {
+        String realmName = realmDefinition.getRealmName();
 
-                Map<String, Flow> existingFlowsById = existingFlows==null?new HashMap<>():existingFlows.stream()
-                        .collect(Collectors.toMap(Flow::getId, Function.identity()));
+        MDC.put(REALM_MDC_KEY, realmName);
+        try {
+            boolean valid = true;
 
-                Map<String, Flow> existingFlowsByAlias = existingFlows==null?new HashMap<>():existingFlows.stream()
-                        .collect(Collectors.toMap(Flow::getAlias, Function.identity()));
+            Map<String, Flow> existingFlowsById = new HashMap<>();
+            Map<String, Flow> existingFlowsByAlias = new HashMap<>();
 
-                Map<String, AuthenticationFlowDefinition> flowDefinitionsByAlias = flowDefinitions.stream()
-                        .collect(Collectors.toMap(AuthenticationFlowDefinition::getAlias, Function.identity()));
+            List<Flow> existingFlows = keycloakRestApi.getTopLevelFlows(realmName);
+            if (existingFlows != null) {
+                for (Flow flow:existingFlows) {
+                    existingFlowsById.put(flow.getId(), flow);
+                    existingFlowsByAlias.put(flow.getAlias(), flow);
+                }
+            }
 
-                Map<String, ClientDefinition> clientDefinitionsByClientId = clientDefinitions.stream()
-                        .collect(Collectors.toMap(ClientDefinition::getClientId, Function.identity()));
+            Map<String, AuthenticationFlowDefinition> flowDefinitionsByAlias = definitionIndex.flowDefinitionsByAlias();
 
-                Realm realm = keycloakRestApi.getRealmByName(realmName);
+            Realm realm = keycloakRestApi.getRealmByName(realmName);
 
-                if (valid) {
+            // An Authentication Flow cannot be removed if it is being used as a default
+            Map<String, String> defaultBindingsMap = getDefaultBindingsMap(realmDefinition, realm);
 
-                    // An Authentication Flow cannot be removed if it is being used as a default
-                    Map<String, String> defaultBindingsMap = getDefaultBindingsMap(realmDefinition, realm);
+            for (String flowReference: DefaultFlowBindingReferences) {
 
-                    for (String flowReference: DefaultFlowBindingReferences) {
+                valid = valid & validateBinding(realmName, flowReference, defaultBindingsMap.get(flowReference), existingFlowsByAlias, flowDefinitionsByAlias);
+            }
 
-                        valid = valid & validateBinding(realmName, flowReference, defaultBindingsMap.get(flowReference), existingFlowsByAlias, flowDefinitionsByAlias);
-                    }
-                }
+            // An Authentication Flow cannot be removed if it is being used by an Identity Provider
+            Map<String, String> identityProviderBindings = getIdentityProviderBindingsMap(realm, realmDefinition);
 
-                if (valid) {
+            for (String flowReference:identityProviderBindings.keySet()) {
 
-                    // An Authentication Flow cannot be removed if it is being used by an Identity Provider
-                    Map<String, String> identityProviderBindings = getIdentityProviderBindingsMap(realm, realmDefinition);
+                valid = valid & validateBinding(realmName, flowReference, identityProviderBindings.get(flowReference), existingFlowsByAlias, flowDefinitionsByAlias);
+            }
 
-                    for (String flowReference:identityProviderBindings.keySet()) {
+            // An Authentication Flow cannot be removed if it is being used by a client
+            List<Client> existingClients = List.of();
+            if (realm != null) {
+                existingClients = keycloakRestApi.getClientPager(realmName).stream().toList();
 
-                        valid = valid & validateBinding(realmName, flowReference, identityProviderBindings.get(flowReference), existingFlowsByAlias, flowDefinitionsByAlias);
-                    }
+                if (existingFlows != null) {
+                    validatedRealmStates.put(realmName, new RealmState(existingFlows, existingClients));
                 }
+            }
 
-                if (valid) {
-
-                    // An Authentication Flow cannot be removed if it is being used by a client
-                    Map<String, String> clientBindings = getClientBindingsMap(keycloakRestApi, realm, existingFlowsById, clientDefinitionsByClientId);
+            Map<String, String> clientBindings = getClientBindingsMap(existingClients, existingFlowsById, definitionIndex.clientDefinitionsByClientId());
 
-                    for (String flowReference:clientBindings.keySet()) {
+            for (String flowReference:clientBindings.keySet()) {
 
-                        valid = valid & validateBinding(realmName, flowReference, clientBindings.get(flowReference), existingFlowsByAlias, flowDefinitionsByAlias);
-                    }
-                }
+                valid = valid & validateBinding(realmName, flowReference, clientBindings.get(flowReference), existingFlowsByAlias, flowDefinitionsByAlias);
             }
-        }
 
-        return valid;
+            return valid;
+        } finally {
+            MDC.remove(REALM_MDC_KEY);
+        }
     }
 
-    private Map<String, String> getClientBindingsMap(KeycloakRestApi keycloakRestApi, Realm realm, Map<String, Flow> existingFlowsById, Map<String, ClientDefinition> clientDefinitions) {
+    private Map<String, String> getClientBindingsMap(List<Client> existingClients, Map<String, Flow> existingFlowsById, Map<String, ClientDefinition> clientDefinitions) {
         Map<String, String> result = new HashMap<>();
 
-        if(realm != null) {
-            int pageOffset = 0;
-            int pageSize = 10;
-            int pageCount;
-            do {
-                List<Client> clients = keycloakRestApi.getClients(realm.getRealm(), pageOffset, pageOffset + pageSize);
-
-                for (Client client : clients) {
+        for (Client client:existingClients) {
 
-                    ClientDefinition clientDefinition = clientDefinitions.get(client.getClientId());
+            ClientDefinition clientDefinition = clientDefinitions.get(client.getClientId());
 
-                    // If the client is going to be overwritten or removed then we do not need to record the existing bindings
-                    if (clientDefinition == null || !ClientConfigurer.isManaged(client)) {
+            // If the client is going to be overwritten or removed then we do not need to record the existing bindings
+            if (clientDefinition == null || !ClientConfigurer.isManaged(client)) {
 
-                        Map<String, String> flowBindingOverrides = client.getAuthenticationFlowBindingOverrides();
+                Map<String, String> flowBindingOverrides = client.getAuthenticationFlowBindingOverrides();
 
-                        String browserFlowId = flowBindingOverrides.get("browser");
+                String browserFlowId = flowBindingOverrides.get("browser");
 
-                        if (browserFlowId != null && !browserFlowId.isBlank()) {
+                if (browserFlowId != null && !browserFlowId.isBlank()) {
 
-                            Flow flow = existingFlowsById.get(browserFlowId);
+                    Flow flow = existingFlowsById.get(browserFlowId);
 
-                            String flowReference = String.format("Client (%s) Browser Flow Override", client.getClientId());
+                    String flowReference = String.format("Client (%s) Browser Flow Override", client.getClientId());
 
-                            if (flow == null) {
+                    if (flow == null) {
 
-                                result.put(flowReference, INVALID);
-                            } else {
+                        result.put(flowReference, INVALID);
+                    } else {
 
-                                result.put(flowReference, flow.getAlias());
-                            }
-                        }
+                        result.put(flowReference, flow.getAlias());
+                    }
+                }
 
-                        String directGrantFlowId = flowBindingOverrides.get("direct_grant");
+                String directGrantFlowId = flowBindingOverrides.get("direct_grant");
 
-                        if (directGrantFlowId != null && !directGrantFlowId.isBlank()) {
+                if (directGrantFlowId != null && !directGrantFlowId.isBlank()) {
 
-                            Flow flow = existingFlowsById.get(directGrantFlowId);
+                    Flow flow = existingFlowsById.get(directGrantFlowId);
 
-                            String flowReference = String.format("Client (%s) Direct Grant Flow Override", client.getClientId());
+                    String flowReference = String.format("Client (%s) Direct Grant Flow Override", client.getClientId());
 
-                            if (flow == null) {
+                    if (flow == null) {
 
-                                result.put(flowReference, INVALID);
-                            } else {
+                        result.put(flowReference, INVALID);
+                    } else {
 
-                                result.put(flowReference, flow.getAlias());
-                            }
-                        }
+                        result.put(flowReference, flow.getAlias());
                     }
                 }
-
-                pageCount = clients.size();
-                pageOffset += pageCount;
-            } while (pageCount >= pageSize);
+            }
         }
 
         for (ClientDefinition definition:clientDefinitions.values()) {
@@ -532,6 +1266,8 @@ public class KeycloakConfigurer {
 
         if (realm != null) {
 
+            // The identity providers come with the realm representation that has already been read, and each is only
+            // visited once, so they are not indexed by alias
             List<IdentityProvider> identityProviders = realm.getIdentityProviders();
             for (IdentityProvider identityProvider:identityProviders) {
 
@@ -554,11 +1290,11 @@ public class KeycloakConfigurer {
         if (googleIdpDefinition != null) {
 
             if (googleIdpDefinition.getFirstLoginFlowAlias()!=null && !googleIdpDefinition.getFirstLoginFlowAlias().isBlank()) {
-                result.put(String.format("IDP (%s)", GOOGLE_IDP_ALIAS), googleIdpDefinition.getFirstLoginFlowAlias());
+                result.put(String.format("IDP (%s) First Broker Login", GOOGLE_IDP_ALIAS), googleIdpDefinition.getFirstLoginFlowAlias());
             }
 
             if (googleIdpDefinition.getPostLoginFlowAlias()!=null && !googleIdpDefinition.getPostLoginFlowAlias().isBlank()) {
-                result.put(String.format("IDP (%s)", GOOGLE_IDP_ALIAS), googleIdpDefinition.getPostLoginFlowAlias());
+                result.put(String.format("IDP (%s) Post Broker Login", GOOGLE_IDP_ALIAS), googleIdpDefinition.getPostLoginFlowAlias());
             }
         }
 
@@ -595,36 +1331,23 @@ public class KeycloakConfigurer {
         return valid;
     }
 
-    private Map<String, List<AuthenticationFlowDefinition>> getAuthenticationFlowDefinitionMap(
+    private Map<String, RealmDefinitionIndex> getRealmDefinitionIndexes(
             Map<String, KeycloakDefinition> keycloakDefinitionMap
     ) {
-        Map<String, List<AuthenticationFlowDefinition>> result = new HashMap<>();
+        Map<String, RealmDefinitionIndex> result = new HashMap<>();
 
         for(KeycloakDefinition keycloakDefinition:keycloakDefinitionMap.values()) {
 
             for (AuthenticationFlowDefinition authenticationFlowDefinition:keycloakDefinition.getAuthenticationFlows()) {
 
-                String realmName = authenticationFlowDefinition.getRealmName();
-                List<AuthenticationFlowDefinition> realmList = result.computeIfAbsent(realmName, k -> new ArrayList<>());
-                realmList.add(authenticationFlowDefinition);
+                RealmDefinitionIndex realmIndex = result.computeIfAbsent(authenticationFlowDefinition.getRealmName(), k -> new RealmDefinitionIndex());
+                realmIndex.flowDefinitionsByAlias().put(authenticationFlowDefinition.getAlias(), authenticationFlowDefinition);
             }
-        }
-
-        return result;
-    }
-
-    private Map<String, List<ClientDefinition>> getClientDefinitionMap(
-            Map<String, KeycloakDefinition> keycloakDefinitionMap
-    ) {
-        Map<String, List<ClientDefinition>> result = new HashMap<>();
-
-        for(KeycloakDefinition keycloakDefinition:keycloakDefinitionMap.values()) {
 
             for (ClientDefinition clientDefinition:keycloakDefinition.getClients()) {
 
-                String realmName = clientDefinition.getRealmName();
-                List<ClientDefinition> realmList = result.computeIfAbsent(realmName, k -> new ArrayList<>());
-                realmList.add(clientDefinition);
+                RealmDefinitionIndex realmIndex = result.computeIfAbsent(clientDefinition.getRealmName(), k -> new RealmDefinitionIndex());
+                realmIndex.clientDefinitionsByClientId().put(clientDefinition.getClientId(), clientDefinition);
             }
         }
 
@@ -678,22 +1401,327 @@ public class KeycloakConfigurer {
     }
 
     /**
-     * Update the current state of the realms, and service clients to match the provided definitions.
+     * Plan the operations needed to match the provided definitions without making any changes.  Realms whose
+     * definitions and server state have not changed since they were last applied are left out of the plan.
+     */
+    private KeycloakPlan planKeycloakDefinition(
+            KeycloakRestApi keycloakRestApi,
+            String keycloakUrl,
+            KeycloakDefinition keycloakDefinition
+    ) {
+        Set<String> realmNames = getRealmNames(keycloakRestApi, keycloakDefinition);
+
+        if (!force) {
+            Set<String> definedRealmNames = new HashSet<>();
+            keycloakDefinition.getRealms().forEach(it -> definedRealmNames.add(it.getRealmName()));
+
+            realmNames.removeIf(realmName -> {
+                boolean unchanged = definedRealmNames.contains(realmName)
+                        && realmChangeDetector.isUnchanged(realmName, getKeycloakDefinition(keycloakDefinition, Set.of(realmName)));
+                if (unchanged) {
+                    logger.info("Realm {} is unchanged, skipping", realmName);
+                }
+                return unchanged;
+            });
+        }
+
+        KeycloakPlanner keycloakPlanner = new KeycloakPlanner(keycloakRestApi, logger);
+
+        KeycloakPlan result = keycloakRestApi.getMetrics().time("plan", () -> keycloakPlanner.plan(
+                keycloakUrl,
+                getKeycloakDefinition(keycloakDefinition, realmNames),
+                realmNames,
+                scope
+        ));
+
+        for (PlannedOperation operation:result.operations()) {
+            if (operation.changes().isEmpty()) {
+                logger.info("Planned {}", operation.id());
+            } else {
+                logger.info("Planned {} changing {}", operation.id(), operation.changes());
+            }
+        }
+        logger.info("Planned {} operations across {} realms", result.operations().size(), realmNames.size());
+
+        return result;
+    }
+
+    private boolean applyPlan(
+            KeycloakRestApi keycloakRestApi,
+            KeycloakPlan plan,
+            int parallelism
+    ) {
+        logger.info("Applying {} planned operations with parallelism {}", plan.operations().size(), parallelism);
+
+        KeycloakPlanner keycloakPlanner = new KeycloakPlanner(keycloakRestApi, logger);
+
+        boolean result = keycloakPlanner.apply(plan, parallelism);
+
+        // A plan restricted to some kinds of resource leaves the realm partly applied
+        if (plan.scope().isKindRestricted()) {
+            return result;
+        }
+
+        for (RealmDefinition realmDefinition:plan.keycloakDefinition().getRealms()) {
+
+            String realmName = realmDefinition.getRealmName();
+
+            MDC.put(REALM_MDC_KEY, realmName);
+            try {
+                realmChangeDetector.recordDigests(realmName, getKeycloakDefinition(plan.keycloakDefinition(), Set.of(realmName)));
+            } finally {
+                MDC.remove(REALM_MDC_KEY);
+            }
+        }
+
+        return result;
+    }
+
+    private static KeycloakPlan readPlan(String planFile) throws IOException {
+
+        logger.info("Reading plan from '{}'", planFile);
+
+        return planMapper.readValue(Paths.get(planFile).toFile(), KeycloakPlan.class);
+    }
+
+    private static void writePlan(String planFile, KeycloakPlan plan) throws IOException {
+
+        logger.info("Writing plan to '{}'", planFile);
+
+        planMapper.writeValue(Paths.get(planFile).toFile(), plan);
+    }
+
+    /**
+     * Existing realms are included so that removed realms, and their flows and clients, are processed.  Realms outside
+     * the scope of the run are left out.
+     */
+    private Set<String> getRealmNames(
+            KeycloakRestApi keycloakRestApi,
+            KeycloakDefinition keycloakDefinition
+    ) {
+        Set<String> result = new TreeSet<>();
+        keycloakRestApi.getRealms().forEach(it -> result.add(it.getRealm()));
+        keycloakDefinition.getRealms().forEach(it -> result.add(it.getRealmName()));
+        keycloakDefinition.getAuthenticationFlows().forEach(it -> result.add(it.getRealmName()));
+        keycloakDefinition.getClients().forEach(it -> result.add(it.getRealmName()));
+
+        for (String realmName:scope.realmNames()) {
+            if (!result.contains(realmName)) {
+                logger.warn("Realm {} is neither defined nor exists", realmName);
+            }
+        }
+        result.removeIf(it -> !scope.includesRealm(it));
+
+        return result;
+    }
+
+    /**
+     * Update the current state of the realms, and service clients to match the provided definitions, applying
+     * independent realms concurrently.
+     * <p>
+     * Each realm is applied in isolation in the same order as the sequential import (realm settings, scopes, and roles,
+     * then authentication flows, then clients), so only work for different realms runs concurrently.
+     * <p>
+     * Realms whose definitions and server state have not changed since they were last applied are skipped.
      *
      * @param keycloakDefinition the new platform security definition
+     * @param parallelism the maximum number of realms to apply concurrently
      */
     private boolean applyKeycloakDefinition(
-            KeycloakDefinition keycloakDefinition
+            KeycloakRestApi keycloakRestApi,
+            KeycloakDefinition keycloakDefinition,
+            int parallelism
     ) {
 
         boolean deleteManagedResourcesWhenRemoved = Boolean.TRUE.equals(keycloakDefinition.getDeleteManagedResourcesWhenRemoved());
 
-        boolean updateApplied = realmConfigurer.applyRealms(keycloakDefinition, deleteManagedResourcesWhenRemoved);
+        Set<String> realmNames = getRealmNames(keycloakRestApi, keycloakDefinition);
+
+        logger.info("Applying {} realms with parallelism {}", realmNames.size(), parallelism);
+
+        boolean updateApplied = false;
+
+        ExecutorService executorService = Executors.newFixedThreadPool(parallelism, new RealmThreadFactory());
+        try {
+            Map<String, Future<Boolean>> futures = new LinkedHashMap<>();
+
+            // The realm threads log against the same target as this one
+            String target = MDC.get(TARGET_MDC_KEY);
+
+            for (String realmName:realmNames) {
 
-        updateApplied = authenticationFlowConfigurer.applyAuthenticationFlows(keycloakDefinition) || updateApplied;
+                KeycloakDefinition realmDefinition = getRealmKeycloakDefinition(keycloakDefinition, realmName);
+                RealmState realmState = validatedRealmStates.remove(realmName);
+
+                futures.put(realmName, executorService.submit(() -> {
+                    if (target != null) {
+                        MDC.put(TARGET_MDC_KEY, target);
+                    }
+                    return applyRealmKeycloakDefinition(keycloakRestApi.getMetrics(), realmName, realmDefinition, deleteManagedResourcesWhenRemoved, realmState);
+                }));
+            }
+
+            RuntimeException failure = null;
+            for (String realmName:futures.keySet()) {
+
+                try {
+                    updateApplied = futures.get(realmName).get() || updateApplied;
+                } catch (ExecutionException e) {
+                    logger.error(String.format("Failed to apply realm %s", realmName), e.getCause());
+                    if (failure == null) {
+                        failure = new RuntimeException(String.format("Failed to apply realm %s", realmName), e.getCause());
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException(e);
+                }
+            }
 
-        updateApplied = this.clientConfigurer.applyClients(keycloakDefinition, deleteManagedResourcesWhenRemoved) || updateApplied;
+            if (failure != null) {
+                throw failure;
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
 
         return updateApplied;
     }
+
+    private boolean applyRealmKeycloakDefinition(
+            KeycloakMetrics metrics,
+            String realmName,
+            KeycloakDefinition keycloakDefinition,
+            boolean deleteManagedResourcesWhenRemoved,
+            RealmState realmState
+    ) {
+        MDC.put(REALM_MDC_KEY, realmName);
+        try {
+            boolean defined = !keycloakDefinition.getRealms().isEmpty();
+
+            if (!force && defined && metrics.time("detectChanges", () -> realmChangeDetector.isUnchanged(realmName, keycloakDefinition))) {
+
+                logger.info("Realm {} is unchanged, skipping", realmName);
+                return false;
+            }
+
+            logger.info("Applying realm {}", realmName);
+
+            Set<String> realmNames = Set.of(realmName);
+
+            // Always applied so that a missing realm is created before its flows and clients
+            boolean updateApplied = metrics.time(
+                    "RealmConfigurer.applyRealms",
+                    () -> realmConfigurer.applyRealms(keycloakDefinition, deleteManagedResourcesWhenRemoved, realmNames, scope)
+            );
+
+            if (scope.includes(ApplyScope.Kind.FLOWS)) {
+
+                updateApplied = metrics.time(
+                        "AuthenticationFlowConfigurer.applyAuthenticationFlows",
+                        () -> realmState == null
+                                ? authenticationFlowConfigurer.applyAuthenticationFlows(keycloakDefinition, realmNames)
+                                : authenticationFlowConfigurer.applyAuthenticationFlows(keycloakDefinition, realmName, realmState.flows())
+                ) || updateApplied;
+            }
+
+            if (scope.includes(ApplyScope.Kind.CLIENTS)) {
+
+                updateApplied = metrics.time(
+                        "ClientConfigurer.applyClients",
+                        () -> realmState == null
+                                ? this.clientConfigurer.applyClients(keycloakDefinition, deleteManagedResourcesWhenRemoved, realmNames)
+                                : this.clientConfigurer.applyClients(keycloakDefinition, deleteManagedResourcesWhenRemoved, realmName, realmState.clients())
+                ) || updateApplied;
+            }
+
+            // The digests stand for the whole realm, so they are not recorded when only some kinds were applied
+            if (defined && !scope.isKindRestricted()) {
+                metrics.time("recordDigests", () -> realmChangeDetector.recordDigests(realmName, keycloakDefinition));
+            }
+
+            logger.info("Applied realm {}", realmName);
+
+            return updateApplied;
+        } finally {
+            MDC.remove(REALM_MDC_KEY);
+        }
+    }
+
+    private static KeycloakDefinition getRealmKeycloakDefinition(
+            KeycloakDefinition keycloakDefinition,
+            String realmName
+    ) {
+        return getKeycloakDefinition(keycloakDefinition, Set.of(realmName));
+    }
+
+    private static KeycloakDefinition getKeycloakDefinition(
+            KeycloakDefinition keycloakDefinition,
+            Set<String> realmNames
+    ) {
+        KeycloakDefinition result = new KeycloakDefinition();
+        result.setDeleteManagedResourcesWhenRemoved(keycloakDefinition.getDeleteManagedResourcesWhenRemoved());
+        result.setRealms(keycloakDefinition.getRealms().stream()
+                .filter(it -> realmNames.contains(it.getRealmName()))
+                .toList());
+        result.setAuthenticationFlows(keycloakDefinition.getAuthenticationFlows().stream()
+                .filter(it -> realmNames.contains(it.getRealmName()))
+                .toList());
+        result.setClients(keycloakDefinition.getClients().stream()
+                .filter(it -> realmNames.contains(it.getRealmName()))
+                .toList());
+        return result;
+    }
+
+    /**
+     * The flow and client definitions of a realm, by alias and by client id.
+     */
+    private record RealmDefinitionIndex(
+            Map<String, AuthenticationFlowDefinition> flowDefinitionsByAlias,
+            Map<String, ClientDefinition> clientDefinitionsByClientId
+    ) {
+        RealmDefinitionIndex() {
+            this(new HashMap<>(), new HashMap<>());
+        }
+    }
+
+    /**
+     * The top level flows and clients of a realm as read by the cross validation.
+     */
+    private record RealmState(
+            List<Flow> flows,
+            List<Client> clients
+    ) {}
+
+    private enum TargetResult {
+        APPLIED,
+        UNCHANGED,
+        INVALID,
+        FAILED;
+
+        boolean isComplete() {
+            return this == APPLIED || this == UNCHANGED;
+        }
+    }
+
+    private static class TargetThreadFactory implements ThreadFactory {
+        private final AtomicInteger threadCount = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread result = new Thread(runnable, String.format("target-%d", threadCount.incrementAndGet()));
+            result.setDaemon(true);
+            return result;
+        }
+    }
+
+    private static class RealmThreadFactory implements ThreadFactory {
+        private final AtomicInteger threadCount = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread result = new Thread(runnable, String.format("realm-%d", threadCount.incrementAndGet()));
+            result.setDaemon(true);
+            return result;
+        }
+    }
 }
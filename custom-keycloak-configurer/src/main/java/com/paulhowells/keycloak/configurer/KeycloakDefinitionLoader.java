@@ -0,0 +1,282 @@
+package com.paulhowells.keycloak.configurer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import com.paulhowells.keycloak.configurer.model.KeycloakDefinition;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+/**
+ * Loads the Keycloak Definition files found in a directory, parsing the files concurrently.
+ * <p>
+ * When a cache directory is provided each parsed definition is also stored there in Smile, a binary form of JSON, under
+ * the SHA-256 of the file content and of the fingerprint of the definition model.  Unchanged files are then read from
+ * the cache rather than parsed as YAML, until the model classes change.  A cache entry that cannot be read is ignored
+ * and replaced.
+ */
+class KeycloakDefinitionLoader {
+
+    // Discards the cached definitions after a change to the definition model
+    private static final String MODEL_FINGERPRINT = getModelFingerprint(KeycloakDefinition.class);
+
+    private static final String CACHE_FILE_SUFFIX = ".sml";
+
+    private static final ObjectMapper yamlMapper = new ObjectMapper(new YAMLFactory());
+    private static final ObjectMapper smileMapper = new SmileMapper();
+
+    private final Logger logger;
+    private final Path cacheDirectory;
+    private final int parallelism;
+
+    /**
+     * @param cacheDirectory the directory holding the parsed definitions, or null to always parse the files
+     */
+    KeycloakDefinitionLoader(
+            Path cacheDirectory,
+            int parallelism,
+            Logger logger) {
+        this.cacheDirectory = cacheDirectory;
+        this.parallelism = parallelism;
+        this.logger = logger;
+    }
+
+    Map<String, KeycloakDefinition> loadKeycloakDefinitions(
+            String configDirectory
+    ) throws IOException {
+
+        Map<String, KeycloakDefinition> results = new HashMap<>();
+
+        logger.info("Loading Keycloak definitions from directory '{}'", configDirectory);
+
+        if (cacheDirectory != null) {
+            Files.createDirectories(cacheDirectory);
+        }
+
+        List<Path> paths = findDefinitionFiles(Paths.get(configDirectory));
+
+        ExecutorService executorService = Executors.newFixedThreadPool(Math.max(1, Math.min(parallelism, paths.size())), runnable -> {
+            Thread thread = new Thread(runnable, "definition-loader");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            Map<Path, Future<KeycloakDefinition>> futures = new LinkedHashMap<>();
+            for (Path path:paths) {
+                futures.put(path, executorService.submit(() -> loadKeycloakDefinition(path)));
+            }
+
+            for (Path path:futures.keySet()) {
+
+                KeycloakDefinition keycloakDefinition;
+                try {
+                    keycloakDefinition = futures.get(path).get();
+                } catch (ExecutionException e) {
+                    logger.error(String.format("Failed to read Keycloak definition %s", path), e.getCause());
+                    throw e.getCause() instanceof IOException ioException ? ioException : new IOException(e.getCause());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException(e);
+                }
+
+                if (keycloakDefinition != null) {
+                    results.put(path.toString(), keycloakDefinition);
+                }
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+
+        return results;
+    }
+
+    /**
+     * Reload the definitions in the provided files and directories, which may have been created, modified, or deleted.
+     * The other definitions are carried over as the same instances, so that callers can tell which were reloaded.
+     */
+    Map<String, KeycloakDefinition> reloadKeycloakDefinitions(
+            Map<String, KeycloakDefinition> keycloakDefinitionMap,
+            Set<Path> changedPaths
+    ) throws IOException {
+
+        Map<String, KeycloakDefinition> results = new HashMap<>(keycloakDefinitionMap);
+
+        for (Path changedPath:changedPaths) {
+
+            // A deleted or replaced directory takes its definitions with it
+            results.keySet().removeIf(key -> Paths.get(key).startsWith(changedPath));
+
+            if (Files.exists(changedPath)) {
+
+                for (Path path:findDefinitionFiles(changedPath)) {
+
+                    KeycloakDefinition keycloakDefinition = loadKeycloakDefinition(path);
+
+                    if (keycloakDefinition != null) {
+                        results.put(path.toString(), keycloakDefinition);
+                    }
+                }
+            }
+        }
+
+        return results;
+    }
+
+    private List<Path> findDefinitionFiles(Path start) throws IOException {
+
+        try (Stream<Path> stream = Files.walk(start)) {
+            return stream
+                    .filter(Files::isRegularFile)
+                    .filter(path -> {
+                        String fileName = path.toString();
+                        boolean result = fileName.endsWith(".yaml") || fileName.endsWith(".yml");
+                        if (!result) {
+                            logger.debug("Skipping {}", path);
+                        }
+                        return result;
+                    })
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private KeycloakDefinition loadKeycloakDefinition(Path path) throws IOException {
+
+        logger.info("Found Keycloak definition file '{}'", path);
+
+        byte[] content = Files.readAllBytes(path);
+
+        if (cacheDirectory == null) {
+            return yamlMapper.readValue(content, KeycloakDefinition.class);
+        }
+
+        Path cachePath = cacheDirectory.resolve(getDigest(content) + CACHE_FILE_SUFFIX);
+
+        if (Files.exists(cachePath)) {
+
+            try {
+                KeycloakDefinition result = smileMapper.readValue(cachePath.toFile(), KeycloakDefinition.class);
+                logger.debug("Read {} from the definition cache", path);
+                return result;
+            } catch (IOException e) {
+                logger.warn("Ignoring unreadable definition cache entry {}", cachePath);
+            }
+        }
+
+        KeycloakDefinition result = yamlMapper.readValue(content, KeycloakDefinition.class);
+
+        if (result != null) {
+            writeCacheEntry(cachePath, result);
+        }
+
+        return result;
+    }
+
+    private void writeCacheEntry(Path cachePath, KeycloakDefinition keycloakDefinition) {
+
+        try {
+            // Write to a temporary file first so a concurrent or interrupted run never sees a partial entry
+            Path temporaryPath = Files.createTempFile(cacheDirectory, "definition", ".tmp");
+            try {
+                smileMapper.writeValue(temporaryPath.toFile(), keycloakDefinition);
+                Files.move(temporaryPath, cachePath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temporaryPath);
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to write definition cache entry {}", cachePath, e);
+        }
+    }
+
+    private static String getDigest(byte[] content) {
+
+        try {
+            MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+            messageDigest.update(MODEL_FINGERPRINT.getBytes(StandardCharsets.UTF_8));
+            messageDigest.update(content);
+
+            return HexFormat.of().formatHex(messageDigest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Describe the classes that make up the model, from the root class through its fields, superclasses, and nested
+     * classes within the same package: their names, fields, field types, and annotations.
+     */
+    static String getModelFingerprint(Class<?> rootType) {
+
+        Map<String, String> descriptions = new TreeMap<>();
+        describeModelClass(rootType, rootType.getPackageName(), descriptions);
+
+        return String.join("\n", descriptions.values());
+    }
+
+    private static void describeModelClass(Type type, String packageName, Map<String, String> descriptions) {
+
+        if (type instanceof ParameterizedType parameterizedType) {
+
+            describeModelClass(parameterizedType.getRawType(), packageName, descriptions);
+            for (Type argument:parameterizedType.getActualTypeArguments()) {
+                describeModelClass(argument, packageName, descriptions);
+            }
+        } else if (type instanceof Class<?> modelClass
+                && packageName.equals(modelClass.getPackageName())
+                && !descriptions.containsKey(modelClass.getName())) {
+
+            StringBuilder description = new StringBuilder(modelClass.getName());
+            descriptions.put(modelClass.getName(), "");
+
+            description.append(Arrays.toString(modelClass.getAnnotations()));
+            description.append(" extends ").append(modelClass.getGenericSuperclass());
+
+            List<Field> fields = new ArrayList<>(Arrays.asList(modelClass.getDeclaredFields()));
+            fields.sort(Comparator.comparing(Field::getName));
+
+            for (Field field:fields) {
+
+                if (!Modifier.isStatic(field.getModifiers())) {
+
+                    description.append(' ').append(field.getName()).append(':').append(field.getGenericType().getTypeName());
+                    description.append(Arrays.toString(field.getAnnotations()));
+
+                    describeModelClass(field.getGenericType(), packageName, descriptions);
+                }
+            }
+
+            List<Method> methods = new ArrayList<>(Arrays.asList(modelClass.getDeclaredMethods()));
+            methods.sort(Comparator.comparing(Method::toGenericString));
+
+            for (Method method:methods) {
+
+                if (method.getAnnotations().length > 0) {
+                    description.append(' ').append(method.getName()).append(Arrays.toString(method.getAnnotations()));
+                }
+            }
+
+            descriptions.put(modelClass.getName(), description.toString());
+
+            describeModelClass(modelClass.getGenericSuperclass(), packageName, descriptions);
+            for (Class<?> nestedClass:modelClass.getDeclaredClasses()) {
+                describeModelClass(nestedClass, packageName, descriptions);
+            }
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package com.paulhowells.keycloak.configurer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import com.paulhowells.keycloak.configurer.model.AuthenticationFlowDefinition;
+import com.paulhowells.keycloak.configurer.model.ClientDefinition;
+import com.paulhowells.keycloak.configurer.model.KeycloakDefinition;
+import com.paulhowells.keycloak.configurer.model.RealmDefinition;
+import com.paulhowells.keycloak.configurer.rest.client.KeycloakRestApi;
+import com.paulhowells.keycloak.configurer.rest.client.model.Realm;
+import org.slf4j.Logger;
+import org.slf4j.MDC;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.paulhowells.keycloak.configurer.KeycloakConfigurer.REALM_MDC_KEY;
+
+/**
+ * Exports the current state of the realms as Keycloak Definition files, in the same layout the import reads.
+ * <p>
+ * Realms are exported concurrently.  Each definition is written to its own file as soon as it has been read, and clients
+ * are read a page at a time and dropped from the snapshot once written, so memory use does not grow with the number of
+ * clients.  The rest of a realm is dropped from the snapshot once the realm has been written.
+ * <p>
+ * The client definitions include the client secrets, so the files and the directories created are only accessible by
+ * their owner, where the file system supports POSIX permissions.
+ * <pre>
+ * realm-name/realm.yaml
+ * realm-name/authentication-flows/flow-alias.yaml
+ * realm-name/clients/client-id.yaml
+ * </pre>
+ */
+class KeycloakExporter {
+
+    private static final ObjectMapper mapper = new ObjectMapper(new YAMLFactory());
+
+    private static final Set<PosixFilePermission> OWNER_ONLY_FILE = PosixFilePermissions.fromString("rw-------");
+    private static final Set<PosixFilePermission> OWNER_ONLY_DIRECTORY = PosixFilePermissions.fromString("rwx------");
+
+    private final Logger logger;
+    private final KeycloakRestApi keycloakRestApi;
+    private final RealmConfigurer realmConfigurer;
+    private final AuthenticationFlowConfigurer authenticationFlowConfigurer;
+    private final ClientConfigurer clientConfigurer;
+
+    KeycloakExporter(
+            KeycloakRestApi keycloakRestApi,
+            Logger logger) {
+        this.keycloakRestApi = keycloakRestApi;
+        this.logger = logger;
+        this.realmConfigurer = new RealmConfigurer(
+                keycloakRestApi,
+                logger
+        );
+        this.authenticationFlowConfigurer = new AuthenticationFlowConfigurer(
+                keycloakRestApi,
+                logger
+        );
+        this.clientConfigurer = new ClientConfigurer(
+                keycloakRestApi,
+                logger
+        );
+    }
+
+    /**
+     * @param parallelism the maximum number of realms to export concurrently
+     */
+    void export(
+            Path exportDirectory,
+            int parallelism
+    ) throws IOException {
+        logger.debug("<export");
+
+        createDirectories(exportDirectory);
+
+        logger.warn("The exported client definitions include the client secrets, keep {} private", exportDirectory);
+
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService executorService = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, String.format("export-%d", threadCount.incrementAndGet()));
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            Map<String, Future<Integer>> futures = new LinkedHashMap<>();
+
+            for (Realm realm:keycloakRestApi.getRealms()) {
+
+                futures.put(realm.getRealm(), executorService.submit(() -> exportRealm(exportDirectory, realm)));
+            }
+
+            for (String realmName:futures.keySet()) {
+
+                try {
+                    int fileCount = futures.get(realmName).get();
+                    logger.info("Exported realm {} to {} files", realmName, fileCount);
+                } catch (ExecutionException e) {
+                    throw new IOException(String.format("Failed to export realm %s", realmName), e.getCause());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException(e);
+                }
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+
+        logger.debug(">export");
+    }
+
+    private int exportRealm(
+            Path exportDirectory,
+            Realm realm
+    ) throws IOException {
+        MDC.put(REALM_MDC_KEY, realm.getRealm());
+        try {
+            Path realmDirectory = exportDirectory.resolve(getFileName(realm.getRealm()));
+            Path flowDirectory = realmDirectory.resolve("authentication-flows");
+            Path clientDirectory = realmDirectory.resolve("clients");
+
+            createDirectories(flowDirectory);
+            createDirectories(clientDirectory);
+
+            Set<String> fileNames = new HashSet<>();
+
+            RealmDefinition realmDefinition = realmConfigurer.getDefinition(realm);
+
+            KeycloakDefinition realmFile = new KeycloakDefinition();
+            realmFile.getRealms().add(realmDefinition);
+            write(realmDirectory.resolve("realm.yaml"), realmFile);
+
+            try {
+                authenticationFlowConfigurer.forEachDefinition(realm, definition -> {
+
+                    KeycloakDefinition flowFile = new KeycloakDefinition();
+                    flowFile.getAuthenticationFlows().add(definition);
+                    write(getUniquePath(flowDirectory, definition.getAlias(), fileNames), flowFile);
+                });
+
+                clientConfigurer.forEachDefinition(realm, definition -> {
+
+                    KeycloakDefinition clientFile = new KeycloakDefinition();
+                    clientFile.getClients().add(definition);
+                    write(getUniquePath(clientDirectory, definition.getClientId(), fileNames), clientFile);
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+
+            return fileNames.size() + 1;
+        } finally {
+            keycloakRestApi.clearSnapshot(realm.getRealm());
+            MDC.remove(REALM_MDC_KEY);
+        }
+    }
+
+    private void write(Path path, KeycloakDefinition keycloakDefinition) {
+
+        logger.debug("Writing {}", path);
+
+        try {
+            if (isPosix(path)) {
+                if (Files.exists(path)) {
+                    Files.setPosixFilePermissions(path, OWNER_ONLY_FILE);
+                } else {
+                    Files.createFile(path, PosixFilePermissions.asFileAttribute(OWNER_ONLY_FILE));
+                }
+            }
+
+            mapper.writeValue(path.toFile(), keycloakDefinition);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void createDirectories(Path directory) throws IOException {
+
+        if (isPosix(directory)) {
+            Files.createDirectories(directory, PosixFilePermissions.asFileAttribute(OWNER_ONLY_DIRECTORY));
+        } else {
+            Files.createDirectories(directory);
+        }
+    }
+
+    private static boolean isPosix(Path path) {
+        return path.getFileSystem().supportedFileAttributeViews().contains("posix");
+    }
+
+    /**
+     * Two names may map to the same file name once unsafe characters are replaced, in which case a suffix is added.
+     */
+    private static Path getUniquePath(Path directory, String name, Set<String> fileNames) {
+
+        String baseName = getFileName(name);
+        String fileName = baseName;
+
+        for (int index = 2; !fileNames.add(directory.getFileName() + "/" + fileName); ++index) {
+            fileName = String.format("%s-%d", baseName, index);
+        }
+
+        return directory.resolve(fileName + ".yaml");
+    }
+
+    private static String getFileName(String name) {
+
+        String result = name.replaceAll("[^A-Za-z0-9._-]", "_");
+
+        return result.isEmpty() || result.startsWith(".") ? "_" + result : result;
+    }
+}
@@ -0,0 +1,26 @@
+package com.paulhowells.keycloak.configurer;
+
+import com.paulhowells.keycloak.configurer.model.KeycloakDefinition;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The operations required to bring a Keycloak server in line with the Keycloak Definitions, along with the definitions
+ * they apply, so that a reviewed plan can be applied later without re-reading the definitions or re-diffing.
+ *
+ * @param keycloakUrl the server the plan was made against
+ * @param keycloakDefinition the definitions of the planned realms
+ * @param scope the realms and kinds of resource the plan was restricted to
+ * @param stateDigests the server state digest of each realm with planned operations when the plan was made, without
+ *                     the realms that did not exist, so that a plan is refused once the server has changed
+ */
+record KeycloakPlan(
+        String keycloakUrl,
+        boolean deleteManagedResourcesWhenRemoved,
+        KeycloakDefinition keycloakDefinition,
+        ApplyScope scope,
+        List<PlannedOperation> operations,
+        Map<String, String> stateDigests
+) {
+}
@@ -0,0 +1,254 @@
+package com.paulhowells.keycloak.configurer;
+
+import com.paulhowells.keycloak.configurer.model.ClientDefinition;
+import com.paulhowells.keycloak.configurer.model.KeycloakDefinition;
+import com.paulhowells.keycloak.configurer.rest.client.KeycloakMetrics;
+import com.paulhowells.keycloak.configurer.rest.client.KeycloakRestApi;
+import org.slf4j.Logger;
+
+import java.util.*;
+
+/**
+ * Splits an import into a read-only plan of operations on the top level resources, and the application of that plan.
+ * <p>
+ * Within a realm the realm settings are applied first, then the authentication flows, then the clients.  A client that
+ * overrides a flow waits for that flow, and a flow is only deleted once the clients that may have referenced it have
+ * been applied.  A realm is only deleted or disabled after everything else in it.  Anything else may run concurrently.
+ * <p>
+ * A plan is only applied to realms whose server state is still as it was when the plan was made.
+ */
+class KeycloakPlanner {
+
+    private final Logger logger;
+    private final RealmConfigurer realmConfigurer;
+    private final AuthenticationFlowConfigurer authenticationFlowConfigurer;
+    private final ClientConfigurer clientConfigurer;
+    private final PlanExecutor planExecutor;
+    private final RealmChangeDetector realmChangeDetector;
+    private final KeycloakMetrics metrics;
+
+    KeycloakPlanner(
+            KeycloakRestApi keycloakRestApi,
+            Logger logger) {
+        this.logger = logger;
+        this.realmConfigurer = new RealmConfigurer(
+                keycloakRestApi,
+                logger
+        );
+        this.authenticationFlowConfigurer = new AuthenticationFlowConfigurer(
+                keycloakRestApi,
+                logger
+        );
+        this.clientConfigurer = new ClientConfigurer(
+                keycloakRestApi,
+                logger
+        );
+        this.planExecutor = new PlanExecutor(logger);
+        this.realmChangeDetector = new RealmChangeDetector(
+                keycloakRestApi,
+                logger
+        );
+        this.metrics = keycloakRestApi.getMetrics();
+    }
+
+    /**
+     * @param keycloakDefinition the definitions of the realms to plan
+     * @param realmNames the existing realms to consider, including any that are to be removed
+     * @param scope the kinds of resource to plan, a realm update only applies the realm level kinds in scope
+     */
+    KeycloakPlan plan(
+            String keycloakUrl,
+            KeycloakDefinition keycloakDefinition,
+            Set<String> realmNames,
+            ApplyScope scope
+    ) {
+        logger.debug("<plan");
+
+        boolean deleteManagedResourcesWhenRemoved = Boolean.TRUE.equals(keycloakDefinition.getDeleteManagedResourcesWhenRemoved());
+
+        List<PlannedOperation> operations = new ArrayList<>();
+        operations.addAll(realmConfigurer.planRealms(keycloakDefinition, deleteManagedResourcesWhenRemoved, realmNames, scope));
+        operations.addAll(authenticationFlowConfigurer.planAuthenticationFlows(keycloakDefinition, realmNames));
+        operations.addAll(clientConfigurer.planClients(keycloakDefinition, deleteManagedResourcesWhenRemoved, realmNames));
+        operations.removeIf(it -> !isInScope(it, scope));
+
+        Map<String, String> stateDigests = new TreeMap<>();
+        for (String realmName:getRealmNames(operations)) {
+
+            String stateDigest = realmChangeDetector.getStateDigest(realmName);
+            if (stateDigest != null) {
+                stateDigests.put(realmName, stateDigest);
+            }
+        }
+
+        KeycloakPlan result = new KeycloakPlan(
+                keycloakUrl,
+                deleteManagedResourcesWhenRemoved,
+                keycloakDefinition,
+                scope,
+                addDependencies(operations, keycloakDefinition),
+                stateDigests
+        );
+
+        logger.debug(">plan");
+        return result;
+    }
+
+    boolean apply(
+            KeycloakPlan plan,
+            int parallelism
+    ) {
+        logger.debug("<apply");
+
+        validateUnchanged(plan);
+
+        KeycloakDefinition keycloakDefinition = plan.keycloakDefinition();
+        boolean deleteManagedResourcesWhenRemoved = plan.deleteManagedResourcesWhenRemoved();
+
+        boolean result = planExecutor.execute(plan.operations(), parallelism, operation -> {
+
+            logger.info("Applying {}", operation.id());
+
+            return metrics.time(String.format("%s %s", operation.type(), operation.resourceType()), () -> switch (operation.resourceType()) {
+                case REALM -> realmConfigurer.applyOperation(operation, keycloakDefinition, deleteManagedResourcesWhenRemoved, plan.scope());
+                case AUTHENTICATION_FLOW -> authenticationFlowConfigurer.applyOperation(operation, keycloakDefinition);
+                case CLIENT -> clientConfigurer.applyOperation(operation, keycloakDefinition, deleteManagedResourcesWhenRemoved);
+            });
+        });
+
+        logger.debug(">apply {}", result);
+        return result;
+    }
+
+    /**
+     * Refuse the plan if any of its realms has been changed on the server since it was made, as its operations and
+     * the changes they list would no longer be the ones required.
+     */
+    private void validateUnchanged(KeycloakPlan plan) {
+
+        if (plan.scope() == null || plan.stateDigests() == null) {
+            throw new IllegalStateException("The plan does not record the server state it was made against, make a new plan");
+        }
+
+        for (String realmName:getRealmNames(plan.operations())) {
+
+            String stateDigest = realmChangeDetector.getStateDigest(realmName);
+
+            if (!Objects.equals(plan.stateDigests().get(realmName), stateDigest)) {
+                throw new IllegalStateException(String.format("Realm %s has changed since the plan was made, make a new plan", realmName));
+            }
+        }
+    }
+
+    private static Set<String> getRealmNames(List<PlannedOperation> operations) {
+        Set<String> result = new TreeSet<>();
+
+        operations.forEach(it -> result.add(it.realmName()));
+
+        return result;
+    }
+
+    private static boolean isInScope(
+            PlannedOperation operation,
+            ApplyScope scope
+    ) {
+        return switch (operation.resourceType()) {
+            // A missing realm is always created so that its flows and clients can be
+            case REALM -> operation.type() == PlannedOperation.Type.CREATE
+                    || (operation.isRemoval() ? scope.includes(ApplyScope.Kind.REALM) : scope.includesRealmResources());
+            case AUTHENTICATION_FLOW -> scope.includes(ApplyScope.Kind.FLOWS);
+            case CLIENT -> scope.includes(ApplyScope.Kind.CLIENTS);
+        };
+    }
+
+    static List<PlannedOperation> addDependencies(
+            List<PlannedOperation> operations,
+            KeycloakDefinition keycloakDefinition
+    ) {
+        Map<String, List<PlannedOperation>> operationsByRealm = new HashMap<>();
+        for (PlannedOperation operation:operations) {
+            operationsByRealm.computeIfAbsent(operation.realmName(), k -> new ArrayList<>()).add(operation);
+        }
+
+        List<PlannedOperation> result = new ArrayList<>();
+
+        for (PlannedOperation operation:operations) {
+
+            List<PlannedOperation> realmOperations = operationsByRealm.get(operation.realmName());
+
+            PlannedOperation realmOperation = realmOperations.stream()
+                    .filter(it -> it.resourceType() == PlannedOperation.ResourceType.REALM)
+                    .findFirst()
+                    .orElse(null);
+
+            Set<String> dependsOn = new LinkedHashSet<>();
+
+            if (operation.resourceType() == PlannedOperation.ResourceType.REALM) {
+
+                if (operation.isRemoval()) {
+
+                    realmOperations.stream()
+                            .filter(it -> it != operation)
+                            .forEach(it -> dependsOn.add(it.id()));
+                }
+            } else {
+
+                if (realmOperation != null && !realmOperation.isRemoval()) {
+                    dependsOn.add(realmOperation.id());
+                }
+
+                if (operation.resourceType() == PlannedOperation.ResourceType.AUTHENTICATION_FLOW && operation.isRemoval()) {
+
+                    // The clients may stop using the flow
+                    realmOperations.stream()
+                            .filter(it -> it.resourceType() == PlannedOperation.ResourceType.CLIENT)
+                            .forEach(it -> dependsOn.add(it.id()));
+                }
+
+                if (operation.resourceType() == PlannedOperation.ResourceType.CLIENT && !operation.isRemoval()) {
+
+                    Set<String> flowAliases = getFlowOverrideAliases(operation, keycloakDefinition);
+
+                    realmOperations.stream()
+                            .filter(it -> it.resourceType() == PlannedOperation.ResourceType.AUTHENTICATION_FLOW)
+                            .filter(it -> !it.isRemoval())
+                            .filter(it -> flowAliases.contains(it.name().toUpperCase()))
+                            .forEach(it -> dependsOn.add(it.id()));
+                }
+            }
+
+            result.add(operation.withDependsOn(new ArrayList<>(dependsOn)));
+        }
+
+        return result;
+    }
+
+    private static Set<String> getFlowOverrideAliases(
+            PlannedOperation operation,
+            KeycloakDefinition keycloakDefinition
+    ) {
+        Set<String> result = new HashSet<>();
+
+        for (ClientDefinition clientDefinition:keycloakDefinition.getClients()) {
+
+            if (operation.realmName().equalsIgnoreCase(clientDefinition.getRealmName())
+                    && operation.name().equalsIgnoreCase(clientDefinition.getClientId())) {
+
+                ClientDefinition.GrantTypes grantTypes = clientDefinition.getGrantTypes();
+
+                if (grantTypes != null) {
+
+                    if (grantTypes.getAuthorizationCode() != null && grantTypes.getAuthorizationCode().getFlowOverride() != null) {
+                        result.add(grantTypes.getAuthorizationCode().getFlowOverride().toUpperCase());
+                    }
+
+                    if (grantTypes.getPassword() != null && grantTypes.getPassword().getFlowOverride() != null) {
+                        result.add(grantTypes.getPassword().getFlowOverride().toUpperCase());
+                    }
+                }
+            }
+        }
+
+        return result;
+    }
+}
@@ -0,0 +1,132 @@
+package com.paulhowells.keycloak.configurer;
+
+import com.paulhowells.keycloak.configurer.rest.client.KeycloakRestApi;
+import com.paulhowells.keycloak.configurer.rest.client.model.PartialImport;
+import com.paulhowells.keycloak.configurer.rest.client.model.PartialImportResults;
+import org.slf4j.Logger;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Creates new resources in batches through the realm partialImport endpoint, rather than with a request each.
+ * <p>
+ * When a batch fails the resources are created one at a time so that only the failing resource is affected.  A batch
+ * may have been created even though its request failed, when the response was lost, so the realm is listed again first
+ * and only the resources still missing are created.
+ */
+class PartialImporter {
+
+    static final String RESOURCE_TYPE_CLIENT = "CLIENT";
+    static final String RESOURCE_TYPE_REALM_ROLE = "REALM_ROLE";
+
+    private final Logger logger;
+    private final KeycloakRestApi keycloakRestApi;
+
+    PartialImporter(
+            KeycloakRestApi keycloakRestApi,
+            Logger logger) {
+        this.keycloakRestApi = keycloakRestApi;
+        this.logger = logger;
+    }
+
+    /**
+     * @param resourceType the type the partial import reports the resources under
+     * @param resources the resources to create, all in the realm
+     * @param toPartialImport builds the partial import of a batch of resources
+     * @param getName the name the partial import reports a resource under
+     * @param getExistingIds lists the ids of the resources now in the realm by name
+     * @param created called with each resource created by a batch, and its id
+     * @param createOne creates a single resource, used when batching is disabled or the batch failed
+     */
+    <T> void create(
+            String realmName,
+            String resourceType,
+            List<T> resources,
+            Function<List<T>, PartialImport> toPartialImport,
+            Function<T, String> getName,
+            Supplier<Map<String, String>> getExistingIds,
+            BiConsumer<T, String> created,
+            Consumer<T> createOne
+    ) {
+        logger.debug("<create");
+
+        int batchSize = keycloakRestApi.getImportBatchSize();
+
+        if (batchSize < 2 || resources.size() < 2) {
+
+            resources.forEach(createOne);
+        } else {
+
+            for (int start = 0; start < resources.size(); start += batchSize) {
+
+                List<T> batch = resources.subList(start, Math.min(resources.size(), start + batchSize));
+
+                Map<String, String> ids;
+                try {
+                    logger.info("Importing {} {} resources into realm {}", batch.size(), resourceType, realmName);
+
+                    ids = getIds(keycloakRestApi.partialImport(realmName, toPartialImport.apply(batch)), resourceType);
+                } catch (RuntimeException e) {
+
+                    logger.warn("Failed to import {} {} resources into realm {}, creating them one at a time", batch.size(), resourceType, realmName, e);
+
+                    Map<String, String> existingIds = getExistingIds.get();
+
+                    for (T resource:batch) {
+
+                        String id = existingIds.get(getName.apply(resource));
+
+                        if (id == null) {
+                            createOne.accept(resource);
+                        } else {
+                            logger.info("{} {} already exists in realm {}", resourceType, getName.apply(resource), realmName);
+                            created.accept(resource, id);
+                        }
+                    }
+                    continue;
+                }
+
+                for (T resource:batch) {
+
+                    String name = getName.apply(resource);
+                    String id = ids.get(name);
+
+                    if (id == null) {
+                        throw new IllegalStateException(String.format("The import into realm %s did not report %s %s", realmName, resourceType, name));
+                    }
+
+                    created.accept(resource, id);
+                }
+            }
+        }
+
+        logger.debug(">create");
+    }
+
+    private static Map<String, String> getIds(
+            PartialImportResults partialImportResults,
+            String resourceType
+    ) {
+        Map<String, String> result = new HashMap<>();
+
+        if (partialImportResults != null) {
+
+            for (PartialImportResults.Result importResult:partialImportResults.getResults()) {
+
+                if (resourceType.equals(importResult.getResourceType())
+                        && PartialImportResults.ACTION_ADDED.equals(importResult.getAction())) {
+
+                    result.put(importResult.getResourceName(), importResult.getId());
+                }
+            }
+        }
+
+        return result;
+    }
+}
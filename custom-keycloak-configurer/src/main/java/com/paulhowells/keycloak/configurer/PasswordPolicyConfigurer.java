@@ -2,6 +2,7 @@ package com.paulhowells.keycloak.configurer;
 
 import com.paulhowells.keycloak.configurer.model.PasswordPolicy;
 import com.paulhowells.keycloak.configurer.rest.client.KeycloakRestApi;
+import com.paulhowells.keycloak.configurer.rest.client.model.NewRealm;
 import com.paulhowells.keycloak.configurer.rest.client.model.Realm;
 import org.slf4j.Logger;
 
@@ -52,6 +53,15 @@ public class PasswordPolicyConfigurer {
         return result;
     }
 
+    void applyToNewRealm(
+            NewRealm realm,
+            PasswordPolicy definition
+    ) {
+        if (definition != null) {
+            realm.setPasswordPolicy(getPasswordPolicy(definition));
+        }
+    }
+
     private boolean isDirty(
             PasswordPolicy current,
             PasswordPolicy updated) {
@@ -0,0 +1,191 @@
+package com.paulhowells.keycloak.configurer;
+
+import org.slf4j.Logger;
+import org.slf4j.MDC;
+
+import java.util.*;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.paulhowells.keycloak.configurer.KeycloakConfigurer.REALM_MDC_KEY;
+
+/**
+ * Executes planned operations as soon as the operations they depend on have completed, running up to the requested
+ * number of operations concurrently.
+ * <p>
+ * When an operation fails the operations that depend on it are skipped, while independent operations carry on.  The
+ * first failure is thrown once everything that can run has finished.
+ */
+class PlanExecutor {
+
+    @FunctionalInterface
+    interface OperationAction {
+
+        /**
+         * @return true if the operation changed the server
+         */
+        boolean apply(PlannedOperation operation);
+    }
+
+    private record Outcome(PlannedOperation operation, boolean updateApplied, Throwable error) {
+    }
+
+    private final Logger logger;
+
+    PlanExecutor(Logger logger) {
+        this.logger = logger;
+    }
+
+    boolean execute(
+            List<PlannedOperation> operations,
+            int parallelism,
+            OperationAction action
+    ) {
+        Map<String, PlannedOperation> operationMap = new LinkedHashMap<>();
+        for (PlannedOperation operation:operations) {
+            if (operationMap.put(operation.id(), operation) != null) {
+                throw new IllegalStateException(String.format("Duplicate operation %s", operation.id()));
+            }
+        }
+
+        Map<String, Integer> remainingDependencies = new HashMap<>();
+        Map<String, List<String>> dependents = new HashMap<>();
+        for (PlannedOperation operation:operations) {
+
+            remainingDependencies.put(operation.id(), operation.dependsOn().size());
+
+            for (String dependency:operation.dependsOn()) {
+
+                if (!operationMap.containsKey(dependency)) {
+                    throw new IllegalStateException(String.format("Operation %s depends on the unknown operation %s", operation.id(), dependency));
+                }
+
+                dependents.computeIfAbsent(dependency, k -> new ArrayList<>()).add(operation.id());
+            }
+        }
+
+        validateAcyclic(operationMap, remainingDependencies, dependents);
+
+        boolean updateApplied = false;
+        Set<String> completed = new HashSet<>();
+        Throwable failure = null;
+
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService executorService = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, String.format("operation-%d", threadCount.incrementAndGet()));
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            CompletionService<Outcome> completionService = new ExecutorCompletionService<>(executorService);
+            int inFlight = 0;
+
+            for (PlannedOperation operation:operations) {
+                if (operation.dependsOn().isEmpty()) {
+                    submit(completionService, operation, action);
+                    ++inFlight;
+                }
+            }
+
+            while (inFlight > 0) {
+
+                Outcome outcome = completionService.take().get();
+                --inFlight;
+
+                PlannedOperation operation = outcome.operation();
+
+                if (outcome.error() == null) {
+
+                    completed.add(operation.id());
+                    updateApplied = outcome.updateApplied() || updateApplied;
+
+                    for (String dependent:dependents.getOrDefault(operation.id(), List.of())) {
+
+                        if (remainingDependencies.merge(dependent, -1, Integer::sum) == 0) {
+                            submit(completionService, operationMap.get(dependent), action);
+                            ++inFlight;
+                        }
+                    }
+                } else {
+
+                    logger.error(String.format("Operation %s failed", operation.id()), outcome.error());
+                    if (failure == null) {
+                        failure = outcome.error();
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        } finally {
+            executorService.shutdownNow();
+        }
+
+        if (failure != null) {
+
+            for (String id:operationMap.keySet()) {
+                if (!completed.contains(id)) {
+                    logger.warn("Operation {} was not applied", id);
+                }
+            }
+
+            throw new RuntimeException("Failed to apply the plan", failure);
+        }
+
+        return updateApplied;
+    }
+
+    private static void submit(
+            CompletionService<Outcome> completionService,
+            PlannedOperation operation,
+            OperationAction action
+    ) {
+        completionService.submit(() -> {
+            MDC.put(REALM_MDC_KEY, operation.realmName());
+            try {
+                return new Outcome(operation, action.apply(operation), null);
+            } catch (RuntimeException e) {
+                return new Outcome(operation, false, e);
+            } finally {
+                MDC.remove(REALM_MDC_KEY);
+            }
+        });
+    }
+
+    private static void validateAcyclic(
+            Map<String, PlannedOperation> operationMap,
+            Map<String, Integer> remainingDependencies,
+            Map<String, List<String>> dependents
+    ) {
+        Map<String, Integer> counts = new HashMap<>(remainingDependencies);
+        Deque<String> ready = new ArrayDeque<>();
+        counts.forEach((id, count) -> {
+            if (count == 0) {
+                ready.add(id);
+            }
+        });
+
+        int visited = 0;
+        while (!ready.isEmpty()) {
+
+            String id = ready.poll();
+            ++visited;
+
+            for (String dependent:dependents.getOrDefault(id, List.of())) {
+                if (counts.merge(dependent, -1, Integer::sum) == 0) {
+                    ready.add(dependent);
+                }
+            }
+        }
+
+        if (visited != operationMap.size()) {
+            throw new IllegalStateException("The planned operations contain a dependency cycle");
+        }
+    }
+}
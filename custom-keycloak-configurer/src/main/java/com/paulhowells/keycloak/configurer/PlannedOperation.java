@@ -0,0 +1,104 @@
+package com.paulhowells.keycloak.configurer;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A single create, update, disable, or delete of a top level resource, as identified by a configurer while planning.
+ * <p>
+ * An update is only planned when the existing resource differs from its definition, and lists the definition
+ * properties that differ so that applying it only writes those parts of the resource.
+ *
+ * @param name the realm name, flow alias, or client id
+ * @param resourceId the id of the existing resource, null for a create
+ * @param changes the paths of the definition properties an update changes, e.g. grantTypes.password.enabled, empty
+ *                for the other types
+ * @param dependsOn the ids of the operations that must complete before this one
+ */
+record PlannedOperation(
+        String id,
+        Type type,
+        ResourceType resourceType,
+        String realmName,
+        String name,
+        String resourceId,
+        List<String> changes,
+        List<String> dependsOn
+) {
+
+    enum Type { CREATE, UPDATE, DISABLE, DELETE }
+
+    enum ResourceType { REALM, AUTHENTICATION_FLOW, CLIENT }
+
+    PlannedOperation {
+        changes = changes == null ? List.of() : List.copyOf(changes);
+        dependsOn = dependsOn == null ? List.of() : List.copyOf(dependsOn);
+    }
+
+    static PlannedOperation of(
+            Type type,
+            ResourceType resourceType,
+            String realmName,
+            String name,
+            String resourceId
+    ) {
+        return of(type, resourceType, realmName, name, resourceId, List.of());
+    }
+
+    static PlannedOperation of(
+            Type type,
+            ResourceType resourceType,
+            String realmName,
+            String name,
+            String resourceId,
+            List<String> changes
+    ) {
+        String id = resourceType == ResourceType.REALM
+                ? String.format("%s %s %s", type, resourceType, realmName)
+                : String.format("%s %s %s/%s", type, resourceType, realmName, name);
+
+        return new PlannedOperation(id, type, resourceType, realmName, name, resourceId, changes, List.of());
+    }
+
+    PlannedOperation withDependsOn(List<String> dependsOn) {
+        return new PlannedOperation(id, type, resourceType, realmName, name, resourceId, changes, dependsOn);
+    }
+
+    @JsonIgnore
+    boolean isRemoval() {
+        return type == Type.DISABLE || type == Type.DELETE;
+    }
+
+    /**
+     * @return the top level definition properties an update changes, e.g. grantTypes for grantTypes.password.enabled
+     */
+    @JsonIgnore
+    Set<String> getChangedProperties() {
+        Set<String> result = new LinkedHashSet<>();
+
+        for (String change:changes) {
+            result.add(getProperty(change));
+        }
+
+        return result;
+    }
+
+    /**
+     * @param path a property path, e.g. grantTypes.password.enabled
+     * @return the top level property of the path, e.g. grantTypes
+     */
+    static String getProperty(String path) {
+
+        for (int i = 0; i < path.length(); ++i) {
+            char c = path.charAt(i);
+            if (c == '.' || c == '[') {
+                return path.substring(0, i);
+            }
+        }
+
+        return path;
+    }
+}
@@ -189,7 +189,7 @@ public class ProtocolMapperConfigurer {
 
         String id = keycloakRestApi.addScopeMapper(scope.getRealm(), scope.getId(), protocolMapper);
 
-        protocolMapper = keycloakRestApi.getScopeMapper(scope.getRealm(), scope.getId(), id);
+        protocolMapper.setId(id);
 
         logger.debug(">createResource {}", protocolMapper);
     }
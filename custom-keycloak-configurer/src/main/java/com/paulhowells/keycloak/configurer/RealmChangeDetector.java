@@ -0,0 +1,284 @@
+package com.paulhowells.keycloak.configurer;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.paulhowells.keycloak.configurer.model.AuthenticationFlowDefinition;
+import com.paulhowells.keycloak.configurer.model.ClientDefinition;
+import com.paulhowells.keycloak.configurer.model.KeycloakDefinition;
+import com.paulhowells.keycloak.configurer.rest.client.KeycloakRestApi;
+import com.paulhowells.keycloak.configurer.rest.client.model.AdminEvent;
+import com.paulhowells.keycloak.configurer.rest.client.model.BaseModel;
+import com.paulhowells.keycloak.configurer.rest.client.model.Realm;
+import org.slf4j.Logger;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * Detects realms that do not need to be applied because neither their definitions nor the server state has changed
+ * since they were last applied.
+ * <p>
+ * After a realm has been applied a digest of its definitions, and a marker of the server state, are stored as realm
+ * attributes next to the managed-by attribute.  A realm is skipped when both still match.
+ * <p>
+ * When the realm records admin events the marker is its latest admin event, so any change made through the Admin API
+ * is detected with a single request.  Storing the marker is itself a realm update, so that one update is allowed after
+ * the recorded event.  Changes that do not raise admin events, e.g. an import at server start, are not detected, and
+ * the marker changes, forcing a re-apply, once the recorded events expire.
+ * <p>
+ * Otherwise the marker is a digest of the realm representation, the top level authentication flows, the clients, the
+ * client scopes, and the realm roles, which are a handful of list requests.  A change below those listings is not
+ * detected, namely the executions and authenticator configs of a flow, the protocol mappers and scope assignments of a
+ * client or client scope, the composites of a role, the identity provider mappers, and the user profile.
+ */
+class RealmChangeDetector {
+    static final String DEFINITION_DIGEST_ATTRIBUTE = "managed-by-definition-digest";
+    static final String STATE_DIGEST_ATTRIBUTE = "managed-by-state-digest";
+
+    // Increment to force every realm to be re-applied after a change to how the definitions are applied
+    private static final String DIGEST_VERSION = "3";
+
+    private static final String ADMIN_EVENT_MARKER_PREFIX = "admin-event:";
+
+    private static final ObjectMapper mapper = JsonMapper.builder()
+            .enable(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS)
+            .enable(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY)
+            .build();
+
+    private final Logger logger;
+    private final KeycloakRestApi keycloakRestApi;
+
+    RealmChangeDetector(
+            KeycloakRestApi keycloakRestApi,
+            Logger logger) {
+        this.keycloakRestApi = keycloakRestApi;
+        this.logger = logger;
+    }
+
+    /**
+     * @param keycloakDefinition the definitions for a single realm
+     */
+    boolean isUnchanged(
+            String realmName,
+            KeycloakDefinition keycloakDefinition
+    ) {
+        logger.debug("<isUnchanged");
+        boolean result = false;
+
+        Realm realm = keycloakRestApi.getRealmByName(realmName);
+
+        if (realm != null && RealmConfigurer.isManaged(realm)) {
+
+            String definitionDigest = realm.getAttributes().get(DEFINITION_DIGEST_ATTRIBUTE);
+            String stateDigest = realm.getAttributes().get(STATE_DIGEST_ATTRIBUTE);
+
+            if (definitionDigest == null || stateDigest == null) {
+
+                logger.debug("Realm {} has no recorded digests", realmName);
+            } else if (!definitionDigest.equals(getDefinitionDigest(keycloakDefinition))) {
+
+                logger.info("Realm {} definitions have changed", realmName);
+            } else if (!isStateUnchanged(realm, stateDigest)) {
+
+                logger.info("Realm {} has been changed on the server", realmName);
+            } else {
+
+                result = true;
+            }
+        }
+
+        logger.debug(">isUnchanged {}", result);
+        return result;
+    }
+
+    /**
+     * Record the digests once the definitions for a single realm have been applied successfully.
+     */
+    void recordDigests(
+            String realmName,
+            KeycloakDefinition keycloakDefinition
+    ) {
+        logger.debug("<recordDigests");
+
+        Realm realm = keycloakRestApi.getRealmByName(realmName);
+
+        if (realm != null && RealmConfigurer.isManaged(realm)) {
+
+            String definitionDigest = getDefinitionDigest(keycloakDefinition);
+            String stateDigest = getStateDigest(realm);
+
+            if (!definitionDigest.equals(realm.getAttributes().get(DEFINITION_DIGEST_ATTRIBUTE))
+                    || !stateDigest.equals(realm.getAttributes().get(STATE_DIGEST_ATTRIBUTE))) {
+
+                logger.debug("Recording digests for realm {}", realmName);
+
+                realm.getAttributes().put(DEFINITION_DIGEST_ATTRIBUTE, definitionDigest);
+                realm.getAttributes().put(STATE_DIGEST_ATTRIBUTE, stateDigest);
+
+                keycloakRestApi.updateRealm(realmName, realm);
+            }
+        }
+
+        logger.debug(">recordDigests");
+    }
+
+    static String getDefinitionDigest(KeycloakDefinition keycloakDefinition) {
+
+        Map<String, Object> content = new LinkedHashMap<>();
+        content.put("version", DIGEST_VERSION);
+        content.put("deleteManagedResourcesWhenRemoved", keycloakDefinition.getDeleteManagedResourcesWhenRemoved());
+        content.put("realms", keycloakDefinition.getRealms());
+        content.put("authenticationFlows", keycloakDefinition.getAuthenticationFlows().stream()
+                .sorted(Comparator.comparing(AuthenticationFlowDefinition::getAlias))
+                .toList());
+        content.put("clients", keycloakDefinition.getClients().stream()
+                .sorted(Comparator.comparing(ClientDefinition::getClientId))
+                .toList());
+
+        return digest(content);
+    }
+
+    /**
+     * @return the marker of the realm's server state, or null when the realm does not exist
+     */
+    String getStateDigest(String realmName) {
+
+        Realm realm = keycloakRestApi.getRealmByName(realmName);
+
+        return realm == null ? null : getStateDigest(realm);
+    }
+
+    private String getStateDigest(Realm realm) {
+
+        return Boolean.TRUE.equals(realm.getAdminEventsEnabled())
+                ? getAdminEventMarker(getLatestAdminEvents(realm.getRealm()), 0)
+                : getListingDigest(realm);
+    }
+
+    private boolean isStateUnchanged(
+            Realm realm,
+            String stateDigest
+    ) {
+        return Boolean.TRUE.equals(realm.getAdminEventsEnabled())
+                ? isUnchangedSince(stateDigest, getLatestAdminEvents(realm.getRealm()))
+                : stateDigest.equals(getListingDigest(realm));
+    }
+
+    private List<AdminEvent> getLatestAdminEvents(String realmName) {
+
+        List<AdminEvent> result = keycloakRestApi.getAdminEvents(realmName, 0, 2);
+
+        return result == null ? List.of() : result;
+    }
+
+    /**
+     * @param stateDigest the marker recorded after the realm was last applied
+     * @param latestAdminEvents the latest admin events, newest first
+     */
+    static boolean isUnchangedSince(
+            String stateDigest,
+            List<AdminEvent> latestAdminEvents
+    ) {
+        if (stateDigest.equals(getAdminEventMarker(latestAdminEvents, 0))) {
+            return true;
+        }
+
+        // The update that recorded the marker
+        return !latestAdminEvents.isEmpty()
+                && isRealmUpdate(latestAdminEvents.get(0))
+                && stateDigest.equals(getAdminEventMarker(latestAdminEvents, 1));
+    }
+
+    static String getAdminEventMarker(
+            List<AdminEvent> adminEvents,
+            int index
+    ) {
+        if (index >= adminEvents.size()) {
+            return ADMIN_EVENT_MARKER_PREFIX + "none";
+        }
+
+        AdminEvent adminEvent = adminEvents.get(index);
+
+        return ADMIN_EVENT_MARKER_PREFIX + digest(List.of(
+                String.valueOf(adminEvent.getId()),
+                String.valueOf(adminEvent.getTime()),
+                String.valueOf(adminEvent.getOperationType()),
+                String.valueOf(adminEvent.getResourceType()),
+                String.valueOf(adminEvent.getResourcePath())
+        ));
+    }
+
+    private static boolean isRealmUpdate(AdminEvent adminEvent) {
+
+        return AdminEvent.OPERATION_TYPE_UPDATE.equals(adminEvent.getOperationType())
+                && AdminEvent.RESOURCE_TYPE_REALM.equals(adminEvent.getResourceType())
+                && (adminEvent.getResourcePath() == null || adminEvent.getResourcePath().isEmpty());
+    }
+
+    private String getListingDigest(Realm realm) {
+
+        String realmName = realm.getRealm();
+
+        return getListingDigest(
+                realm,
+                keycloakRestApi.getTopLevelFlows(realmName),
+                keycloakRestApi.getClientPager(realmName).stream().toList(),
+                keycloakRestApi.getClientScopes(realmName),
+                keycloakRestApi.getRolePager(realmName).stream().toList()
+        );
+    }
+
+    static String getListingDigest(
+            Realm realm,
+            List<? extends BaseModel> flows,
+            List<? extends BaseModel> clients,
+            List<? extends BaseModel> clientScopes,
+            List<? extends BaseModel> roles
+    ) {
+        Map<String, Object> realmContent = new TreeMap<>(realm.get_raw() == null ? Map.of() : realm.get_raw());
+        Map<String, Object> attributes = new TreeMap<>(realm.getAttributes());
+        attributes.remove(DEFINITION_DIGEST_ATTRIBUTE);
+        attributes.remove(STATE_DIGEST_ATTRIBUTE);
+        realmContent.put("attributes", attributes);
+
+        Map<String, Object> content = new LinkedHashMap<>();
+        content.put("realm", realmContent);
+        content.put("authenticationFlows", getRaw(flows));
+        content.put("clients", getRaw(clients));
+        content.put("clientScopes", getRaw(clientScopes));
+        content.put("roles", getRaw(roles));
+
+        return digest(content);
+    }
+
+    private static List<Map<String, Object>> getRaw(List<? extends BaseModel> resources) {
+
+        List<Map<String, Object>> result = new ArrayList<>();
+
+        if (resources != null) {
+
+            resources.forEach(it -> result.add(it.get_raw()));
+
+            // The server does not guarantee the order of every list
+            result.sort(Comparator.comparing(it -> String.valueOf(it.get("id"))));
+        }
+
+        return result;
+    }
+
+    private static String digest(Object content) {
+
+        try {
+            byte[] bytes = mapper.writeValueAsString(content).getBytes(StandardCharsets.UTF_8);
+
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
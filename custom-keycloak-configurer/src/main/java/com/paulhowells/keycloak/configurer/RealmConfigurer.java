@@ -1,17 +1,50 @@
 package com.paulhowells.keycloak.configurer;
 
+import com.paulhowells.keycloak.configurer.model.DefinitionDiff;
 import com.paulhowells.keycloak.configurer.model.KeycloakDefinition;
 import com.paulhowells.keycloak.configurer.model.RealmDefinition;
+import com.paulhowells.keycloak.configurer.model.RoleDefinition;
+import com.paulhowells.keycloak.configurer.model.ScopeDefinition;
+import com.paulhowells.keycloak.configurer.rest.client.KeycloakMetrics;
 import com.paulhowells.keycloak.configurer.rest.client.KeycloakRestApi;
 import com.paulhowells.keycloak.configurer.rest.client.model.*;
 import org.slf4j.Logger;
 
 import java.util.*;
+import java.util.function.Function;
 
 public class RealmConfigurer {
     private static final String MANAGED_BY_ATTRIBUTE = "managed-by";
     static final String MANAGED_BY_ATTRIBUTE_VALUE = "realm-configurer";
 
+    // The parts of a realm definition applied by their own configurers
+    private static final String GENERAL_SETTINGS_PROPERTY = "generalSettings";
+    private static final String LOGIN_SETTINGS_PROPERTY = "loginSettings";
+    private static final String EMAIL_SETTINGS_PROPERTY = "emailSettings";
+    private static final String EVENT_SETTINGS_PROPERTY = "eventSettings";
+    private static final String SESSION_SETTINGS_PROPERTY = "sessionSettings";
+    private static final String TOKEN_SETTINGS_PROPERTY = "tokenSettings";
+    private static final String USER_PROFILE_PROPERTY = "userProfile";
+    private static final String DEFAULT_ROLES_PROPERTY = "defaultRoles";
+    private static final String SCOPES_PROPERTY = "scopes";
+    private static final String ROLES_PROPERTY = "roles";
+    private static final String PASSWORD_POLICY_PROPERTY = "passwordPolicy";
+    private static final String GOOGLE_IDENTITY_PROVIDER_PROPERTY = "googleIdentityProvider";
+    private static final Set<String> SECTION_PROPERTIES = Set.of(
+            GENERAL_SETTINGS_PROPERTY,
+            LOGIN_SETTINGS_PROPERTY,
+            EMAIL_SETTINGS_PROPERTY,
+            EVENT_SETTINGS_PROPERTY,
+            SESSION_SETTINGS_PROPERTY,
+            TOKEN_SETTINGS_PROPERTY,
+            USER_PROFILE_PROPERTY,
+            DEFAULT_ROLES_PROPERTY,
+            SCOPES_PROPERTY,
+            ROLES_PROPERTY,
+            PASSWORD_POLICY_PROPERTY,
+            GOOGLE_IDENTITY_PROVIDER_PROPERTY
+    );
+
     private final Logger logger;
     private final KeycloakRestApi keycloakRestApi;
 
@@ -144,10 +177,37 @@ public class RealmConfigurer {
             boolean deleteManagedResourcesWhenRemoved
     ) {
 
+        return applyRealms(keycloakDefinition, deleteManagedResourcesWhenRemoved, null);
+    }
+
+    /**
+     * Apply the realm definitions, limiting the existing realms considered to the provided realm names.
+     * A null set of realm names will consider all the existing realms.
+     */
+    boolean applyRealms(
+            KeycloakDefinition keycloakDefinition,
+            boolean deleteManagedResourcesWhenRemoved,
+            Set<String> realmNames
+    ) {
+
+        return applyRealms(keycloakDefinition, deleteManagedResourcesWhenRemoved, realmNames, ApplyScope.ALL);
+    }
+
+    /**
+     * Apply the parts of the realm definitions in scope.  Realms are only removed when the realm settings are in scope,
+     * and a new realm is always created in full.
+     */
+    boolean applyRealms(
+            KeycloakDefinition keycloakDefinition,
+            boolean deleteManagedResourcesWhenRemoved,
+            Set<String> realmNames,
+            ApplyScope scope
+    ) {
+
         List<RealmDefinition> insertRealmDefinitions = new ArrayList<>();
         Map<String, RealmDefinition> updateRealmPkMap = new HashMap<>();
         Set<Realm> referencedRealms = new HashSet<>();
-        Map<String, Realm> existingRealmMap = getResourceMap();
+        Map<String, Realm> existingRealmMap = getResourceMap(realmNames);
 
         // Identify if the resource is new or if a resource needs to be updated
         // Keep track of which resource are in use, so we know which ones need to be deleted later
@@ -160,23 +220,202 @@ public class RealmConfigurer {
         );
 
         List<String> referencedRealmKeys = getReferencedResourceKeys(referencedRealms);
-        Map<String, Realm> removedRealmMap = getRemovedResourceMap(existingRealmMap, referencedRealmKeys);
+        Map<String, Realm> removedRealmMap = scope.includes(ApplyScope.Kind.REALM)
+                ? getRemovedResourceMap(existingRealmMap, referencedRealmKeys)
+                : Map.of();
 
         return processUpdates(
                 removedRealmMap,
                 insertRealmDefinitions,
                 updateRealmPkMap,
-                deleteManagedResourcesWhenRemoved
+                deleteManagedResourcesWhenRemoved,
+                scope
         );
     }
 
-    private Map<String, Realm> getResourceMap() {
+    /**
+     * Identify the realm operations without making any changes.
+     *
+     * @param scope the kinds of resource to plan, an update only lists the changes to the kinds in scope
+     */
+    List<PlannedOperation> planRealms(
+            KeycloakDefinition keycloakDefinition,
+            boolean deleteManagedResourcesWhenRemoved,
+            Set<String> realmNames,
+            ApplyScope scope
+    ) {
+        List<PlannedOperation> result = new ArrayList<>();
+
+        List<RealmDefinition> insertRealmDefinitions = new ArrayList<>();
+        Map<String, RealmDefinition> updateRealmPkMap = new HashMap<>();
+        Set<Realm> referencedRealms = new HashSet<>();
+        Map<String, Realm> existingRealmMap = getResourceMap(realmNames);
+
+        identifyUpdates(
+                existingRealmMap,
+                keycloakDefinition,
+                insertRealmDefinitions,
+                updateRealmPkMap,
+                referencedRealms
+        );
+
+        List<String> referencedRealmKeys = getReferencedResourceKeys(referencedRealms);
+        Map<String, Realm> removedRealmMap = getRemovedResourceMap(existingRealmMap, referencedRealmKeys);
+
+        for (Realm realm:removedRealmMap.values()) {
+
+            if (isManaged(realm)) {
+
+                if (deleteManagedResourcesWhenRemoved) {
+
+                    result.add(PlannedOperation.of(PlannedOperation.Type.DELETE, PlannedOperation.ResourceType.REALM, realm.getRealm(), realm.getRealm(), null));
+                } else if (Boolean.TRUE.equals(realm.getEnabled())) {
+
+                    result.add(PlannedOperation.of(PlannedOperation.Type.DISABLE, PlannedOperation.ResourceType.REALM, realm.getRealm(), realm.getRealm(), null));
+                }
+            }
+        }
+
+        for (RealmDefinition realmDefinition:insertRealmDefinitions) {
+
+            result.add(PlannedOperation.of(PlannedOperation.Type.CREATE, PlannedOperation.ResourceType.REALM, realmDefinition.getRealmName(), realmDefinition.getRealmName(), null));
+        }
+
+        for (RealmDefinition realmDefinition:updateRealmPkMap.values()) {
+
+            Realm realm = keycloakRestApi.getRealmByName(realmDefinition.getRealmName());
+
+            List<String> changes = getChanges(getDefinition(realm), realmDefinition);
+            changes.removeIf(it -> !scope.includes(getKind(PlannedOperation.getProperty(it))));
+
+            if (changes.isEmpty()) {
+
+                logger.debug("No change to realm {}", realmDefinition.getRealmName());
+            } else {
+
+                result.add(PlannedOperation.of(PlannedOperation.Type.UPDATE, PlannedOperation.ResourceType.REALM, realmDefinition.getRealmName(), realmDefinition.getRealmName(), null, changes));
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * @return the paths of the realm properties, and of the settings, roles, scopes, and identity provider that
+     * differ, the sections the realm's configurers would change
+     */
+    private static List<String> getChanges(
+            RealmDefinition current,
+            RealmDefinition updated
+    ) {
+        List<String> result = new ArrayList<>();
+
+        current.getChanges(updated, null).forEach(it -> result.add(it.path()));
+
+        // The settings left out of a definition are left as they are
+        addChanges(result, current.getGeneralSettings(), updated.getGeneralSettings(), GENERAL_SETTINGS_PROPERTY);
+        addChanges(result, current.getLoginSettings(), updated.getLoginSettings(), LOGIN_SETTINGS_PROPERTY);
+        addChanges(result, current.getEmailSettings(), updated.getEmailSettings(), EMAIL_SETTINGS_PROPERTY);
+        addChanges(result, current.getEventSettings(), updated.getEventSettings(), EVENT_SETTINGS_PROPERTY);
+        addChanges(result, current.getSessionSettings(), updated.getSessionSettings(), SESSION_SETTINGS_PROPERTY);
+        addChanges(result, current.getTokenSettings(), updated.getTokenSettings(), TOKEN_SETTINGS_PROPERTY);
+        addChanges(result, current.getUserProfile(), updated.getUserProfile(), USER_PROFILE_PROPERTY);
+        addChanges(result, current.getPasswordPolicy(), updated.getPasswordPolicy(), PASSWORD_POLICY_PROPERTY);
+
+        // The roles and scopes are reconciled by name, and a missing identity provider is removed
+        DefinitionDiff.diff(current.getDefaultRoles(), getByName(updated.getDefaultRoles(), RealmDefinition.DefaultRole::getName), DEFAULT_ROLES_PROPERTY)
+                .forEach(it -> result.add(it.path()));
+        DefinitionDiff.diff(current.getScopes(), getByName(updated.getScopes(), ScopeDefinition::getName), SCOPES_PROPERTY)
+                .forEach(it -> result.add(it.path()));
+        DefinitionDiff.diff(current.getRoles(), getByName(updated.getRoles(), RoleDefinition::getName), ROLES_PROPERTY)
+                .forEach(it -> result.add(it.path()));
+        DefinitionDiff.diff(current.getGoogleIdentityProvider(), updated.getGoogleIdentityProvider(), GOOGLE_IDENTITY_PROVIDER_PROPERTY)
+                .forEach(it -> result.add(it.path()));
+
+        return result;
+    }
+
+    private static ApplyScope.Kind getKind(String propertyName) {
+
+        return switch (propertyName) {
+            case DEFAULT_ROLES_PROPERTY, ROLES_PROPERTY -> ApplyScope.Kind.ROLES;
+            case SCOPES_PROPERTY -> ApplyScope.Kind.SCOPES;
+            case GOOGLE_IDENTITY_PROVIDER_PROPERTY -> ApplyScope.Kind.IDPS;
+            default -> ApplyScope.Kind.REALM;
+        };
+    }
+
+    private static void addChanges(
+            List<String> changes,
+            Object current,
+            Object updated,
+            String propertyName
+    ) {
+        if (updated != null) {
+            DefinitionDiff.diff(current, updated, propertyName).forEach(it -> changes.add(it.path()));
+        }
+    }
+
+    private static <T> Map<String, T> getByName(
+            Map<String, T> definitions,
+            Function<T, String> nameFunction
+    ) {
+        Map<String, T> result = new HashMap<>();
+
+        definitions.values().forEach(it -> result.put(nameFunction.apply(it), it));
+
+        return result;
+    }
+
+    /**
+     * Apply a single planned realm operation.
+     */
+    boolean applyOperation(
+            PlannedOperation operation,
+            KeycloakDefinition keycloakDefinition,
+            boolean deleteManagedResourcesWhenRemoved,
+            ApplyScope scope
+    ) {
+        boolean result = false;
+
+        switch (operation.type()) {
+            case CREATE -> {
+                createResource(findDefinition(operation, keycloakDefinition));
+                result = true;
+            }
+            case UPDATE -> result = updateResource(findDefinition(operation, keycloakDefinition), deleteManagedResourcesWhenRemoved, scope, operation.getChangedProperties());
+            case DISABLE, DELETE -> {
+                Realm realm = keycloakRestApi.getRealmByName(operation.realmName());
+                if (realm != null) {
+                    result = removeResource(realm, deleteManagedResourcesWhenRemoved);
+                }
+            }
+        }
+
+        return result;
+    }
+
+    private static RealmDefinition findDefinition(
+            PlannedOperation operation,
+            KeycloakDefinition keycloakDefinition
+    ) {
+        return keycloakDefinition.getRealms().stream()
+                .filter(it -> getKey(it.getRealmName()).equals(getKey(operation.realmName())))
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException(String.format("No Realm Definition for %s", operation.id())));
+    }
+
+    private Map<String, Realm> getResourceMap(Set<String> realmNames) {
         Map<String, Realm> results = new HashMap<>();
 
         List<Realm> realms = keycloakRestApi.getRealms();
 
         for (Realm realm:realms) {
 
+            if (realmNames != null && !realmNames.contains(realm.getRealm())) {
+                continue;
+            }
+
             String realmKey = getKey(realm.getRealm());
 
             results.put(realmKey, realm);
@@ -215,7 +454,8 @@ public class RealmConfigurer {
             Map<String, Realm> removedResourceMap,
             List<RealmDefinition> insertDefinitions,
             Map<String, RealmDefinition> updateDefinitionsMap,
-            boolean deleteManagedResourcesWhenRemoved
+            boolean deleteManagedResourcesWhenRemoved,
+            ApplyScope scope
     ) {
         boolean result = false;
 
@@ -240,12 +480,16 @@ public class RealmConfigurer {
         }
 
         // Update the existing Realms
-        for (RealmDefinition realmDefinition:updateDefinitionsMap.values()) {
+        if (scope.includesRealmResources()) {
 
-            result = updateResource(
-                    realmDefinition,
-                    deleteManagedResourcesWhenRemoved
-            ) || result;
+            for (RealmDefinition realmDefinition:updateDefinitionsMap.values()) {
+
+                result = updateResource(
+                        realmDefinition,
+                        deleteManagedResourcesWhenRemoved,
+                        scope
+                ) || result;
+            }
         }
 
         return result;
@@ -293,6 +537,14 @@ public class RealmConfigurer {
         return result;
     }
 
+    /**
+     * Create the realm, with its settings, realm roles, and Google IDP, in a single request.
+     * <p>
+     * The client scopes and the default roles are left out, since a realm created with either of them does not get
+     * the built-in scopes and default roles that the definitions build on, and the user profile cannot be sent on
+     * create.  These are applied by the verification that follows, which compares the new realm with its definition
+     * and only writes what differs.
+     */
     private void createResource(
             RealmDefinition realmDefinition
     ) {
@@ -300,7 +552,7 @@ public class RealmConfigurer {
 
         logger.info("Creating realm {}", realmDefinition.getRealmName());
 
-        Realm realm = new Realm();
+        NewRealm realm = new NewRealm();
 
         applyDefinition(
                 realmDefinition,
@@ -310,70 +562,24 @@ public class RealmConfigurer {
         // Tag the resource as managed by the Keycloak Configurer
         realm.getAttributes().put(MANAGED_BY_ATTRIBUTE, MANAGED_BY_ATTRIBUTE_VALUE);
 
-        keycloakRestApi.createRealm(realm);
-
-        realm = keycloakRestApi.getRealmByName(realmDefinition.getRealmName());
-
-        // Do the events first so we can see the events in the logs ASAP
-        eventSettingsConfigurer.updateEventSettings(
-                realm,
-                realmDefinition.getEventSettings()
-        );
-
-        generalSettingsConfigurer.updateGeneralSettings(
-                realm,
-                realmDefinition.getGeneralSettings()
-        );
-
-        loginSettingsConfigurer.updateLoginSettings(
-                realm,
-                realmDefinition.getLoginSettings()
-        );
-
-        emailSettingsConfigurer.updateEmailSettings(
-                realm,
-                realmDefinition.getEmailSettings()
-        );
-
-        sessionSettingsConfigurer.updateSessionSettings(
-                realm,
-                realmDefinition.getSessionSettings()
-        );
-
-        tokenSettingsConfigurer.updateTokenSettings(
-                realm,
-                realmDefinition.getTokenSettings()
-        );
+        eventSettingsConfigurer.applyToNewRealm(realm, realmDefinition.getEventSettings());
+        generalSettingsConfigurer.applyToNewRealm(realm, realmDefinition.getGeneralSettings());
+        loginSettingsConfigurer.applyToNewRealm(realm, realmDefinition.getLoginSettings());
+        emailSettingsConfigurer.applyToNewRealm(realm, realmDefinition.getEmailSettings());
+        sessionSettingsConfigurer.applyToNewRealm(realm, realmDefinition.getSessionSettings());
+        tokenSettingsConfigurer.applyToNewRealm(realm, realmDefinition.getTokenSettings());
+        passwordPolicyConfigurer.applyToNewRealm(realm, realmDefinition.getPasswordPolicy());
+        realmRoleConfigurer.applyToNewRealm(realm, realmDefinition);
+        googleIdpConfigurer.applyToNewRealm(realm, realmDefinition.getGoogleIdentityProvider());
 
-        userProfileConfigurer.updateUserProfile(
-                realm,
-                realmDefinition.getUserProfile()
-        );
-
-        defaultRoleConfigurer.applyRoles(
-                realm,
-                realmDefinition
-        );
-
-        scopeConfigurer.applyScopes(
-                realm,
-                realmDefinition
-        );
+        keycloakRestApi.createRealm(realm);
 
-        realmRoleConfigurer.applyRoles(
-                realm,
-                realmDefinition
-        );
+        logger.info("Verifying realm {}", realmDefinition.getRealmName());
 
-        passwordPolicyConfigurer.updatePasswordPolicy(
-                realm,
-                realmDefinition.getPasswordPolicy()
-        );
-        
-        googleIdpConfigurer.processUpdate(
-                realm,
-                realmDefinition.getGoogleIdentityProvider(),
-                false
+        updateResource(
+                realmDefinition,
+                false,
+                ApplyScope.ALL
         );
 
         logger.debug(">createResource");
@@ -381,20 +587,34 @@ public class RealmConfigurer {
 
     private boolean updateResource(
             RealmDefinition realmDefinition,
-            boolean deleteManagedResourcesWhenRemoved
+            boolean deleteManagedResourcesWhenRemoved,
+            ApplyScope scope
+    ) {
+        return updateResource(realmDefinition, deleteManagedResourcesWhenRemoved, scope, null);
+    }
+
+    /**
+     * @param changedProperties the top level properties known to differ, as planned, so that only those parts of the
+     *                          realm are applied without reading the current definition again, or null to check them all
+     */
+    private boolean updateResource(
+            RealmDefinition realmDefinition,
+            boolean deleteManagedResourcesWhenRemoved,
+            ApplyScope scope,
+            Set<String> changedProperties
     ) {
         logger.debug("<updateRealm");
         boolean result = false;
 
         Realm realm = keycloakRestApi.getRealmByName(realmDefinition.getRealmName());
 
-        RealmDefinition existingRealmDefinition = getDefinition(
-                realm
-        );
-
         logger.info("Checking realm {} for updates", realmDefinition.getRealmName());
 
-        if (isDirty(existingRealmDefinition, realmDefinition)) {
+        boolean dirty = changedProperties == null
+                ? isDirty(getDefinition(realm), realmDefinition)
+                : changedProperties.stream().anyMatch(it -> !SECTION_PROPERTIES.contains(it));
+
+        if (scope.includes(ApplyScope.Kind.REALM) && dirty) {
 
             logger.info("Updating realm {}", realmDefinition.getRealmName());
 
@@ -413,67 +633,102 @@ public class RealmConfigurer {
             logger.info("No Change");
         }
 
-        // Do the events first so we can see the events in the logs ASAP
-        result = eventSettingsConfigurer.updateEventSettings(
-                realm,
-                realmDefinition.getEventSettings()
-        ) || result;
-
-        result = generalSettingsConfigurer.updateGeneralSettings(
-                realm,
-                realmDefinition.getGeneralSettings()
-        ) || result;
-
-        result = loginSettingsConfigurer.updateLoginSettings(
-                realm,
-                realmDefinition.getLoginSettings()
-        ) || result;
-
-        result = emailSettingsConfigurer.updateEmailSettings(
-                realm,
-                realmDefinition.getEmailSettings()
-        ) || result;
-
-        result = sessionSettingsConfigurer.updateSessionSettings(
-                realm,
-                realmDefinition.getSessionSettings()
-        ) || result;
-
-        result = tokenSettingsConfigurer.updateTokenSettings(
-                realm,
-                realmDefinition.getTokenSettings()
-        ) || result;
-
-        result = userProfileConfigurer.updateUserProfile(
-                realm,
-                realmDefinition.getUserProfile()
-        ) || result;
-
-        result = defaultRoleConfigurer.applyRoles(
-                realm,
-                realmDefinition
-        ) || result;
-
-        result = scopeConfigurer.applyScopes(
-                realm,
-                realmDefinition
-        ) || result;
-
-        result = realmRoleConfigurer.applyRoles(
-                realm,
-                realmDefinition
-        ) || result;
-
-        result = passwordPolicyConfigurer.updatePasswordPolicy(
-                realm,
-                realmDefinition.getPasswordPolicy()
-        ) || result;
-        
-        result = googleIdpConfigurer.processUpdate(
-                realm,
-                realmDefinition.getGoogleIdentityProvider(),
-                deleteManagedResourcesWhenRemoved
-        ) || result;
+        KeycloakMetrics metrics = keycloakRestApi.getMetrics();
+        Realm currentRealm = realm;
+
+        if (scope.includes(ApplyScope.Kind.REALM)) {
+
+            // Do the events first so we can see the events in the logs ASAP
+            if (isChanged(changedProperties, EVENT_SETTINGS_PROPERTY)) {
+                result = metrics.time("EventSettingsConfigurer.updateEventSettings", () -> eventSettingsConfigurer.updateEventSettings(
+                        currentRealm,
+                        realmDefinition.getEventSettings()
+                )) || result;
+            }
+
+            if (isChanged(changedProperties, GENERAL_SETTINGS_PROPERTY)) {
+                result = metrics.time("GeneralSettingsConfigurer.updateGeneralSettings", () -> generalSettingsConfigurer.updateGeneralSettings(
+                        currentRealm,
+                        realmDefinition.getGeneralSettings()
+                )) || result;
+            }
+
+            if (isChanged(changedProperties, LOGIN_SETTINGS_PROPERTY)) {
+                result = metrics.time("LoginSettingsConfigurer.updateLoginSettings", () -> loginSettingsConfigurer.updateLoginSettings(
+                        currentRealm,
+                        realmDefinition.getLoginSettings()
+                )) || result;
+            }
+
+            if (isChanged(changedProperties, EMAIL_SETTINGS_PROPERTY)) {
+                result = metrics.time("EmailSettingsConfigurer.updateEmailSettings", () -> emailSettingsConfigurer.updateEmailSettings(
+                        currentRealm,
+                        realmDefinition.getEmailSettings()
+                )) || result;
+            }
+
+            if (isChanged(changedProperties, SESSION_SETTINGS_PROPERTY)) {
+                result = metrics.time("SessionSettingsConfigurer.updateSessionSettings", () -> sessionSettingsConfigurer.updateSessionSettings(
+                        currentRealm,
+                        realmDefinition.getSessionSettings()
+                )) || result;
+            }
+
+            if (isChanged(changedProperties, TOKEN_SETTINGS_PROPERTY)) {
+                result = metrics.time("TokenSettingsConfigurer.updateTokenSettings", () -> tokenSettingsConfigurer.updateTokenSettings(
+                        currentRealm,
+                        realmDefinition.getTokenSettings()
+                )) || result;
+            }
+
+            if (isChanged(changedProperties, USER_PROFILE_PROPERTY)) {
+                result = metrics.time("UserProfileConfigurer.updateUserProfile", () -> userProfileConfigurer.updateUserProfile(
+                        currentRealm,
+                        realmDefinition.getUserProfile()
+                )) || result;
+            }
+        }
+
+        if (scope.includes(ApplyScope.Kind.ROLES) && isChanged(changedProperties, DEFAULT_ROLES_PROPERTY)) {
+
+            result = metrics.time("DefaultRoleConfigurer.applyRoles", () -> defaultRoleConfigurer.applyRoles(
+                    currentRealm,
+                    realmDefinition
+            )) || result;
+        }
+
+        if (scope.includes(ApplyScope.Kind.SCOPES) && isChanged(changedProperties, SCOPES_PROPERTY)) {
+
+            result = metrics.time("ScopeConfigurer.applyScopes", () -> scopeConfigurer.applyScopes(
+                    currentRealm,
+                    realmDefinition
+            )) || result;
+        }
+
+        if (scope.includes(ApplyScope.Kind.ROLES) && isChanged(changedProperties, ROLES_PROPERTY)) {
+
+            result = metrics.time("RealmRoleConfigurer.applyRoles", () -> realmRoleConfigurer.applyRoles(
+                    currentRealm,
+                    realmDefinition
+            )) || result;
+        }
+
+        if (scope.includes(ApplyScope.Kind.REALM) && isChanged(changedProperties, PASSWORD_POLICY_PROPERTY)) {
+
+            result = metrics.time("PasswordPolicyConfigurer.updatePasswordPolicy", () -> passwordPolicyConfigurer.updatePasswordPolicy(
+                    currentRealm,
+                    realmDefinition.getPasswordPolicy()
+            )) || result;
+        }
+
+        if (scope.includes(ApplyScope.Kind.IDPS) && isChanged(changedProperties, GOOGLE_IDENTITY_PROVIDER_PROPERTY)) {
+
+            result = metrics.time("GoolgeIdpConfigurer.processUpdate", () -> googleIdpConfigurer.processUpdate(
+                    currentRealm,
+                    realmDefinition.getGoogleIdentityProvider(),
+                    deleteManagedResourcesWhenRemoved
+            )) || result;
+        }
 
         logger.debug(">updateRealm {}", result);
         return result;
@@ -530,6 +785,13 @@ public class RealmConfigurer {
         return !current.isUnchanged(updated, null, logger);
     }
 
+    private static boolean isChanged(
+            Set<String> changedProperties,
+            String propertyName
+    ) {
+        return changedProperties == null || changedProperties.contains(propertyName);
+    }
+
     private static Map<String, Realm> getRemovedResourceMap(Map<String, Realm> existingResourceMap, List<String> referencedKeys) {
         Map<String, Realm> result = new HashMap<>();
 
@@ -3,6 +3,8 @@ package com.paulhowells.keycloak.configurer;
 import com.paulhowells.keycloak.configurer.model.RealmDefinition;
 import com.paulhowells.keycloak.configurer.model.RoleDefinition;
 import com.paulhowells.keycloak.configurer.rest.client.KeycloakRestApi;
+import com.paulhowells.keycloak.configurer.rest.client.model.NewRealm;
+import com.paulhowells.keycloak.configurer.rest.client.model.PartialImport;
 import com.paulhowells.keycloak.configurer.rest.client.model.Role;
 import com.paulhowells.keycloak.configurer.rest.client.model.Realm;
 import org.slf4j.Logger;
@@ -22,12 +24,17 @@ public class RealmRoleConfigurer {
 
     private final Logger logger;
     private final KeycloakRestApi keycloakRestApi;
+    private final PartialImporter partialImporter;
 
     RealmRoleConfigurer(
             KeycloakRestApi keycloakRestApi,
             Logger logger) {
         this.keycloakRestApi = keycloakRestApi;
         this.logger = logger;
+        this.partialImporter = new PartialImporter(
+                keycloakRestApi,
+                logger
+        );
     }
 
     boolean applyRoles(
@@ -68,22 +75,12 @@ public class RealmRoleConfigurer {
 
         String realmName = realm.getRealm();
 
-        int pageOffset = 0;
-        int pageSize = 10;
-        int pageCount;
-        do {
-            List<Role> roles = keycloakRestApi.getRoles(realmName, pageOffset, pageOffset + pageSize);
-
-            for (Role role:roles) {
+        keycloakRestApi.getRolePager(realmName).stream().forEach(role -> {
 
-                String roleKey = getKey(realmName, role.getName());
+            String roleKey = getKey(realmName, role.getName());
 
-                results.put(roleKey, role);
-            }
-
-            pageCount = roles.size();
-            pageOffset += pageCount;
-        } while (pageCount >= pageSize);
+            results.put(roleKey, role);
+        });
 
         return results;
     }
@@ -135,15 +132,22 @@ public class RealmRoleConfigurer {
             ) || result;
         }
 
-        // Insert the new  Roles
-        for (RoleDefinition roleDefinition:insertDefinitions) {
-
-            createResource(
-                    realm,
-                    roleDefinition
-            );
-            result = true;
-        }
+        // Insert the new  Roles, in batches
+        partialImporter.create(
+                realm.getRealm(),
+                PartialImporter.RESOURCE_TYPE_REALM_ROLE,
+                insertDefinitions,
+                batch -> PartialImport.ofRealmRoles(batch.stream().map(roleDefinition -> newResource(realm, roleDefinition)).toList()),
+                RoleDefinition::getName,
+                () -> {
+                    Map<String, String> ids = new HashMap<>();
+                    keycloakRestApi.getRolePager(realm.getRealm()).stream().forEach(it -> ids.put(it.getName(), it.getId()));
+                    return ids;
+                },
+                (roleDefinition, id) -> logger.debug("Created {} role {} {}", realm.getRealm(), roleDefinition.getName(), id),
+                roleDefinition -> createResource(realm, roleDefinition)
+        );
+        result = result || !insertDefinitions.isEmpty();
 
         // Update the existing  Roles
         for (RoleDefinition roleDefinition:updateDefinitionMap.values()) {
@@ -186,28 +190,55 @@ public class RealmRoleConfigurer {
         return result;
     }
 
-    private void createResource(
+    void applyToNewRealm(
+            NewRealm realm,
+            RealmDefinition realmDefinition
+    ) {
+        List<Role> roles = new ArrayList<>();
+
+        for (RoleDefinition roleDefinition:realmDefinition.getRoles().values()) {
+            roles.add(newResource(realm, roleDefinition));
+        }
+
+        if (!roles.isEmpty()) {
+
+            realm.setRoles(new PartialImport.Roles());
+            realm.getRoles().setRealm(roles);
+        }
+    }
+
+    private Role newResource(
             Realm realm,
             RoleDefinition roleDefinition
     ) {
-        logger.debug("<createResource");
-
         logger.info("Creating {} role {}", realm.getRealm(), roleDefinition.getName());
 
-        Role role = new Role();
+        Role result = new Role();
 
         // Apply changes to resource
         applyDefinition(
                 roleDefinition,
-                role
+                result
         );
 
         // Tag the resource as managed by the Keycloak Configurer
-        role.getAttributes().put(MANAGED_BY_ATTRIBUTE, MANAGED_BY_ATTRIBUTE_VALUES);
+        result.getAttributes().put(MANAGED_BY_ATTRIBUTE, MANAGED_BY_ATTRIBUTE_VALUES);
+
+        return result;
+    }
+
+    private void createResource(
+            Realm realm,
+            RoleDefinition roleDefinition
+    ) {
+        logger.debug("<createResource");
+
+        Role role = newResource(realm, roleDefinition);
 
         String id = keycloakRestApi.createRole(realm.getRealm(), role);
 
-        role = keycloakRestApi.getRole(realm.getRealm(), id);
+        role.setId(id);
+        role.setRealm(realm.getRealm());
         logger.debug(">createResource {}", role);
     }
 
@@ -260,24 +291,13 @@ public class RealmRoleConfigurer {
     Map<String, RoleDefinition> getDefinitions(Realm realm) {
         Map<String, RoleDefinition> result = new HashMap<>();
 
-        int pageOffset = 0;
-        int pageSize = 10;
-        int pageCount;
-        do {
-            List<Role> resources = keycloakRestApi.getRoles(realm.getRealm(), pageOffset, pageOffset + pageSize);
-
-            for (Role resource:resources) {
-
-                if(isManaged(resource)) {
+        keycloakRestApi.getRolePager(realm.getRealm()).stream()
+                .filter(RealmRoleConfigurer::isManaged)
+                .forEach(resource -> {
 
                     RoleDefinition definition = getDefinition(resource);
                     result.put(resource.getName(), definition);
-                }
-            }
-
-            pageCount = resources.size();
-            pageOffset += pageCount;
-        } while (pageCount >= pageSize);
+                });
 
         return result;
     }
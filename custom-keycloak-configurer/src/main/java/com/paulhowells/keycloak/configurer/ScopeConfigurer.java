@@ -207,7 +207,9 @@ public class ScopeConfigurer {
             }
         }
 
-        scope = getScope(realm.getRealm(), id);
+        scope.setId(id);
+        scope.setRealm(realm.getRealm());
+        scope.setType(scopeDefinition.getType());
 
         protocolMapperConfigurer.applyMappers(
                 scope,
@@ -2,6 +2,7 @@ package com.paulhowells.keycloak.configurer;
 
 import com.paulhowells.keycloak.configurer.model.SessionSettings;
 import com.paulhowells.keycloak.configurer.rest.client.KeycloakRestApi;
+import com.paulhowells.keycloak.configurer.rest.client.model.NewRealm;
 import com.paulhowells.keycloak.configurer.rest.client.model.Realm;
 import com.paulhowells.keycloak.configurer.rest.client.model.SmtpServer;
 import org.slf4j.Logger;
@@ -52,6 +53,15 @@ public class SessionSettingsConfigurer {
         return result;
     }
 
+    void applyToNewRealm(
+            NewRealm realm,
+            SessionSettings definition
+    ) {
+        if (definition != null) {
+            applyDefinition(definition, realm);
+        }
+    }
+
     private boolean isDirty(
             SessionSettings current,
             SessionSettings updated) {
@@ -2,6 +2,7 @@ package com.paulhowells.keycloak.configurer;
 
 import com.paulhowells.keycloak.configurer.model.TokenSettings;
 import com.paulhowells.keycloak.configurer.rest.client.KeycloakRestApi;
+import com.paulhowells.keycloak.configurer.rest.client.model.NewRealm;
 import com.paulhowells.keycloak.configurer.rest.client.model.Realm;
 import org.slf4j.Logger;
 
@@ -51,6 +52,15 @@ public class TokenSettingsConfigurer {
         return result;
     }
 
+    void applyToNewRealm(
+            NewRealm realm,
+            TokenSettings definition
+    ) {
+        if (definition != null) {
+            applyDefinition(definition, realm);
+        }
+    }
+
     private boolean isDirty(
             TokenSettings current,
             TokenSettings updated) {
@@ -6,7 +6,6 @@ import com.fasterxml.jackson.annotation.JsonSubTypes;
 import com.fasterxml.jackson.annotation.JsonTypeInfo;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.fasterxml.jackson.databind.util.StdConverter;
-import org.slf4j.Logger;
 
 import java.util.*;
 
@@ -40,18 +39,13 @@ public class AuthenticationFlowDefinition extends BaseDefinition {
             private List<AuthenticationFlowDefinition.Execution> executions = new ArrayList<>();
 
             @Override
-            public boolean isUnchanged(Object o, String parentName, Logger logger) {
-                boolean result = super.isUnchanged(o, parentName, logger);
+            protected void diff(Object o, DefinitionDiff diff) {
+                super.diff(o, diff);
 
-                if (result){
+                Flow other = (Flow) o;
 
-                    Flow other = (Flow) o;
-
-                    result = isUnchanged(this.description, other.description, parentName, "description", logger) &
-                            isUnchanged(this.executions, other.executions, parentName, "executions", logger);
-                }
-
-                return result;
+                diff.compare(this.description, other.description, "description");
+                diff.compare(this.executions, other.executions, "executions");
             }
 
             @Override
@@ -96,17 +90,12 @@ public class AuthenticationFlowDefinition extends BaseDefinition {
             private Map<String, Object> config = new HashMap<>();
 
             @Override
-            public boolean isUnchanged(Object o, String parentName, Logger logger) {
-                boolean result = super.isUnchanged(o, parentName, logger);
+            protected void diff(Object o, DefinitionDiff diff) {
+                super.diff(o, diff);
 
-                if (result){
-
-                    Authenticator other = (Authenticator) o;
-
-                    result = isUnchanged(this.config, other.config, parentName, "config", logger);
-                }
+                Authenticator other = (Authenticator) o;
 
-                return result;
+                diff.compare(this.config, other.config, "config");
             }
 
             @Override
@@ -129,21 +118,16 @@ public class AuthenticationFlowDefinition extends BaseDefinition {
         }
 
         @Override
-        public boolean isUnchanged(Object o, String parentName, Logger logger) {
-            boolean result = super.isUnchanged(o, parentName, logger);
+        protected void diff(Object o, DefinitionDiff diff) {
+            super.diff(o, diff);
 
-            if (result){
+            Execution other = (Execution) o;
 
-                Execution other = (Execution) o;
-
-                result = isUnchanged(this.getType(), other.getType(), parentName, "type", logger) &
-                        isUnchanged(this.providerId, other.providerId, parentName, "providerId", logger) &
-                        isUnchanged(this.displayName, other.displayName, parentName, "displayName", logger) &
-                        isUnchanged(this.requirement, other.requirement, parentName, "requirement", logger) &
-                        isUnchanged(this.index, other.index, parentName, "index", logger);
-            }
-
-            return result;
+            diff.compare(this.getType(), other.getType(), "type");
+            diff.compare(this.providerId, other.providerId, "providerId");
+            diff.compare(this.displayName, other.displayName, "displayName");
+            diff.compare(this.requirement, other.requirement, "requirement");
+            diff.compare(this.index, other.index, "index");
         }
 
         public abstract String getType();
@@ -200,21 +184,16 @@ public class AuthenticationFlowDefinition extends BaseDefinition {
     private String id;
 
     @Override
-    public boolean isUnchanged(Object o, String parentName, Logger logger) {
-        boolean result = super.isUnchanged(o, parentName, logger);
+    protected void diff(Object o, DefinitionDiff diff) {
+        super.diff(o, diff);
 
-        if (result){
-
-            AuthenticationFlowDefinition other = (AuthenticationFlowDefinition) o;
-
-            result = isUnchanged(this.realmName, other.realmName, parentName, "realmName", logger) &
-                    isUnchanged(this.alias, other.alias, parentName, "alias", logger) &
-                    isUnchanged(this.description, other.description, parentName, "description", logger) &
-                    isUnchanged(this.providerId, other.providerId, parentName, "providerId", logger) &
-                    isUnchanged(this.executions, other.executions, parentName, "executions", logger);
-        }
+        AuthenticationFlowDefinition other = (AuthenticationFlowDefinition) o;
 
-        return result;
+        diff.compare(this.realmName, other.realmName, "realmName");
+        diff.compare(this.alias, other.alias, "alias");
+        diff.compare(this.description, other.description, "description");
+        diff.compare(this.providerId, other.providerId, "providerId");
+        diff.compare(this.executions, other.executions, "executions");
     }
 
     public String getRealmName() {
@@ -4,7 +4,6 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.fasterxml.jackson.databind.util.StdConverter;
-import org.slf4j.Logger;
 
 import java.util.*;
 
@@ -68,21 +67,16 @@ public class ClientDefinition extends BaseDefinition {
             }
 
             @Override
-            public boolean isUnchanged(Object o, String parentName, Logger logger) {
-                boolean result = super.isUnchanged(o, parentName, logger);
+            protected void diff(Object o, DefinitionDiff diff) {
+                super.diff(o, diff);
 
-                if (result){
+                AuthorizationCode other = (AuthorizationCode) o;
 
-                    AuthorizationCode other = (AuthorizationCode) o;
-
-                    result = isUnchanged(this.enabled, other.enabled, parentName, "enabled", logger) &
-                            isUnchanged(this.postLoginRedirectUris, other.postLoginRedirectUris, parentName, "postLoginRedirectUris", logger) &
-                            isUnchanged(this.webOrigins, other.webOrigins, parentName, "webOrigins", logger) &
-                            isUnchanged(this.postLogoutRedirectUris, other.postLogoutRedirectUris, parentName, "postLogoutRedirectUris", logger) &
-                            isUnchanged(this.flowOverride, other.flowOverride, parentName, "flowOverride", logger);
-                }
-
-                return result;
+                diff.compare(this.enabled, other.enabled, "enabled");
+                diff.compare(this.postLoginRedirectUris, other.postLoginRedirectUris, "postLoginRedirectUris");
+                diff.compare(this.webOrigins, other.webOrigins, "webOrigins");
+                diff.compare(this.postLogoutRedirectUris, other.postLogoutRedirectUris, "postLogoutRedirectUris");
+                diff.compare(this.flowOverride, other.flowOverride, "flowOverride");
             }
         }
 
@@ -110,18 +104,13 @@ public class ClientDefinition extends BaseDefinition {
             }
 
             @Override
-            public boolean isUnchanged(Object o, String parentName, Logger logger) {
-                boolean result = super.isUnchanged(o, parentName, logger);
-
-                if (result){
+            protected void diff(Object o, DefinitionDiff diff) {
+                super.diff(o, diff);
 
-                    Password other = (Password) o;
+                Password other = (Password) o;
 
-                    result = isUnchanged(this.enabled, other.enabled, parentName, "enabled", logger) &
-                            isUnchanged(this.flowOverride, other.flowOverride, parentName, "flowOverride", logger);
-                }
-
-                return result;
+                diff.compare(this.enabled, other.enabled, "enabled");
+                diff.compare(this.flowOverride, other.flowOverride, "flowOverride");
             }
         }
 
@@ -140,17 +129,12 @@ public class ClientDefinition extends BaseDefinition {
             }
 
             @Override
-            public boolean isUnchanged(Object o, String parentName, Logger logger) {
-                boolean result = super.isUnchanged(o, parentName, logger);
-
-                if (result){
+            protected void diff(Object o, DefinitionDiff diff) {
+                super.diff(o, diff);
 
-                    ClientCredentials other = (ClientCredentials) o;
+                ClientCredentials other = (ClientCredentials) o;
 
-                    result = isUnchanged(this.enabled, other.enabled, parentName, "enabled", logger);
-                }
-
-                return result;
+                diff.compare(this.enabled, other.enabled, "enabled");
             }
         }
 
@@ -181,19 +165,14 @@ public class ClientDefinition extends BaseDefinition {
         }
 
         @Override
-        public boolean isUnchanged(Object o, String parentName, Logger logger) {
-            boolean result = super.isUnchanged(o, parentName, logger);
-
-            if (result){
+        protected void diff(Object o, DefinitionDiff diff) {
+            super.diff(o, diff);
 
-                GrantTypes other = (GrantTypes) o;
-
-                result = isUnchanged(this.authorizationCode, other.authorizationCode, parentName, "authorizationCode", logger) &
-                        isUnchanged(this.password, other.password, parentName, "password", logger) &
-                        isUnchanged(this.clientCredentials, other.clientCredentials, parentName, "clientCredentials", logger);
-            }
+            GrantTypes other = (GrantTypes) o;
 
-            return result;
+            diff.compare(this.authorizationCode, other.authorizationCode, "authorizationCode");
+            diff.compare(this.password, other.password, "password");
+            diff.compare(this.clientCredentials, other.clientCredentials, "clientCredentials");
         }
     }
 
@@ -209,17 +188,12 @@ public class ClientDefinition extends BaseDefinition {
         private String name;
 
         @Override
-        public boolean isUnchanged(Object o, String parentName, Logger logger) {
-            boolean result = super.isUnchanged(o, parentName, logger);
+        protected void diff(Object o, DefinitionDiff diff) {
+            super.diff(o, diff);
 
-            if (result){
+            Scope other = (Scope) o;
 
-                Scope other = (Scope) o;
-
-                result = isUnchanged(this.type, other.type, parentName, "type", logger);
-            }
-
-            return result;
+            diff.compare(this.type, other.type, "type");
         }
 
         public String getType() {
@@ -258,21 +232,16 @@ public class ClientDefinition extends BaseDefinition {
         private Long clientOfflineSessionMaxLifespanSeconds;
 
         @Override
-        public boolean isUnchanged(Object o, String parentName, Logger logger) {
-            boolean result = super.isUnchanged(o, parentName, logger);
+        protected void diff(Object o, DefinitionDiff diff) {
+            super.diff(o, diff);
 
-            if (result){
+            AdvancedSettings other = (AdvancedSettings) o;
 
-                AdvancedSettings other = (AdvancedSettings) o;
-
-                result = isUnchanged(this.accessTokenLifespanSeconds, other.accessTokenLifespanSeconds, parentName, "accessTokenLifespanSeconds", logger) &
-                        isUnchanged(this.clientSessionIdleTimeoutSeconds, other.clientSessionIdleTimeoutSeconds, parentName, "clientSessionIdleTimeoutSeconds", logger) &
-                        isUnchanged(this.clientSessionMaxLifespanSeconds, other.clientSessionMaxLifespanSeconds, parentName, "clientSessionMaxLifespanSeconds", logger) &
-                        isUnchanged(this.clientOfflineSessionIdleTimeoutSeconds, other.clientOfflineSessionIdleTimeoutSeconds, parentName, "clientOfflineSessionIdleTimeoutSeconds", logger) &
-                        isUnchanged(this.clientOfflineSessionMaxLifespanSeconds, other.clientOfflineSessionMaxLifespanSeconds, parentName, "clientOfflineSessionMaxLifespanSeconds", logger);
-            }
-
-            return result;
+            diff.compare(this.accessTokenLifespanSeconds, other.accessTokenLifespanSeconds, "accessTokenLifespanSeconds");
+            diff.compare(this.clientSessionIdleTimeoutSeconds, other.clientSessionIdleTimeoutSeconds, "clientSessionIdleTimeoutSeconds");
+            diff.compare(this.clientSessionMaxLifespanSeconds, other.clientSessionMaxLifespanSeconds, "clientSessionMaxLifespanSeconds");
+            diff.compare(this.clientOfflineSessionIdleTimeoutSeconds, other.clientOfflineSessionIdleTimeoutSeconds, "clientOfflineSessionIdleTimeoutSeconds");
+            diff.compare(this.clientOfflineSessionMaxLifespanSeconds, other.clientOfflineSessionMaxLifespanSeconds, "clientOfflineSessionMaxLifespanSeconds");
         }
 
         public Long getAccessTokenLifespanSeconds() {
@@ -323,22 +292,17 @@ public class ClientDefinition extends BaseDefinition {
     private String id;
 
     @Override
-    public boolean isUnchanged(Object o, String parentName, Logger logger) {
-        boolean result = super.isUnchanged(o, parentName, logger);
-
-        if (result){
+    protected void diff(Object o, DefinitionDiff diff) {
+        super.diff(o, diff);
 
-            ClientDefinition other = (ClientDefinition) o;
-
-            result = isUnchanged(this.realmName, other.realmName, parentName, "realmName", logger) &
-                    isUnchanged(this.clientId, other.clientId, parentName, "clientId", logger) &
-                    isUnchanged(this.clientSecret, other.clientSecret, parentName, "clientSecret", true, logger) &
-                    isUnchanged(this.enabled, other.enabled, parentName, "enabled", logger) &
-                    isUnchanged(this.grantTypes, other.grantTypes, parentName, "grantTypes", logger) &
-                    isUnchanged(this.advancedSettings, other.advancedSettings, parentName, "advancedSettings", logger);
-        }
+        ClientDefinition other = (ClientDefinition) o;
 
-        return result;
+        diff.compare(this.realmName, other.realmName, "realmName");
+        diff.compare(this.clientId, other.clientId, "clientId");
+        diff.compare(this.clientSecret, other.clientSecret, "clientSecret", true);
+        diff.compare(this.enabled, other.enabled, "enabled");
+        diff.compare(this.grantTypes, other.grantTypes, "grantTypes");
+        diff.compare(this.advancedSettings, other.advancedSettings, "advancedSettings");
     }
 
     public String getRealmName() {
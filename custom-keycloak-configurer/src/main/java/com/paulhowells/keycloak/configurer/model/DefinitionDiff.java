@@ -0,0 +1,201 @@
+package com.paulhowells.keycloak.configurer.model;
+
+import org.slf4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compares a current definition with an updated one and lists the properties that differ.
+ * <p>
+ * The definitions are walked in place, keeping the path to the current property as a stack of segments, so comparing
+ * equal definitions allocates nothing beyond the diff itself.  The path of a property is only rendered as a string once
+ * the property is found to differ.
+ */
+public final class DefinitionDiff {
+
+    // We can skip the managed-by attribute because this gets set by the code
+    private static final String MANAGED_BY_KEY = "managed-by";
+
+    private static final byte PROPERTY = 0;
+    private static final byte INDEX = 1;
+    private static final byte KEY = 2;
+
+    public enum ChangeType { ADDED, REMOVED, MODIFIED }
+
+    /**
+     * @param path the property path, e.g. grantTypes.authorizationCode.webOrigins[0]
+     * @param sensitive true when the values must not be logged
+     */
+    public record Change(
+            String path,
+            ChangeType type,
+            Object currentValue,
+            Object updatedValue,
+            boolean sensitive
+    ) {
+
+        public void log(Logger logger) {
+
+            if (sensitive) {
+                logger.info("{} has changed", path);
+            } else {
+                logger.info("{} has changed from {} to {}", path, currentValue, updatedValue);
+            }
+        }
+    }
+
+    private byte[] kinds = new byte[8];
+    private Object[] names = new Object[8];
+    private int[] indices = new int[8];
+    private int depth;
+
+    private List<Change> changes;
+
+    private DefinitionDiff() {
+    }
+
+    /**
+     * @param name the name of the root of the path, or null for paths relative to the definitions
+     * @return the changes, empty when the definitions are equal
+     */
+    public static List<Change> diff(Object current, Object updated, String name) {
+
+        DefinitionDiff diff = new DefinitionDiff();
+
+        if (name != null) {
+            diff.push(PROPERTY, name, 0);
+        }
+
+        diff.compareValues(current, updated, false);
+
+        return diff.changes == null ? List.of() : diff.changes;
+    }
+
+    public void compare(Object current, Object updated, String propertyName) {
+
+        compare(current, updated, propertyName, false);
+    }
+
+    public void compare(Object current, Object updated, String propertyName, boolean sensitive) {
+
+        push(PROPERTY, propertyName, 0);
+        compareValues(current, updated, sensitive);
+        pop();
+    }
+
+    private void compareValues(Object o1, Object o2, boolean sensitive) {
+
+        if (o1 == o2) {
+            return;
+        }
+
+        if (o1 == null) {
+            addChange(ChangeType.ADDED, null, o2, sensitive);
+        } else if (o2 == null) {
+            addChange(ChangeType.REMOVED, o1, null, sensitive);
+        } else if (o1 instanceof BaseDefinition d1) {
+
+            if (o1.getClass().equals(o2.getClass())) {
+                d1.diff(o2, this);
+            } else {
+                addChange(ChangeType.MODIFIED, o1, o2, false);
+            }
+        } else if (o1 instanceof List<?> l1 && o2 instanceof List<?> l2) {
+
+            int size = Math.max(l1.size(), l2.size());
+
+            for (int i = 0; i < size; ++i) {
+
+                push(INDEX, null, i);
+                compareValues(
+                        l1.size() > i ? l1.get(i) : null,
+                        l2.size() > i ? l2.get(i) : null,
+                        sensitive
+                );
+                pop();
+            }
+        } else if (o1 instanceof Map<?, ?> m1 && o2 instanceof Map<?, ?> m2) {
+
+            for (Map.Entry<?, ?> entry:m1.entrySet()) {
+
+                Object key = entry.getKey();
+
+                if (!MANAGED_BY_KEY.equals(key)) {
+                    push(KEY, key, 0);
+                    compareValues(entry.getValue(), m2.get(key), sensitive);
+                    pop();
+                }
+            }
+
+            for (Map.Entry<?, ?> entry:m2.entrySet()) {
+
+                Object key = entry.getKey();
+
+                if (!MANAGED_BY_KEY.equals(key) && !m1.containsKey(key)) {
+                    push(KEY, key, 0);
+                    compareValues(null, entry.getValue(), sensitive);
+                    pop();
+                }
+            }
+        } else if (!o1.equals(o2)) {
+
+            addChange(ChangeType.MODIFIED, o1, o2, sensitive);
+        }
+    }
+
+    private void addChange(ChangeType type, Object currentValue, Object updatedValue, boolean sensitive) {
+
+        if (changes == null) {
+            changes = new ArrayList<>();
+        }
+
+        changes.add(new Change(getPath(), type, currentValue, updatedValue, sensitive));
+    }
+
+    private String getPath() {
+
+        if (depth == 0) {
+            return null;
+        }
+
+        StringBuilder result = new StringBuilder();
+
+        for (int i = 0; i < depth; ++i) {
+
+            switch (kinds[i]) {
+                case PROPERTY -> {
+                    if (!result.isEmpty()) {
+                        result.append('.');
+                    }
+                    result.append(names[i]);
+                }
+                case INDEX -> result.append('[').append(indices[i]).append(']');
+                default -> result.append('[').append(names[i]).append(']');
+            }
+        }
+
+        return result.toString();
+    }
+
+    private void push(byte kind, Object name, int index) {
+
+        if (depth == kinds.length) {
+            kinds = Arrays.copyOf(kinds, depth * 2);
+            names = Arrays.copyOf(names, depth * 2);
+            indices = Arrays.copyOf(indices, depth * 2);
+        }
+
+        kinds[depth] = kind;
+        names[depth] = name;
+        indices[depth] = index;
+        ++depth;
+    }
+
+    private void pop() {
+
+        names[--depth] = null;
+    }
+}
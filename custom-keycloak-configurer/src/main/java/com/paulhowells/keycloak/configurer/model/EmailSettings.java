@@ -1,7 +1,6 @@
 package com.paulhowells.keycloak.configurer.model;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
-import org.slf4j.Logger;
 
 @JsonInclude(JsonInclude.Include.NON_EMPTY)
 public class EmailSettings extends BaseDefinition {
@@ -19,28 +18,23 @@ public class EmailSettings extends BaseDefinition {
     private String password;
 
     @Override
-    public boolean isUnchanged(Object o, String parentName, Logger logger) {
-        boolean result = super.isUnchanged(o, parentName, logger);
-
-        if (result){
-
-            EmailSettings other = (EmailSettings) o;
-
-            result = isUnchanged(this.fromAddress, other.fromAddress, parentName, "fromAddress", logger) &
-                    isUnchanged(this.fromDisplayName, other.fromDisplayName, parentName, "fromDisplayName", logger) &
-                    isUnchanged(this.replyToAddress, other.replyToAddress, parentName, "replyToAddress", logger) &
-                    isUnchanged(this.replyToDisplayName, other.replyToDisplayName, parentName, "replyToDisplayName", logger) &
-                    isUnchanged(this.envelopeFromAddress, other.envelopeFromAddress, parentName, "envelopeFromAddress", logger) &
-                    isUnchanged(this.host, other.host, parentName, "host", logger) &
-                    isUnchanged(this.port, other.port, parentName, "port", logger) &
-                    isUnchanged(this.enableSsl, other.enableSsl, parentName, "enableSsl", logger) &
-                    isUnchanged(this.enableStartTls, other.enableStartTls, parentName, "enableStartTls", logger) &
-                    isUnchanged(this.authenticationEnabled, other.authenticationEnabled, parentName, "authenticationEnabled", logger) &
-                    isUnchanged(this.username, other.username, parentName, "username", logger) &
-                    isUnchanged(this.password, other.password, parentName, "password", logger) ;
-        }
-
-        return result;
+    protected void diff(Object o, DefinitionDiff diff) {
+        super.diff(o, diff);
+
+        EmailSettings other = (EmailSettings) o;
+
+        diff.compare(this.fromAddress, other.fromAddress, "fromAddress");
+        diff.compare(this.fromDisplayName, other.fromDisplayName, "fromDisplayName");
+        diff.compare(this.replyToAddress, other.replyToAddress, "replyToAddress");
+        diff.compare(this.replyToDisplayName, other.replyToDisplayName, "replyToDisplayName");
+        diff.compare(this.envelopeFromAddress, other.envelopeFromAddress, "envelopeFromAddress");
+        diff.compare(this.host, other.host, "host");
+        diff.compare(this.port, other.port, "port");
+        diff.compare(this.enableSsl, other.enableSsl, "enableSsl");
+        diff.compare(this.enableStartTls, other.enableStartTls, "enableStartTls");
+        diff.compare(this.authenticationEnabled, other.authenticationEnabled, "authenticationEnabled");
+        diff.compare(this.username, other.username, "username");
+        diff.compare(this.password, other.password, "password");
     }
 
     public String getFromAddress() {
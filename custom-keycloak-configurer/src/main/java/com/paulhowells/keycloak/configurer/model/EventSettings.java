@@ -3,7 +3,6 @@ package com.paulhowells.keycloak.configurer.model;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.fasterxml.jackson.databind.util.StdConverter;
-import org.slf4j.Logger;
 
 import java.util.Collections;
 import java.util.List;
@@ -21,23 +20,18 @@ public class EventSettings extends BaseDefinition {
     private Integer adminEventsExpirationSeconds;
 
     @Override
-    public boolean isUnchanged(Object o, String parentName, Logger logger) {
-        boolean result = super.isUnchanged(o, parentName, logger);
-
-        if (result){
-
-            EventSettings other = (EventSettings) o;
-
-            result = isUnchanged(this.eventsListeners, other.eventsListeners, parentName, "eventsListeners", logger) &
-                    isUnchanged(this.userEventsEnabled, other.userEventsEnabled, parentName, "userEventsEnabled", logger) &
-                    isUnchanged(this.userEventsExpirationSeconds, other.userEventsExpirationSeconds, parentName, "userEventsExpirationSeconds", logger) &
-                    isUnchanged(this.enabledEventTypes, other.enabledEventTypes, parentName, "enabledEventTypes", logger) &
-                    isUnchanged(this.adminEventsEnabled, other.adminEventsEnabled, parentName, "adminEventsEnabled", logger) &
-                    isUnchanged(this.adminEventsDetailsEnabled, other.adminEventsDetailsEnabled, parentName, "adminEventsDetailsEnabled", logger) &
-                    isUnchanged(this.adminEventsExpirationSeconds, other.adminEventsExpirationSeconds, parentName, "adminEventsExpirationSeconds", logger);
-        }
-
-        return result;
+    protected void diff(Object o, DefinitionDiff diff) {
+        super.diff(o, diff);
+
+        EventSettings other = (EventSettings) o;
+
+        diff.compare(this.eventsListeners, other.eventsListeners, "eventsListeners");
+        diff.compare(this.userEventsEnabled, other.userEventsEnabled, "userEventsEnabled");
+        diff.compare(this.userEventsExpirationSeconds, other.userEventsExpirationSeconds, "userEventsExpirationSeconds");
+        diff.compare(this.enabledEventTypes, other.enabledEventTypes, "enabledEventTypes");
+        diff.compare(this.adminEventsEnabled, other.adminEventsEnabled, "adminEventsEnabled");
+        diff.compare(this.adminEventsDetailsEnabled, other.adminEventsDetailsEnabled, "adminEventsDetailsEnabled");
+        diff.compare(this.adminEventsExpirationSeconds, other.adminEventsExpirationSeconds, "adminEventsExpirationSeconds");
     }
 
     public List<String> getEventsListeners() {
@@ -1,7 +1,6 @@
 package com.paulhowells.keycloak.configurer.model;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
-import org.slf4j.Logger;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -30,19 +29,14 @@ public class GoogleIdentityProvider extends BaseDefinition {
         private String claimName;
         private String regex;
         @Override
-        public boolean isUnchanged(Object o, String parentName, Logger logger) {
-            boolean result = super.isUnchanged(o, parentName, logger);
+        protected void diff(Object o, DefinitionDiff diff) {
+            super.diff(o, diff);
 
-            if (result){
+            EssentialClaim other = (EssentialClaim) o;
 
-                EssentialClaim other = (EssentialClaim) o;
-
-                result = isUnchanged(this.enabled, other.enabled, parentName, "enabled", logger) &
-                        isUnchanged(this.claimName, other.claimName, parentName, "claimName", logger) &
-                        isUnchanged(this.regex, other.regex, parentName, "regex", logger);
-            }
-
-            return result;
+            diff.compare(this.enabled, other.enabled, "enabled");
+            diff.compare(this.claimName, other.claimName, "claimName");
+            diff.compare(this.regex, other.regex, "regex");
         }
 
         public Boolean getEnabled() {
@@ -76,36 +70,31 @@ public class GoogleIdentityProvider extends BaseDefinition {
     private String syncMode;
 
     @Override
-    public boolean isUnchanged(Object o, String parentName, Logger logger) {
-        boolean result = super.isUnchanged(o, parentName, logger);
-
-        if (result){
-
-            GoogleIdentityProvider other = (GoogleIdentityProvider) o;
-
-            result = isUnchanged(this.clientId, other.clientId, parentName, "clientId", logger) &
-                    isUnchanged(this.clientSecret, other.clientSecret, parentName, "clientSecret", true, logger) &
-                    isUnchanged(this.displayOrder, other.displayOrder, parentName, "displayOrder", logger) &
-                    isUnchanged(this.hostedDomains, other.hostedDomains, parentName, "hostedDomains", logger) &
-                    isUnchanged(this.useUserIpParam, other.useUserIpParam, parentName, "useUserIpParam", logger) &
-                    isUnchanged(this.requestRefreshToken, other.requestRefreshToken, parentName, "requestRefreshToken", logger) &
-                    isUnchanged(this.scopes, other.scopes, parentName, "scopes", logger) &
-                    isUnchanged(this.storeTokens, other.storeTokens, parentName, "storeTokens", logger) &
-                    isUnchanged(this.acceptsPromptNoneForward, other.acceptsPromptNoneForward, parentName, "acceptsPromptNoneForward", logger) &
-                    isUnchanged(this.acceptsPromptNoneForward, other.acceptsPromptNoneForward, parentName, "acceptsPromptNoneForward", logger) &
-                    isUnchanged(this.disableUserInfo, other.disableUserInfo, parentName, "disableUserInfo", logger) &
-                    isUnchanged(this.trustEmail, other.trustEmail, parentName, "trustEmail", logger) &
-                    isUnchanged(this.accountLinkingOnly, other.accountLinkingOnly, parentName, "accountLinkingOnly", logger) &
-                    isUnchanged(this.hideOnLoginPage, other.hideOnLoginPage, parentName, "hideOnLoginPage", logger) &
-                    isUnchanged(this.essentialClaim, other.essentialClaim, parentName, "essentialClaim", logger) &
-                    isUnchanged(this.firstLoginFlowAlias, other.firstLoginFlowAlias, parentName, "firstLoginFlowAlias", logger) &
-                    isUnchanged(this.postLoginFlowAlias, other.postLoginFlowAlias, parentName, "postLoginFlowAlias", logger) &
-                    isUnchanged(this.syncMode, other.syncMode, parentName, "syncMode", logger) &
-                    isUnchanged(this.enabled, other.enabled, parentName, "enabled", logger) &
-                    isUnchanged(this.mappers, other.mappers, parentName, "mappers", logger);
-        }
-
-        return result;
+    protected void diff(Object o, DefinitionDiff diff) {
+        super.diff(o, diff);
+
+        GoogleIdentityProvider other = (GoogleIdentityProvider) o;
+
+        diff.compare(this.clientId, other.clientId, "clientId");
+        diff.compare(this.clientSecret, other.clientSecret, "clientSecret", true);
+        diff.compare(this.displayOrder, other.displayOrder, "displayOrder");
+        diff.compare(this.hostedDomains, other.hostedDomains, "hostedDomains");
+        diff.compare(this.useUserIpParam, other.useUserIpParam, "useUserIpParam");
+        diff.compare(this.requestRefreshToken, other.requestRefreshToken, "requestRefreshToken");
+        diff.compare(this.scopes, other.scopes, "scopes");
+        diff.compare(this.storeTokens, other.storeTokens, "storeTokens");
+        diff.compare(this.acceptsPromptNoneForward, other.acceptsPromptNoneForward, "acceptsPromptNoneForward");
+        diff.compare(this.acceptsPromptNoneForward, other.acceptsPromptNoneForward, "acceptsPromptNoneForward");
+        diff.compare(this.disableUserInfo, other.disableUserInfo, "disableUserInfo");
+        diff.compare(this.trustEmail, other.trustEmail, "trustEmail");
+        diff.compare(this.accountLinkingOnly, other.accountLinkingOnly, "accountLinkingOnly");
+        diff.compare(this.hideOnLoginPage, other.hideOnLoginPage, "hideOnLoginPage");
+        diff.compare(this.essentialClaim, other.essentialClaim, "essentialClaim");
+        diff.compare(this.firstLoginFlowAlias, other.firstLoginFlowAlias, "firstLoginFlowAlias");
+        diff.compare(this.postLoginFlowAlias, other.postLoginFlowAlias, "postLoginFlowAlias");
+        diff.compare(this.syncMode, other.syncMode, "syncMode");
+        diff.compare(this.enabled, other.enabled, "enabled");
+        diff.compare(this.mappers, other.mappers, "mappers");
     }
 
     public String getClientId() {
@@ -2,7 +2,6 @@ package com.paulhowells.keycloak.configurer.model;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
-import org.slf4j.Logger;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -22,19 +21,14 @@ public class IdentityProviderMapperDefinition extends BaseDefinition {
     }
 
     @Override
-    public boolean isUnchanged(Object o, String parentName, Logger logger) {
-        boolean result = super.isUnchanged(o, parentName, logger);
+    protected void diff(Object o, DefinitionDiff diff) {
+        super.diff(o, diff);
 
-        if (result){
+        IdentityProviderMapperDefinition other = (IdentityProviderMapperDefinition) o;
 
-            IdentityProviderMapperDefinition other = (IdentityProviderMapperDefinition) o;
-
-            result = isUnchanged(this.name, other.name, parentName, "name", logger) &
-                    isUnchanged(this.identityProviderMapper, other.identityProviderMapper, parentName, "identityProviderMapper", logger) &
-                    isUnchanged(this.config, other.config, parentName, "config", logger);
-        }
-
-        return result;
+        diff.compare(this.name, other.name, "name");
+        diff.compare(this.identityProviderMapper, other.identityProviderMapper, "identityProviderMapper");
+        diff.compare(this.config, other.config, "config");
     }
 
     public String getName() {
@@ -1,7 +1,6 @@
 package com.paulhowells.keycloak.configurer.model;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
-import org.slf4j.Logger;
 
 @JsonInclude(JsonInclude.Include.NON_EMPTY)
 public class LoginSettings extends BaseDefinition {
@@ -16,24 +15,19 @@ public class LoginSettings extends BaseDefinition {
     private Boolean editUsernameAllowed;
 
     @Override
-    public boolean isUnchanged(Object o, String parentName, Logger logger) {
-        boolean result = super.isUnchanged(o, parentName, logger);
-
-        if (result){
-
-            LoginSettings other = (LoginSettings) o;
-
-            result = isUnchanged(this.registrationAllowed, other.registrationAllowed, parentName, "registrationAllowed", logger) &
-                    isUnchanged(this.registrationEmailAsUsername, other.registrationEmailAsUsername, parentName, "registrationEmailAsUsername", logger) &
-                    isUnchanged(this.rememberMe, other.rememberMe, parentName, "rememberMe", logger) &
-                    isUnchanged(this.verifyEmail, other.verifyEmail, parentName, "verifyEmail", logger) &
-                    isUnchanged(this.loginWithEmailAllowed, other.loginWithEmailAllowed, parentName, "loginWithEmailAllowed", logger) &
-                    isUnchanged(this.duplicateEmailsAllowed, other.duplicateEmailsAllowed, parentName, "duplicateEmailsAllowed", logger) &
-                    isUnchanged(this.resetPasswordAllowed, other.resetPasswordAllowed, parentName, "resetPasswordAllowed", logger) &
-                    isUnchanged(this.editUsernameAllowed, other.editUsernameAllowed, parentName, "editUsernameAllowed", logger);
-        }
-
-        return result;
+    protected void diff(Object o, DefinitionDiff diff) {
+        super.diff(o, diff);
+
+        LoginSettings other = (LoginSettings) o;
+
+        diff.compare(this.registrationAllowed, other.registrationAllowed, "registrationAllowed");
+        diff.compare(this.registrationEmailAsUsername, other.registrationEmailAsUsername, "registrationEmailAsUsername");
+        diff.compare(this.rememberMe, other.rememberMe, "rememberMe");
+        diff.compare(this.verifyEmail, other.verifyEmail, "verifyEmail");
+        diff.compare(this.loginWithEmailAllowed, other.loginWithEmailAllowed, "loginWithEmailAllowed");
+        diff.compare(this.duplicateEmailsAllowed, other.duplicateEmailsAllowed, "duplicateEmailsAllowed");
+        diff.compare(this.resetPasswordAllowed, other.resetPasswordAllowed, "resetPasswordAllowed");
+        diff.compare(this.editUsernameAllowed, other.editUsernameAllowed, "editUsernameAllowed");
     }
 
     public Boolean getRegistrationAllowed() {
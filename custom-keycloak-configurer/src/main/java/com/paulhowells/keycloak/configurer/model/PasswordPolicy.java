@@ -1,7 +1,6 @@
 package com.paulhowells.keycloak.configurer.model;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
-import org.slf4j.Logger;
 
 @JsonInclude(JsonInclude.Include.NON_EMPTY)
 public class PasswordPolicy extends BaseDefinition {
@@ -12,21 +11,16 @@ public class PasswordPolicy extends BaseDefinition {
     private Integer lowercase;
 
     @Override
-    public boolean isUnchanged(Object o, String parentName, Logger logger) {
-        boolean result = super.isUnchanged(o, parentName, logger);
+    protected void diff(Object o, DefinitionDiff diff) {
+        super.diff(o, diff);
 
-        if (result){
+        PasswordPolicy other = (PasswordPolicy) o;
 
-            PasswordPolicy other = (PasswordPolicy) o;
-
-            result = isUnchanged(this.digits, other.digits, parentName, "digits", logger) &
-                    isUnchanged(this.minimumLength, other.minimumLength, parentName, "minimumLength", logger) &
-                    isUnchanged(this.specialCharacters, other.specialCharacters, parentName, "specialCharacters", logger) &
-                    isUnchanged(this.uppercase, other.uppercase, parentName, "uppercase", logger) &
-                    isUnchanged(this.lowercase, other.lowercase, parentName, "lowercase", logger);
-        }
-
-        return result;
+        diff.compare(this.digits, other.digits, "digits");
+        diff.compare(this.minimumLength, other.minimumLength, "minimumLength");
+        diff.compare(this.specialCharacters, other.specialCharacters, "specialCharacters");
+        diff.compare(this.uppercase, other.uppercase, "uppercase");
+        diff.compare(this.lowercase, other.lowercase, "lowercase");
     }
 
     public Integer getDigits() {
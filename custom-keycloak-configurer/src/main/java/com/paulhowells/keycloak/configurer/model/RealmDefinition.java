@@ -4,7 +4,6 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.fasterxml.jackson.databind.util.StdConverter;
-import org.slf4j.Logger;
 
 import java.util.*;
 
@@ -66,24 +65,19 @@ public class RealmDefinition extends BaseDefinition {
     private GoogleIdentityProvider googleIdentityProvider;
 
     @Override
-    public boolean isUnchanged(Object o, String parentName, Logger logger) {
-        boolean result = super.isUnchanged(o, parentName, logger);
-
-        if (result){
-
-            RealmDefinition other = (RealmDefinition) o;
-
-            result = isUnchanged(this.realmName, other.realmName, parentName, "realmName", logger) &
-                    isUnchanged(this.defaultBrowserFlowAlias, other.defaultBrowserFlowAlias, parentName, "defaultBrowserFlowAlias", logger) &
-                    isUnchanged(this.defaultRegistrationFlowAlias, other.defaultRegistrationFlowAlias, parentName, "defaultRegistrationFlowAlias", logger) &
-                    isUnchanged(this.defaultDirectGrantFlowAlias, other.defaultDirectGrantFlowAlias, parentName, "defaultDirectGrantFlowAlias", logger) &
-                    isUnchanged(this.defaultResetCredentialsFlowAlias, other.defaultResetCredentialsFlowAlias, parentName, "defaultResetCredentialsFlowAlias", logger) &
-                    isUnchanged(this.defaultClientAuthenticationFlowAlias, other.defaultClientAuthenticationFlowAlias, parentName, "defaultClientAuthenticationFlowAlias", logger) &
-                    isUnchanged(this.defaultFirstBrokerLoginFlowAlias, other.defaultFirstBrokerLoginFlowAlias, parentName, "defaultFirstBrokerLoginFlowAlias", logger) &
-                    isUnchanged(this.enabled, other.enabled, parentName, "enabled", logger);
-        }
-
-        return result;
+    protected void diff(Object o, DefinitionDiff diff) {
+        super.diff(o, diff);
+
+        RealmDefinition other = (RealmDefinition) o;
+
+        diff.compare(this.realmName, other.realmName, "realmName");
+        diff.compare(this.defaultBrowserFlowAlias, other.defaultBrowserFlowAlias, "defaultBrowserFlowAlias");
+        diff.compare(this.defaultRegistrationFlowAlias, other.defaultRegistrationFlowAlias, "defaultRegistrationFlowAlias");
+        diff.compare(this.defaultDirectGrantFlowAlias, other.defaultDirectGrantFlowAlias, "defaultDirectGrantFlowAlias");
+        diff.compare(this.defaultResetCredentialsFlowAlias, other.defaultResetCredentialsFlowAlias, "defaultResetCredentialsFlowAlias");
+        diff.compare(this.defaultClientAuthenticationFlowAlias, other.defaultClientAuthenticationFlowAlias, "defaultClientAuthenticationFlowAlias");
+        diff.compare(this.defaultFirstBrokerLoginFlowAlias, other.defaultFirstBrokerLoginFlowAlias, "defaultFirstBrokerLoginFlowAlias");
+        diff.compare(this.enabled, other.enabled, "enabled");
     }
 
     public String getRealmName() {
@@ -2,7 +2,6 @@ package com.paulhowells.keycloak.configurer.model;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
-import org.slf4j.Logger;
 
 @JsonInclude(JsonInclude.Include.NON_EMPTY)
 public class RoleDefinition extends BaseDefinition {
@@ -22,17 +21,12 @@ public class RoleDefinition extends BaseDefinition {
     }
 
     @Override
-    public boolean isUnchanged(Object o, String parentName, Logger logger) {
-        boolean result = super.isUnchanged(o, parentName, logger);
+    protected void diff(Object o, DefinitionDiff diff) {
+        super.diff(o, diff);
 
-        if (result){
+        RoleDefinition other = (RoleDefinition) o;
 
-            RoleDefinition other = (RoleDefinition) o;
-
-            result = isUnchanged(this.description, other.description, parentName, "description", logger);
-        }
-
-        return result;
+        diff.compare(this.description, other.description, "description");
     }
 
     public String getDescription() {
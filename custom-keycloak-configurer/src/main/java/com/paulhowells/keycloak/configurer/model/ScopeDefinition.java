@@ -4,7 +4,6 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.fasterxml.jackson.databind.util.StdConverter;
-import org.slf4j.Logger;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -45,20 +44,15 @@ public class ScopeDefinition extends BaseDefinition {
         private Map<String, String> config = new HashMap<>();
 
         @Override
-        public boolean isUnchanged(Object o, String parentName, Logger logger) {
-            boolean result = super.isUnchanged(o, parentName, logger);
+        protected void diff(Object o, DefinitionDiff diff) {
+            super.diff(o, diff);
 
-            if (result){
+            Mapper other = (Mapper) o;
 
-                Mapper other = (Mapper) o;
-
-                result = isUnchanged(this.protocol, other.protocol, parentName, "protocol", logger) &
-                        isUnchanged(this.protocolMapper, other.protocolMapper, parentName, "protocolMapper", logger) &
-                        isUnchanged(this.consentRequired, other.consentRequired, parentName, "consentRequired", logger) &
-                        isUnchanged(this.config, other.config, parentName, "config", logger);
-            }
-
-            return result;
+            diff.compare(this.protocol, other.protocol, "protocol");
+            diff.compare(this.protocolMapper, other.protocolMapper, "protocolMapper");
+            diff.compare(this.consentRequired, other.consentRequired, "consentRequired");
+            diff.compare(this.config, other.config, "config");
         }
 
         public String getId() {
@@ -118,22 +112,17 @@ public class ScopeDefinition extends BaseDefinition {
     }
 
     @Override
-    public boolean isUnchanged(Object o, String parentName, Logger logger) {
-        boolean result = super.isUnchanged(o, parentName, logger);
+    protected void diff(Object o, DefinitionDiff diff) {
+        super.diff(o, diff);
 
-        if (result){
-
-            ScopeDefinition other = (ScopeDefinition) o;
-
-            result = isUnchanged(this.description, other.description, parentName, "description", logger) &
-                    isUnchanged(this.type, other.type, parentName, "type", logger) &
-                    isUnchanged(this.protocol, other.protocol, parentName, "protocol", logger) &
-                    isUnchanged(this.includeInTokenScope, other.includeInTokenScope, parentName, "includeInTokenScope", logger) &
-                    isUnchanged(this.displayOnConsentScreen, other.displayOnConsentScreen, parentName, "displayOnConsentScreen", logger) &
-                    isUnchanged(this.consentScreenText, other.consentScreenText, parentName, "consentScreenText", logger);
-        }
+        ScopeDefinition other = (ScopeDefinition) o;
 
-        return result;
+        diff.compare(this.description, other.description, "description");
+        diff.compare(this.type, other.type, "type");
+        diff.compare(this.protocol, other.protocol, "protocol");
+        diff.compare(this.includeInTokenScope, other.includeInTokenScope, "includeInTokenScope");
+        diff.compare(this.displayOnConsentScreen, other.displayOnConsentScreen, "displayOnConsentScreen");
+        diff.compare(this.consentScreenText, other.consentScreenText, "consentScreenText");
     }
 
     public String getDescription() {
@@ -1,7 +1,6 @@
 package com.paulhowells.keycloak.configurer.model;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
-import org.slf4j.Logger;
 
 @JsonInclude(JsonInclude.Include.NON_EMPTY)
 public class SessionSettings extends BaseDefinition {
@@ -19,27 +18,22 @@ public class SessionSettings extends BaseDefinition {
 
 
     @Override
-    public boolean isUnchanged(Object o, String parentName, Logger logger) {
-        boolean result = super.isUnchanged(o, parentName, logger);
-
-        if (result){
-
-            SessionSettings other = (SessionSettings) o;
-
-            result = isUnchanged(this.ssoSessionIdleTimeoutSeconds, other.ssoSessionIdleTimeoutSeconds, parentName, "ssoSessionIdleTimeoutSeconds", logger) &
-                    isUnchanged(this.ssoSessionMaxLifespanSeconds, other.ssoSessionMaxLifespanSeconds, parentName, "ssoSessionMaxLifespanSeconds", logger) &
-                    isUnchanged(this.ssoSessionIdleTimeoutRememberMeSeconds, other.ssoSessionIdleTimeoutRememberMeSeconds, parentName, "ssoSessionIdleTimeoutRememberMeSeconds", logger) &
-                    isUnchanged(this.ssoSessionMaxLifespanRememberMeSeconds, other.ssoSessionMaxLifespanRememberMeSeconds, parentName, "ssoSessionMaxLifespanRememberMeSeconds", logger) &
-                    isUnchanged(this.clientSessionIdleTimeoutSeconds, other.clientSessionIdleTimeoutSeconds, parentName, "clientSessionIdleTimeoutSeconds", logger) &
-                    isUnchanged(this.clientSessionMaxLifespanSeconds, other.clientSessionMaxLifespanSeconds, parentName, "clientSessionMaxLifespanSeconds", logger) &
-                    isUnchanged(this.offlineSessionIdleTimeoutSeconds, other.offlineSessionIdleTimeoutSeconds, parentName, "offlineSessionIdleTimeoutSeconds", logger) &
-                    isUnchanged(this.offlineSessionMaxLifespanEnabled, other.offlineSessionMaxLifespanEnabled, parentName, "offlineSessionMaxLifespanEnabled", logger) &
-                    isUnchanged(this.offlineSessionMaxLifespanSeconds, other.offlineSessionMaxLifespanSeconds, parentName, "offlineSessionMaxLifespanSeconds", logger) &
-                    isUnchanged(this.accessCodeLifespanLoginSeconds, other.accessCodeLifespanLoginSeconds, parentName, "accessCodeLifespanLoginSeconds", logger) &
-                    isUnchanged(this.accessCodeLifespanUserActionSeconds, other.accessCodeLifespanUserActionSeconds, parentName, "accessCodeLifespanUserActionSeconds", logger);
-        }
-
-        return result;
+    protected void diff(Object o, DefinitionDiff diff) {
+        super.diff(o, diff);
+
+        SessionSettings other = (SessionSettings) o;
+
+        diff.compare(this.ssoSessionIdleTimeoutSeconds, other.ssoSessionIdleTimeoutSeconds, "ssoSessionIdleTimeoutSeconds");
+        diff.compare(this.ssoSessionMaxLifespanSeconds, other.ssoSessionMaxLifespanSeconds, "ssoSessionMaxLifespanSeconds");
+        diff.compare(this.ssoSessionIdleTimeoutRememberMeSeconds, other.ssoSessionIdleTimeoutRememberMeSeconds, "ssoSessionIdleTimeoutRememberMeSeconds");
+        diff.compare(this.ssoSessionMaxLifespanRememberMeSeconds, other.ssoSessionMaxLifespanRememberMeSeconds, "ssoSessionMaxLifespanRememberMeSeconds");
+        diff.compare(this.clientSessionIdleTimeoutSeconds, other.clientSessionIdleTimeoutSeconds, "clientSessionIdleTimeoutSeconds");
+        diff.compare(this.clientSessionMaxLifespanSeconds, other.clientSessionMaxLifespanSeconds, "clientSessionMaxLifespanSeconds");
+        diff.compare(this.offlineSessionIdleTimeoutSeconds, other.offlineSessionIdleTimeoutSeconds, "offlineSessionIdleTimeoutSeconds");
+        diff.compare(this.offlineSessionMaxLifespanEnabled, other.offlineSessionMaxLifespanEnabled, "offlineSessionMaxLifespanEnabled");
+        diff.compare(this.offlineSessionMaxLifespanSeconds, other.offlineSessionMaxLifespanSeconds, "offlineSessionMaxLifespanSeconds");
+        diff.compare(this.accessCodeLifespanLoginSeconds, other.accessCodeLifespanLoginSeconds, "accessCodeLifespanLoginSeconds");
+        diff.compare(this.accessCodeLifespanUserActionSeconds, other.accessCodeLifespanUserActionSeconds, "accessCodeLifespanUserActionSeconds");
     }
 
     public Integer getSsoSessionIdleTimeoutSeconds() {
@@ -1,7 +1,6 @@
 package com.paulhowells.keycloak.configurer.model;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
-import org.slf4j.Logger;
 
 @JsonInclude(JsonInclude.Include.NON_EMPTY)
 public class TokenSettings extends BaseDefinition {
@@ -14,23 +13,18 @@ public class TokenSettings extends BaseDefinition {
     private Integer actionTokenGeneratedByAdminLifespanSeconds;
 
     @Override
-    public boolean isUnchanged(Object o, String parentName, Logger logger) {
-        boolean result = super.isUnchanged(o, parentName, logger);
-
-        if (result){
-
-            TokenSettings other = (TokenSettings) o;
-
-            result = isUnchanged(this.defaultSignatureAlgorithm, other.defaultSignatureAlgorithm, parentName, "defaultSignatureAlgorithm", logger) &
-                    isUnchanged(this.revokeRefreshToken, other.revokeRefreshToken, parentName, "revokeRefreshToken", logger) &
-                    isUnchanged(this.refreshTokenMaxReuse, other.refreshTokenMaxReuse, parentName, "refreshTokenMaxReuse", logger) &
-                    isUnchanged(this.accessTokenLifespanSeconds, other.accessTokenLifespanSeconds, parentName, "accessTokenLifespanSeconds", logger) &
-                    isUnchanged(this.clientLoginTimeoutSeconds, other.clientLoginTimeoutSeconds, parentName, "clientLoginTimeoutSeconds", logger) &
-                    isUnchanged(this.actionTokenGeneratedByUserLifespanSeconds, other.actionTokenGeneratedByUserLifespanSeconds, parentName, "actionTokenGeneratedByUserLifespanSeconds", logger) &
-                    isUnchanged(this.actionTokenGeneratedByAdminLifespanSeconds, other.actionTokenGeneratedByAdminLifespanSeconds, parentName, "actionTokenGeneratedByAdminLifespanSeconds", logger);
-        }
-
-        return result;
+    protected void diff(Object o, DefinitionDiff diff) {
+        super.diff(o, diff);
+
+        TokenSettings other = (TokenSettings) o;
+
+        diff.compare(this.defaultSignatureAlgorithm, other.defaultSignatureAlgorithm, "defaultSignatureAlgorithm");
+        diff.compare(this.revokeRefreshToken, other.revokeRefreshToken, "revokeRefreshToken");
+        diff.compare(this.refreshTokenMaxReuse, other.refreshTokenMaxReuse, "refreshTokenMaxReuse");
+        diff.compare(this.accessTokenLifespanSeconds, other.accessTokenLifespanSeconds, "accessTokenLifespanSeconds");
+        diff.compare(this.clientLoginTimeoutSeconds, other.clientLoginTimeoutSeconds, "clientLoginTimeoutSeconds");
+        diff.compare(this.actionTokenGeneratedByUserLifespanSeconds, other.actionTokenGeneratedByUserLifespanSeconds, "actionTokenGeneratedByUserLifespanSeconds");
+        diff.compare(this.actionTokenGeneratedByAdminLifespanSeconds, other.actionTokenGeneratedByAdminLifespanSeconds, "actionTokenGeneratedByAdminLifespanSeconds");
     }
 
     public String getDefaultSignatureAlgorithm() {
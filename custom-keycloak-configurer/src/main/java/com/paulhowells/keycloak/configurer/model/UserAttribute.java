@@ -2,7 +2,6 @@ package com.paulhowells.keycloak.configurer.model;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
-import org.slf4j.Logger;
 
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -70,21 +69,16 @@ public class UserAttribute extends BaseDefinition {
     }
 
     @Override
-    public boolean isUnchanged(Object o, String parentName, Logger logger) {
-        boolean result = super.isUnchanged(o, parentName, logger);
+    protected void diff(Object o, DefinitionDiff diff) {
+        super.diff(o, diff);
 
-        if (result){
+        UserAttribute other = (UserAttribute) o;
 
-            UserAttribute other = (UserAttribute) o;
-
-            result = isUnchanged(this.displayName, other.displayName, parentName, "displayName", logger) &
-                    isUnchanged(this.group, other.group, parentName, "group", logger) &
-                    isUnchanged(this.validations, other.validations, parentName, "validations", logger) &
-                    isUnchanged(this.permissions, other.permissions, parentName, "permissions", logger) &
-                    isUnchanged(this.annotations, other.annotations, parentName, "annotations", logger);
-        }
-
-        return result;
+        diff.compare(this.displayName, other.displayName, "displayName");
+        diff.compare(this.group, other.group, "group");
+        diff.compare(this.validations, other.validations, "validations");
+        diff.compare(this.permissions, other.permissions, "permissions");
+        diff.compare(this.annotations, other.annotations, "annotations");
     }
 
     public String getName() {
@@ -2,7 +2,6 @@ package com.paulhowells.keycloak.configurer.model;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
-import org.slf4j.Logger;
 
 @JsonInclude(JsonInclude.Include.NON_EMPTY)
 public class UserAttributeGroup extends BaseDefinition {
@@ -17,18 +16,13 @@ public class UserAttributeGroup extends BaseDefinition {
     }
 
     @Override
-    public boolean isUnchanged(Object o, String parentName, Logger logger) {
-        boolean result = super.isUnchanged(o, parentName, logger);
+    protected void diff(Object o, DefinitionDiff diff) {
+        super.diff(o, diff);
 
-        if (result){
+        UserAttributeGroup other = (UserAttributeGroup) o;
 
-            UserAttributeGroup other = (UserAttributeGroup) o;
-
-            result = isUnchanged(this.displayHeader, other.displayHeader, parentName, "displayHeader", logger) &
-                    isUnchanged(this.displayDescription, other.displayDescription, parentName, "displayDescription", logger);
-        }
-
-        return result;
+        diff.compare(this.displayHeader, other.displayHeader, "displayHeader");
+        diff.compare(this.displayDescription, other.displayDescription, "displayDescription");
     }
 
     public String getName() {
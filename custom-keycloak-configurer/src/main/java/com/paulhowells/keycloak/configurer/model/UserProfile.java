@@ -3,12 +3,9 @@ package com.paulhowells.keycloak.configurer.model;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.fasterxml.jackson.databind.util.StdConverter;
-import org.slf4j.Logger;
 
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Map;
-import java.util.Set;
 
 @JsonInclude(JsonInclude.Include.NON_EMPTY)
 @JsonDeserialize(converter= UserProfile.PostConstruct.class)
@@ -18,68 +15,13 @@ public class UserProfile extends BaseDefinition {
     private Map<String, UserAttributeGroup> groups = new HashMap<>();
 
     @Override
-    public boolean isUnchanged(Object o, String parentName, Logger logger) {
-        boolean result = super.isUnchanged(o, parentName, logger);
+    protected void diff(Object o, DefinitionDiff diff) {
+        super.diff(o, diff);
 
-        if (result){
+        UserProfile other = (UserProfile) o;
 
-            UserProfile other = (UserProfile) o;
-
-            result = isAttributesUnchanged(this.attributes, other.attributes, parentName, "attributes", logger) &
-                    isGroupsUnchanged(this.groups, other.groups, parentName, "groups", logger);
-        }
-
-        return result;
-    }
-
-    protected static boolean isAttributesUnchanged(Map<String, UserAttribute> m1, Map<String, UserAttribute> m2, String parentName, String propertyName, Logger logger) {
-        boolean result = true;
-
-        String name;
-        if (parentName == null) {
-            name = propertyName;
-        } else {
-            name = String.format("%s.%s", parentName, propertyName);
-        }
-
-        Set<String> keys = new HashSet<>();
-        keys.addAll(m1.keySet());
-        keys.addAll(m2.keySet());
-
-        for (String key:keys) {
-
-            UserAttribute i1 = m1.get(key);
-            UserAttribute i2 = m2.get(key);
-
-            result = isUnchanged(i1, i2, String.format("%s[%s]", name, key), false, logger) & result;
-        }
-
-        return result;
-    }
-
-    protected static boolean isGroupsUnchanged(Map<String, UserAttributeGroup> m1, Map<String, UserAttributeGroup> m2, String parentName, String propertyName, Logger logger) {
-        boolean result = true;
-
-        String name;
-        if (parentName == null) {
-            name = propertyName;
-        } else {
-            name = String.format("%s.%s", parentName, propertyName);
-        }
-
-        Set<String> keys = new HashSet<>();
-        keys.addAll(m1.keySet());
-        keys.addAll(m2.keySet());
-
-        for (String key:keys) {
-
-            UserAttributeGroup i1 = m1.get(key);
-            UserAttributeGroup i2 = m2.get(key);
-
-            result = isUnchanged(i1, i2, String.format("%s[%s]", name, key), false, logger) & result;
-        }
-
-        return result;
+        diff.compare(this.attributes, other.attributes, "attributes");
+        diff.compare(this.groups, other.groups, "groups");
     }
 
     public Map<String, UserAttribute> getAttributes() {
@@ -0,0 +1,183 @@
+package com.paulhowells.keycloak.configurer.rest.client;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Limits the number of requests in flight to the Keycloak server, adjusting the limit to the load on the server.
+ * <p>
+ * The limit follows additive increase, multiplicative decrease.  Each successful request raises the limit by a fraction,
+ * so that it grows by one for every limit's worth of requests, up to the maximum.  The limit is halved when the server
+ * reports that it is overloaded, a 429 or 503 response or a timeout, at most once per average round trip so that a
+ * burst of failures from the same window counts once.
+ * <p>
+ * Latency decides whether the limit may grow.  Each endpoint keeps its own baseline, the lowest latency seen recently,
+ * as the endpoints differ too much, from a token request to a partial import, to share one.  While the average ratio of
+ * latency to baseline shows requests queueing on the server, the limit is held where it is.  Latency alone never
+ * lowers the limit, as a slow response may just be a heavy one.
+ */
+class AdaptiveConcurrencyLimiter {
+    private static final Logger logger = LoggerFactory.getLogger(AdaptiveConcurrencyLimiter.class);
+
+    private static final int MIN_LIMIT = 1;
+
+    private static final double BACKOFF_RATIO = 0.5;
+
+    // Weight of the latest sample in the average latency and the average latency ratio
+    private static final double SMOOTHING = 0.2;
+
+    // How far above its baseline the average latency may be before the limit stops growing
+    private static final double LATENCY_TOLERANCE = 2.0;
+
+    // How far a baseline rises with each sample, so that it follows a lasting change in the endpoint's latency
+    private static final double BASELINE_DRIFT = 0.01;
+
+    private final int maxLimit;
+
+    private final Deque<CompletableFuture<Void>> waiters = new ArrayDeque<>();
+    private final Map<String, Double> baselineLatencyNanos = new HashMap<>();
+
+    private double limit;
+    private int inFlight;
+    private double averageLatencyNanos;
+    private double averageLatencyRatio = 1;
+    private long lastDecreaseNanos;
+
+    /**
+     * @param initialLimit the number of requests in flight to start with
+     * @param maxLimit the maximum number of requests in flight
+     */
+    AdaptiveConcurrencyLimiter(int initialLimit, int maxLimit) {
+        this.maxLimit = Math.max(maxLimit, MIN_LIMIT);
+        this.limit = Math.max(MIN_LIMIT, Math.min(initialLimit, this.maxLimit));
+        this.lastDecreaseNanos = System.nanoTime();
+    }
+
+    synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    /**
+     * @return a future that completes once the request may be sent, after which release must be called exactly once
+     */
+    CompletableFuture<Void> acquire() {
+
+        synchronized (this) {
+
+            if (waiters.isEmpty() && inFlight < (int) limit) {
+
+                ++inFlight;
+                return CompletableFuture.completedFuture(null);
+            }
+
+            CompletableFuture<Void> result = new CompletableFuture<>();
+            waiters.add(result);
+            return result;
+        }
+    }
+
+    /**
+     * @param endpoint the endpoint requested, or null when the permit is returned without a request having been sent
+     * @param latencyNanos how long the request took
+     * @param overloaded true when the server reported that it is overloaded
+     */
+    void release(String endpoint, long latencyNanos, boolean overloaded) {
+
+        List<CompletableFuture<Void>> granted;
+
+        synchronized (this) {
+            --inFlight;
+            if (endpoint != null) {
+                update(endpoint, latencyNanos, overloaded);
+            }
+            granted = grant();
+        }
+
+        complete(granted);
+    }
+
+    private void update(String endpoint, long latencyNanos, boolean overloaded) {
+
+        long now = System.nanoTime();
+
+        int previousLimit = (int) limit;
+
+        if (overloaded) {
+
+            decrease(now);
+        } else {
+
+            averageLatencyNanos = averageLatencyNanos == 0
+                    ? latencyNanos
+                    : averageLatencyNanos + SMOOTHING * (latencyNanos - averageLatencyNanos);
+
+            double latency = Math.max(latencyNanos, 1);
+            double baseline = Math.min(latency, baselineLatencyNanos.getOrDefault(endpoint, latency) * (1 + BASELINE_DRIFT));
+            baselineLatencyNanos.put(endpoint, baseline);
+
+            averageLatencyRatio += SMOOTHING * (latency / baseline - averageLatencyRatio);
+
+            if (limit < maxLimit && averageLatencyRatio <= LATENCY_TOLERANCE) {
+
+                limit = Math.min(maxLimit, limit + 1 / limit);
+            }
+        }
+
+        if ((int) limit < previousLimit) {
+            logger.info("Keycloak request concurrency limit decreased to {}", (int) limit);
+        } else if ((int) limit > previousLimit) {
+            logger.debug("Keycloak request concurrency limit increased to {}", (int) limit);
+        }
+    }
+
+    private void decrease(long now) {
+
+        if (now - lastDecreaseNanos > averageLatencyNanos) {
+
+            limit = Math.max(MIN_LIMIT, limit * BACKOFF_RATIO);
+            lastDecreaseNanos = now;
+        }
+    }
+
+    private List<CompletableFuture<Void>> grant() {
+
+        List<CompletableFuture<Void>> result = new ArrayList<>();
+
+        while (!waiters.isEmpty() && inFlight < (int) limit) {
+
+            ++inFlight;
+            result.add(waiters.poll());
+        }
+
+        return result;
+    }
+
+    private void complete(List<CompletableFuture<Void>> granted) {
+
+        for (CompletableFuture<Void> waiter:granted) {
+
+            // The waiter may have been cancelled, in which case the permit is passed on
+            if (!waiter.complete(null)) {
+
+                List<CompletableFuture<Void>> next;
+                synchronized (this) {
+                    --inFlight;
+                    next = grant();
+                }
+                complete(next);
+            }
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.paulhowells.keycloak.configurer.rest.client;
+
+import org.apache.hc.client5.http.async.methods.SimpleHttpRequest;
+import org.apache.hc.client5.http.async.methods.SimpleHttpResponse;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.TlsConfig;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClients;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManager;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.ssl.ClientTlsStrategyBuilder;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.ClassicHttpRequest;
+import org.apache.hc.core5.http.ClassicHttpResponse;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpEntity;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.io.HttpClientResponseHandler;
+import org.apache.hc.core5.http.io.entity.ByteArrayEntity;
+import org.apache.hc.core5.http.io.entity.EntityUtils;
+import org.apache.hc.core5.http.message.BasicClassicHttpResponse;
+import org.apache.hc.core5.http.ssl.TLS;
+import org.apache.hc.core5.http2.HttpVersionPolicy;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.pool.PoolConcurrencyPolicy;
+import org.apache.hc.core5.reactor.IOReactorConfig;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+
+import javax.net.ssl.SSLContext;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URISyntaxException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+
+/**
+ * Non-blocking transport that negotiates HTTP/2 over TLS, so many requests can be in flight over a handful of
+ * connections.  Servers that do not support HTTP/2, or plain HTTP connections, fall back to pooled HTTP/1.1 connections.
+ * <p>
+ * The classic requests built by the REST API are converted to simple async requests, and the buffered responses are
+ * converted back so the existing response handlers can be used unchanged.
+ */
+class AsyncKeycloakTransport implements KeycloakTransport {
+
+    private final CloseableHttpAsyncClient httpClient;
+    private final Executor executor;
+
+    AsyncKeycloakTransport(
+            SSLContext sslContext,
+            int maxConnections,
+            Executor executor
+    ) {
+        this.executor = executor;
+
+        PoolingAsyncClientConnectionManager connectionManager = PoolingAsyncClientConnectionManagerBuilder.create()
+                .setTlsStrategy(ClientTlsStrategyBuilder.create()
+                        .setSslContext(sslContext)
+                        .setTlsVersions(TLS.V_1_3)
+                        .build())
+                .setDefaultTlsConfig(TlsConfig.custom()
+                        .setVersionPolicy(HttpVersionPolicy.NEGOTIATE)
+                        .build())
+                .setPoolConcurrencyPolicy(PoolConcurrencyPolicy.STRICT)
+                .setMaxConnTotal(maxConnections)
+                .setMaxConnPerRoute(maxConnections)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setSocketTimeout(Timeout.ofMinutes(1))
+                        .setConnectTimeout(Timeout.ofMinutes(1))
+                        .setTimeToLive(TimeValue.ofMinutes(10))
+                        .build())
+                .build();
+
+        this.httpClient = HttpAsyncClients.custom()
+                .setConnectionManager(connectionManager)
+                .setIOReactorConfig(IOReactorConfig.custom()
+                        .setSoTimeout(Timeout.ofMinutes(1))
+                        .build())
+                .build();
+
+        this.httpClient.start();
+    }
+
+    @Override
+    public <T> T execute(
+            ClassicHttpRequest request,
+            HttpClientResponseHandler<T> responseHandler
+    ) throws IOException {
+
+        SimpleHttpResponse response;
+        try {
+            response = httpClient.execute(toSimpleRequest(request), null).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(e.getMessage());
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof IOException ioException ? ioException : new IOException(e.getCause());
+        }
+
+        return handleResponse(response, responseHandler);
+    }
+
+    @Override
+    public <T> CompletableFuture<T> executeAsync(
+            ClassicHttpRequest request,
+            HttpClientResponseHandler<T> responseHandler
+    ) {
+        // Created on the calling thread, the response completes on an I/O reactor thread
+        Executor callerExecutor = new MdcExecutor(executor);
+
+        CompletableFuture<SimpleHttpResponse> result = new CompletableFuture<>();
+
+        try {
+            httpClient.execute(toSimpleRequest(request), new FutureCallback<>() {
+                @Override
+                public void completed(SimpleHttpResponse response) {
+                    result.complete(response);
+                }
+
+                @Override
+                public void failed(Exception e) {
+                    result.completeExceptionally(e);
+                }
+
+                @Override
+                public void cancelled() {
+                    result.cancel(false);
+                }
+            });
+        } catch (IOException e) {
+            result.completeExceptionally(e);
+        }
+
+        // Decode on the REST API executor rather than the I/O reactor threads
+        return result.thenApplyAsync(response -> {
+            try {
+                return handleResponse(response, responseHandler);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }, callerExecutor);
+    }
+
+    @Override
+    public void close() throws IOException {
+        httpClient.close(CloseMode.GRACEFUL);
+    }
+
+    private static SimpleHttpRequest toSimpleRequest(ClassicHttpRequest request) throws IOException {
+
+        SimpleHttpRequest result;
+        try {
+            result = SimpleHttpRequest.create(request.getMethod(), request.getUri());
+        } catch (URISyntaxException e) {
+            throw new IOException(e);
+        }
+
+        HttpEntity entity = request.getEntity();
+
+        for (Header header:request.getHeaders()) {
+
+            // The content type is sent with the body
+            if (entity == null || !HttpHeaders.CONTENT_TYPE.equalsIgnoreCase(header.getName())) {
+                result.addHeader(header);
+            }
+        }
+
+        if (entity != null) {
+            result.setBody(EntityUtils.toByteArray(entity), ContentType.parse(entity.getContentType()));
+        }
+
+        return result;
+    }
+
+    private static <T> T handleResponse(
+            SimpleHttpResponse response,
+            HttpClientResponseHandler<T> responseHandler
+    ) throws IOException {
+
+        ClassicHttpResponse classicResponse = new BasicClassicHttpResponse(response.getCode(), response.getReasonPhrase());
+        classicResponse.setHeaders(response.getHeaders());
+
+        byte[] body = response.getBodyBytes();
+        if (body != null) {
+            classicResponse.setEntity(new ByteArrayEntity(body, response.getContentType()));
+        }
+
+        try {
+            return responseHandler.handleResponse(classicResponse);
+        } catch (org.apache.hc.core5.http.HttpException e) {
+            throw new IOException(e);
+        }
+    }
+}
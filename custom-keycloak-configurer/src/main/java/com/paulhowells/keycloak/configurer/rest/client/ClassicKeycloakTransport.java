@@ -0,0 +1,95 @@
+package com.paulhowells.keycloak.configurer.rest.client;
+
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.cookie.StandardCookieSpec;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.ssl.SSLConnectionSocketFactoryBuilder;
+import org.apache.hc.core5.http.ClassicHttpRequest;
+import org.apache.hc.core5.http.io.HttpClientResponseHandler;
+import org.apache.hc.core5.http.io.SocketConfig;
+import org.apache.hc.core5.http.ssl.TLS;
+import org.apache.hc.core5.pool.PoolConcurrencyPolicy;
+import org.apache.hc.core5.pool.PoolReusePolicy;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+
+import javax.net.ssl.SSLContext;
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * Blocking HTTP/1.1 transport, each request holds a pooled connection and a thread until it completes.
+ */
+class ClassicKeycloakTransport implements KeycloakTransport {
+
+    private final CloseableHttpClient httpClient;
+    private final Executor executor;
+
+    ClassicKeycloakTransport(
+            SSLContext sslContext,
+            int maxConnections,
+            Executor executor
+    ) {
+        this.executor = executor;
+
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setSSLSocketFactory(SSLConnectionSocketFactoryBuilder.create()
+                        .setSslContext(sslContext)
+                        .setTlsVersions(TLS.V_1_3)
+                        .build())
+                .setDefaultSocketConfig(SocketConfig.custom()
+                        .setSoTimeout(Timeout.ofMinutes(1))
+                        .build())
+                .setPoolConcurrencyPolicy(PoolConcurrencyPolicy.STRICT)
+                .setMaxConnTotal(maxConnections)
+                .setMaxConnPerRoute(maxConnections)
+                .setConnPoolPolicy(PoolReusePolicy.LIFO)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setSocketTimeout(Timeout.ofMinutes(1))
+                        .setConnectTimeout(Timeout.ofMinutes(1))
+                        .setTimeToLive(TimeValue.ofMinutes(10))
+                        .build())
+                .build();
+
+        this.httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setCookieSpec(StandardCookieSpec.STRICT)
+                        .build())
+                .build();
+    }
+
+    @Override
+    public <T> T execute(
+            ClassicHttpRequest request,
+            HttpClientResponseHandler<T> responseHandler
+    ) throws IOException {
+
+        return httpClient.execute(request, responseHandler);
+    }
+
+    @Override
+    public <T> CompletableFuture<T> executeAsync(
+            ClassicHttpRequest request,
+            HttpClientResponseHandler<T> responseHandler
+    ) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return httpClient.execute(request, responseHandler);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }, new MdcExecutor(executor));
+    }
+
+    @Override
+    public void close() throws IOException {
+        httpClient.close();
+    }
+}
@@ -0,0 +1,79 @@
+package com.paulhowells.keycloak.configurer.rest.client;
+
+import org.apache.hc.core5.http.ClassicHttpResponse;
+import org.apache.hc.core5.http.HttpEntity;
+import org.apache.hc.core5.http.HttpException;
+import org.apache.hc.core5.http.io.HttpClientResponseHandler;
+import org.apache.hc.core5.http.io.entity.HttpEntityWrapper;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts the bytes of the response body read by the wrapped response handler.
+ */
+class CountingResponseHandler<T> implements HttpClientResponseHandler<T> {
+
+    private final HttpClientResponseHandler<T> responseHandler;
+    private final AtomicLong bytesIn = new AtomicLong();
+
+    CountingResponseHandler(HttpClientResponseHandler<T> responseHandler) {
+        this.responseHandler = responseHandler;
+    }
+
+    long getBytesIn() {
+        return bytesIn.get();
+    }
+
+    @Override
+    public T handleResponse(ClassicHttpResponse response) throws HttpException, IOException {
+
+        HttpEntity entity = response.getEntity();
+
+        if (entity != null) {
+
+            response.setEntity(new HttpEntityWrapper(entity) {
+                @Override
+                public InputStream getContent() throws IOException {
+                    return new CountingInputStream(super.getContent());
+                }
+            });
+        }
+
+        return responseHandler.handleResponse(response);
+    }
+
+    private class CountingInputStream extends FilterInputStream {
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int result = super.read();
+            if (result >= 0) {
+                bytesIn.incrementAndGet();
+            }
+            return result;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int result = super.read(b, off, len);
+            if (result > 0) {
+                bytesIn.addAndGet(result);
+            }
+            return result;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long result = super.skip(n);
+            bytesIn.addAndGet(result);
+            return result;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.paulhowells.keycloak.configurer.rest.client;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import com.paulhowells.keycloak.configurer.rest.client.model.BaseModel;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Streaming JSON encoding and decoding for the Keycloak Admin REST API.
+ * <p>
+ * Response bodies are read from the stream in a single token pass. Each resource is buffered as tokens once and then
+ * bound to both its typed model and its raw map, so large lists are never held as a byte array or parsed twice.
+ */
+final class KeycloakJsonCodec {
+
+    /**
+     * Shared mapper used for both requests and responses.  Requests are written as compact JSON.
+     */
+    static final ObjectMapper mapper = new ObjectMapper();
+
+    private static final TypeReference<Map<String, Object>> RAW_TYPE = new TypeReference<>() { };
+
+    private KeycloakJsonCodec() {
+    }
+
+    static <T extends BaseModel> List<T> readList(InputStream inputStream, Class<T> clazz) throws IOException {
+        List<T> result = null;
+
+        try (JsonParser parser = mapper.createParser(inputStream)) {
+
+            JsonToken token = parser.nextToken();
+            if (token == JsonToken.START_ARRAY) {
+
+                result = new ArrayList<>();
+
+                while (parser.nextToken() != JsonToken.END_ARRAY) {
+
+                    result.add(readResource(parser, clazz));
+                }
+            } else if (token != null && token != JsonToken.VALUE_NULL) {
+
+                throw new IOException(String.format("Expected a JSON array but found %s", token));
+            }
+        }
+
+        return result;
+    }
+
+    static <T extends BaseModel> T readResource(InputStream inputStream, Class<T> clazz) throws IOException {
+        T result = null;
+
+        try (JsonParser parser = mapper.createParser(inputStream)) {
+
+            if (parser.nextToken() != null) {
+
+                result = readResource(parser, clazz);
+            }
+        }
+
+        return result;
+    }
+
+    static Map<String, Object> readMap(InputStream inputStream) throws IOException {
+        Map<String, Object> result = null;
+
+        try (JsonParser parser = mapper.createParser(inputStream)) {
+
+            if (parser.nextToken() != null) {
+
+                result = mapper.readValue(parser, RAW_TYPE);
+            }
+        }
+
+        return result;
+    }
+
+    private static <T extends BaseModel> T readResource(JsonParser parser, Class<T> clazz) throws IOException {
+        T result = null;
+
+        if (parser.currentToken() != JsonToken.VALUE_NULL) {
+
+            try (TokenBuffer buffer = new TokenBuffer(parser)) {
+
+                buffer.copyCurrentStructure(parser);
+
+                try (JsonParser typedParser = buffer.asParser(mapper)) {
+                    result = mapper.readValue(typedParser, clazz);
+                }
+
+                try (JsonParser rawParser = buffer.asParser(mapper)) {
+                    result.set_raw(mapper.readValue(rawParser, RAW_TYPE));
+                }
+            }
+        }
+
+        return result;
+    }
+}
@@ -1,20 +1,14 @@
 package com.paulhowells.keycloak.configurer.rest.client;
 
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.SerializationFeature;
 import com.paulhowells.keycloak.configurer.rest.client.model.BaseModel;
 import org.apache.hc.core5.http.ClassicHttpResponse;
 import org.apache.hc.core5.http.HttpEntity;
 
 import java.io.IOException;
 import java.util.List;
-import java.util.Map;
 
 public class KeycloakListResponseHandler<T extends BaseModel> extends KeycloakAbstractResponseHandler<KeycloakListResponse<T>> {
 
-    private static final ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
-
     private Class<T> clazz;
 
     public KeycloakListResponseHandler(Class<T> clazz) {
@@ -41,15 +35,7 @@ public class KeycloakListResponseHandler<T extends BaseModel> extends KeycloakAb
         HttpEntity entity = httpResponse.getEntity();
         if (entity!=null) {
 
-            byte[] bytes = entity.getContent().readAllBytes();
-
-            result = mapper.readValue(bytes, mapper.getTypeFactory().constructCollectionType(List.class, clazz));
-            List<Map<String, Object>> raw = mapper.readValue(bytes, new TypeReference<>() {});
-
-            for (int i=0;i<result.size();++i) {
-
-                result.get(i).set_raw(raw.get(i));
-            }
+            result = KeycloakJsonCodec.readList(entity.getContent(), clazz);
         }
 
         return result;
@@ -1,8 +1,5 @@
 package com.paulhowells.keycloak.configurer.rest.client;
 
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.SerializationFeature;
 import org.apache.hc.core5.http.ClassicHttpResponse;
 import org.apache.hc.core5.http.HttpEntity;
 
@@ -11,8 +8,6 @@ import java.util.Map;
 
 public class KeycloakMapResponseHandler extends KeycloakAbstractResponseHandler<KeycloakMapResponse> {
 
-    private static final ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
-
 
     protected KeycloakMapResponse getResponseInstance() {
 
@@ -30,8 +25,8 @@ public class KeycloakMapResponseHandler extends KeycloakAbstractResponseHandler<
         Map<String, Object> result = null;
 
         HttpEntity entity = httpResponse.getEntity();
-        if (entity !=null && entity.getContentLength() > 0) {
-            result = mapper.readValue(entity.getContent(), new TypeReference<>() { });
+        if (entity !=null) {
+            result = KeycloakJsonCodec.readMap(entity.getContent());
         }
 
         return result;
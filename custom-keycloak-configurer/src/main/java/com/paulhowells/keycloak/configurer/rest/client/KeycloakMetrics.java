@@ -0,0 +1,358 @@
+package com.paulhowells.keycloak.configurer.rest.client;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.IntSupplier;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * Call counts and latencies for the admin API endpoints, and timings for the stages of a run.
+ * <p>
+ * Requests are grouped by method and path template, with the realm and resource ids in the path replaced by
+ * placeholders, e.g. GET /admin/realms/{realm}/clients/{id}.  GET requests answered from the run snapshot are counted
+ * as snapshot hits rather than requests.  Latencies are kept until the metrics are reset, at the end of the run or of
+ * each watch cycle, so that the percentiles in the summary are exact.
+ */
+public class KeycloakMetrics {
+
+    private static final ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    // The segments that are followed by the id, alias, or name of a resource
+    private static final Set<String> COLLECTIONS = Set.of(
+            "realms",
+            "clients",
+            "client-scopes",
+            "default-client-scopes",
+            "optional-client-scopes",
+            "default-default-client-scopes",
+            "default-optional-client-scopes",
+            "models",
+            "flows",
+            "executions",
+            "config",
+            "instances",
+            "mappers",
+            "roles",
+            "roles-by-id"
+    );
+
+    // The segments that follow a collection without being an id
+    private static final Set<String> SUB_RESOURCES = Set.of(
+            "execution",
+            "flow"
+    );
+
+    /**
+     * @param p50Millis the median latency
+     * @param p99Millis the 99th percentile latency
+     */
+    public record Summary(
+            String name,
+            long count,
+            long errors,
+            long snapshotHits,
+            long bytesOut,
+            long bytesIn,
+            double totalMillis,
+            double p50Millis,
+            double p99Millis
+    ) {
+    }
+
+    private static class Timer {
+
+        private long count;
+        private long errors;
+        private long snapshotHits;
+        private long bytesOut;
+        private long bytesIn;
+        private long totalNanos;
+        private long[] samples = new long[16];
+
+        synchronized void record(long nanos, long bytesOut, long bytesIn, boolean failed) {
+
+            if (count == samples.length) {
+                samples = Arrays.copyOf(samples, samples.length * 2);
+            }
+
+            samples[(int) count++] = nanos;
+            totalNanos += nanos;
+            this.bytesOut += Math.max(bytesOut, 0);
+            this.bytesIn += Math.max(bytesIn, 0);
+            if (failed) {
+                ++errors;
+            }
+        }
+
+        synchronized void recordSnapshotHit() {
+            ++snapshotHits;
+        }
+
+        synchronized Summary summarize(String name) {
+
+            long[] sorted = Arrays.copyOf(samples, (int) count);
+            Arrays.sort(sorted);
+
+            return new Summary(
+                    name,
+                    count,
+                    errors,
+                    snapshotHits,
+                    bytesOut,
+                    bytesIn,
+                    toMillis(totalNanos),
+                    toMillis(getPercentile(sorted, 0.5)),
+                    toMillis(getPercentile(sorted, 0.99))
+            );
+        }
+
+        private static long getPercentile(long[] sorted, double percentile) {
+
+            // Nearest rank
+            return sorted.length == 0 ? 0 : sorted[(int) Math.ceil(percentile * sorted.length) - 1];
+        }
+
+        private static double toMillis(long nanos) {
+            return nanos / 1_000_000.0;
+        }
+    }
+
+    private final ConcurrentMap<String, Timer> endpoints = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Timer> stages = new ConcurrentHashMap<>();
+    private final IntSupplier concurrencyLimit;
+
+    KeycloakMetrics(IntSupplier concurrencyLimit) {
+        this.concurrencyLimit = concurrencyLimit;
+    }
+
+    void recordRequest(String method, URI uri, long nanos, long bytesOut, long bytesIn, boolean failed) {
+
+        endpoints.computeIfAbsent(getEndpoint(method, uri), k -> new Timer()).record(nanos, bytesOut, bytesIn, failed);
+    }
+
+    void recordSnapshotHit(String method, URI uri) {
+
+        endpoints.computeIfAbsent(getEndpoint(method, uri), k -> new Timer()).recordSnapshotHit();
+    }
+
+    /**
+     * Time a stage of the run, stages with the same name are accumulated.
+     */
+    public <T> T time(String stage, Supplier<T> supplier) {
+
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            T result = supplier.get();
+            failed = false;
+            return result;
+        } finally {
+            stages.computeIfAbsent(stage, k -> new Timer()).record(System.nanoTime() - start, 0, 0, failed);
+        }
+    }
+
+    public void time(String stage, Runnable runnable) {
+
+        time(stage, () -> {
+            runnable.run();
+            return null;
+        });
+    }
+
+    /**
+     * Discard everything recorded so far, so the next summary and report only cover what happens from now on.
+     */
+    public void reset() {
+        endpoints.clear();
+        stages.clear();
+    }
+
+    /**
+     * @return the endpoints, the one with the longest total time first
+     */
+    public List<Summary> getEndpointSummaries() {
+        return summarize(endpoints);
+    }
+
+    /**
+     * @return the stages, the one with the longest total time first
+     */
+    public List<Summary> getStageSummaries() {
+        return summarize(stages);
+    }
+
+    public void logSummary(Logger logger) {
+
+        List<Summary> endpointSummaries = getEndpointSummaries();
+
+        long requests = endpointSummaries.stream().mapToLong(Summary::count).sum();
+        long snapshotHits = endpointSummaries.stream().mapToLong(Summary::snapshotHits).sum();
+
+        logger.info("Made {} admin API requests to {} endpoints, {} reads were served from the snapshot, the concurrency limit is {}",
+                requests, endpointSummaries.size(), snapshotHits, concurrencyLimit.getAsInt());
+
+        for (Summary summary:endpointSummaries) {
+            logger.info("{} count={} errors={} snapshotHits={} total={}ms p50={}ms p99={}ms out={}B in={}B",
+                    summary.name(), summary.count(), summary.errors(), summary.snapshotHits(),
+                    String.format("%.1f", summary.totalMillis()), String.format("%.1f", summary.p50Millis()),
+                    String.format("%.1f", summary.p99Millis()), summary.bytesOut(), summary.bytesIn());
+        }
+
+        for (Summary summary:getStageSummaries()) {
+            logger.info("Stage {} count={} errors={} total={}ms p50={}ms p99={}ms",
+                    summary.name(), summary.count(), summary.errors(),
+                    String.format("%.1f", summary.totalMillis()), String.format("%.1f", summary.p50Millis()),
+                    String.format("%.1f", summary.p99Millis()));
+        }
+    }
+
+    /**
+     * Write the report as JSON when the file name ends with .json, and as a Prometheus textfile otherwise.
+     * <p>
+     * The file is replaced atomically so that a textfile collector never reads a partial report.
+     */
+    public void writeReport(Path path) throws IOException {
+
+        Path directory = path.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+
+        Path temporaryPath = Files.createTempFile(directory, "metrics", ".tmp");
+        try {
+            try (Writer writer = Files.newBufferedWriter(temporaryPath, StandardCharsets.UTF_8)) {
+
+                if (path.getFileName().toString().endsWith(".json")) {
+                    writeJson(writer);
+                } else {
+                    writePrometheus(writer);
+                }
+            }
+
+            Files.move(temporaryPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporaryPath);
+        }
+    }
+
+    private void writeJson(Writer writer) throws IOException {
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("concurrencyLimit", concurrencyLimit.getAsInt());
+        report.put("endpoints", getEndpointSummaries());
+        report.put("stages", getStageSummaries());
+
+        mapper.writeValue(writer, report);
+    }
+
+    private void writePrometheus(Writer writer) throws IOException {
+
+        List<Summary> endpointSummaries = getEndpointSummaries();
+        List<Summary> stageSummaries = getStageSummaries();
+
+        writeSummary(writer, "keycloak_configurer_request_seconds", "Admin API request latency", "endpoint", endpointSummaries);
+        writeCounter(writer, "keycloak_configurer_request_errors_total", "Admin API requests that failed", "endpoint", endpointSummaries, Summary::errors);
+        writeCounter(writer, "keycloak_configurer_snapshot_hits_total", "Admin API reads served from the run snapshot", "endpoint", endpointSummaries, Summary::snapshotHits);
+        writeCounter(writer, "keycloak_configurer_request_bytes_total", "Admin API request body bytes sent", "endpoint", endpointSummaries, Summary::bytesOut);
+        writeCounter(writer, "keycloak_configurer_response_bytes_total", "Admin API response body bytes received", "endpoint", endpointSummaries, Summary::bytesIn);
+        writeSummary(writer, "keycloak_configurer_stage_seconds", "Configurer stage duration", "stage", stageSummaries);
+
+        writer.write("# HELP keycloak_configurer_concurrency_limit Admin API requests allowed in flight\n");
+        writer.write("# TYPE keycloak_configurer_concurrency_limit gauge\n");
+        writer.write(String.format("keycloak_configurer_concurrency_limit %d\n", concurrencyLimit.getAsInt()));
+    }
+
+    private static void writeSummary(Writer writer, String metric, String help, String label, List<Summary> summaries) throws IOException {
+
+        writer.write(String.format("# HELP %s %s\n", metric, help));
+        writer.write(String.format("# TYPE %s summary\n", metric));
+
+        for (Summary summary:summaries) {
+
+            String name = escapeLabelValue(summary.name());
+
+            writer.write(String.format(Locale.ROOT, "%s{%s=\"%s\",quantile=\"0.5\"} %.6f\n", metric, label, name, summary.p50Millis() / 1000));
+            writer.write(String.format(Locale.ROOT, "%s{%s=\"%s\",quantile=\"0.99\"} %.6f\n", metric, label, name, summary.p99Millis() / 1000));
+            writer.write(String.format(Locale.ROOT, "%s_sum{%s=\"%s\"} %.6f\n", metric, label, name, summary.totalMillis() / 1000));
+            writer.write(String.format(Locale.ROOT, "%s_count{%s=\"%s\"} %d\n", metric, label, name, summary.count()));
+        }
+    }
+
+    private static void writeCounter(
+            Writer writer,
+            String metric,
+            String help,
+            String label,
+            List<Summary> summaries,
+            ToLongFunction<Summary> value
+    ) throws IOException {
+
+        writer.write(String.format("# HELP %s %s\n", metric, help));
+        writer.write(String.format("# TYPE %s counter\n", metric));
+
+        for (Summary summary:summaries) {
+            writer.write(String.format("%s{%s=\"%s\"} %d\n", metric, label, escapeLabelValue(summary.name()), value.applyAsLong(summary)));
+        }
+    }
+
+    private static String escapeLabelValue(String value) {
+
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static List<Summary> summarize(Map<String, Timer> timers) {
+
+        List<Summary> result = new ArrayList<>();
+
+        for (Map.Entry<String, Timer> entry:timers.entrySet()) {
+            result.add(entry.getValue().summarize(entry.getKey()));
+        }
+
+        result.sort(Comparator.comparingDouble(Summary::totalMillis).reversed().thenComparing(Summary::name));
+
+        return result;
+    }
+
+    /**
+     * @return the method and the path template, e.g. PUT /admin/realms/{realm}/clients/{id}
+     */
+    static String getEndpoint(String method, URI uri) {
+
+        StringBuilder result = new StringBuilder(method).append(' ');
+
+        String path = uri.getRawPath();
+        String previous = null;
+
+        for (String segment:path.split("/")) {
+
+            if (segment.isEmpty()) {
+                continue;
+            }
+
+            result.append('/');
+
+            if ("realms".equals(previous)) {
+                result.append("{realm}");
+            } else if (previous != null && COLLECTIONS.contains(previous) && !SUB_RESOURCES.contains(segment) && !COLLECTIONS.contains(segment)) {
+                result.append("{id}");
+            } else {
+                result.append(segment);
+            }
+
+            previous = segment;
+        }
+
+        return result.toString();
+    }
+}
@@ -0,0 +1,143 @@
+package com.paulhowells.keycloak.configurer.rest.client;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Iterates over a paged Keycloak Admin REST API endpoint.
+ * <p>
+ * The first page is requested when the caller first asks for an item, and each following page as soon as the one before
+ * it has been received, so the caller can process one page while the next one is in flight.  Paging stops when a page
+ * is returned with fewer items than the page size.
+ * <p>
+ * A page still in flight is cancelled when the pager is closed, when its stream is closed, or when the stream consumer
+ * throws.  A stream that is not read to the end, e.g. by findFirst, should be closed.
+ * <p>
+ * The pages are requested by the thread iterating, and complete without holding a thread, so that no REST API executor
+ * thread is left waiting for a request permit that only another executor thread can release.
+ */
+public class KeycloakPager<T> implements Iterator<T>, AutoCloseable {
+
+    @FunctionalInterface
+    public interface PageFetcher<T> {
+
+        /**
+         * @param first the offset of the first item to return
+         * @param max the maximum number of items to return
+         */
+        CompletableFuture<List<T>> fetch(int first, int max);
+    }
+
+    private final PageFetcher<T> pageFetcher;
+    private final int pageSize;
+
+    private boolean started = false;
+    private int pageOffset = 0;
+    private Iterator<T> page = Collections.emptyIterator();
+    private CompletableFuture<List<T>> nextPage;
+
+    KeycloakPager(
+            PageFetcher<T> pageFetcher,
+            int pageSize
+    ) {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException(String.format("Invalid page size %s", pageSize));
+        }
+
+        this.pageFetcher = pageFetcher;
+        this.pageSize = pageSize;
+    }
+
+    @Override
+    public boolean hasNext() {
+
+        if (!started) {
+            started = true;
+            nextPage = fetch(pageOffset);
+        }
+
+        while (!page.hasNext() && nextPage != null) {
+
+            List<T> items = KeycloakRestApi.join(nextPage);
+            if (items == null) {
+                items = Collections.emptyList();
+            }
+
+            pageOffset += items.size();
+
+            // Start fetching the following page before the caller processes this one
+            nextPage = items.size() < pageSize ? null : fetch(pageOffset);
+
+            page = items.iterator();
+        }
+
+        return page.hasNext();
+    }
+
+    @Override
+    public T next() {
+
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        return page.next();
+    }
+
+    /**
+     * Stop paging, the items of the current page are dropped.
+     */
+    @Override
+    public void close() {
+
+        started = true;
+        page = Collections.emptyIterator();
+
+        if (nextPage != null) {
+            nextPage.cancel(false);
+            nextPage = null;
+        }
+    }
+
+    public Stream<T> stream() {
+
+        return StreamSupport.stream(new PageSpliterator(), false).onClose(this::close);
+    }
+
+    private CompletableFuture<List<T>> fetch(int first) {
+
+        return pageFetcher.fetch(first, pageSize);
+    }
+
+    private class PageSpliterator extends Spliterators.AbstractSpliterator<T> {
+
+        PageSpliterator() {
+            super(Long.MAX_VALUE, Spliterator.ORDERED);
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+
+            try {
+                if (!hasNext()) {
+                    return false;
+                }
+
+                action.accept(next());
+
+                return true;
+            } catch (RuntimeException e) {
+                close();
+                throw e;
+            }
+        }
+    }
+}
@@ -1,7 +1,5 @@
 package com.paulhowells.keycloak.configurer.rest.client;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.SerializationFeature;
 import com.paulhowells.keycloak.configurer.rest.client.model.BaseModel;
 import org.apache.hc.core5.http.ClassicHttpResponse;
 import org.apache.hc.core5.http.HttpEntity;
@@ -10,8 +8,6 @@ import java.io.IOException;
 
 public class KeycloakResourceResponseHandler<T extends BaseModel> extends KeycloakAbstractResponseHandler<KeycloakResourceResponse<T>> {
 
-    private static final ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
-
     private final Class<T> clazz;
 
     public KeycloakResourceResponseHandler(Class<T> clazz) {
@@ -35,8 +31,8 @@ public class KeycloakResourceResponseHandler<T extends BaseModel> extends Keyclo
         T result = null;
 
         HttpEntity entity = httpResponse.getEntity();
-        if (entity !=null && entity.getContentLength() > 0) {
-            result = mapper.readValue(entity.getContent(), clazz);
+        if (entity !=null) {
+            result = KeycloakJsonCodec.readResource(entity.getContent(), clazz);
         }
 
         return result;
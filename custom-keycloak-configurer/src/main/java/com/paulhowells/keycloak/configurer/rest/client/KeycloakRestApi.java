@@ -1,31 +1,22 @@
 package com.paulhowells.keycloak.configurer.rest.client;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.paulhowells.keycloak.configurer.rest.client.model.*;
 import org.apache.hc.client5.http.classic.methods.HttpDelete;
 import org.apache.hc.client5.http.classic.methods.HttpGet;
 import org.apache.hc.client5.http.classic.methods.HttpPost;
 import org.apache.hc.client5.http.classic.methods.HttpPut;
-import org.apache.hc.client5.http.config.ConnectionConfig;
-import org.apache.hc.client5.http.config.RequestConfig;
-import org.apache.hc.client5.http.cookie.StandardCookieSpec;
 import org.apache.hc.client5.http.entity.UrlEncodedFormEntity;
-import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
-import org.apache.hc.client5.http.impl.classic.HttpClients;
-import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
-import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
-import org.apache.hc.client5.http.ssl.SSLConnectionSocketFactoryBuilder;
+import org.apache.hc.core5.http.ClassicHttpRequest;
 import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpEntity;
+import org.apache.hc.core5.http.Method;
 import org.apache.hc.core5.http.NameValuePair;
-import org.apache.hc.core5.http.io.SocketConfig;
+import org.apache.hc.core5.http.io.HttpClientResponseHandler;
+import org.apache.hc.core5.http.io.entity.EntityUtils;
 import org.apache.hc.core5.http.io.entity.StringEntity;
-import org.apache.hc.core5.http.message.BasicNameValuePair;
-import org.apache.hc.core5.http.ssl.TLS;
-import org.apache.hc.core5.pool.PoolConcurrencyPolicy;
-import org.apache.hc.core5.pool.PoolReusePolicy;
-import org.apache.hc.core5.util.TimeValue;
-import org.apache.hc.core5.util.Timeout;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -34,29 +25,50 @@ import javax.net.ssl.TrustManager;
 import javax.net.ssl.X509TrustManager;
 import java.io.Closeable;
 import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
 import java.net.URLEncoder;
 import java.security.KeyManagementException;
 import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
 import java.security.cert.X509Certificate;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 
 public class KeycloakRestApi implements Closeable {
     private static final Logger logger = LoggerFactory.getLogger(KeycloakRestApi.class);
 
-    private static final ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+    private static final ObjectMapper mapper = KeycloakJsonCodec.mapper;
 
     private static final String _clientId = "admin-cli";
 
+    private static final int DEFAULT_MAX_CONNECTIONS = 5;
+
+    // The most requests the limiter lets in flight over multiplexed HTTP/2 connections, it starts from the pool size
+    private static final int MAX_CONCURRENT_REQUESTS = 64;
+
+    public static final int DEFAULT_PAGE_SIZE = 100;
+
+    public static final int DEFAULT_IMPORT_BATCH_SIZE = 50;
+
     private final String keycloakUrl;
     private final String _realmName;
-    private final String _username;
-    private final String _password;
-    private final CloseableHttpClient httpClient;
+    private final KeycloakTransport transport;
+    private final AdaptiveConcurrencyLimiter limiter;
+    private final KeycloakMetrics metrics;
+    private final ExecutorService executorService;
+    private final RemoteStateSnapshot snapshot = new RemoteStateSnapshot();
+    private final RealmLookupIndex lookupIndex = new RealmLookupIndex(this);
+    private final KeycloakTokenProvider tokenProvider;
 
-    private Map<String, Object> accessTokenResponse;
+    private int pageSize = DEFAULT_PAGE_SIZE;
+
+    private int importBatchSize = DEFAULT_IMPORT_BATCH_SIZE;
 
     public KeycloakRestApi(
         String keycloakUrl,
@@ -64,11 +76,48 @@ public class KeycloakRestApi implements Closeable {
         String username,
         String password
     ) {
+        this(keycloakUrl, realmName, username, password, DEFAULT_MAX_CONNECTIONS);
+    }
+
+    /**
+     * @param maxConnections the maximum number of concurrent connections to the Keycloak server
+     */
+    public KeycloakRestApi(
+        String keycloakUrl,
+        String realmName,
+        String username,
+        String password,
+        int maxConnections
+    ) {
+        this(keycloakUrl, realmName, username, password, maxConnections, false);
+    }
+
+    /**
+     * @param maxConnections the maximum number of concurrent connections to the Keycloak server
+     * @param http2 use the non-blocking transport, which multiplexes requests over HTTP/2 when the server supports it
+     */
+    public KeycloakRestApi(
+        String keycloakUrl,
+        String realmName,
+        String username,
+        String password,
+        int maxConnections,
+        boolean http2
+    ) {
 
         this.keycloakUrl = keycloakUrl;
         this._realmName = realmName;
-        this._username = username;
-        this._password = password;
+        this.tokenProvider = new KeycloakTokenProvider(this::requestToken, _clientId, username, password);
+
+        // Used to issue the per-resource detail requests concurrently over the connection pool
+        this.executorService = Executors.newFixedThreadPool(
+                Math.max(maxConnections, DEFAULT_MAX_CONNECTIONS),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "keycloak-rest-api");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+        );
 
         try {
 
@@ -92,84 +141,352 @@ public class KeycloakRestApi implements Closeable {
                 }
             }}, new SecureRandom());
 
-            PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
-                    .setSSLSocketFactory(SSLConnectionSocketFactoryBuilder.create()
-                            .setSslContext(sslContext)
-                            .setTlsVersions(TLS.V_1_3)
-                            .build())
-                    .setDefaultSocketConfig(SocketConfig.custom()
-                            .setSoTimeout(Timeout.ofMinutes(1))
-                            .build())
-                    .setPoolConcurrencyPolicy(PoolConcurrencyPolicy.STRICT)
-                    .setConnPoolPolicy(PoolReusePolicy.LIFO)
-                    .setDefaultConnectionConfig(ConnectionConfig.custom()
-                            .setSocketTimeout(Timeout.ofMinutes(1))
-                            .setConnectTimeout(Timeout.ofMinutes(1))
-                            .setTimeToLive(TimeValue.ofMinutes(10))
-                            .build())
-                    .build();
-
-            this.httpClient = HttpClients.custom()
-                    .setConnectionManager(connectionManager)
-                    .setDefaultRequestConfig(RequestConfig.custom()
-                            .setCookieSpec(StandardCookieSpec.STRICT)
-                            .build())
-                    .build();
+            if (http2) {
+
+                this.limiter = new AdaptiveConcurrencyLimiter(Math.max(maxConnections, DEFAULT_MAX_CONNECTIONS), MAX_CONCURRENT_REQUESTS);
+                this.transport = new RetryingKeycloakTransport(
+                        new AsyncKeycloakTransport(sslContext, Math.max(maxConnections, DEFAULT_MAX_CONNECTIONS), executorService),
+                        limiter
+                );
+            } else {
+
+                // Each request holds a pooled connection, so the pool size is also the ceiling
+                this.limiter = new AdaptiveConcurrencyLimiter(Math.max(maxConnections, DEFAULT_MAX_CONNECTIONS), Math.max(maxConnections, DEFAULT_MAX_CONNECTIONS));
+                this.transport = new RetryingKeycloakTransport(
+                        new ClassicKeycloakTransport(sslContext, Math.max(maxConnections, DEFAULT_MAX_CONNECTIONS), executorService),
+                        limiter
+                );
+            }
 
         } catch (NoSuchAlgorithmException | KeyManagementException e) {
             throw new RuntimeException(e);
         }
+
+        this.metrics = new KeycloakMetrics(limiter::getLimit);
     }
 
-    private String getAccessToken() {
-        logger.debug("<getAccessToken");
-        String result;
+    /**
+     * @return the number of requests currently allowed in flight, which adapts to the load on the Keycloak server
+     */
+    public int getConcurrencyLimit() {
+        return limiter.getLimit();
+    }
 
-        boolean requestToken = true;
+    public KeycloakMetrics getMetrics() {
+        return metrics;
+    }
 
-        if (this.accessTokenResponse != null) {
+    public int getPageSize() {
+        return pageSize;
+    }
 
-            Long expiresAt = (Long) this.accessTokenResponse.get("expires_at");
+    public void setPageSize(int pageSize) {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException(String.format("Invalid page size %s", pageSize));
+        }
+        this.pageSize = pageSize;
+    }
 
-            if (expiresAt < System.currentTimeMillis()) {
+    public int getImportBatchSize() {
+        return importBatchSize;
+    }
 
-                requestToken = false;
-            }
+    /**
+     * @param importBatchSize the most resources created by a single partialImport request, 0 to create them one at a time
+     */
+    public void setImportBatchSize(int importBatchSize) {
+        if (importBatchSize < 0) {
+            throw new IllegalArgumentException(String.format("Invalid import batch size %s", importBatchSize));
         }
+        this.importBatchSize = importBatchSize;
+    }
+
+    /**
+     * Page through a paged endpoint, prefetching the next page with an asynchronous request.
+     */
+    public <T> KeycloakPager<T> getPager(KeycloakPager.PageFetcher<T> pageFetcher) {
+
+        return new KeycloakPager<>(pageFetcher, pageSize);
+    }
+
+    public KeycloakPager<Client> getClientPager(
+            String realmName
+    ) {
+        return getPager((first, max) -> getClientsAsync(realmName, first, max));
+    }
+
+    public KeycloakPager<Role> getRolePager(
+            String realmName
+    ) {
+        return getPager((first, max) -> getRolesAsync(realmName, first, max));
+    }
+
+    public KeycloakPager<Role> getClientRolePager(
+            String realmName,
+            String id
+    ) {
+        return getPager((first, max) -> getClientRolesAsync(realmName, id, first, max));
+    }
+
+    /**
+     * Discard all the remote state read so far, so that subsequent reads go to the server.
+     */
+    public void clearSnapshot() {
+        snapshot.clear();
+        lookupIndex.clear();
+    }
+
+    /**
+     * Discard the remote state read so far for the provided realm.
+     */
+    public void clearSnapshot(String realmName) {
+        snapshot.clear(realmName);
+        lookupIndex.clear(realmName);
+    }
+
+    /**
+     * Discard what has been read for the client, and the client pages, once it is no longer needed, so that reading
+     * every client of a realm does not keep them all in the snapshot.
+     */
+    public void evictClientSnapshot(String realmName, String id) {
+        snapshot.evict(realmName, String.format("/clients/%s", id));
+    }
+
+    /**
+     * @return a value that increases whenever the realm is written to or the snapshot is cleared
+     */
+    long getRealmGeneration(String realmName) {
+        return snapshot.getRealmGeneration(realmName);
+    }
 
-        if (requestToken) {
+    /**
+     * @return the flow and client lookups, shared by everything that uses this client
+     */
+    public RealmLookupIndex getLookupIndex() {
+        return lookupIndex;
+    }
+
+    /**
+     * All requests to Keycloak go through here.
+     * <p>
+     * GET responses are served from the run snapshot when possible.  Any other request to the Admin API invalidates the
+     * parts of the snapshot it may have modified.
+     */
+    private <T extends KeycloakAbstractResponse> T execute(
+            ClassicHttpRequest request,
+            KeycloakAbstractResponseHandler<T> responseHandler
+    ) throws IOException {
+        T result;
+
+        URI uri = getUri(request);
+
+        if (Method.GET.isSame(request.getMethod())) {
+
+            RemoteStateSnapshot.Entry entry = snapshot.get(uri);
+
+            if (entry != null) {
+
+                logger.debug("Snapshot hit {}", uri);
+                metrics.recordSnapshotHit(request.getMethod(), uri);
+                result = responseHandler.handleResponse(entry.toResponse());
+            } else {
+
+                result = executeMetered(request, uri, getSnapshotResponseHandler(uri, responseHandler));
+            }
+        } else {
 
             try {
+                result = executeMetered(request, uri, responseHandler);
+            } finally {
+                invalidateSnapshot(request.getMethod(), uri);
+            }
+        }
 
-                String tokenUrl = String.format("%s/realms/%s/protocol/openid-connect/token", keycloakUrl, _realmName);
+        return result;
+    }
 
-                final HttpPost request = new HttpPost(tokenUrl);
-                request.addHeader("Content-Type", "application/x-www-form-urlencoded");
-                request.addHeader("Accept", "application/json");
-                final List<NameValuePair> params = new ArrayList<>();
-                params.add(new BasicNameValuePair("grant_type", "password"));
-                params.add(new BasicNameValuePair("username", _username));
-                params.add(new BasicNameValuePair("password", _password));
-                params.add(new BasicNameValuePair("client_id", _clientId));
-                request.setEntity(new UrlEncodedFormEntity(params));
-
-                KeycloakMapResponse response = httpClient.execute(request, new KeycloakMapResponseHandler());
-
-                this.accessTokenResponse = response.body;
-                Integer expiresIn = (Integer) this.accessTokenResponse.get("expires_in");
-                logger.debug("expiresIn={}", expiresIn);
-                Long expiresAt = (long) (System.currentTimeMillis() + (expiresIn * .9));
-                logger.debug("expiresAt={}", expiresAt);
-                this.accessTokenResponse.put("expires_at", expiresAt);
-
-            } catch (IOException e) {
-                throw new RuntimeException(e);
+    private <T> T executeMetered(
+            ClassicHttpRequest request,
+            URI uri,
+            HttpClientResponseHandler<T> responseHandler
+    ) throws IOException {
+
+        CountingResponseHandler<T> countingResponseHandler = new CountingResponseHandler<>(responseHandler);
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            T result = transport.execute(request, countingResponseHandler);
+            failed = false;
+            return result;
+        } finally {
+            metrics.recordRequest(request.getMethod(), uri, System.nanoTime() - start, getContentLength(request), countingResponseHandler.getBytesIn(), failed);
+        }
+    }
+
+    private <T> CompletableFuture<T> executeMeteredAsync(
+            ClassicHttpRequest request,
+            URI uri,
+            HttpClientResponseHandler<T> responseHandler
+    ) {
+        CountingResponseHandler<T> countingResponseHandler = new CountingResponseHandler<>(responseHandler);
+        long start = System.nanoTime();
+
+        return transport.executeAsync(request, countingResponseHandler).whenComplete((response, e) ->
+                metrics.recordRequest(request.getMethod(), uri, System.nanoTime() - start, getContentLength(request), countingResponseHandler.getBytesIn(), e != null)
+        );
+    }
+
+    private static long getContentLength(ClassicHttpRequest request) {
+
+        HttpEntity entity = request.getEntity();
+
+        return entity == null ? 0 : entity.getContentLength();
+    }
+
+    /**
+     * The asynchronous equivalent of execute, the returned future completes exceptionally with a RuntimeException if
+     * the request fails.
+     */
+    private <T extends KeycloakAbstractResponse> CompletableFuture<T> executeAsync(
+            ClassicHttpRequest request,
+            KeycloakAbstractResponseHandler<T> responseHandler
+    ) {
+        CompletableFuture<T> result;
+
+        try {
+
+            URI uri = getUri(request);
+
+            if (Method.GET.isSame(request.getMethod())) {
+
+                RemoteStateSnapshot.Entry entry = snapshot.get(uri);
+
+                if (entry != null) {
+
+                    logger.debug("Snapshot hit {}", uri);
+                    metrics.recordSnapshotHit(request.getMethod(), uri);
+                    result = CompletableFuture.completedFuture(responseHandler.handleResponse(entry.toResponse()));
+                } else {
+
+                    result = executeMeteredAsync(request, uri, getSnapshotResponseHandler(uri, responseHandler));
+                }
+            } else {
+
+                result = executeMeteredAsync(request, uri, responseHandler)
+                        .whenComplete((response, e) -> invalidateSnapshot(request.getMethod(), uri));
+            }
+
+        } catch (IOException e) {
+            result = CompletableFuture.failedFuture(e);
+        }
+
+        return result.handle((response, e) -> {
+
+            if (e != null) {
+
+                Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                throw cause instanceof RuntimeException runtimeException ? runtimeException : new RuntimeException(cause);
+            }
+
+            return response;
+        });
+    }
+
+    /**
+     * Captures successful and not found responses in the snapshot, unless there has been a write since the request
+     * was issued.
+     */
+    private <T extends KeycloakAbstractResponse> HttpClientResponseHandler<T> getSnapshotResponseHandler(
+            URI uri,
+            KeycloakAbstractResponseHandler<T> responseHandler
+    ) {
+        long generation = snapshot.getGeneration();
+
+        return response -> {
+
+            int statusCode = response.getCode();
+
+            if ((statusCode >= 200 && statusCode < 300) || statusCode == 404) {
+
+                HttpEntity entity = response.getEntity();
+                Header location = response.getFirstHeader("Location");
+
+                RemoteStateSnapshot.Entry newEntry = new RemoteStateSnapshot.Entry(
+                        statusCode,
+                        location == null ? null : location.getValue(),
+                        entity == null ? null : EntityUtils.toByteArray(entity)
+                );
+
+                snapshot.put(uri, newEntry, generation);
+
+                return responseHandler.handleResponse(newEntry.toResponse());
             }
+
+            return responseHandler.handleResponse(response);
+        };
+    }
+
+    private void invalidateSnapshot(String method, URI uri) {
+
+        if (uri.getPath().contains("/admin/")) {
+            snapshot.invalidate(method, uri);
         }
+    }
 
-        result = (String) this.accessTokenResponse.get("access_token");
+    private static URI getUri(ClassicHttpRequest request) throws IOException {
 
-        logger.debug(">getAccessToken " + result);
+        try {
+            return request.getUri();
+        } catch (URISyntaxException e) {
+            throw new IOException(e);
+        }
+    }
+
+    private String getAccessToken() {
+
+        return tokenProvider.getAccessToken();
+    }
+
+    private Map<String, Object> requestToken(List<NameValuePair> params) throws IOException {
+        logger.debug("<requestToken");
+
+        String tokenUrl = String.format("%s/realms/%s/protocol/openid-connect/token", keycloakUrl, _realmName);
+
+        final HttpPost request = new HttpPost(tokenUrl);
+        request.addHeader("Content-Type", "application/x-www-form-urlencoded");
+        request.addHeader("Accept", "application/json");
+        request.setEntity(new UrlEncodedFormEntity(params));
+
+        KeycloakMapResponse response = execute(request, new KeycloakMapResponseHandler());
+
+        logger.debug(">requestToken");
+        return response.body;
+    }
+
+    public String getServerVersion() {
+        logger.debug("<getServerVersion");
+        String result = null;
+
+        try {
+
+            String url = String.format("%s/admin/serverinfo", keycloakUrl);
+
+            final HttpGet request = new HttpGet(url);
+            request.addHeader("Accept", "application/json");
+            request.addHeader("Authorization", String.format("BEARER %s", getAccessToken()));
+
+            KeycloakMapResponse response = execute(request, new KeycloakMapResponseHandler());
+
+            if (response.body != null && response.body.get("systemInfo") instanceof Map<?, ?> systemInfo) {
+
+                result = (String) systemInfo.get("version");
+            }
+
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+
+        logger.debug(">getServerVersion {}", result);
         return result;
     }
 
@@ -188,7 +505,7 @@ public class KeycloakRestApi implements Closeable {
             request.addHeader("Accept", "application/json");
             request.addHeader("Authorization", String.format("BEARER %s", getAccessToken()));
 
-            KeycloakListResponse<Realm> response =  httpClient.execute(request, new KeycloakListResponseHandler<>(Realm.class));
+            KeycloakListResponse<Realm> response =  execute(request, new KeycloakListResponseHandler<>(Realm.class));
 
             result = response.body;
 
@@ -231,7 +548,7 @@ public class KeycloakRestApi implements Closeable {
 
             request.setEntity(requestEntity);
 
-            httpClient.execute(request, new KeycloakVoidResponseHandler());
+            execute(request, new KeycloakVoidResponseHandler());
 
         } catch (IOException e) {
             throw new RuntimeException(e);
@@ -254,7 +571,7 @@ public class KeycloakRestApi implements Closeable {
             request.addHeader("Accept", "application/json");
             request.addHeader("Authorization", String.format("BEARER %s", getAccessToken()));
 
-            KeycloakResourceResponse<Realm> response = httpClient.execute(request, new KeycloakResourceResponseHandler<>(Realm.class));
+            KeycloakResourceResponse<Realm> response = execute(request, new KeycloakResourceResponseHandler<>(Realm.class));
 
             result = response.body;
 
@@ -283,21 +600,30 @@ public class KeycloakRestApi implements Closeable {
 
             String url = String.format("%s/admin/realms/%s", keycloakUrl, realmName);
 
-            final HttpPut request = new HttpPut(url);
-            request.addHeader("Content-Type", "application/json");
-            request.addHeader("Accept", "application/json");
-            request.addHeader("Authorization", String.format("BEARER %s", getAccessToken()));
+            // Only the fields that differ from what was read are sent
+            ObjectNode changes = PartialUpdate.getChanges(realm, PartialUpdate.REALM_IDENTITY_FIELDS, PartialUpdate.REALM_MERGED_MAPS);
 
-            String json = mapper.writeValueAsString(realm);
-            logger.debug("request="+json);
+            if (changes == null) {
 
-            StringEntity requestEntity = new StringEntity(
-                    json,
-                    ContentType.APPLICATION_JSON);
+                logger.debug("No realm fields differ");
+            } else {
 
-            request.setEntity(requestEntity);
+                final HttpPut request = new HttpPut(url);
+                request.addHeader("Content-Type", "application/json");
+                request.addHeader("Accept", "application/json");
+                request.addHeader("Authorization", String.format("BEARER %s", getAccessToken()));
+
+                String json = mapper.writeValueAsString(changes);
+                logger.debug("request="+json);
+
+                StringEntity requestEntity = new StringEntity(
+                        json,
+                        ContentType.APPLICATION_JSON);
 
-            httpClient.execute(request, new KeycloakVoidResponseHandler());
+                request.setEntity(requestEntity);
+
+                execute(request, new KeycloakVoidResponseHandler());
+            }
 
         } catch (IOException e) {
             throw new RuntimeException(e);
@@ -319,15 +645,57 @@ public class KeycloakRestApi implements Closeable {
             request.addHeader("Accept", "application/json");
             request.addHeader("Authorization", String.format("BEARER %s", getAccessToken()));
 
-            httpClient.execute(request, new KeycloakVoidResponseHandler());
+            execute(request, new KeycloakVoidResponseHandler());
 
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
 
+        lookupIndex.clear(realmName);
+
         logger.debug(">deleteRealm" );
     }
 
+    /**
+     * Create the resources in a single transaction, none of them are created if any of them already exists.
+     */
+    public PartialImportResults partialImport(
+            String realmName,
+            PartialImport partialImport
+    ) {
+        logger.debug("<partialImport");
+        PartialImportResults result;
+
+        try {
+
+            String url = String.format("%s/admin/realms/%s/partialImport", keycloakUrl, realmName);
+
+            final HttpPost request = new HttpPost(url);
+            request.addHeader("Content-Type", "application/json");
+            request.addHeader("Accept", "application/json");
+            request.addHeader("Authorization", String.format("BEARER %s", getAccessToken()));
+
+            String json = mapper.writeValueAsString(partialImport);
+            logger.debug("request="+json);
+
+            StringEntity requestEntity = new StringEntity(
+                    json,
+                    ContentType.APPLICATION_JSON);
+
+            request.setEntity(requestEntity);
+
+            KeycloakResourceResponse<PartialImportResults> response = execute(request, new KeycloakResourceResponseHandler<>(PartialImportResults.class));
+
+            result = response.body;
+
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+
+        logger.debug(">partialImport {}", result);
+        return result;
+    }
+
     public ClientSecret getClientSecret(
             String realmName,
             String id
@@ -343,7 +711,7 @@ public class KeycloakRestApi implements Closeable {
             request.addHeader("Accept", "application/json");
             request.addHeader("Authorization", String.format("BEARER %s", getAccessToken()));
 
-            KeycloakResourceResponse<ClientSecret> response =  httpClient.execute(request, new KeycloakResourceResponseHandler<>(ClientSecret.class));
+            KeycloakResourceResponse<ClientSecret> response =  execute(request, new KeycloakResourceResponseHandler<>(ClientSecret.class));
 
             result = response.body;
 
@@ -380,7 +748,7 @@ public class KeycloakRestApi implements Closeable {
 
             request.setEntity(requestEntity);
 
-            KeycloakVoidResponse response = httpClient.execute(request, new KeycloakVoidResponseHandler());
+            KeycloakVoidResponse response = execute(request, new KeycloakVoidResponseHandler());
 
             // Extract the ID from the location header
             result =  extractIdFromLocation(response);
@@ -409,7 +777,7 @@ public class KeycloakRestApi implements Closeable {
             request.addHeader("Accept", "application/json");
             request.addHeader("Authorization", String.format("BEARER %s", getAccessToken()));
 
-            KeycloakListResponse<Client> response =  httpClient.execute(request, new KeycloakListResponseHandler<>(Client.class));
+            KeycloakListResponse<Client> response =  execute(request, new KeycloakListResponseHandler<>(Client.class));
 
             result = response.body;
 
@@ -428,6 +796,32 @@ public class KeycloakRestApi implements Closeable {
         return result;
     }
 
+    public CompletableFuture<List<Client>> getClientsAsync(
+            String realmName,
+            int pageOffset,
+            int pageSize
+    ) {
+        String url = String.format("%s/admin/realms/%s/clients?first=%s&max=%s", keycloakUrl, realmName, pageOffset, pageSize);
+
+        final HttpGet request = new HttpGet(url);
+        request.addHeader("Accept", "application/json");
+        request.addHeader("Authorization", String.format("BEARER %s", getAccessToken()));
+
+        return executeAsync(request, new KeycloakListResponseHandler<>(Client.class)).thenApply(response -> {
+
+            List<Client> result = response.body;
+
+            if (result != null) {
+
+                result.forEach(
+                        t -> t.setRealm(realmName)
+                );
+            }
+
+            return result;
+        });
+    }
+
     public Client getClient(
             String realmName,
             String id
@@ -443,7 +837,7 @@ public class KeycloakRestApi implements Closeable {
             request.addHeader("Accept", "application/json");
             request.addHeader("Authorization", String.format("BEARER %s", getAccessToken()));
 
-            KeycloakResourceResponse<Client> response =  httpClient.execute(request, new KeycloakResourceResponseHandler<>(Client.class));
+            KeycloakResourceResponse<Client> response =  execute(request, new KeycloakResourceResponseHandler<>(Client.class));
 
             result = response.body;
             if (result!=null) {
@@ -458,6 +852,27 @@ public class KeycloakRestApi implements Closeable {
         return result;
     }
 
+    public CompletableFuture<Client> getClientAsync(
+            String realmName,
+            String id
+    ) {
+        String url = String.format("%s/admin/realms/%s/clients/%s", keycloakUrl, realmName, id);
+
+        final HttpGet request = new HttpGet(url);
+        request.addHeader("Accept", "application/json");
+        request.addHeader("Authorization", String.format("BEARER %s", getAccessToken()));
+
+        return executeAsync(request, new KeycloakResourceResponseHandler<>(Client.class)).thenApply(response -> {
+
+            Client result = response.body;
+            if (result != null) {
+                result.setRealm(realmName);
+            }
+
+            return result;
+        });
+    }
+
     public void updateClient(
             String realmName,
             String id,
@@ -469,21 +884,30 @@ public class KeycloakRestApi implements Closeable {
 
             String url = String.format("%s/admin/realms/%s/clients/%s", keycloakUrl, realmName, id);
 
-            final HttpPut request = new HttpPut(url);
-            request.addHeader("Content-Type", "application/json");
-            request.addHeader("Accept", "application/json");
-            request.addHeader("Authorization", String.format("BEARER %s", getAccessToken()));
+            // Only the fields that differ from what was read are sent
+            ObjectNode changes = PartialUpdate.getChanges(client, PartialUpdate.CLIENT_IDENTITY_FIELDS, PartialUpdate.CLIENT_MERGED_MAPS);
 
-            String json = mapper.writeValueAsString(client);
-            logger.debug("request="+json);
+            if (changes == null) {
 
-            StringEntity requestEntity = new StringEntity(
-                    json,
-                    ContentType.APPLICATION_JSON);
+                logger.debug("No client fields differ");
+            } else {
 
-            request.setEntity(requestEntity);
+                final HttpPut request = new HttpPut(url);
+                request.addHeader("Content-Type", "application/json");
+                request.addHeader("Accept", "application/json");
+                request.addHeader("Authorization", String.format("BEARER %s", getAccessToken()));
 
-            httpClient.execute(request, new KeycloakVoidResponseHandler());
+                String json = mapper.writeValueAsString(changes);
+                logger.debug("request="+json);
+
+                StringEntity requestEntity = new StringEntity(
+                        json,
+                        ContentType.APPLICATION_JSON);
+
+                request.setEntity(requestEntity);
+
+                execute(request, new KeycloakVoidResponseHandler());
+            }
 
         } catch (IOException e) {
             throw new RuntimeException(e);
@@ -506,12 +930,14 @@ public class KeycloakRestApi implements Closeable {
             request.addHeader("Accept", "application/json");
             request.addHeader("Authorization", String.format("BEARER %s", getAccessToken()));
 
-            httpClient.execute(request, new KeycloakVoidResponseHandler());
+            execute(request, new KeycloakVoidResponseHandler());
 
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
 
+        lookupIndex.clear(realmName);
+
         logger.debug(">deleteClient");
     }
 
@@ -529,7 +955,7 @@ public class KeycloakRestApi implements Closeable {
             request.addHeader("Accept", "application/json");
             request.addHeader("Authorization", String.format("BEARER %s", getAccessToken()));
 
-            KeycloakListResponse<IdentityProvider> response =  httpClient.execute(request, new KeycloakListResponseHandler<>(IdentityProvider.class));
+            KeycloakListResponse<IdentityProvider> response =  execute(request, new KeycloakListResponseHandler<>(IdentityProvider.class));
 
             result = response.body;
 
@@ -572,7 +998,7 @@ public class KeycloakRestApi implements Closeable {
 
             request.setEntity(requestEntity);
 
-            httpClient.execute(request, new KeycloakVoidResponseHandler());
+            execute(request, new KeycloakVoidResponseHandler());
 
         } catch (IOException e) {
             throw new RuntimeException(e);
@@ -606,7 +1032,7 @@ public class KeycloakRestApi implements Closeable {
 
             request.setEntity(requestEntity);
 
-            httpClient.execute(request, new KeycloakVoidResponseHandler());
+            execute(request, new KeycloakVoidResponseHandler());
 
         } catch (IOException e) {
             throw new RuntimeException(e);
@@ -629,7 +1055,7 @@ public class KeycloakRestApi implements Closeable {
             request.addHeader("Accept", "application/json");
             request.addHeader("Authorization", String.format("BEARER %s", getAccessToken()));
 
-            httpClient.execute(request, new KeycloakVoidResponseHandler());
+            execute(request, new KeycloakVoidResponseHandler());
 
         } catch (IOException e) {
             throw new RuntimeException(e);
@@ -665,7 +1091,7 @@ public class KeycloakRestApi implements Closeable {
 
             request.setEntity(requestEntity);
 
-            KeycloakVoidResponse response = httpClient.execute(request, new KeycloakVoidResponseHandler());
+            KeycloakVoidResponse response = execute(request, new KeycloakVoidResponseHandler());
 
             result = extractIdFromLocation(response);
 
@@ -692,7 +1118,7 @@ public class KeycloakRestApi implements Closeable {
             request.addHeader("Accept", "application/json");
             request.addHeader("Authorization", String.format("BEARER %s", getAccessToken()));
 
-            KeycloakListResponse<IdentityProviderMapper> response =  httpClient.execute(request, new KeycloakListResponseHandler<>(IdentityProviderMapper.class));
+            KeycloakListResponse<IdentityProviderMapper> response =  execute(request, new KeycloakListResponseHandler<>(IdentityProviderMapper.class));
 
             result = response.body;
 
@@ -719,7 +1145,7 @@ public class KeycloakRestApi implements Closeable {
             request.addHeader("Accept", "application/json");
             request.addHeader("Authorization", String.format("BEARER %s", getAccessToken()));
 
-            KeycloakResourceResponse<IdentityProviderMapper> response =  httpClient.execute(request, new KeycloakResourceResponseHandler<>(IdentityProviderMapper.class));
+            KeycloakResourceResponse<IdentityProviderMapper> response =  execute(request, new KeycloakResourceResponseHandler<>(IdentityProviderMapper.class));
 
             result = response.body;
 
@@ -757,7 +1183,7 @@ public class KeycloakRestApi implements Closeable {
 
             request.setEntity(requestEntity);
 
-            httpClient.execute(request, new KeycloakVoidResponseHandler());
+            execute(request, new KeycloakVoidResponseHandler());
 
         } catch (IOException e) {
             throw new RuntimeException(e);
@@ -781,7 +1207,7 @@ public class KeycloakRestApi implements Closeable {
             request.addHeader("Accept", "application/json");
             request.addHeader("Authorization", String.format("BEARER %s", getAccessToken()));
 
-            httpClient.execute(request, new KeycloakVoidResponseHandler());
+            execute(request, new KeycloakVoidResponseHandler());
 
         } catch (IOException e) {
             throw new RuntimeException(e);
@@ -817,7 +1243,7 @@ public class KeycloakRestApi implements Closeable {
 
             request.setEntity(requestEntity);
 
-            KeycloakVoidResponse response = httpClient.execute(request, new KeycloakVoidResponseHandler());
+            KeycloakVoidResponse response = execute(request, new KeycloakVoidResponseHandler());
 
             // Extract the ID from the location header
             result =  extractIdFromLocation(response);
@@ -849,7 +1275,7 @@ public class KeycloakRestApi implements Closeable {
             request.addHeader("Accept", "application/json");
             request.addHeader("Authorization", String.format("BEARER %s", getAccessToken()));
 
-            KeycloakListResponse<Flow> response =  httpClient.execute(request, new KeycloakListResponseHandler<>(Flow.class));
+            KeycloakListResponse<Flow> response =  execute(request, new KeycloakListResponseHandler<>(Flow.class));
 
             result = response.body;
 
@@ -886,7 +1312,7 @@ public class KeycloakRestApi implements Closeable {
             request.addHeader("Accept", "application/json");
             request.addHeader("Authorization", String.format("BEARER %s", getAccessToken()));
 
-            KeycloakResourceResponse<Flow> response =  httpClient.execute(request, new KeycloakResourceResponseHandler<>(Flow.class));
+            KeycloakResourceResponse<Flow> response =  execute(request, new KeycloakResourceResponseHandler<>(Flow.class));
 
             result = response.body;
             if (result!=null) {
@@ -917,7 +1343,7 @@ public class KeycloakRestApi implements Closeable {
             request.addHeader("Accept", "application/json");
             request.addHeader("Authorization", String.format("BEARER %s", getAccessToken()));
 
-            KeycloakResourceResponse<Flow> response =  httpClient.execute(request, new KeycloakResourceResponseHandler<>(Flow.class));
+            KeycloakResourceResponse<Flow> response =  execute(request, new KeycloakResourceResponseHandler<>(Flow.class));
 
             result = response.body;
             if (result!=null) {
@@ -958,7 +1384,7 @@ public class KeycloakRestApi implements Closeable {
 
             request.setEntity(requestEntity);
 
-            httpClient.execute(request, new KeycloakVoidResponseHandler());
+            execute(request, new KeycloakVoidResponseHandler());
 
         } catch (IOException e) {
             throw new RuntimeException(e);
@@ -981,12 +1407,14 @@ public class KeycloakRestApi implements Closeable {
             request.addHeader("Accept", "application/json");
             request.addHeader("Authorization", String.format("BEARER %s", getAccessToken()));
 
-            httpClient.execute(request, new KeycloakVoidResponseHandler());
+            execute(request, new KeycloakVoidResponseHandler());
 
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
 
+        lookupIndex.clear(realmName);
+
         logger.debug(">deleteTopLevelFlow");
     }
 
@@ -1021,7 +1449,7 @@ public class KeycloakRestApi implements Closeable {
 
             request.setEntity(requestEntity);
 
-            KeycloakVoidResponse response = httpClient.execute(request, new KeycloakVoidResponseHandler());
+            KeycloakVoidResponse response = execute(request, new KeycloakVoidResponseHandler());
 
             // Extract the ID from the location header
             result =  extractIdFromLocation(response);
@@ -1069,7 +1497,7 @@ public class KeycloakRestApi implements Closeable {
 
             request.setEntity(requestEntity);
 
-            KeycloakVoidResponse response = httpClient.execute(request, new KeycloakVoidResponseHandler());
+            KeycloakVoidResponse response = execute(request, new KeycloakVoidResponseHandler());
 
             // Extract the ID from the location header
             result =  extractIdFromLocation(response);
@@ -1098,7 +1526,7 @@ public class KeycloakRestApi implements Closeable {
             request.addHeader("Accept", "application/json");
             request.addHeader("Authorization", String.format("BEARER %s", getAccessToken()));
 
-            KeycloakResourceResponse<FlowExecution> response = httpClient.execute(request, new KeycloakResourceResponseHandler<>(FlowExecution.class));
+            KeycloakResourceResponse<FlowExecution> response = execute(request, new KeycloakResourceResponseHandler<>(FlowExecution.class));
 
             result = response.body;
 
@@ -1134,7 +1562,7 @@ public class KeycloakRestApi implements Closeable {
 
             request.setEntity(requestEntity);
 
-            httpClient.execute(request, new KeycloakVoidResponseHandler());
+            execute(request, new KeycloakVoidResponseHandler());
 
         } catch (IOException e) {
             throw new RuntimeException(e);
@@ -1168,7 +1596,7 @@ public class KeycloakRestApi implements Closeable {
 
             request.setEntity(requestEntity);
 
-            httpClient.execute(request, new KeycloakVoidResponseHandler());
+            execute(request, new KeycloakVoidResponseHandler());
 
         } catch (IOException e) {
             throw new RuntimeException(e);
@@ -1187,7 +1615,7 @@ public class KeycloakRestApi implements Closeable {
 
         try {
 
-            String url = String.format("%s/admin/realms/%s/authentication/executions/%s/raise-priority", keycloakUrl, realmName, id);
+            String url = String.format("%s/admin/realms/%s/authentication/executions/%s/lower-priority", keycloakUrl, realmName, id);
 
             final HttpPost request = new HttpPost(url);
             request.addHeader("Content-Type", "application/json");
@@ -1202,7 +1630,7 @@ public class KeycloakRestApi implements Closeable {
 
             request.setEntity(requestEntity);
 
-            httpClient.execute(request, new KeycloakVoidResponseHandler());
+            execute(request, new KeycloakVoidResponseHandler());
 
         } catch (IOException e) {
             throw new RuntimeException(e);
@@ -1225,7 +1653,7 @@ public class KeycloakRestApi implements Closeable {
             request.addHeader("Accept", "application/json");
             request.addHeader("Authorization", String.format("BEARER %s", getAccessToken()));
 
-            httpClient.execute(request, new KeycloakVoidResponseHandler());
+            execute(request, new KeycloakVoidResponseHandler());
 
         } catch (IOException e) {
             throw new RuntimeException(e);
@@ -1238,19 +1666,26 @@ public class KeycloakRestApi implements Closeable {
             Flow parentFlow
     ) {
         logger.debug("<getFlowExecutions");
-        List<FlowExecution> result;
 
-        try {
+        // Only return the child executions of the parent
+        List<FlowExecution> result = getFlowExecutionTree(parentFlow).stream().filter(t -> t.getLevel() == 0).toList();
 
-            String url = String.format("%s/admin/realms/%s/authentication/flows/%s/executions", keycloakUrl, parentFlow.getRealm(), URLEncoder.encode(parentFlow.getAlias(), UTF_8).replace("+", "%20"));
+        logger.debug(">getFlowExecutions " + result);
+        return result;
+    }
 
-            final HttpGet request = new HttpGet(url);
-            request.addHeader("Accept", "application/json");
-            request.addHeader("Authorization", String.format("BEARER %s", getAccessToken()));
+    public CompletableFuture<List<FlowExecution>> getFlowExecutionsAsync(
+            Flow parentFlow
+    ) {
+        String url = String.format("%s/admin/realms/%s/authentication/flows/%s/executions", keycloakUrl, parentFlow.getRealm(), URLEncoder.encode(parentFlow.getAlias(), UTF_8).replace("+", "%20"));
 
-            KeycloakListResponse<FlowExecution> response =  httpClient.execute(request, new KeycloakListResponseHandler<>(FlowExecution.class));
+        final HttpGet request = new HttpGet(url);
+        request.addHeader("Accept", "application/json");
+        request.addHeader("Authorization", String.format("BEARER %s", getAccessToken()));
 
-            result = response.body;
+        return executeAsync(request, new KeycloakListResponseHandler<>(FlowExecution.class)).thenApply(response -> {
+
+            List<FlowExecution> result = response.body;
 
             // Only return the child executions of the parent
             if (result != null) {
@@ -1258,11 +1693,37 @@ public class KeycloakRestApi implements Closeable {
                 result = result.stream().filter(t -> t.getLevel() == 0).toList();
             }
 
+            return result;
+        });
+    }
+
+    /**
+     * @return the executions of the flow and of all its sub-flows, depth first, each with its level below the flow and
+     * its index within its own parent
+     */
+    public List<FlowExecution> getFlowExecutionTree(
+            Flow flow
+    ) {
+        logger.debug("<getFlowExecutionTree");
+        List<FlowExecution> result;
+
+        try {
+
+            String url = String.format("%s/admin/realms/%s/authentication/flows/%s/executions", keycloakUrl, flow.getRealm(), URLEncoder.encode(flow.getAlias(), UTF_8).replace("+", "%20"));
+
+            final HttpGet request = new HttpGet(url);
+            request.addHeader("Accept", "application/json");
+            request.addHeader("Authorization", String.format("BEARER %s", getAccessToken()));
+
+            KeycloakListResponse<FlowExecution> response =  execute(request, new KeycloakListResponseHandler<>(FlowExecution.class));
+
+            result = response.body == null ? List.of() : response.body;
+
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
 
-        logger.debug(">getFlowExecutions " + result);
+        logger.debug(">getFlowExecutionTree " + result);
         return result;
     }
 
@@ -1281,7 +1742,7 @@ public class KeycloakRestApi implements Closeable {
             request.addHeader("Accept", "application/json");
             request.addHeader("Authorization", String.format("BEARER %s", getAccessToken()));
 
-            KeycloakResourceResponse<Config> response =  httpClient.execute(request, new KeycloakResourceResponseHandler<>(Config.class));
+            KeycloakResourceResponse<Config> response =  execute(request, new KeycloakResourceResponseHandler<>(Config.class));
 
             result = response.body;
 
@@ -1293,6 +1754,42 @@ public class KeycloakRestApi implements Closeable {
         return result;
     }
 
+    public CompletableFuture<Config> getConfigAsync(
+            String realmName,
+            String configId
+    ) {
+        String url = String.format("%s/admin/realms/%s/authentication/config/%s", keycloakUrl, realmName, configId);
+
+        final HttpGet request = new HttpGet(url);
+        request.addHeader("Accept", "application/json");
+        request.addHeader("Authorization", String.format("BEARER %s", getAccessToken()));
+
+        return executeAsync(request, new KeycloakResourceResponseHandler<>(Config.class)).thenApply(response -> response.body);
+    }
+
+    /**
+     * Fetch the configs concurrently, each distinct id once.
+     *
+     * @return the configs by id
+     */
+    public Map<String, Config> getConfigs(
+            String realmName,
+            Collection<String> configIds
+    ) {
+        logger.debug("<getConfigs");
+
+        Map<String, CompletableFuture<Config>> configs = new LinkedHashMap<>();
+        for (String configId:configIds) {
+            configs.computeIfAbsent(configId, id -> getConfigAsync(realmName, id));
+        }
+
+        Map<String, Config> result = new LinkedHashMap<>();
+        configs.forEach((id, config) -> result.put(id, join(config)));
+
+        logger.debug(">getConfigs " + result);
+        return result;
+    }
+
     public String createConfig(
             String realmName,
             String executionId,
@@ -1319,7 +1816,7 @@ public class KeycloakRestApi implements Closeable {
 
             request.setEntity(requestEntity);
 
-            KeycloakVoidResponse response = httpClient.execute(request, new KeycloakVoidResponseHandler());
+            KeycloakVoidResponse response = execute(request, new KeycloakVoidResponseHandler());
 
             // Extract the ID from the location header
             result =  extractIdFromLocation(response);
@@ -1357,7 +1854,7 @@ public class KeycloakRestApi implements Closeable {
 
             request.setEntity(requestEntity);
 
-            httpClient.execute(request, new KeycloakVoidResponseHandler());
+            execute(request, new KeycloakVoidResponseHandler());
 
         } catch (IOException e) {
             throw new RuntimeException(e);
@@ -1380,7 +1877,7 @@ public class KeycloakRestApi implements Closeable {
             request.addHeader("Accept", "application/json");
             request.addHeader("Authorization", String.format("BEARER %s", getAccessToken()));
 
-            httpClient.execute(request, new KeycloakVoidResponseHandler());
+            execute(request, new KeycloakVoidResponseHandler());
 
         } catch (IOException e) {
             throw new RuntimeException(e);
@@ -1414,7 +1911,7 @@ public class KeycloakRestApi implements Closeable {
 
             request.setEntity(requestEntity);
 
-            KeycloakVoidResponse response = httpClient.execute(request, new KeycloakVoidResponseHandler());
+            KeycloakVoidResponse response = execute(request, new KeycloakVoidResponseHandler());
 
             // Extract the ID from the location header
             result =  extractIdFromLocation(response);
@@ -1447,7 +1944,7 @@ public class KeycloakRestApi implements Closeable {
             request.addHeader("Accept", "application/json");
             request.addHeader("Authorization", String.format("BEARER %s", accessToken));
 
-            KeycloakListResponse<Role> response =  httpClient.execute(request, new KeycloakListResponseHandler<>(Role.class));
+            KeycloakListResponse<Role> response =  execute(request, new KeycloakListResponseHandler<>(Role.class));
 
             result = response.body;
 
@@ -1471,29 +1968,20 @@ public class KeycloakRestApi implements Closeable {
 
             String accessToken = getAccessToken();
 
-            String url = String.format("%s/admin/realms/%s/roles?first=%s&max=%s", keycloakUrl, realmName, pageOffset, pageSize);
+            // The full representation includes the role attributes so the roles do not need to be fetched individually
+            String url = String.format("%s/admin/realms/%s/roles?first=%s&max=%s&briefRepresentation=false", keycloakUrl, realmName, pageOffset, pageSize);
 
             final HttpGet request = new HttpGet(url);
             request.addHeader("Accept", "application/json");
             request.addHeader("Authorization", String.format("BEARER %s", accessToken));
 
-            KeycloakListResponse<Role> response =  httpClient.execute(request, new KeycloakListResponseHandler<>(Role.class));
+            KeycloakListResponse<Role> response =  execute(request, new KeycloakListResponseHandler<>(Role.class));
 
             result = response.body;
 
             if (result != null) {
 
-                // TODO Does this endpoint support the briefRepresentation parameter?
-                result = result
-                        .stream()
-                        .map(t -> {
-                                    // The list method returns an incomplete role
-                                    // so we need fo fetch each item individually
-                                    Role r = getRole(realmName, t.getId(), accessToken);
-                                    r.setRealm(realmName);
-                                    return r;
-                                }
-                        ).toList();
+                result.forEach(t -> t.setRealm(realmName));
             }
 
         } catch (IOException e) {
@@ -1504,6 +1992,17 @@ public class KeycloakRestApi implements Closeable {
         return result;
     }
 
+    public CompletableFuture<List<Role>> getRolesAsync(
+            String realmName,
+            int pageOffset,
+            int pageSize
+    ) {
+        // The full representation includes the role attributes so the roles do not need to be fetched individually
+        String url = String.format("%s/admin/realms/%s/roles?first=%s&max=%s&briefRepresentation=false", keycloakUrl, realmName, pageOffset, pageSize);
+
+        return getRolesAsync(realmName, url);
+    }
+
     public List<Role> getClientRoles(
             String realmName,
             String id,
@@ -1523,7 +2022,7 @@ public class KeycloakRestApi implements Closeable {
             request.addHeader("Accept", "application/json");
             request.addHeader("Authorization", String.format("BEARER %s", accessToken));
 
-            KeycloakListResponse<Role> response =  httpClient.execute(request, new KeycloakListResponseHandler<>(Role.class));
+            KeycloakListResponse<Role> response =  execute(request, new KeycloakListResponseHandler<>(Role.class));
 
             result = response.body;
 
@@ -1540,9 +2039,53 @@ public class KeycloakRestApi implements Closeable {
         return result;
     }
 
+    public CompletableFuture<List<Role>> getClientRolesAsync(
+            String realmName,
+            String id,
+            int pageOffset,
+            int pageSize
+    ) {
+        String url = String.format("%s/admin/realms/%s/clients/%s/roles?first=%s&max=%s&briefRepresentation=false", keycloakUrl, realmName, id, pageOffset, pageSize);
+
+        return getRolesAsync(realmName, url);
+    }
+
+    private CompletableFuture<List<Role>> getRolesAsync(
+            String realmName,
+            String url
+    ) {
+        final HttpGet request = new HttpGet(url);
+        request.addHeader("Accept", "application/json");
+        request.addHeader("Authorization", String.format("BEARER %s", getAccessToken()));
+
+        return executeAsync(request, new KeycloakListResponseHandler<>(Role.class)).thenApply(response -> {
+
+            List<Role> result = response.body;
+
+            if (result != null) {
+
+                result.forEach(t -> t.setRealm(realmName));
+            }
+
+            return result;
+        });
+    }
+
     public List<Role> getChildRoles(
             String realmName,
             String parentId
+    ) {
+        return getChildRoles(realmName, parentId, false);
+    }
+
+    /**
+     * The composites endpoint only returns brief role representations.  When the full representations are required
+     * the roles are fetched concurrently.
+     */
+    public List<Role> getChildRoles(
+            String realmName,
+            String parentId,
+            boolean briefRepresentation
     ) {
         logger.debug("<getChildRoles");
         List<Role> result;
@@ -1557,22 +2100,24 @@ public class KeycloakRestApi implements Closeable {
             request.addHeader("Accept", "application/json");
             request.addHeader("Authorization", String.format("BEARER %s", accessToken));
 
-            KeycloakListResponse<Role> response =  httpClient.execute(request, new KeycloakListResponseHandler<>(Role.class));
+            KeycloakListResponse<Role> response =  execute(request, new KeycloakListResponseHandler<>(Role.class));
 
             result = response.body;
 
             if (result != null) {
 
-                result = result
-                        .stream()
-                        .map(t -> {
-                                    // The list method returns an incomplete role
-                                    // so we need fo fetch each item individually
-                                    Role r = getRole(realmName, t.getId(), accessToken);
-                                    r.setRealm(realmName);
-                                    return r;
-                                }
-                        ).toList();
+                if (briefRepresentation) {
+
+                    result.forEach(t -> t.setRealm(realmName));
+                } else {
+
+                    List<CompletableFuture<Role>> roles = result
+                            .stream()
+                            .map(t -> getRoleAsync(realmName, t.getId(), accessToken))
+                            .toList();
+
+                    result = roles.stream().map(KeycloakRestApi::join).toList();
+                }
             }
 
         } catch (IOException e) {
@@ -1583,13 +2128,12 @@ public class KeycloakRestApi implements Closeable {
         return result;
     }
 
-    public String addChildRole(
+    public void addChildRole(
             String realmName,
             String parentId,
             String childId
     ) {
         logger.debug("<addChildRole");
-        String result;
 
         try {
 
@@ -1613,17 +2157,14 @@ public class KeycloakRestApi implements Closeable {
 
             request.setEntity(requestEntity);
 
-            KeycloakVoidResponse response = httpClient.execute(request, new KeycloakVoidResponseHandler());
-
-            // Extract the ID from the location header
-            result =  extractIdFromLocation(response);
+            // The composites are added without a location header
+            execute(request, new KeycloakVoidResponseHandler());
 
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
 
-        logger.debug(">addChildRole {}", result);
-        return result;
+        logger.debug(">addChildRole");
     }
 
     public void removeChildRole(
@@ -1654,7 +2195,7 @@ public class KeycloakRestApi implements Closeable {
 
             request.setEntity(requestEntity);
 
-            httpClient.execute(request, new KeycloakVoidResponseHandler());
+            execute(request, new KeycloakVoidResponseHandler());
 
         } catch (IOException e) {
             throw new RuntimeException(e);
@@ -1679,7 +2220,7 @@ public class KeycloakRestApi implements Closeable {
             request.addHeader("Accept", "application/json");
             request.addHeader("Authorization", String.format("BEARER %s", accessToken));
 
-            KeycloakResourceResponse<Role> response =  httpClient.execute(request, new KeycloakResourceResponseHandler<>(Role.class));
+            KeycloakResourceResponse<Role> response =  execute(request, new KeycloakResourceResponseHandler<>(Role.class));
 
             result = response.body;
 
@@ -1702,6 +2243,35 @@ public class KeycloakRestApi implements Closeable {
         return getRole(realmName, id, getAccessToken());
     }
 
+    public CompletableFuture<Role> getRoleAsync(
+            String realmName,
+            String id
+    ) {
+        return getRoleAsync(realmName, id, getAccessToken());
+    }
+
+    private CompletableFuture<Role> getRoleAsync(
+            String realmName,
+            String id,
+            String accessToken
+    ) {
+        String url = String.format("%s/admin/realms/%s/roles-by-id/%s", keycloakUrl, realmName, id);
+
+        final HttpGet request = new HttpGet(url);
+        request.addHeader("Accept", "application/json");
+        request.addHeader("Authorization", String.format("BEARER %s", accessToken));
+
+        return executeAsync(request, new KeycloakResourceResponseHandler<>(Role.class)).thenApply(response -> {
+
+            Role result = response.body;
+            if (result != null) {
+                result.setRealm(realmName);
+            }
+
+            return result;
+        });
+    }
+
     private Role getRoleByName(
             String realmName,
             String roleName
@@ -1717,7 +2287,7 @@ public class KeycloakRestApi implements Closeable {
             request.addHeader("Accept", "application/json");
             request.addHeader("Authorization", String.format("BEARER %s", getAccessToken()));
 
-            KeycloakResourceResponse<Role> response =  httpClient.execute(request, new KeycloakResourceResponseHandler<>(Role.class));
+            KeycloakResourceResponse<Role> response =  execute(request, new KeycloakResourceResponseHandler<>(Role.class));
 
             result = response.body;
 
@@ -1758,7 +2328,7 @@ public class KeycloakRestApi implements Closeable {
 
             request.setEntity(requestEntity);
 
-            httpClient.execute(request, new KeycloakVoidResponseHandler());
+            execute(request, new KeycloakVoidResponseHandler());
 
         } catch (IOException e) {
             throw new RuntimeException(e);
@@ -1781,7 +2351,7 @@ public class KeycloakRestApi implements Closeable {
             request.addHeader("Accept", "application/json");
             request.addHeader("Authorization", String.format("BEARER %s", getAccessToken()));
 
-            httpClient.execute(request, new KeycloakVoidResponseHandler());
+            execute(request, new KeycloakVoidResponseHandler());
 
         } catch (IOException e) {
             throw new RuntimeException(e);
@@ -1815,7 +2385,7 @@ public class KeycloakRestApi implements Closeable {
 
             request.setEntity(requestEntity);
 
-            KeycloakVoidResponse response = httpClient.execute(request, new KeycloakVoidResponseHandler());
+            KeycloakVoidResponse response = execute(request, new KeycloakVoidResponseHandler());
 
             // Extract the ID from the location header
             result =  extractIdFromLocation(response);
@@ -1851,7 +2421,7 @@ public class KeycloakRestApi implements Closeable {
 
             request.setEntity(requestEntity);
 
-            httpClient.execute(request, new KeycloakVoidResponseHandler());
+            execute(request, new KeycloakVoidResponseHandler());
 
         } catch (IOException e) {
             throw new RuntimeException(e);
@@ -1883,7 +2453,7 @@ public class KeycloakRestApi implements Closeable {
 
             request.setEntity(requestEntity);
 
-            httpClient.execute(request, new KeycloakVoidResponseHandler());
+            execute(request, new KeycloakVoidResponseHandler());
 
         } catch (IOException e) {
             throw new RuntimeException(e);
@@ -1916,7 +2486,7 @@ public class KeycloakRestApi implements Closeable {
 
             request.setEntity(requestEntity);
 
-            httpClient.execute(request, new KeycloakVoidResponseHandler());
+            execute(request, new KeycloakVoidResponseHandler());
 
         } catch (IOException e) {
             throw new RuntimeException(e);
@@ -1949,7 +2519,7 @@ public class KeycloakRestApi implements Closeable {
 
             request.setEntity(requestEntity);
 
-            httpClient.execute(request, new KeycloakVoidResponseHandler());
+            execute(request, new KeycloakVoidResponseHandler());
 
         } catch (IOException e) {
             throw new RuntimeException(e);
@@ -1974,7 +2544,7 @@ public class KeycloakRestApi implements Closeable {
             request.addHeader("Accept", "application/json");
             request.addHeader("Authorization", String.format("BEARER %s", accessToken));
 
-            KeycloakListResponse<Scope> response =  httpClient.execute(request, new KeycloakListResponseHandler<>(Scope.class));
+            KeycloakListResponse<Scope> response =  execute(request, new KeycloakListResponseHandler<>(Scope.class));
 
             result = response.body;
 
@@ -2007,7 +2577,7 @@ public class KeycloakRestApi implements Closeable {
             request.addHeader("Accept", "application/json");
             request.addHeader("Authorization", String.format("BEARER %s", accessToken));
 
-            KeycloakListResponse<DefaultScope> response =  httpClient.execute(request, new KeycloakListResponseHandler<>(DefaultScope.class));
+            KeycloakListResponse<DefaultScope> response =  execute(request, new KeycloakListResponseHandler<>(DefaultScope.class));
 
             result = response.body;
 
@@ -2040,7 +2610,7 @@ public class KeycloakRestApi implements Closeable {
             request.addHeader("Accept", "application/json");
             request.addHeader("Authorization", String.format("BEARER %s", accessToken));
 
-            KeycloakListResponse<DefaultScope> response =  httpClient.execute(request, new KeycloakListResponseHandler<>(DefaultScope.class));
+            KeycloakListResponse<DefaultScope> response =  execute(request, new KeycloakListResponseHandler<>(DefaultScope.class));
 
             result = response.body;
 
@@ -2074,7 +2644,7 @@ public class KeycloakRestApi implements Closeable {
             request.addHeader("Accept", "application/json");
             request.addHeader("Authorization", String.format("BEARER %s", accessToken));
 
-            KeycloakListResponse<DefaultScope> response =  httpClient.execute(request, new KeycloakListResponseHandler<>(DefaultScope.class));
+            KeycloakListResponse<DefaultScope> response =  execute(request, new KeycloakListResponseHandler<>(DefaultScope.class));
 
             result = response.body;
 
@@ -2108,7 +2678,7 @@ public class KeycloakRestApi implements Closeable {
             request.addHeader("Accept", "application/json");
             request.addHeader("Authorization", String.format("BEARER %s", accessToken));
 
-            KeycloakListResponse<DefaultScope> response =  httpClient.execute(request, new KeycloakListResponseHandler<>(DefaultScope.class));
+            KeycloakListResponse<DefaultScope> response =  execute(request, new KeycloakListResponseHandler<>(DefaultScope.class));
 
             result = response.body;
 
@@ -2141,7 +2711,7 @@ public class KeycloakRestApi implements Closeable {
             request.addHeader("Accept", "application/json");
             request.addHeader("Authorization", String.format("BEARER %s", accessToken));
 
-            KeycloakResourceResponse<Scope> response =  httpClient.execute(request, new KeycloakResourceResponseHandler<>(Scope.class));
+            KeycloakResourceResponse<Scope> response =  execute(request, new KeycloakResourceResponseHandler<>(Scope.class));
 
             result = response.body;
 
@@ -2189,7 +2759,7 @@ public class KeycloakRestApi implements Closeable {
 
             request.setEntity(requestEntity);
 
-            httpClient.execute(request, new KeycloakVoidResponseHandler());
+            execute(request, new KeycloakVoidResponseHandler());
 
         } catch (IOException e) {
             throw new RuntimeException(e);
@@ -2212,7 +2782,7 @@ public class KeycloakRestApi implements Closeable {
             request.addHeader("Accept", "application/json");
             request.addHeader("Authorization", String.format("BEARER %s", getAccessToken()));
 
-            httpClient.execute(request, new KeycloakVoidResponseHandler());
+            execute(request, new KeycloakVoidResponseHandler());
 
         } catch (IOException e) {
             throw new RuntimeException(e);
@@ -2235,7 +2805,7 @@ public class KeycloakRestApi implements Closeable {
             request.addHeader("Accept", "application/json");
             request.addHeader("Authorization", String.format("BEARER %s", getAccessToken()));
 
-            httpClient.execute(request, new KeycloakVoidResponseHandler());
+            execute(request, new KeycloakVoidResponseHandler());
 
         } catch (IOException e) {
             throw new RuntimeException(e);
@@ -2258,7 +2828,7 @@ public class KeycloakRestApi implements Closeable {
             request.addHeader("Accept", "application/json");
             request.addHeader("Authorization", String.format("BEARER %s", getAccessToken()));
 
-            httpClient.execute(request, new KeycloakVoidResponseHandler());
+            execute(request, new KeycloakVoidResponseHandler());
 
         } catch (IOException e) {
             throw new RuntimeException(e);
@@ -2282,7 +2852,7 @@ public class KeycloakRestApi implements Closeable {
             request.addHeader("Accept", "application/json");
             request.addHeader("Authorization", String.format("BEARER %s", getAccessToken()));
 
-            httpClient.execute(request, new KeycloakVoidResponseHandler());
+            execute(request, new KeycloakVoidResponseHandler());
 
         } catch (IOException e) {
             throw new RuntimeException(e);
@@ -2306,7 +2876,7 @@ public class KeycloakRestApi implements Closeable {
             request.addHeader("Accept", "application/json");
             request.addHeader("Authorization", String.format("BEARER %s", getAccessToken()));
 
-            httpClient.execute(request, new KeycloakVoidResponseHandler());
+            execute(request, new KeycloakVoidResponseHandler());
 
         } catch (IOException e) {
             throw new RuntimeException(e);
@@ -2380,7 +2950,7 @@ public class KeycloakRestApi implements Closeable {
 
             request.setEntity(requestEntity);
 
-            KeycloakVoidResponse response = httpClient.execute(request, new KeycloakVoidResponseHandler());
+            KeycloakVoidResponse response = execute(request, new KeycloakVoidResponseHandler());
 
             // Extract the ID from the location header
             result =  extractIdFromLocation(response);
@@ -2408,7 +2978,7 @@ public class KeycloakRestApi implements Closeable {
             request.addHeader("Accept", "application/json");
             request.addHeader("Authorization", String.format("BEARER %s", getAccessToken()));
 
-            KeycloakListResponse<ProtocolMapper> response =  httpClient.execute(request, new KeycloakListResponseHandler<>(ProtocolMapper.class));
+            KeycloakListResponse<ProtocolMapper> response =  execute(request, new KeycloakListResponseHandler<>(ProtocolMapper.class));
 
             results = response.body;
 
@@ -2436,7 +3006,7 @@ public class KeycloakRestApi implements Closeable {
             request.addHeader("Accept", "application/json");
             request.addHeader("Authorization", String.format("BEARER %s", getAccessToken()));
 
-            KeycloakResourceResponse<ProtocolMapper> response =  httpClient.execute(request, new KeycloakResourceResponseHandler<>(ProtocolMapper.class));
+            KeycloakResourceResponse<ProtocolMapper> response =  execute(request, new KeycloakResourceResponseHandler<>(ProtocolMapper.class));
 
             result = response.body;
 
@@ -2474,7 +3044,7 @@ public class KeycloakRestApi implements Closeable {
 
             request.setEntity(requestEntity);
 
-            httpClient.execute(request, new KeycloakVoidResponseHandler());
+            execute(request, new KeycloakVoidResponseHandler());
 
         } catch (IOException e) {
             throw new RuntimeException(e);
@@ -2498,7 +3068,7 @@ public class KeycloakRestApi implements Closeable {
             request.addHeader("Accept", "application/json");
             request.addHeader("Authorization", String.format("BEARER %s", getAccessToken()));
 
-            httpClient.execute(request, new KeycloakVoidResponseHandler());
+            execute(request, new KeycloakVoidResponseHandler());
 
         } catch (IOException e) {
             throw new RuntimeException(e);
@@ -2507,6 +3077,39 @@ public class KeycloakRestApi implements Closeable {
         logger.debug(">deleteScopeMapper");
     }
 
+    /**
+     * The admin events are always read from the server, as they record the changes that the snapshot would hide.
+     *
+     * @return the most recent admin events of the realm, newest first
+     */
+    public List<AdminEvent> getAdminEvents(
+            String realmName,
+            int pageOffset,
+            int pageSize
+    ) {
+        logger.debug("<getAdminEvents");
+        List<AdminEvent> result;
+
+        try {
+
+            String url = String.format("%s/admin/realms/%s/admin-events?first=%s&max=%s", keycloakUrl, realmName, pageOffset, pageSize);
+
+            final HttpGet request = new HttpGet(url);
+            request.addHeader("Accept", "application/json");
+            request.addHeader("Authorization", String.format("BEARER %s", getAccessToken()));
+
+            KeycloakListResponse<AdminEvent> response = executeMetered(request, getUri(request), new KeycloakListResponseHandler<>(AdminEvent.class));
+
+            result = response.body;
+
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+
+        logger.debug(">getAdminEvents " + result);
+        return result;
+    }
+
     public EventsConfig getEventsConfig(
             String realmName
     ) {
@@ -2521,7 +3124,7 @@ public class KeycloakRestApi implements Closeable {
             request.addHeader("Accept", "application/json");
             request.addHeader("Authorization", String.format("BEARER %s", getAccessToken()));
 
-            KeycloakResourceResponse<EventsConfig> response = httpClient.execute(request, new KeycloakResourceResponseHandler<>(EventsConfig.class));
+            KeycloakResourceResponse<EventsConfig> response = execute(request, new KeycloakResourceResponseHandler<>(EventsConfig.class));
 
             result = response.body;
 
@@ -2557,7 +3160,7 @@ public class KeycloakRestApi implements Closeable {
 
             request.setEntity(requestEntity);
 
-            httpClient.execute(request, new KeycloakVoidResponseHandler());
+            execute(request, new KeycloakVoidResponseHandler());
 
         } catch (IOException e) {
             throw new RuntimeException(e);
@@ -2580,7 +3183,7 @@ public class KeycloakRestApi implements Closeable {
             request.addHeader("Accept", "application/json");
             request.addHeader("Authorization", String.format("BEARER %s", getAccessToken()));
 
-            KeycloakResourceResponse<Profile> response = httpClient.execute(request, new KeycloakResourceResponseHandler<>(Profile.class));
+            KeycloakResourceResponse<Profile> response = execute(request, new KeycloakResourceResponseHandler<>(Profile.class));
 
             result = response.body;
 
@@ -2616,7 +3219,7 @@ public class KeycloakRestApi implements Closeable {
 
             request.setEntity(requestEntity);
 
-            httpClient.execute(request, new KeycloakVoidResponseHandler());
+            execute(request, new KeycloakVoidResponseHandler());
 
         } catch (IOException e) {
             throw new RuntimeException(e);
@@ -2627,7 +3230,21 @@ public class KeycloakRestApi implements Closeable {
 
     @Override
     public void close() throws IOException {
-        httpClient.close();
+        logger.debug("Concurrency limit at close {}", limiter.getLimit());
+        tokenProvider.close();
+        transport.close();
+        executorService.shutdownNow();
+    }
+
+    static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw e;
+        }
     }
 
     private String extractIdFromLocation(KeycloakAbstractResponse response) {
@@ -0,0 +1,239 @@
+package com.paulhowells.keycloak.configurer.rest.client;
+
+import org.apache.hc.core5.http.NameValuePair;
+import org.apache.hc.core5.http.message.BasicNameValuePair;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Provides the access token for the admin client, and can be shared by any number of threads.
+ * <p>
+ * The current token is read without locking.  A token is renewed in the background once most of its lifetime has
+ * passed, using the refresh_token grant while the refresh token is valid and the password grant otherwise.  A caller
+ * that finds the token about to expire renews it in the foreground, and concurrent callers wait for that single renewal
+ * rather than each requesting a token.
+ */
+class KeycloakTokenProvider implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(KeycloakTokenProvider.class);
+
+    // Renew in the background once this fraction of the token lifetime has passed
+    private static final double REFRESH_FRACTION = 0.75;
+
+    // A token is not used within this many milliseconds of its expiry
+    private static final long EXPIRY_MARGIN_MILLIS = 5000;
+
+    @FunctionalInterface
+    interface TokenEndpoint {
+
+        /**
+         * @param params the form parameters of the token request
+         * @return the token response
+         */
+        Map<String, Object> requestToken(List<NameValuePair> params) throws IOException;
+    }
+
+    private record Token(
+            String accessToken,
+            long expiresAt,
+            String refreshToken,
+            long refreshExpiresAt
+    ) {
+
+        boolean isValid(long now) {
+            return now < expiresAt - EXPIRY_MARGIN_MILLIS;
+        }
+
+        boolean isRefreshable(long now) {
+            return refreshToken != null && now < refreshExpiresAt - EXPIRY_MARGIN_MILLIS;
+        }
+    }
+
+    private final TokenEndpoint tokenEndpoint;
+    private final String clientId;
+    private final String username;
+    private final String password;
+    private final LongSupplier clock;
+    private final ScheduledExecutorService scheduler;
+
+    private volatile Token token;
+    private ScheduledFuture<?> scheduledRefresh;
+
+    KeycloakTokenProvider(
+            TokenEndpoint tokenEndpoint,
+            String clientId,
+            String username,
+            String password
+    ) {
+        this(tokenEndpoint, clientId, username, password, System::currentTimeMillis);
+    }
+
+    /**
+     * @param clock the current time in milliseconds
+     */
+    KeycloakTokenProvider(
+            TokenEndpoint tokenEndpoint,
+            String clientId,
+            String username,
+            String password,
+            LongSupplier clock
+    ) {
+        this.tokenEndpoint = tokenEndpoint;
+        this.clientId = clientId;
+        this.username = username;
+        this.password = password;
+        this.clock = clock;
+
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "keycloak-token-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    String getAccessToken() {
+
+        Token current = this.token;
+
+        if (current == null || !current.isValid(clock.getAsLong())) {
+
+            current = renew(current);
+        }
+
+        return current.accessToken();
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * @param stale the token the caller found to be invalid, if another thread has replaced it in the meantime the
+     *              replacement is returned without a further request
+     */
+    private synchronized Token renew(Token stale) {
+        logger.debug("<renew");
+
+        Token result = this.token;
+
+        if (result == null || result == stale || !result.isValid(clock.getAsLong())) {
+
+            result = requestToken(result);
+
+            this.token = result;
+
+            scheduleRefresh(result);
+        }
+
+        logger.debug(">renew");
+        return result;
+    }
+
+    private Token requestToken(Token current) {
+
+        long now = clock.getAsLong();
+
+        if (current != null && current.isRefreshable(now)) {
+
+            try {
+                return toToken(tokenEndpoint.requestToken(getRefreshTokenParams(current)), now);
+            } catch (IOException | RuntimeException e) {
+                logger.debug("Refresh token grant failed, falling back to the password grant", e);
+            }
+        }
+
+        try {
+            return toToken(tokenEndpoint.requestToken(getPasswordParams()), now);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private void scheduleRefresh(Token current) {
+
+        if (scheduledRefresh != null) {
+            scheduledRefresh.cancel(false);
+        }
+
+        long now = clock.getAsLong();
+        long delay = (long) ((current.expiresAt() - now) * REFRESH_FRACTION);
+
+        if (!scheduler.isShutdown()) {
+
+            scheduledRefresh = scheduler.schedule(() -> {
+                try {
+                    renew(current);
+                } catch (RuntimeException e) {
+                    // The next caller renews the token in the foreground
+                    logger.warn("Background token refresh failed", e);
+                }
+            }, Math.max(delay, 0), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private List<NameValuePair> getPasswordParams() {
+
+        List<NameValuePair> result = new ArrayList<>();
+        result.add(new BasicNameValuePair("grant_type", "password"));
+        result.add(new BasicNameValuePair("username", username));
+        result.add(new BasicNameValuePair("password", password));
+        result.add(new BasicNameValuePair("client_id", clientId));
+        return result;
+    }
+
+    private List<NameValuePair> getRefreshTokenParams(Token current) {
+
+        List<NameValuePair> result = new ArrayList<>();
+        result.add(new BasicNameValuePair("grant_type", "refresh_token"));
+        result.add(new BasicNameValuePair("refresh_token", current.refreshToken()));
+        result.add(new BasicNameValuePair("client_id", clientId));
+        return result;
+    }
+
+    /**
+     * @param requestedAt when the token was requested, the lifetimes in the response are measured from then
+     */
+    private static Token toToken(Map<String, Object> response, long requestedAt) {
+
+        if (response == null || response.get("access_token") == null) {
+            throw new RuntimeException("No access token returned");
+        }
+
+        long expiresIn = getSeconds(response, "expires_in");
+        logger.debug("expiresIn={}", expiresIn);
+
+        // A token that is already within the expiry margin could never be used, and would be requested on every call
+        if (expiresIn * 1000 <= EXPIRY_MARGIN_MILLIS) {
+            throw new RuntimeException(String.format("Invalid access token lifetime %ss returned", expiresIn));
+        }
+
+        // A refresh_expires_in of zero means the refresh token does not expire
+        long refreshExpiresIn = getSeconds(response, "refresh_expires_in");
+        long refreshExpiresAt = refreshExpiresIn == 0 ? Long.MAX_VALUE : requestedAt + refreshExpiresIn * 1000;
+
+        return new Token(
+                (String) response.get("access_token"),
+                requestedAt + expiresIn * 1000,
+                (String) response.get("refresh_token"),
+                refreshExpiresAt
+        );
+    }
+
+    private static long getSeconds(Map<String, Object> response, String key) {
+
+        Object value = response.get(key);
+
+        return value instanceof Number number ? number.longValue() : 0;
+    }
+}
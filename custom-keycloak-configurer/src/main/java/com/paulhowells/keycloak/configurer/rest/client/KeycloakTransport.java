@@ -0,0 +1,28 @@
+package com.paulhowells.keycloak.configurer.rest.client;
+
+import org.apache.hc.core5.http.ClassicHttpRequest;
+import org.apache.hc.core5.http.io.HttpClientResponseHandler;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The HTTP client used by the Keycloak REST API.
+ */
+interface KeycloakTransport extends Closeable {
+
+    <T> T execute(
+            ClassicHttpRequest request,
+            HttpClientResponseHandler<T> responseHandler
+    ) throws IOException;
+
+    /**
+     * The returned future completes exceptionally with the IOException, or the exception thrown by the response
+     * handler, if the request fails.
+     */
+    <T> CompletableFuture<T> executeAsync(
+            ClassicHttpRequest request,
+            HttpClientResponseHandler<T> responseHandler
+    );
+}
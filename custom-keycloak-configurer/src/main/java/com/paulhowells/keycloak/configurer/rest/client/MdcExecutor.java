@@ -0,0 +1,45 @@
+package com.paulhowells.keycloak.configurer.rest.client;
+
+import org.slf4j.MDC;
+
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * Runs each task with the MDC of the thread that created the executor, so that the work done for a request logs
+ * against the realm and target it was made for, whichever thread it completes on.
+ */
+class MdcExecutor implements Executor {
+
+    private final Executor executor;
+    private final Map<String, String> contextMap;
+
+    MdcExecutor(Executor executor) {
+        this.executor = executor;
+        this.contextMap = MDC.getCopyOfContextMap();
+    }
+
+    @Override
+    public void execute(Runnable command) {
+
+        executor.execute(() -> {
+
+            Map<String, String> previousContextMap = MDC.getCopyOfContextMap();
+            setContextMap(contextMap);
+            try {
+                command.run();
+            } finally {
+                setContextMap(previousContextMap);
+            }
+        });
+    }
+
+    private static void setContextMap(Map<String, String> contextMap) {
+
+        if (contextMap == null) {
+            MDC.clear();
+        } else {
+            MDC.setContextMap(contextMap);
+        }
+    }
+}
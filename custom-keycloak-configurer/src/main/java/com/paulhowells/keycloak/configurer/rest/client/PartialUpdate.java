@@ -0,0 +1,162 @@
+package com.paulhowells.keycloak.configurer.rest.client;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.paulhowells.keycloak.configurer.rest.client.model.BaseModel;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Builds the body of a realm or client PUT that carries only the fields that differ from what the server returned.
+ * <p>
+ * Keycloak merges these PUTs into the existing resource, leaving the fields missing from the body unchanged.  A field
+ * that differs is sent whole and replaces the current value, which is what the lists, e.g. redirectUris and webOrigins,
+ * and the nested objects, e.g. smtpServer, need.  The maps the server merges entry by entry are sent one changed entry
+ * at a time instead, with a removed entry sent as null.  The fields that identify the resource are always sent.
+ * <p>
+ * The models only cover part of the representations, so the fields and the keys of nested objects that only the
+ * server representation has never count as a change.
+ */
+final class PartialUpdate {
+
+    static final List<String> REALM_IDENTITY_FIELDS = List.of("realm");
+    static final Set<String> REALM_MERGED_MAPS = Set.of("attributes");
+
+    static final List<String> CLIENT_IDENTITY_FIELDS = List.of("id", "clientId");
+    static final Set<String> CLIENT_MERGED_MAPS = Set.of("attributes", "authenticationFlowBindingOverrides");
+
+    private PartialUpdate() {
+    }
+
+    /**
+     * @return the fields to send, the whole resource when it was not read from the server, or null when nothing
+     * differs
+     */
+    static ObjectNode getChanges(
+            BaseModel resource,
+            List<String> identityFields,
+            Set<String> mergedMaps
+    ) {
+        ObjectNode updated = KeycloakJsonCodec.mapper.valueToTree(resource);
+
+        Map<String, Object> raw = resource.get_raw();
+        if (raw == null) {
+            return updated;
+        }
+
+        JsonNode current = KeycloakJsonCodec.mapper.valueToTree(raw);
+
+        ObjectNode result = KeycloakJsonCodec.mapper.createObjectNode();
+        boolean changed = false;
+
+        for (Iterator<Map.Entry<String, JsonNode>> fields = updated.fields(); fields.hasNext();) {
+
+            Map.Entry<String, JsonNode> field = fields.next();
+            String name = field.getKey();
+            JsonNode value = field.getValue();
+            JsonNode currentValue = current.get(name);
+
+            if (mergedMaps.contains(name) && value.isObject() && (currentValue == null || currentValue.isObject())) {
+
+                ObjectNode entries = getChangedEntries((ObjectNode) value, currentValue);
+
+                if (!entries.isEmpty()) {
+                    result.set(name, entries);
+                    changed = true;
+                }
+            } else if (!isUnchanged(value, currentValue)) {
+
+                result.set(name, value);
+                changed = true;
+            }
+        }
+
+        if (!changed) {
+            return null;
+        }
+
+        for (String name:identityFields) {
+            if (!result.has(name) && updated.has(name)) {
+                result.set(name, updated.get(name));
+            }
+        }
+
+        return result;
+    }
+
+    private static ObjectNode getChangedEntries(ObjectNode value, JsonNode currentValue) {
+
+        ObjectNode result = KeycloakJsonCodec.mapper.createObjectNode();
+
+        for (Iterator<Map.Entry<String, JsonNode>> entries = value.fields(); entries.hasNext();) {
+
+            Map.Entry<String, JsonNode> entry = entries.next();
+
+            if (!isUnchanged(entry.getValue(), currentValue == null ? null : currentValue.get(entry.getKey()))) {
+                result.set(entry.getKey(), entry.getValue());
+            }
+        }
+
+        if (currentValue != null) {
+            for (Iterator<String> names = currentValue.fieldNames(); names.hasNext();) {
+
+                String name = names.next();
+
+                if (!value.has(name) && !currentValue.get(name).isNull()) {
+                    result.putNull(name);
+                }
+            }
+        }
+
+        return result;
+    }
+
+    private static boolean isUnchanged(JsonNode value, JsonNode currentValue) {
+
+        if (currentValue == null || currentValue.isNull()) {
+            return value.isNull() || (value.isContainerNode() && value.isEmpty());
+        }
+
+        if (value.isObject()) {
+
+            if (!currentValue.isObject()) {
+                return false;
+            }
+
+            for (Iterator<Map.Entry<String, JsonNode>> fields = value.fields(); fields.hasNext();) {
+
+                Map.Entry<String, JsonNode> field = fields.next();
+
+                if (!isUnchanged(field.getValue(), currentValue.get(field.getKey()))) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        if (value.isArray()) {
+
+            if (!currentValue.isArray() || value.size() != currentValue.size()) {
+                return false;
+            }
+
+            for (int i = 0; i < value.size(); ++i) {
+                if (!isUnchanged(value.get(i), currentValue.get(i))) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        if (value.isNumber() && currentValue.isNumber()) {
+            return value.decimalValue().compareTo(currentValue.decimalValue()) == 0;
+        }
+
+        return value.equals(currentValue);
+    }
+}
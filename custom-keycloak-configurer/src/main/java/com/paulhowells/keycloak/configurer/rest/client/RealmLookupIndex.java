@@ -0,0 +1,141 @@
+package com.paulhowells.keycloak.configurer.rest.client;
+
+import com.paulhowells.keycloak.configurer.rest.client.model.Flow;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * Maps the ids of the top level flows and the clients of a realm to their aliases and client ids, and back.
+ * <p>
+ * Each realm is filled in bulk, from the flow list and the paged client list, the first time it is looked up, and is
+ * then kept for the run.  Unlike the snapshot it survives writes to the realm, since updates never change the ids or
+ * the names.  A lookup that misses reloads the realm, to pick up resources created since, but only when the realm has
+ * been written to since it was loaded, otherwise the miss stands.  A realm is dropped when a flow, a client, or the
+ * realm itself is deleted.
+ * <p>
+ * A realm is loaded by the first thread to look it up, and the threads that look it up meanwhile wait for that load.
+ */
+public class RealmLookupIndex {
+    private static final Logger logger = LoggerFactory.getLogger(RealmLookupIndex.class);
+
+    /**
+     * @param generation the generation of the realm when the load started
+     */
+    private record Index(
+            Map<String, String> flowAliasesById,
+            Map<String, String> flowIdsByAlias,
+            Map<String, String> clientIdsById,
+            long generation
+    ) {
+    }
+
+    private final KeycloakRestApi keycloakRestApi;
+    private final ConcurrentMap<String, CompletableFuture<Index>> indexesByRealm = new ConcurrentHashMap<>();
+
+    RealmLookupIndex(KeycloakRestApi keycloakRestApi) {
+        this.keycloakRestApi = keycloakRestApi;
+    }
+
+    /**
+     * @return the alias of the top level flow, or null when the realm has no such flow
+     */
+    public String getFlowAlias(String realmName, String id) {
+        return lookup(realmName, id, Index::flowAliasesById);
+    }
+
+    /**
+     * @return the id of the top level flow, or null when the realm has no such flow
+     */
+    public String getFlowId(String realmName, String alias) {
+        return lookup(realmName, alias, Index::flowIdsByAlias);
+    }
+
+    /**
+     * @return the client id of the client, or null when the realm has no such client
+     */
+    public String getClientId(String realmName, String id) {
+        return lookup(realmName, id, Index::clientIdsById);
+    }
+
+    void clear() {
+        indexesByRealm.clear();
+    }
+
+    void clear(String realmName) {
+        indexesByRealm.remove(realmName);
+    }
+
+    private String lookup(String realmName, String key, Function<Index, Map<String, String>> getMap) {
+
+        Index index = getIndex(realmName);
+        String result = getMap.apply(index).get(key);
+
+        if (result == null && index.generation() < keycloakRestApi.getRealmGeneration(realmName)) {
+
+            // The resource may have been created since the realm was loaded
+            indexesByRealm.computeIfPresent(realmName, (k, future) -> future.getNow(null) == index ? null : future);
+
+            result = getMap.apply(getIndex(realmName)).get(key);
+        }
+
+        return result;
+    }
+
+    private Index getIndex(String realmName) {
+
+        CompletableFuture<Index> result = indexesByRealm.get(realmName);
+
+        if (result == null) {
+
+            CompletableFuture<Index> loading = new CompletableFuture<>();
+
+            result = indexesByRealm.putIfAbsent(realmName, loading);
+
+            if (result == null) {
+
+                result = loading;
+
+                try {
+                    loading.complete(load(realmName));
+                } catch (RuntimeException e) {
+                    indexesByRealm.remove(realmName, loading);
+                    loading.completeExceptionally(e);
+                }
+            }
+        }
+
+        return KeycloakRestApi.join(result);
+    }
+
+    private Index load(String realmName) {
+        logger.debug("<load {}", realmName);
+
+        long generation = keycloakRestApi.getRealmGeneration(realmName);
+
+        Map<String, String> flowAliasesById = new HashMap<>();
+        Map<String, String> flowIdsByAlias = new HashMap<>();
+        Map<String, String> clientIdsById = new HashMap<>();
+
+        List<Flow> flows = keycloakRestApi.getTopLevelFlows(realmName);
+        if (flows != null) {
+            for (Flow flow:flows) {
+                flowAliasesById.put(flow.getId(), flow.getAlias());
+                flowIdsByAlias.put(flow.getAlias(), flow.getId());
+            }
+        }
+
+        keycloakRestApi.getClientPager(realmName).stream()
+                .forEach(client -> clientIdsById.put(client.getId(), client.getClientId()));
+
+        logger.debug(">load {} flows={} clients={}", realmName, flowAliasesById.size(), clientIdsById.size());
+        return new Index(flowAliasesById, flowIdsByAlias, clientIdsById, generation);
+    }
+}
@@ -0,0 +1,290 @@
+package com.paulhowells.keycloak.configurer.rest.client;
+
+import org.apache.hc.core5.http.ClassicHttpResponse;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.io.entity.ByteArrayEntity;
+import org.apache.hc.core5.http.message.BasicClassicHttpResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.URI;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Read-through snapshot of the remote Keycloak state for the duration of a run.
+ * <p>
+ * Successful and not found GET responses are kept as raw bytes keyed by URL and replayed through the response handlers,
+ * so every read returns freshly decoded models that callers are free to modify.  Entries are grouped by realm, and a
+ * write to a realm only discards the entries it may have changed: the resource written and everything below it, the
+ * collections and the realm above it, and the realm list.  Some writes reach further:
+ * <ul>
+ *     <li>any write to the authentication flows, the identity providers, or the user profile discards all the entries of
+ *     that kind, e.g. deleting an execution changes the executions of its parent flow</li>
+ *     <li>any write to a role, and deleting a client, discards all the realm and client role entries, as the composites
+ *     refer to roles by id</li>
+ *     <li>creating, updating, or deleting a client scope, a partial import, or a write to anything else discards the
+ *     whole realm</li>
+ * </ul>
+ * A write to the realm itself discards the whole realm and the realm list, and a write outside any realm discards
+ * everything.
+ */
+class RemoteStateSnapshot {
+    private static final Logger logger = LoggerFactory.getLogger(RemoteStateSnapshot.class);
+
+    private static final String ADMIN_REALMS_PATH = "/admin/realms";
+
+    // Realm list, and any other resources not scoped to a realm
+    private static final String NO_REALM = "";
+
+    // The collections whose writes are contained to the collection, within a realm
+    private static final Set<String> CONTAINED_COLLECTIONS = Set.of(
+            "authentication",
+            "identity-provider",
+            "users",
+            "default-default-client-scopes",
+            "default-optional-client-scopes"
+    );
+
+    record Entry(int statusCode, String location, byte[] body) {
+
+        ClassicHttpResponse toResponse() {
+
+            BasicClassicHttpResponse result = new BasicClassicHttpResponse(statusCode);
+
+            if (location != null) {
+                result.setHeader("Location", location);
+            }
+
+            if (body != null) {
+                result.setEntity(new ByteArrayEntity(body, ContentType.APPLICATION_JSON));
+            }
+
+            return result;
+        }
+    }
+
+    /**
+     * @param realmPath the path below the realm, used to decide which writes discard the entry
+     */
+    private record StoredEntry(String realmPath, Entry entry) {
+    }
+
+    private final Map<String, Map<String, StoredEntry>> entriesByRealm = new ConcurrentHashMap<>();
+
+    // Incremented by every write, a read can be stored as long as its realm has not been written to since it started
+    private long generation = 0;
+    private final Map<String, Long> realmGenerations = new HashMap<>();
+    private long clearedGeneration = 0;
+
+    /**
+     * @return the generation to pass to {@link #put} once the read has completed
+     */
+    synchronized long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * @return the generation of the last write to the realm, or of the last clear
+     */
+    synchronized long getRealmGeneration(String realmName) {
+        return Math.max(clearedGeneration, realmGenerations.getOrDefault(realmName, 0L));
+    }
+
+    Entry get(URI uri) {
+
+        Map<String, StoredEntry> entries = entriesByRealm.get(getRealmName(uri));
+        StoredEntry stored = entries == null ? null : entries.get(uri.toString());
+
+        return stored == null ? null : stored.entry();
+    }
+
+    /**
+     * @param readGeneration the generation when the read was issued, the entry is dropped if the realm has been written
+     *                       to since
+     */
+    synchronized void put(URI uri, Entry entry, long readGeneration) {
+
+        String realmName = getRealmName(uri);
+
+        if (clearedGeneration <= readGeneration && realmGenerations.getOrDefault(realmName, 0L) <= readGeneration) {
+
+            entriesByRealm.computeIfAbsent(realmName, k -> new ConcurrentHashMap<>())
+                    .put(uri.toString(), new StoredEntry(getRealmPath(uri), entry));
+        }
+    }
+
+    synchronized void invalidate(String method, URI uri) {
+
+        String realmName = getRealmName(uri);
+        String realmPath = getRealmPath(uri);
+
+        if (NO_REALM.equals(realmName)) {
+
+            logger.debug("Clearing snapshot after write to {}", uri);
+            clear();
+        } else if (realmPath.isEmpty()) {
+
+            logger.debug("Clearing snapshot of realm {} after {} {}", realmName, method, uri);
+            clear(realmName);
+        } else {
+
+            logger.debug("Clearing snapshot of realm {} after {} {}", realmName, method, uri);
+
+            realmGenerations.put(realmName, ++generation);
+            realmGenerations.put(NO_REALM, generation);
+            entriesByRealm.remove(NO_REALM);
+
+            Map<String, StoredEntry> entries = entriesByRealm.get(realmName);
+            if (entries != null) {
+                entries.values().removeIf(it -> isAffected(method, realmPath, it.realmPath()));
+            }
+        }
+    }
+
+    synchronized void clear() {
+
+        clearedGeneration = ++generation;
+        realmGenerations.clear();
+        entriesByRealm.clear();
+    }
+
+    synchronized void clear(String realmName) {
+
+        realmGenerations.put(realmName, ++generation);
+        realmGenerations.put(NO_REALM, generation);
+        entriesByRealm.remove(realmName);
+        entriesByRealm.remove(NO_REALM);
+    }
+
+    /**
+     * Drop the entries at or below the path, and the pages of the collection it belongs to, without counting as a
+     * write, so that reads in flight elsewhere in the realm are still kept.
+     *
+     * @param realmPath the path below the realm, e.g. /clients/{id}
+     */
+    void evict(String realmName, String realmPath) {
+
+        String[] segments = getSegments(realmPath);
+        String[] collectionSegments = Arrays.copyOf(segments, Math.max(segments.length - 1, 0));
+
+        Map<String, StoredEntry> entries = entriesByRealm.get(realmName);
+        if (entries != null) {
+            entries.values().removeIf(it -> {
+                String[] entrySegments = getSegments(it.realmPath());
+                return isPrefix(segments, entrySegments) || Arrays.equals(collectionSegments, entrySegments);
+            });
+        }
+    }
+
+    /**
+     * @param writePath the path written, below the realm
+     * @param readPath the path read, below the same realm
+     * @return whether the write may have changed what was read
+     */
+    static boolean isAffected(String method, String writePath, String readPath) {
+
+        String[] writeSegments = getSegments(writePath);
+        String[] readSegments = getSegments(readPath);
+
+        if (writeSegments.length == 0 || isPrefix(writeSegments, readSegments) || isPrefix(readSegments, writeSegments)) {
+            return true;
+        }
+
+        String collection = writeSegments[0];
+
+        if (CONTAINED_COLLECTIONS.contains(collection)) {
+            return readSegments.length > 0 && collection.equals(readSegments[0]);
+        }
+
+        if ("clients".equals(collection)) {
+            boolean roleWrite = writeSegments.length > 2 && "roles".equals(writeSegments[2]);
+            boolean clientDelete = writeSegments.length == 2 && "DELETE".equalsIgnoreCase(method);
+            return (roleWrite || clientDelete) && isRolePath(readSegments);
+        }
+
+        if ("roles".equals(collection) || "roles-by-id".equals(collection)) {
+            return isRolePath(readSegments);
+        }
+
+        if ("client-scopes".equals(collection) && writeSegments.length > 2) {
+            // A protocol mapper of the scope
+            return false;
+        }
+
+        return true;
+    }
+
+    private static boolean isRolePath(String[] segments) {
+
+        if (segments.length > 0 && ("roles".equals(segments[0]) || "roles-by-id".equals(segments[0]))) {
+            return true;
+        }
+
+        return segments.length > 2 && "clients".equals(segments[0]) && "roles".equals(segments[2]);
+    }
+
+    private static boolean isPrefix(String[] prefix, String[] segments) {
+
+        if (prefix.length > segments.length) {
+            return false;
+        }
+
+        for (int i = 0; i < prefix.length; ++i) {
+            if (!prefix[i].equals(segments[i])) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static String[] getSegments(String path) {
+        return path.isEmpty() ? new String[0] : path.substring(1).split("/");
+    }
+
+    static String getRealmName(URI uri) {
+        String result = NO_REALM;
+
+        String path = uri.getPath();
+        int index = path == null ? -1 : path.indexOf(ADMIN_REALMS_PATH + "/");
+
+        if (index >= 0) {
+
+            String remainder = path.substring(index + ADMIN_REALMS_PATH.length() + 1);
+            int endIndex = remainder.indexOf('/');
+
+            result = endIndex < 0 ? remainder : remainder.substring(0, endIndex);
+        }
+
+        return result;
+    }
+
+    /**
+     * @return the path below the realm without the query, e.g. /clients/{id}/protocol-mappers/models, or an empty path
+     * for the realm itself and anything outside a realm
+     */
+    static String getRealmPath(URI uri) {
+        String result = "";
+
+        String path = uri.getPath();
+        int index = path == null ? -1 : path.indexOf(ADMIN_REALMS_PATH + "/");
+
+        if (index >= 0) {
+
+            String remainder = path.substring(index + ADMIN_REALMS_PATH.length() + 1);
+            int endIndex = remainder.indexOf('/');
+
+            result = endIndex < 0 ? "" : remainder.substring(endIndex);
+
+            while (result.endsWith("/")) {
+                result = result.substring(0, result.length() - 1);
+            }
+        }
+
+        return result;
+    }
+}
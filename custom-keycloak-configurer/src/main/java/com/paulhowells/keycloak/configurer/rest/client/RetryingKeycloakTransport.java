@@ -0,0 +1,302 @@
+package com.paulhowells.keycloak.configurer.rest.client;
+
+import org.apache.hc.client5.http.ClientProtocolException;
+import org.apache.hc.core5.http.ClassicHttpRequest;
+import org.apache.hc.core5.http.ClassicHttpResponse;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpException;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.HttpStatus;
+import org.apache.hc.core5.http.Method;
+import org.apache.hc.core5.http.io.HttpClientResponseHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.net.ssl.SSLException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.net.URISyntaxException;
+import java.net.UnknownHostException;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends each request through the adaptive concurrency limiter, and retries idempotent requests that fail transiently.
+ * <p>
+ * GET, PUT, DELETE, and HEAD requests are retried after a 429, 502, 503, or 504 response, or an I/O error other than an
+ * unknown host or a TLS failure.  The delay before each retry is drawn at random from an exponentially growing window,
+ * and is at least as long as any Retry-After the server sent.  Responses that are not retried are passed to the
+ * response handler unchanged.
+ */
+class RetryingKeycloakTransport implements KeycloakTransport {
+    private static final Logger logger = LoggerFactory.getLogger(RetryingKeycloakTransport.class);
+
+    private static final int MAX_ATTEMPTS = 4;
+
+    private static final long BASE_DELAY_MILLIS = 200;
+    private static final long MAX_DELAY_MILLIS = 10000;
+    private static final long MAX_RETRY_AFTER_MILLIS = 30000;
+
+    private static final Set<Integer> RETRYABLE_STATUS_CODES = Set.of(
+            HttpStatus.SC_TOO_MANY_REQUESTS,
+            HttpStatus.SC_BAD_GATEWAY,
+            HttpStatus.SC_SERVICE_UNAVAILABLE,
+            HttpStatus.SC_GATEWAY_TIMEOUT
+    );
+
+    private static final Set<Integer> OVERLOADED_STATUS_CODES = Set.of(
+            HttpStatus.SC_TOO_MANY_REQUESTS,
+            HttpStatus.SC_SERVICE_UNAVAILABLE
+    );
+
+    private final KeycloakTransport transport;
+    private final AdaptiveConcurrencyLimiter limiter;
+
+    RetryingKeycloakTransport(
+            KeycloakTransport transport,
+            AdaptiveConcurrencyLimiter limiter
+    ) {
+        this.transport = transport;
+        this.limiter = limiter;
+    }
+
+    @Override
+    public <T> T execute(
+            ClassicHttpRequest request,
+            HttpClientResponseHandler<T> responseHandler
+    ) throws IOException {
+
+        boolean idempotent = isIdempotent(request);
+        String endpoint = getEndpoint(request);
+
+        for (int attempt = 1; ; ++attempt) {
+
+            Attempt<T> handler = new Attempt<>(responseHandler, idempotent && attempt < MAX_ATTEMPTS);
+
+            acquire();
+
+            long start = System.nanoTime();
+            long delay;
+            try {
+                return transport.execute(request, handler);
+            } catch (RetryableResponseException e) {
+
+                delay = getDelay(attempt, e.retryAfterMillis);
+                logRetry(request, attempt, delay, e.getMessage());
+            } catch (IOException e) {
+
+                handler.timedOut = e instanceof SocketTimeoutException;
+
+                if (!idempotent || attempt >= MAX_ATTEMPTS || !isRetryable(e)) {
+                    throw e;
+                }
+
+                delay = getDelay(attempt, 0);
+                logRetry(request, attempt, delay, e.toString());
+            } finally {
+                limiter.release(endpoint, System.nanoTime() - start, handler.isOverloaded());
+            }
+
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException(e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public <T> CompletableFuture<T> executeAsync(
+            ClassicHttpRequest request,
+            HttpClientResponseHandler<T> responseHandler
+    ) {
+        // A permit, or a retry delay, can end on any thread, the attempts are made with the MDC of the caller
+        Executor callerExecutor = new MdcExecutor(Runnable::run);
+
+        return executeAsync(request, responseHandler, isIdempotent(request), 1, callerExecutor);
+    }
+
+    private <T> CompletableFuture<T> executeAsync(
+            ClassicHttpRequest request,
+            HttpClientResponseHandler<T> responseHandler,
+            boolean idempotent,
+            int attempt,
+            Executor callerExecutor
+    ) {
+        Attempt<T> handler = new Attempt<>(responseHandler, idempotent && attempt < MAX_ATTEMPTS);
+        String endpoint = getEndpoint(request);
+
+        return limiter.acquire().thenComposeAsync(ignored -> {
+
+            long start = System.nanoTime();
+
+            return transport.executeAsync(request, handler).handle((response, e) -> {
+
+                Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+
+                handler.timedOut = cause instanceof SocketTimeoutException;
+
+                limiter.release(endpoint, System.nanoTime() - start, handler.isOverloaded());
+
+                if (cause == null) {
+                    return CompletableFuture.completedFuture(response);
+                }
+
+                long delay;
+                if (cause instanceof RetryableResponseException retryableResponseException) {
+
+                    delay = getDelay(attempt, retryableResponseException.retryAfterMillis);
+                    logRetry(request, attempt, delay, cause.getMessage());
+                } else if (idempotent && attempt < MAX_ATTEMPTS && cause instanceof IOException ioException && isRetryable(ioException)) {
+
+                    delay = getDelay(attempt, 0);
+                    logRetry(request, attempt, delay, cause.toString());
+                } else {
+
+                    return CompletableFuture.<T>failedFuture(cause);
+                }
+
+                return CompletableFuture.runAsync(() -> {}, CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS, callerExecutor))
+                        .thenCompose(it -> executeAsync(request, responseHandler, idempotent, attempt + 1, callerExecutor));
+            }).thenCompose(it -> it);
+        }, callerExecutor);
+    }
+
+    @Override
+    public void close() throws IOException {
+        transport.close();
+    }
+
+    private void acquire() throws IOException {
+
+        CompletableFuture<Void> permit = limiter.acquire();
+
+        try {
+            permit.get();
+        } catch (InterruptedException e) {
+
+            // Give the permit back if it was granted while we were being interrupted
+            if (!permit.cancel(false)) {
+                limiter.release(null, 0, false);
+            }
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(e.getMessage());
+        } catch (ExecutionException | CancellationException e) {
+            throw new IOException(e);
+        }
+    }
+
+    private static String getEndpoint(ClassicHttpRequest request) {
+
+        try {
+            return KeycloakMetrics.getEndpoint(request.getMethod(), request.getUri());
+        } catch (URISyntaxException e) {
+            return String.format("%s %s", request.getMethod(), request.getRequestUri());
+        }
+    }
+
+    private static boolean isIdempotent(ClassicHttpRequest request) {
+
+        String method = request.getMethod();
+
+        boolean result = Method.GET.isSame(method)
+                || Method.PUT.isSame(method)
+                || Method.DELETE.isSame(method)
+                || Method.HEAD.isSame(method);
+
+        // The body has to be sent again
+        return result && (request.getEntity() == null || request.getEntity().isRepeatable());
+    }
+
+    private static boolean isRetryable(IOException e) {
+
+        return !(e instanceof ClientProtocolException)
+                && !(e instanceof UnknownHostException)
+                && !(e instanceof SSLException)
+                && !(e instanceof InterruptedIOException && !(e instanceof SocketTimeoutException));
+    }
+
+    static long getDelay(int attempt, long retryAfterMillis) {
+
+        long window = Math.min(MAX_DELAY_MILLIS, BASE_DELAY_MILLIS << (attempt - 1));
+
+        return Math.max(ThreadLocalRandom.current().nextLong(window + 1), retryAfterMillis);
+    }
+
+    private static void logRetry(ClassicHttpRequest request, int attempt, long delay, String reason) {
+
+        logger.warn("Retrying {} {} in {}ms after attempt {} failed: {}", request.getMethod(), request.getRequestUri(), delay, attempt, reason);
+    }
+
+    /**
+     * Records the status of the response, and rejects a retryable response before it reaches the response handler.
+     */
+    private static class Attempt<T> implements HttpClientResponseHandler<T> {
+
+        private final HttpClientResponseHandler<T> responseHandler;
+        private final boolean retryable;
+
+        private volatile int statusCode;
+        private volatile boolean timedOut;
+
+        Attempt(
+                HttpClientResponseHandler<T> responseHandler,
+                boolean retryable
+        ) {
+            this.responseHandler = responseHandler;
+            this.retryable = retryable;
+        }
+
+        boolean isOverloaded() {
+            return timedOut || OVERLOADED_STATUS_CODES.contains(statusCode);
+        }
+
+        @Override
+        public T handleResponse(ClassicHttpResponse response) throws HttpException, IOException {
+
+            statusCode = response.getCode();
+
+            if (retryable && RETRYABLE_STATUS_CODES.contains(statusCode)) {
+
+                throw new RetryableResponseException(statusCode, getRetryAfterMillis(response));
+            }
+
+            return responseHandler.handleResponse(response);
+        }
+
+        private static long getRetryAfterMillis(ClassicHttpResponse response) {
+
+            Header header = response.getFirstHeader(HttpHeaders.RETRY_AFTER);
+
+            if (header != null) {
+
+                // Only the delay in seconds form is supported, a date is ignored
+                try {
+                    return Math.min(MAX_RETRY_AFTER_MILLIS, Math.max(0, Long.parseLong(header.getValue().trim()) * 1000));
+                } catch (NumberFormatException e) {
+                    logger.debug("Ignoring Retry-After {}", header.getValue());
+                }
+            }
+
+            return 0;
+        }
+    }
+
+    private static class RetryableResponseException extends IOException {
+
+        private final long retryAfterMillis;
+
+        RetryableResponseException(int statusCode, long retryAfterMillis) {
+            super("Http Response code " + statusCode);
+            this.retryAfterMillis = retryAfterMillis;
+        }
+    }
+}
@@ -20,6 +20,7 @@ public class FlowExecution extends BaseModel {
     private String providerId;
     private int level;
     private int index;
+    private Integer priority;
     private String authenticationConfig;
     private String flowId;
 
@@ -103,6 +104,14 @@ public class FlowExecution extends BaseModel {
         this.index = index;
     }
 
+    public Integer getPriority() {
+        return priority;
+    }
+
+    public void setPriority(Integer priority) {
+        this.priority = priority;
+    }
+
     public String getAuthenticationConfig() {
         return authenticationConfig;
     }
@@ -0,0 +1,88 @@
+package com.paulhowells.keycloak.configurer.rest.client.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The body of a create realm request, with the parts of the realm representation that are only accepted on create.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class NewRealm extends Realm {
+
+    private List<String> eventsListeners;
+    private Boolean eventsEnabled;
+    private String eventsExpiration;
+    private List<String> enabledEventTypes;
+    private Boolean adminEventsEnabled;
+    private Boolean adminEventsDetailsEnabled;
+    private PartialImport.Roles roles;
+    private List<IdentityProviderMapper> identityProviderMappers = new ArrayList<>();
+
+    public List<String> getEventsListeners() {
+        return eventsListeners;
+    }
+
+    public void setEventsListeners(List<String> eventsListeners) {
+        this.eventsListeners = eventsListeners;
+    }
+
+    public Boolean getEventsEnabled() {
+        return eventsEnabled;
+    }
+
+    public void setEventsEnabled(Boolean eventsEnabled) {
+        this.eventsEnabled = eventsEnabled;
+    }
+
+    public String getEventsExpiration() {
+        return eventsExpiration;
+    }
+
+    public void setEventsExpiration(String eventsExpiration) {
+        this.eventsExpiration = eventsExpiration;
+    }
+
+    public List<String> getEnabledEventTypes() {
+        return enabledEventTypes;
+    }
+
+    public void setEnabledEventTypes(List<String> enabledEventTypes) {
+        this.enabledEventTypes = enabledEventTypes;
+    }
+
+    public Boolean getAdminEventsEnabled() {
+        return adminEventsEnabled;
+    }
+
+    public void setAdminEventsEnabled(Boolean adminEventsEnabled) {
+        this.adminEventsEnabled = adminEventsEnabled;
+    }
+
+    public Boolean getAdminEventsDetailsEnabled() {
+        return adminEventsDetailsEnabled;
+    }
+
+    public void setAdminEventsDetailsEnabled(Boolean adminEventsDetailsEnabled) {
+        this.adminEventsDetailsEnabled = adminEventsDetailsEnabled;
+    }
+
+    public PartialImport.Roles getRoles() {
+        return roles;
+    }
+
+    public void setRoles(PartialImport.Roles roles) {
+        this.roles = roles;
+    }
+
+    public List<IdentityProviderMapper> getIdentityProviderMappers() {
+        return identityProviderMappers;
+    }
+
+    public void setIdentityProviderMappers(List<IdentityProviderMapper> identityProviderMappers) {
+        this.identityProviderMappers = identityProviderMappers;
+    }
+}
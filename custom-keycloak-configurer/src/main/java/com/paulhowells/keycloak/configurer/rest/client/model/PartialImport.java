@@ -0,0 +1,79 @@
+package com.paulhowells.keycloak.configurer.rest.client.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The body of a realm partialImport request.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class PartialImport extends BaseModel {
+
+    public static final String IF_RESOURCE_EXISTS_FAIL = "FAIL";
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class Roles {
+
+        private List<Role> realm;
+
+        public List<Role> getRealm() {
+            return realm;
+        }
+
+        public void setRealm(List<Role> realm) {
+            this.realm = realm;
+        }
+    }
+
+    private String ifResourceExists = IF_RESOURCE_EXISTS_FAIL;
+
+    private List<Client> clients;
+
+    private Roles roles;
+
+    public String getIfResourceExists() {
+        return ifResourceExists;
+    }
+
+    public void setIfResourceExists(String ifResourceExists) {
+        this.ifResourceExists = ifResourceExists;
+    }
+
+    public List<Client> getClients() {
+        return clients;
+    }
+
+    public void setClients(List<Client> clients) {
+        this.clients = clients;
+    }
+
+    public Roles getRoles() {
+        return roles;
+    }
+
+    public void setRoles(Roles roles) {
+        this.roles = roles;
+    }
+
+    public static PartialImport ofClients(List<Client> clients) {
+
+        PartialImport result = new PartialImport();
+        result.setClients(new ArrayList<>(clients));
+
+        return result;
+    }
+
+    public static PartialImport ofRealmRoles(List<Role> roles) {
+
+        PartialImport result = new PartialImport();
+        result.setRoles(new Roles());
+        result.getRoles().setRealm(new ArrayList<>(roles));
+
+        return result;
+    }
+}
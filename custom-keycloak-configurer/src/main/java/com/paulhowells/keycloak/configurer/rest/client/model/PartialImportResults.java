@@ -0,0 +1,102 @@
+package com.paulhowells.keycloak.configurer.rest.client.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The response to a realm partialImport request.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class PartialImportResults extends BaseModel {
+
+    public static final String ACTION_ADDED = "ADDED";
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class Result {
+
+        private String action;
+
+        private String resourceType;
+
+        private String resourceName;
+
+        private String id;
+
+        public String getAction() {
+            return action;
+        }
+
+        public void setAction(String action) {
+            this.action = action;
+        }
+
+        public String getResourceType() {
+            return resourceType;
+        }
+
+        public void setResourceType(String resourceType) {
+            this.resourceType = resourceType;
+        }
+
+        public String getResourceName() {
+            return resourceName;
+        }
+
+        public void setResourceName(String resourceName) {
+            this.resourceName = resourceName;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public void setId(String id) {
+            this.id = id;
+        }
+    }
+
+    private Integer added;
+
+    private Integer skipped;
+
+    private Integer overwritten;
+
+    private List<Result> results = new ArrayList<>();
+
+    public Integer getAdded() {
+        return added;
+    }
+
+    public void setAdded(Integer added) {
+        this.added = added;
+    }
+
+    public Integer getSkipped() {
+        return skipped;
+    }
+
+    public void setSkipped(Integer skipped) {
+        this.skipped = skipped;
+    }
+
+    public Integer getOverwritten() {
+        return overwritten;
+    }
+
+    public void setOverwritten(Integer overwritten) {
+        this.overwritten = overwritten;
+    }
+
+    public List<Result> getResults() {
+        return results;
+    }
+
+    public void setResults(List<Result> results) {
+        this.results = results;
+    }
+}
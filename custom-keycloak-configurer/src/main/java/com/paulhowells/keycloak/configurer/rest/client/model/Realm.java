@@ -32,6 +32,7 @@ public class Realm extends BaseModel {
     private Boolean editUsernameAllowed;
     private String passwordPolicy;
     private Boolean enabled;
+    private Boolean adminEventsEnabled;
     private Map<String, String> attributes = new HashMap<>();
     private List<IdentityProvider> identityProviders = new ArrayList<>();
     private SmtpServer smtpServer;
@@ -200,6 +201,14 @@ public class Realm extends BaseModel {
         this.enabled = enabled;
     }
 
+    public Boolean getAdminEventsEnabled() {
+        return adminEventsEnabled;
+    }
+
+    public void setAdminEventsEnabled(Boolean adminEventsEnabled) {
+        this.adminEventsEnabled = adminEventsEnabled;
+    }
+
     public Map<String, String> getAttributes() {
         return attributes;
     }
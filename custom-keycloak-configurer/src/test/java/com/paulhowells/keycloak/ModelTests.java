@@ -5,6 +5,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
 import com.paulhowells.keycloak.configurer.KeycloakConfigurer;
 import com.paulhowells.keycloak.configurer.model.ClientDefinition;
+import com.paulhowells.keycloak.configurer.model.DefinitionDiff;
 import com.paulhowells.keycloak.configurer.model.KeycloakDefinition;
 import com.paulhowells.keycloak.configurer.model.RealmDefinition;
 import com.paulhowells.keycloak.configurer.rest.client.KeycloakRestApi;
@@ -16,6 +17,8 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
+import static org.junit.jupiter.api.Assertions.*;
+
 public class ModelTests {
     private static final Logger logger = LoggerFactory.getLogger(ModelTests.class);
 
@@ -76,6 +79,38 @@ public class ModelTests {
         logger.debug(">test");
     }
 
+    @Test
+    public void diffTest() {
+        logger.debug("<diffTest");
+
+        ClientDefinition current = new ClientDefinition();
+        current.setClientId("app-ui");
+        current.setClientSecret("password");
+        current.getGrantTypes().getAuthorizationCode().setWebOrigins(new ArrayList<>(List.of("app.com")));
+
+        ClientDefinition updated = new ClientDefinition();
+        updated.setClientId("app-ui");
+        updated.setClientSecret("password");
+        updated.getGrantTypes().getAuthorizationCode().setWebOrigins(new ArrayList<>(List.of("app.com")));
+
+        assertTrue(current.getChanges(updated, null).isEmpty());
+        assertTrue(current.isUnchanged(updated, null, logger));
+
+        updated.setClientSecret("secret");
+        updated.getGrantTypes().getAuthorizationCode().getWebOrigins().add("admin.app.com");
+
+        List<DefinitionDiff.Change> changes = current.getChanges(updated, "client");
+
+        assertEquals(2, changes.size());
+        assertEquals("client.clientSecret", changes.get(0).path());
+        assertTrue(changes.get(0).sensitive());
+        assertEquals("client.grantTypes.authorizationCode.webOrigins[1]", changes.get(1).path());
+        assertEquals(DefinitionDiff.ChangeType.ADDED, changes.get(1).type());
+        assertFalse(current.isUnchanged(updated, null, logger));
+
+        logger.debug(">diffTest");
+    }
+
     @Test
     public void paulhowellsTest() throws IOException {
 
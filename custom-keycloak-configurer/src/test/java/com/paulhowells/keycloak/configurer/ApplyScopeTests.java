@@ -0,0 +1,128 @@
+package com.paulhowells.keycloak.configurer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.paulhowells.keycloak.configurer.model.AuthenticationFlowDefinition;
+import com.paulhowells.keycloak.configurer.model.ClientDefinition;
+import com.paulhowells.keycloak.configurer.model.GoogleIdentityProvider;
+import com.paulhowells.keycloak.configurer.model.KeycloakDefinition;
+import com.paulhowells.keycloak.configurer.model.RealmDefinition;
+import com.paulhowells.keycloak.configurer.model.ScopeDefinition;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+import static com.paulhowells.keycloak.configurer.ApplyScope.Kind.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ApplyScopeTests {
+
+    private static final Logger logger = LoggerFactory.getLogger(ApplyScopeTests.class);
+
+    private static KeycloakDefinition keycloakDefinition() {
+
+        KeycloakDefinition result = new KeycloakDefinition();
+
+        RealmDefinition realmDefinition = new RealmDefinition();
+        realmDefinition.setRealmName("app");
+        result.getRealms().add(realmDefinition);
+
+        AuthenticationFlowDefinition flowDefinition = new AuthenticationFlowDefinition();
+        flowDefinition.setRealmName("app");
+        flowDefinition.setAlias("custom-browser");
+        result.getAuthenticationFlows().add(flowDefinition);
+
+        ClientDefinition clientDefinition = new ClientDefinition();
+        clientDefinition.setRealmName("app");
+        clientDefinition.setClientId("portal");
+        result.getClients().add(clientDefinition);
+
+        return result;
+    }
+
+    private static ApplyScope only(ApplyScope.Kind... kinds) {
+        return new ApplyScope(Set.of(), EnumSet.of(kinds[0], kinds));
+    }
+
+    @Test
+    public void clientsIncludeTheFlowsTheyOverride() {
+
+        KeycloakDefinition keycloakDefinition = keycloakDefinition();
+        keycloakDefinition.getClients().get(0).getGrantTypes().getAuthorizationCode().setFlowOverride("custom-browser");
+
+        assertEquals(EnumSet.of(CLIENTS, FLOWS), only(CLIENTS).withDependencies(keycloakDefinition, logger).kinds());
+    }
+
+    @Test
+    public void clientsIncludeTheScopesTheyAssign() {
+
+        KeycloakDefinition keycloakDefinition = keycloakDefinition();
+        keycloakDefinition.getRealms().get(0).getScopes().put("audit", new ScopeDefinition());
+
+        ClientDefinition.Scope scope = new ClientDefinition.Scope();
+        scope.setName("audit");
+        scope.setType("default");
+        keycloakDefinition.getClients().get(0).getScopes().put("audit", scope);
+
+        assertEquals(EnumSet.of(CLIENTS, SCOPES), only(CLIENTS).withDependencies(keycloakDefinition, logger).kinds());
+    }
+
+    @Test
+    public void rolesIncludeTheClientsOfTheDefaultRolesAndTheirDependencies() {
+
+        KeycloakDefinition keycloakDefinition = keycloakDefinition();
+        keycloakDefinition.getClients().get(0).getGrantTypes().getPassword().setFlowOverride("custom-browser");
+
+        RealmDefinition.DefaultRole defaultRole = new RealmDefinition.DefaultRole();
+        defaultRole.setClientId("portal");
+        defaultRole.setName("viewer");
+        keycloakDefinition.getRealms().get(0).getDefaultRoles().put("viewer", defaultRole);
+
+        assertEquals(EnumSet.of(ROLES, CLIENTS, FLOWS), only(ROLES).withDependencies(keycloakDefinition, logger).kinds());
+    }
+
+    @Test
+    public void identityProvidersIncludeTheirLoginFlows() {
+
+        KeycloakDefinition keycloakDefinition = keycloakDefinition();
+
+        GoogleIdentityProvider identityProvider = new GoogleIdentityProvider();
+        identityProvider.setFirstLoginFlowAlias("custom-browser");
+        keycloakDefinition.getRealms().get(0).setGoogleIdentityProvider(identityProvider);
+
+        assertEquals(EnumSet.of(IDPS, FLOWS), only(IDPS).withDependencies(keycloakDefinition, logger).kinds());
+    }
+
+    @Test
+    public void builtInReferencesAndOtherRealmsAddNothing() {
+
+        KeycloakDefinition keycloakDefinition = keycloakDefinition();
+        keycloakDefinition.getClients().get(0).getGrantTypes().getAuthorizationCode().setFlowOverride("browser");
+
+        ClientDefinition otherClient = new ClientDefinition();
+        otherClient.setRealmName("other");
+        otherClient.setClientId("portal");
+        otherClient.getGrantTypes().getAuthorizationCode().setFlowOverride("custom-browser");
+        keycloakDefinition.getClients().add(otherClient);
+
+        ApplyScope scope = new ApplyScope(Set.of("app"), EnumSet.of(CLIENTS));
+
+        assertEquals(EnumSet.of(CLIENTS), scope.withDependencies(keycloakDefinition, logger).kinds());
+    }
+
+    @Test
+    public void scopeIsKeptInThePlan() throws Exception {
+
+        ObjectMapper mapper = JsonMapper.builder().build();
+
+        ApplyScope scope = new ApplyScope(Set.of("app"), EnumSet.of(CLIENTS, FLOWS));
+
+        ApplyScope result = mapper.readValue(mapper.writeValueAsString(scope), ApplyScope.class);
+
+        assertEquals(scope, result);
+        assertTrue(result.isKindRestricted());
+    }
+}
@@ -0,0 +1,137 @@
+package com.paulhowells.keycloak.configurer;
+
+import com.paulhowells.keycloak.configurer.rest.client.KeycloakRestApi;
+import com.paulhowells.keycloak.configurer.rest.client.model.Flow;
+import com.paulhowells.keycloak.configurer.rest.client.model.FlowExecution;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FlowExecutionReorderPlannerTests {
+
+    /**
+     * Simulates the execution ordering of a single flow and counts the re-ordering calls.
+     */
+    private static class CountingKeycloakRestApi extends KeycloakRestApi {
+
+        private final List<FlowExecution> order;
+        private int raiseCount = 0;
+        private int updateCount = 0;
+
+        CountingKeycloakRestApi(List<FlowExecution> flowExecutions) {
+            super("http://localhost", "master", "admin", "admin");
+            this.order = new ArrayList<>(flowExecutions);
+        }
+
+        @Override
+        public void raiseFlowExecutionPriority(String realmName, String id) {
+            ++raiseCount;
+            int index = indexOf(id);
+            assertTrue(index > 0, "Not expecting to raise the first execution");
+            Collections.swap(order, index, index - 1);
+        }
+
+        @Override
+        public void updateFlowExecution(Flow parentFlow, FlowExecution flowExecution) {
+            ++updateCount;
+            order.get(indexOf(flowExecution.getId())).setPriority(flowExecution.getPriority());
+            order.sort(Comparator.comparing(FlowExecution::getPriority));
+        }
+
+        List<String> getDisplayNames() {
+            return order.stream().map(FlowExecution::getDisplayName).toList();
+        }
+
+        private int indexOf(String id) {
+            for (int index = 0; index < order.size(); ++index) {
+                if (order.get(index).getId().equals(id)) {
+                    return index;
+                }
+            }
+            throw new IllegalArgumentException(id);
+        }
+    }
+
+    @Test
+    public void orderedTest() throws IOException {
+
+        assertCalls(List.of("A", "B", "C"), null, List.of("A", "B", "C"), false, 0, 0);
+        assertCalls(List.of("A", "B", "C"), List.of(10, 20, 30), List.of("A", "B", "C"), true, 0, 0);
+    }
+
+    @Test
+    public void stepTest() throws IOException {
+
+        // Moving the last execution to the top
+        assertCalls(List.of("A", "B", "C", "D", "E"), null, List.of("E", "A", "B", "C", "D"), false, 4, 0);
+
+        // Two adjacent swaps
+        assertCalls(List.of("A", "B", "C", "D"), null, List.of("B", "A", "D", "C"), false, 2, 0);
+
+        // Reversed
+        assertCalls(List.of("A", "B", "C", "D"), null, List.of("D", "C", "B", "A"), false, 6, 0);
+    }
+
+    @Test
+    public void priorityTest() throws IOException {
+
+        // Only the execution outside the longest increasing subsequence moves
+        assertCalls(List.of("A", "B", "C", "D", "E"), List.of(10, 20, 30, 40, 50), List.of("E", "A", "B", "C", "D"), true, 0, 1);
+        assertCalls(List.of("A", "B", "C", "D", "E"), List.of(10, 20, 30, 40, 50), List.of("A", "C", "D", "E", "B"), true, 0, 1);
+        assertCalls(List.of("A", "B", "C", "D", "E", "F"), List.of(10, 20, 30, 40, 50, 60), List.of("B", "A", "D", "C", "F", "E"), true, 0, 3);
+
+        // No room between the stable executions so every execution with a different priority is re-numbered
+        assertCalls(List.of("A", "B", "C", "D"), List.of(1, 2, 3, 4), List.of("A", "C", "B", "D"), true, 0, 4);
+    }
+
+    @Test
+    public void serverVersionTest() {
+
+        assertTrue(FlowExecutionReorderPlanner.supportsPriority("25.0.1"));
+        assertTrue(FlowExecutionReorderPlanner.supportsPriority("26.0.0-SNAPSHOT"));
+        assertFalse(FlowExecutionReorderPlanner.supportsPriority("24.0.5"));
+        assertFalse(FlowExecutionReorderPlanner.supportsPriority(null));
+    }
+
+    private static void assertCalls(
+            List<String> currentDisplayNames,
+            List<Integer> priorities,
+            List<String> desiredDisplayNames,
+            boolean supportsPriority,
+            int expectedRaiseCount,
+            int expectedUpdateCount
+    ) throws IOException {
+
+        List<FlowExecution> flowExecutions = new ArrayList<>();
+        for (int index = 0; index < currentDisplayNames.size(); ++index) {
+            FlowExecution flowExecution = new FlowExecution();
+            flowExecution.setId(currentDisplayNames.get(index));
+            flowExecution.setDisplayName(currentDisplayNames.get(index));
+            flowExecution.setIndex(index);
+            flowExecution.setPriority(priorities == null ? null : priorities.get(index));
+            flowExecutions.add(flowExecution);
+        }
+
+        Flow parentFlow = new Flow();
+        parentFlow.setRealm("test_realm");
+        parentFlow.setAlias("test_flow");
+
+        try (CountingKeycloakRestApi keycloakRestApi = new CountingKeycloakRestApi(flowExecutions)) {
+
+            List<FlowExecutionReorderPlanner.Move> moves = FlowExecutionReorderPlanner.plan(
+                    flowExecutions,
+                    desiredDisplayNames,
+                    supportsPriority
+            );
+
+            FlowExecutionReorderPlanner.apply(keycloakRestApi, parentFlow, moves);
+
+            assertEquals(desiredDisplayNames, keycloakRestApi.getDisplayNames());
+            assertEquals(expectedRaiseCount, keycloakRestApi.raiseCount);
+            assertEquals(expectedUpdateCount, keycloakRestApi.updateCount);
+        }
+    }
+}
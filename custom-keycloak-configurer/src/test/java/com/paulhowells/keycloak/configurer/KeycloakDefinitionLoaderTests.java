@@ -0,0 +1,88 @@
+package com.paulhowells.keycloak.configurer;
+
+import com.paulhowells.keycloak.configurer.model.DefinitionDiff;
+import com.paulhowells.keycloak.configurer.model.KeycloakDefinition;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class KeycloakDefinitionLoaderTests {
+    private static final Logger logger = LoggerFactory.getLogger(KeycloakDefinitionLoaderTests.class);
+
+    static class Model {
+        private Part part;
+    }
+
+    static class Part {
+        private String name;
+    }
+
+    static class ChangedModel {
+        private ChangedPart part;
+    }
+
+    static class ChangedPart {
+        private Integer name;
+    }
+
+    @Test
+    public void cachedDefinitionsMatchTheParsedOnes(@TempDir Path cacheDirectory) throws Exception {
+
+        String configDirectory = Paths.get(KeycloakDefinitionLoaderTests.class.getResource("/configTest1").toURI()).toString();
+
+        Map<String, KeycloakDefinition> parsed = new KeycloakDefinitionLoader(cacheDirectory, 2, logger).loadKeycloakDefinitions(configDirectory);
+
+        try (Stream<Path> stream = Files.list(cacheDirectory)) {
+            assertEquals(parsed.size(), stream.filter(it -> it.toString().endsWith(".sml")).count());
+        }
+
+        Map<String, KeycloakDefinition> cached = new KeycloakDefinitionLoader(cacheDirectory, 2, logger).loadKeycloakDefinitions(configDirectory);
+
+        assertFalse(parsed.isEmpty());
+        assertEquals(parsed.keySet(), cached.keySet());
+
+        for (String path:parsed.keySet()) {
+
+            KeycloakDefinition parsedDefinition = parsed.get(path);
+            KeycloakDefinition cachedDefinition = cached.get(path);
+
+            assertEquals(parsedDefinition.getDeleteManagedResourcesWhenRemoved(), cachedDefinition.getDeleteManagedResourcesWhenRemoved());
+            assertEquals(List.of(), DefinitionDiff.diff(parsedDefinition.getRealms(), cachedDefinition.getRealms(), path));
+            assertEquals(List.of(), DefinitionDiff.diff(parsedDefinition.getClients(), cachedDefinition.getClients(), path));
+            assertEquals(List.of(), DefinitionDiff.diff(parsedDefinition.getAuthenticationFlows(), cachedDefinition.getAuthenticationFlows(), path));
+        }
+    }
+
+    @Test
+    public void modelFingerprintCoversTheWholeModel() {
+
+        String fingerprint = KeycloakDefinitionLoader.getModelFingerprint(KeycloakDefinition.class);
+
+        assertEquals(fingerprint, KeycloakDefinitionLoader.getModelFingerprint(KeycloakDefinition.class));
+        assertTrue(fingerprint.contains("ClientDefinition$GrantTypes"));
+        assertTrue(fingerprint.contains("AuthenticationFlowDefinition$Execution$Authenticator"));
+    }
+
+    @Test
+    public void modelFingerprintChangesWithTheFieldTypes() {
+
+        assertNotEquals(
+                KeycloakDefinitionLoader.getModelFingerprint(Model.class).replace("Changed", ""),
+                KeycloakDefinitionLoader.getModelFingerprint(ChangedModel.class).replace("Changed", "")
+        );
+        assertEquals(
+                KeycloakDefinitionLoader.getModelFingerprint(Model.class).replace("Changed", ""),
+                KeycloakDefinitionLoader.getModelFingerprint(Model.class)
+        );
+    }
+}
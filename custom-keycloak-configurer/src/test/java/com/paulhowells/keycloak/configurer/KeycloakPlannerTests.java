@@ -0,0 +1,102 @@
+package com.paulhowells.keycloak.configurer;
+
+import com.paulhowells.keycloak.configurer.model.ClientDefinition;
+import com.paulhowells.keycloak.configurer.model.KeycloakDefinition;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static com.paulhowells.keycloak.configurer.PlannedOperation.ResourceType.*;
+import static com.paulhowells.keycloak.configurer.PlannedOperation.Type.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class KeycloakPlannerTests {
+
+    private static Map<String, List<String>> getDependsOn(List<PlannedOperation> operations) {
+        Map<String, List<String>> result = new HashMap<>();
+
+        operations.forEach(it -> result.put(it.id(), it.dependsOn()));
+
+        return result;
+    }
+
+    private static ClientDefinition client(String realmName, String clientId, String flowOverride) {
+
+        ClientDefinition result = new ClientDefinition();
+        result.setRealmName(realmName);
+        result.setClientId(clientId);
+        result.getGrantTypes().getAuthorizationCode().setFlowOverride(flowOverride);
+
+        return result;
+    }
+
+    @Test
+    public void clientWaitsForTheRealmAndTheFlowItOverrides() {
+
+        KeycloakDefinition keycloakDefinition = new KeycloakDefinition();
+        keycloakDefinition.getClients().add(client("app", "portal", "custom-browser"));
+        keycloakDefinition.getClients().add(client("app", "api", null));
+
+        PlannedOperation realm = PlannedOperation.of(UPDATE, REALM, "app", "app", null, List.of("enabled"));
+        PlannedOperation flow = PlannedOperation.of(CREATE, AUTHENTICATION_FLOW, "app", "custom-browser", null);
+        PlannedOperation otherFlow = PlannedOperation.of(CREATE, AUTHENTICATION_FLOW, "app", "custom-grant", null);
+        PlannedOperation portal = PlannedOperation.of(UPDATE, CLIENT, "app", "portal", "1", List.of("enabled"));
+        PlannedOperation api = PlannedOperation.of(CREATE, CLIENT, "app", "api", null);
+
+        Map<String, List<String>> dependsOn = getDependsOn(KeycloakPlanner.addDependencies(
+                List.of(realm, flow, otherFlow, portal, api),
+                keycloakDefinition
+        ));
+
+        assertEquals(List.of(), dependsOn.get(realm.id()));
+        assertEquals(List.of(realm.id()), dependsOn.get(flow.id()));
+        assertEquals(List.of(realm.id(), flow.id()), dependsOn.get(portal.id()));
+        assertEquals(List.of(realm.id()), dependsOn.get(api.id()));
+    }
+
+    @Test
+    public void flowIsDeletedAfterTheClients() {
+
+        PlannedOperation flow = PlannedOperation.of(DELETE, AUTHENTICATION_FLOW, "app", "custom-browser", "1");
+        PlannedOperation portal = PlannedOperation.of(UPDATE, CLIENT, "app", "portal", "2", List.of("enabled"));
+        PlannedOperation other = PlannedOperation.of(UPDATE, CLIENT, "other", "portal", "3", List.of("enabled"));
+
+        Map<String, List<String>> dependsOn = getDependsOn(KeycloakPlanner.addDependencies(
+                List.of(flow, portal, other),
+                new KeycloakDefinition()
+        ));
+
+        assertEquals(List.of(portal.id()), dependsOn.get(flow.id()));
+        assertEquals(List.of(), dependsOn.get(other.id()));
+    }
+
+    @Test
+    public void realmIsRemovedAfterEverythingInIt() {
+
+        PlannedOperation realm = PlannedOperation.of(DELETE, REALM, "app", "app", null);
+        PlannedOperation flow = PlannedOperation.of(DELETE, AUTHENTICATION_FLOW, "app", "custom-browser", "1");
+        PlannedOperation portal = PlannedOperation.of(DELETE, CLIENT, "app", "portal", "2");
+
+        Map<String, List<String>> dependsOn = getDependsOn(KeycloakPlanner.addDependencies(
+                List.of(realm, flow, portal),
+                new KeycloakDefinition()
+        ));
+
+        assertEquals(Set.of(flow.id(), portal.id()), new HashSet<>(dependsOn.get(realm.id())));
+        assertEquals(List.of(portal.id()), dependsOn.get(flow.id()));
+        assertEquals(List.of(), dependsOn.get(portal.id()));
+    }
+
+    @Test
+    public void changedPropertiesAreTheTopLevelProperties() {
+
+        PlannedOperation operation = PlannedOperation.of(UPDATE, CLIENT, "app", "portal", "1", List.of(
+                "grantTypes.password.enabled",
+                "grantTypes.authorizationCode.webOrigins[0]",
+                "scopes[email].type",
+                "enabled"
+        ));
+
+        assertEquals(List.of("grantTypes", "scopes", "enabled"), new ArrayList<>(operation.getChangedProperties()));
+    }
+}
@@ -0,0 +1,82 @@
+package com.paulhowells.keycloak.configurer;
+
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PlanExecutorTests {
+
+    private final PlanExecutor planExecutor = new PlanExecutor(LoggerFactory.getLogger(PlanExecutorTests.class));
+
+    private static PlannedOperation operation(String id, String... dependsOn) {
+        return new PlannedOperation(id, PlannedOperation.Type.UPDATE, PlannedOperation.ResourceType.CLIENT, "app", id, id, List.of(), List.of(dependsOn));
+    }
+
+    @Test
+    public void operationsRunAfterTheirDependencies() {
+
+        List<PlannedOperation> operations = List.of(
+                operation("client", "flow", "realm"),
+                operation("flow", "realm"),
+                operation("realm"),
+                operation("other")
+        );
+
+        List<String> applied = Collections.synchronizedList(new ArrayList<>());
+
+        assertTrue(planExecutor.execute(operations, 4, it -> applied.add(it.id())));
+
+        assertEquals(4, applied.size());
+        assertTrue(applied.indexOf("realm") < applied.indexOf("flow"));
+        assertTrue(applied.indexOf("flow") < applied.indexOf("client"));
+    }
+
+    @Test
+    public void cycleIsRejectedBeforeAnythingRuns() {
+
+        List<PlannedOperation> operations = List.of(
+                operation("realm"),
+                operation("flow", "client"),
+                operation("client", "flow")
+        );
+
+        List<String> applied = Collections.synchronizedList(new ArrayList<>());
+
+        assertThrows(IllegalStateException.class, () -> planExecutor.execute(operations, 2, it -> applied.add(it.id())));
+        assertTrue(applied.isEmpty());
+    }
+
+    @Test
+    public void unknownDependencyIsRejected() {
+
+        List<PlannedOperation> operations = List.of(operation("flow", "realm"));
+
+        assertThrows(IllegalStateException.class, () -> planExecutor.execute(operations, 1, it -> true));
+    }
+
+    @Test
+    public void dependentsOfAFailureAreSkipped() {
+
+        List<PlannedOperation> operations = List.of(
+                operation("realm"),
+                operation("flow", "realm"),
+                operation("client", "flow"),
+                operation("other")
+        );
+
+        List<String> applied = Collections.synchronizedList(new ArrayList<>());
+
+        RuntimeException e = assertThrows(RuntimeException.class, () -> planExecutor.execute(operations, 2, it -> {
+            if ("flow".equals(it.id())) {
+                throw new IllegalArgumentException("flow failed");
+            }
+            return applied.add(it.id());
+        }));
+
+        assertEquals("flow failed", e.getCause().getMessage());
+        assertEquals(Set.of("realm", "other"), new HashSet<>(applied));
+    }
+}
@@ -0,0 +1,153 @@
+package com.paulhowells.keycloak.configurer;
+
+import com.paulhowells.keycloak.configurer.model.AuthenticationFlowDefinition;
+import com.paulhowells.keycloak.configurer.model.ClientDefinition;
+import com.paulhowells.keycloak.configurer.model.KeycloakDefinition;
+import com.paulhowells.keycloak.configurer.rest.client.model.AdminEvent;
+import com.paulhowells.keycloak.configurer.rest.client.model.Client;
+import com.paulhowells.keycloak.configurer.rest.client.model.Realm;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RealmChangeDetectorTests {
+
+    private static KeycloakDefinition keycloakDefinition(String... clientIds) {
+
+        KeycloakDefinition result = new KeycloakDefinition();
+
+        for (String clientId:clientIds) {
+
+            ClientDefinition clientDefinition = new ClientDefinition();
+            clientDefinition.setRealmName("app");
+            clientDefinition.setClientId(clientId);
+            result.getClients().add(clientDefinition);
+
+            AuthenticationFlowDefinition flowDefinition = new AuthenticationFlowDefinition();
+            flowDefinition.setRealmName("app");
+            flowDefinition.setAlias(clientId + "-browser");
+            result.getAuthenticationFlows().add(flowDefinition);
+        }
+
+        return result;
+    }
+
+    private static AdminEvent event(String id, String operationType, String resourceType, String resourcePath) {
+
+        AdminEvent result = new AdminEvent();
+        result.setId(id);
+        result.setTime(1000L);
+        result.setOperationType(operationType);
+        result.setResourceType(resourceType);
+        result.setResourcePath(resourcePath);
+
+        return result;
+    }
+
+    private static AdminEvent realmUpdate(String id) {
+        return event(id, "UPDATE", "REALM", null);
+    }
+
+    private static AdminEvent clientUpdate(String id) {
+        return event(id, "UPDATE", "CLIENT", "clients/1");
+    }
+
+    private static Client client(String id) {
+
+        Client result = new Client();
+        result.set_raw(Map.of("id", id, "clientId", "client-" + id));
+
+        return result;
+    }
+
+    @Test
+    public void definitionDigestDoesNotDependOnTheOrder() {
+
+        assertEquals(
+                RealmChangeDetector.getDefinitionDigest(keycloakDefinition("portal", "api")),
+                RealmChangeDetector.getDefinitionDigest(keycloakDefinition("api", "portal"))
+        );
+    }
+
+    @Test
+    public void definitionDigestChangesWithTheDefinitions() {
+
+        KeycloakDefinition changed = keycloakDefinition("portal");
+        changed.getClients().get(0).setEnabled(Boolean.TRUE);
+
+        assertNotEquals(
+                RealmChangeDetector.getDefinitionDigest(keycloakDefinition("portal")),
+                RealmChangeDetector.getDefinitionDigest(changed)
+        );
+    }
+
+    @Test
+    public void noEventSinceTheMarkerIsUnchanged() {
+
+        List<AdminEvent> events = List.of(clientUpdate("2"), clientUpdate("1"));
+
+        assertTrue(RealmChangeDetector.isUnchangedSince(RealmChangeDetector.getAdminEventMarker(events, 0), events));
+    }
+
+    @Test
+    public void recordingTheMarkerIsUnchanged() {
+
+        String marker = RealmChangeDetector.getAdminEventMarker(List.of(clientUpdate("1")), 0);
+
+        assertTrue(RealmChangeDetector.isUnchangedSince(marker, List.of(realmUpdate("2"), clientUpdate("1"))));
+        assertTrue(RealmChangeDetector.isUnchangedSince(RealmChangeDetector.getAdminEventMarker(List.of(), 0), List.of(realmUpdate("1"))));
+    }
+
+    @Test
+    public void otherEventSinceTheMarkerIsAChange() {
+
+        String marker = RealmChangeDetector.getAdminEventMarker(List.of(clientUpdate("1")), 0);
+
+        assertFalse(RealmChangeDetector.isUnchangedSince(marker, List.of(clientUpdate("2"), clientUpdate("1"))));
+        assertFalse(RealmChangeDetector.isUnchangedSince(marker, List.of(event("2", "UPDATE", "REALM", "events/config"), clientUpdate("1"))));
+    }
+
+    @Test
+    public void realmUpdateAfterRecordingTheMarkerIsAChange() {
+
+        String marker = RealmChangeDetector.getAdminEventMarker(List.of(clientUpdate("1")), 0);
+
+        assertFalse(RealmChangeDetector.isUnchangedSince(marker, List.of(realmUpdate("3"), realmUpdate("2"))));
+    }
+
+    @Test
+    public void recordedDigestsAreNotPartOfTheListingDigest() {
+
+        Realm realm = new Realm();
+        realm.set_raw(Map.of("realm", "app"));
+
+        Realm recorded = new Realm();
+        recorded.set_raw(Map.of("realm", "app"));
+        recorded.getAttributes().put(RealmChangeDetector.DEFINITION_DIGEST_ATTRIBUTE, "1");
+        recorded.getAttributes().put(RealmChangeDetector.STATE_DIGEST_ATTRIBUTE, "2");
+
+        assertEquals(
+                RealmChangeDetector.getListingDigest(realm, List.of(), List.of(client("1")), List.of(), List.of()),
+                RealmChangeDetector.getListingDigest(recorded, List.of(), List.of(client("1")), List.of(), List.of())
+        );
+    }
+
+    @Test
+    public void listingDigestDoesNotDependOnTheOrder() {
+
+        Realm realm = new Realm();
+        realm.set_raw(Map.of("realm", "app"));
+
+        assertEquals(
+                RealmChangeDetector.getListingDigest(realm, List.of(), List.of(client("1"), client("2")), List.of(), List.of()),
+                RealmChangeDetector.getListingDigest(realm, List.of(), List.of(client("2"), client("1")), List.of(), List.of())
+        );
+        assertNotEquals(
+                RealmChangeDetector.getListingDigest(realm, List.of(), List.of(client("1")), List.of(), List.of()),
+                RealmChangeDetector.getListingDigest(realm, List.of(), List.of(client("1"), client("2")), List.of(), List.of())
+        );
+    }
+}
@@ -0,0 +1,137 @@
+package com.paulhowells.keycloak.configurer.rest.client;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AdaptiveConcurrencyLimiterTests {
+
+    private static final long LATENCY_NANOS = 1_000_000;
+
+    private static final String ENDPOINT = "GET /admin/realms/{realm}/clients";
+
+    @Test
+    public void waitersAreGrantedAsPermitsAreReleased() {
+
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 2);
+
+        assertTrue(limiter.acquire().isDone());
+        assertTrue(limiter.acquire().isDone());
+
+        CompletableFuture<Void> waiter = limiter.acquire();
+        assertFalse(waiter.isDone());
+        assertEquals(2, limiter.getInFlight());
+
+        limiter.release(ENDPOINT, LATENCY_NANOS, false);
+
+        assertTrue(waiter.isDone());
+        assertEquals(2, limiter.getInFlight());
+    }
+
+    @Test
+    public void cancelledWaiterPassesThePermitOn() {
+
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 1);
+
+        assertTrue(limiter.acquire().isDone());
+
+        CompletableFuture<Void> cancelled = limiter.acquire();
+        CompletableFuture<Void> waiter = limiter.acquire();
+
+        cancelled.cancel(false);
+
+        limiter.release(ENDPOINT, LATENCY_NANOS, false);
+
+        assertTrue(waiter.isDone());
+        assertFalse(waiter.isCancelled());
+        assertEquals(1, limiter.getInFlight());
+    }
+
+    @Test
+    public void overloadHalvesTheLimit() throws Exception {
+
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(8, 8);
+
+        limiter.acquire();
+        Thread.sleep(1);
+        limiter.release(ENDPOINT, LATENCY_NANOS, true);
+
+        assertEquals(4, limiter.getLimit());
+    }
+
+    @Test
+    public void slowRequestsDoNotLowerTheLimit() {
+
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(8, 8);
+
+        limiter.acquire();
+        limiter.release(ENDPOINT, LATENCY_NANOS, false);
+
+        for (int i = 0; i < 20; ++i) {
+            limiter.acquire();
+            limiter.release(ENDPOINT, LATENCY_NANOS * 100, false);
+        }
+
+        assertEquals(8, limiter.getLimit());
+    }
+
+    @Test
+    public void limitGrowsFromTheInitialLimitToTheMaximum() {
+
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 4);
+
+        for (int i = 0; i < 100; ++i) {
+            limiter.acquire();
+            limiter.release(ENDPOINT, LATENCY_NANOS, false);
+        }
+
+        assertEquals(4, limiter.getLimit());
+    }
+
+    @Test
+    public void risingLatencyHoldsTheLimit() {
+
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 4);
+
+        limiter.acquire();
+        limiter.release(ENDPOINT, LATENCY_NANOS, false);
+
+        for (int i = 0; i < 100; ++i) {
+            limiter.acquire();
+            limiter.release(ENDPOINT, LATENCY_NANOS * 10, false);
+        }
+
+        assertEquals(2, limiter.getLimit());
+    }
+
+    @Test
+    public void slowEndpointsDoNotHoldTheLimit() {
+
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 4);
+
+        for (int i = 0; i < 100; ++i) {
+            limiter.acquire();
+            limiter.release(ENDPOINT, LATENCY_NANOS, false);
+            limiter.acquire();
+            limiter.release("POST /admin/realms/{realm}/partialImport", LATENCY_NANOS * 100, false);
+        }
+
+        assertEquals(4, limiter.getLimit());
+    }
+
+    @Test
+    public void returnedPermitIsNotASample() {
+
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 4);
+
+        for (int i = 0; i < 100; ++i) {
+            limiter.acquire();
+            limiter.release(null, 0, false);
+        }
+
+        assertEquals(2, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+}
@@ -0,0 +1,137 @@
+package com.paulhowells.keycloak.configurer.rest.client;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class KeycloakPagerTests {
+
+    /**
+     * Serves the items a page at a time and records the offset of every page requested.
+     */
+    private static class Items implements KeycloakPager.PageFetcher<Integer> {
+
+        private final List<Integer> items;
+        private final List<Integer> requested = new ArrayList<>();
+        private final List<CompletableFuture<List<Integer>>> pages = new ArrayList<>();
+        // The pages after the first are left in flight
+        private boolean laterPagesPending = false;
+
+        Items(int count) {
+            this.items = IntStream.range(0, count).boxed().toList();
+        }
+
+        @Override
+        public CompletableFuture<List<Integer>> fetch(int first, int max) {
+
+            requested.add(first);
+
+            List<Integer> page = items.subList(Math.min(first, items.size()), Math.min(first + max, items.size()));
+
+            CompletableFuture<List<Integer>> result = laterPagesPending && first > 0 ? new CompletableFuture<>() : CompletableFuture.completedFuture(page);
+            pages.add(result);
+
+            return result;
+        }
+    }
+
+    @Test
+    public void pagesThroughTheItemsInOrder() {
+
+        Items items = new Items(7);
+
+        assertEquals(items.items, new KeycloakPager<>(items, 3).stream().toList());
+        assertEquals(List.of(0, 3, 6), items.requested);
+    }
+
+    @Test
+    public void shortLastPageEndsThePaging() {
+
+        Items items = new Items(5);
+
+        assertEquals(5, new KeycloakPager<>(items, 2).stream().count());
+        assertEquals(List.of(0, 2, 4), items.requested);
+    }
+
+    @Test
+    public void exactMultipleOfThePageSizeEndsWithAnEmptyPage() {
+
+        Items items = new Items(4);
+
+        assertEquals(4, new KeycloakPager<>(items, 2).stream().count());
+        assertEquals(List.of(0, 2, 4), items.requested);
+    }
+
+    @Test
+    public void noItems() {
+
+        Items items = new Items(0);
+
+        assertFalse(new KeycloakPager<>(items, 2).hasNext());
+        assertEquals(List.of(0), items.requested);
+    }
+
+    @Test
+    public void nullPageEndsThePaging() {
+
+        KeycloakPager<Integer> pager = new KeycloakPager<>((first, max) -> CompletableFuture.completedFuture(null), 2);
+
+        assertFalse(pager.hasNext());
+        assertEquals(List.of(), pager.stream().toList());
+    }
+
+    @Test
+    public void invalidPageSize() {
+
+        assertThrows(IllegalArgumentException.class, () -> new KeycloakPager<>(new Items(1), 0));
+    }
+
+    @Test
+    public void nothingIsFetchedUntilAnItemIsAskedFor() {
+
+        Items items = new Items(4);
+
+        KeycloakPager<Integer> pager = new KeycloakPager<>(items, 2);
+        assertEquals(List.of(), items.requested);
+
+        assertEquals(0, pager.next());
+        assertEquals(List.of(0, 2), items.requested);
+    }
+
+    @Test
+    public void closingTheStreamCancelsThePageInFlight() {
+
+        Items items = new Items(4);
+        items.laterPagesPending = true;
+        KeycloakPager<Integer> pager = new KeycloakPager<>(items, 2);
+
+        try (Stream<Integer> stream = pager.stream()) {
+            assertEquals(Optional.of(0), stream.findFirst());
+        }
+
+        assertEquals(List.of(0, 2), items.requested);
+        assertTrue(items.pages.get(1).isCancelled());
+        assertFalse(pager.hasNext());
+    }
+
+    @Test
+    public void consumerFailureCancelsThePageInFlight() {
+
+        Items items = new Items(4);
+        items.laterPagesPending = true;
+        KeycloakPager<Integer> pager = new KeycloakPager<>(items, 2);
+
+        assertThrows(IllegalStateException.class, () -> pager.stream().forEach(it -> {
+            throw new IllegalStateException();
+        }));
+
+        assertTrue(items.pages.get(1).isCancelled());
+    }
+}
@@ -0,0 +1,153 @@
+package com.paulhowells.keycloak.configurer.rest.client;
+
+import org.apache.hc.core5.http.NameValuePair;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class KeycloakTokenProviderTests {
+
+    private static Map<String, Object> tokenResponse(String accessToken, long expiresIn) {
+        return Map.of(
+                "access_token", accessToken,
+                "expires_in", expiresIn,
+                "refresh_token", "refresh-" + accessToken,
+                "refresh_expires_in", 1800
+        );
+    }
+
+    private static String getGrantType(List<NameValuePair> params) {
+        return params.stream()
+                .filter(it -> "grant_type".equals(it.getName()))
+                .findFirst()
+                .map(NameValuePair::getValue)
+                .orElse(null);
+    }
+
+    @Test
+    public void concurrentCallersShareOneRenewal() throws Exception {
+
+        AtomicInteger requests = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        KeycloakTokenProvider tokenProvider = new KeycloakTokenProvider(params -> {
+            requests.incrementAndGet();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                throw new IOException(e);
+            }
+            return tokenResponse("token-1", 300);
+        }, "admin-cli", "admin", "secret");
+
+        ExecutorService executorService = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; ++i) {
+                futures.add(executorService.submit(tokenProvider::getAccessToken));
+            }
+
+            Thread.sleep(100);
+            release.countDown();
+
+            for (Future<String> future:futures) {
+                assertEquals("token-1", future.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executorService.shutdownNow();
+            tokenProvider.close();
+        }
+
+        assertEquals(1, requests.get());
+    }
+
+    @Test
+    public void failedRefreshFallsBackToPasswordGrant() {
+
+        AtomicLong clock = new AtomicLong(1_000_000);
+        List<String> grantTypes = new ArrayList<>();
+
+        KeycloakTokenProvider tokenProvider = new KeycloakTokenProvider(params -> {
+            String grantType = getGrantType(params);
+            grantTypes.add(grantType);
+            if ("refresh_token".equals(grantType)) {
+                throw new IOException("Session not active");
+            }
+            return tokenResponse("token-" + grantTypes.size(), 60);
+        }, "admin-cli", "admin", "secret", clock::get);
+
+        try {
+            assertEquals("token-1", tokenProvider.getAccessToken());
+
+            // The access token has expired but the refresh token has not
+            clock.addAndGet(60_000);
+
+            assertEquals("token-3", tokenProvider.getAccessToken());
+        } finally {
+            tokenProvider.close();
+        }
+
+        assertEquals(List.of("password", "refresh_token", "password"), grantTypes);
+    }
+
+    @Test
+    public void tokenIsRenewedInTheBackground() throws Exception {
+
+        AtomicLong clock = new AtomicLong(1_000_000);
+        List<String> grantTypes = new ArrayList<>();
+        CountDownLatch refreshed = new CountDownLatch(1);
+
+        KeycloakTokenProvider tokenProvider = new KeycloakTokenProvider(params -> {
+            String grantType = getGrantType(params);
+            synchronized (grantTypes) {
+                grantTypes.add(grantType);
+            }
+            if ("refresh_token".equals(grantType)) {
+                refreshed.countDown();
+                return tokenResponse("token-2", 300);
+            }
+            // A slow response, the refresh is due as soon as the token arrives
+            clock.addAndGet(300_000);
+            return tokenResponse("token-1", 300);
+        }, "admin-cli", "admin", "secret", clock::get);
+
+        try {
+            tokenProvider.getAccessToken();
+
+            assertTrue(refreshed.await(5, TimeUnit.SECONDS));
+        } finally {
+            tokenProvider.close();
+        }
+
+        synchronized (grantTypes) {
+            assertEquals(List.of("password", "refresh_token"), grantTypes);
+        }
+    }
+
+    @Test
+    public void tokenWithoutLifetimeIsRejected() {
+
+        KeycloakTokenProvider tokenProvider = new KeycloakTokenProvider(
+                params -> Map.of("access_token", "token-1"),
+                "admin-cli", "admin", "secret"
+        );
+
+        try {
+            assertThrows(RuntimeException.class, tokenProvider::getAccessToken);
+        } finally {
+            tokenProvider.close();
+        }
+    }
+}
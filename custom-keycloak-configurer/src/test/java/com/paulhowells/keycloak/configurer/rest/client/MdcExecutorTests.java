@@ -0,0 +1,31 @@
+package com.paulhowells.keycloak.configurer.rest.client;
+
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MdcExecutorTests {
+
+    @Test
+    public void tasksRunWithTheMdcOfTheCreatingThread() throws Exception {
+
+        ExecutorService executorService = Executors.newSingleThreadExecutor();
+        try {
+            MDC.put("realm", "app");
+            MdcExecutor executor = new MdcExecutor(executorService);
+            MDC.remove("realm");
+
+            assertEquals("app", CompletableFuture.supplyAsync(() -> MDC.get("realm"), executor).get());
+
+            // The pool thread is left as it was
+            assertNull(CompletableFuture.supplyAsync(() -> MDC.get("realm"), executorService).get());
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.paulhowells.keycloak.configurer.rest.client;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.paulhowells.keycloak.configurer.rest.client.model.Client;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PartialUpdateTests {
+
+    private static final String CLIENT_JSON = """
+            {
+              "id": "1234",
+              "clientId": "app-ui",
+              "enabled": true,
+              "standardFlowEnabled": true,
+              "redirectUris": ["https://app/callback"],
+              "webOrigins": ["https://app"],
+              "attributes": {
+                "access.token.lifespan": "300",
+                "oauth2.device.authorization.grant.enabled": "true"
+              },
+              "authenticationFlowBindingOverrides": {},
+              "defaultClientScopes": ["profile"],
+              "optionalClientScopes": [],
+              "protocol": "openid-connect",
+              "nodeReRegistrationTimeout": -1
+            }
+            """;
+
+    private static Client readClient() throws Exception {
+
+        Client result = KeycloakJsonCodec.mapper.readValue(CLIENT_JSON, Client.class);
+        result.set_raw(KeycloakJsonCodec.mapper.readValue(CLIENT_JSON, new TypeReference<Map<String, Object>>() { }));
+
+        return result;
+    }
+
+    private static ObjectNode getChanges(Client client) {
+        return PartialUpdate.getChanges(client, PartialUpdate.CLIENT_IDENTITY_FIELDS, PartialUpdate.CLIENT_MERGED_MAPS);
+    }
+
+    @Test
+    public void unchangedClientHasNoChanges() throws Exception {
+
+        assertNull(getChanges(readClient()));
+    }
+
+    @Test
+    public void onlyChangedFieldsAreSent() throws Exception {
+
+        Client client = readClient();
+        client.setEnabled(Boolean.FALSE);
+        client.getWebOrigins().add("https://other");
+
+        ObjectNode changes = getChanges(client);
+
+        assertEquals(List.of("enabled", "webOrigins", "id", "clientId"), iterate(changes));
+        assertEquals(2, changes.get("webOrigins").size());
+    }
+
+    @Test
+    public void mergedMapsAreSentByEntry() throws Exception {
+
+        Client client = readClient();
+        client.getAttributes().put("access.token.lifespan", "600");
+        client.getAttributes().remove("oauth2.device.authorization.grant.enabled");
+        client.getAuthenticationFlowBindingOverrides().put("browser", "5678");
+
+        ObjectNode changes = getChanges(client);
+
+        ObjectNode attributes = (ObjectNode) changes.get("attributes");
+        assertEquals("600", attributes.get("access.token.lifespan").asText());
+        assertTrue(attributes.get("oauth2.device.authorization.grant.enabled").isNull());
+        assertEquals(2, attributes.size());
+        assertEquals("5678", changes.get("authenticationFlowBindingOverrides").get("browser").asText());
+    }
+
+    @Test
+    public void clientNotReadFromServerIsSentWhole() {
+
+        Client client = new Client();
+        client.setClientId("app-ui");
+        client.setEnabled(Boolean.TRUE);
+
+        ObjectNode changes = getChanges(client);
+
+        assertEquals("app-ui", changes.get("clientId").asText());
+        assertTrue(changes.has("redirectUris"));
+    }
+
+    private static List<String> iterate(ObjectNode node) {
+
+        List<String> result = new ArrayList<>();
+        node.fieldNames().forEachRemaining(result::add);
+
+        return result;
+    }
+}
@@ -0,0 +1,153 @@
+package com.paulhowells.keycloak.configurer.rest.client;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RemoteStateSnapshotTests {
+
+    private static final String BASE = "https://keycloak/admin/realms";
+
+    private static final RemoteStateSnapshot.Entry ENTRY = new RemoteStateSnapshot.Entry(200, null, new byte[0]);
+
+    private static URI uri(String path) {
+        return URI.create(BASE + path);
+    }
+
+    private static RemoteStateSnapshot snapshotOf(String... paths) {
+
+        RemoteStateSnapshot result = new RemoteStateSnapshot();
+
+        for (String path:paths) {
+            result.put(uri(path), ENTRY, result.getGeneration());
+        }
+
+        return result;
+    }
+
+    @Test
+    public void clientUpdateKeepsScopesAndOtherClients() {
+
+        RemoteStateSnapshot snapshot = snapshotOf(
+                "",
+                "/app",
+                "/app/clients?first=0&max=100",
+                "/app/clients/1",
+                "/app/clients/1/default-client-scopes",
+                "/app/clients/2/default-client-scopes",
+                "/app/client-scopes",
+                "/app/default-default-client-scopes",
+                "/app/roles?first=0&max=100",
+                "/other/clients/1"
+        );
+
+        snapshot.invalidate("PUT", uri("/app/clients/1/default-client-scopes/5"));
+
+        assertNull(snapshot.get(uri("")));
+        assertNull(snapshot.get(uri("/app")));
+        assertNull(snapshot.get(uri("/app/clients?first=0&max=100")));
+        assertNull(snapshot.get(uri("/app/clients/1")));
+        assertNull(snapshot.get(uri("/app/clients/1/default-client-scopes")));
+
+        assertNotNull(snapshot.get(uri("/app/clients/2/default-client-scopes")));
+        assertNotNull(snapshot.get(uri("/app/client-scopes")));
+        assertNotNull(snapshot.get(uri("/app/default-default-client-scopes")));
+        assertNotNull(snapshot.get(uri("/app/roles?first=0&max=100")));
+        assertNotNull(snapshot.get(uri("/other/clients/1")));
+    }
+
+    @Test
+    public void writesReachRelatedResources() {
+
+        assertTrue(RemoteStateSnapshot.isAffected("DELETE", "/authentication/executions/1", "/authentication/flows/browser/executions"));
+        assertTrue(RemoteStateSnapshot.isAffected("POST", "/roles/admin/composites", "/clients/1/roles/viewer/composites"));
+        assertTrue(RemoteStateSnapshot.isAffected("DELETE", "/clients/1", "/roles/default-roles-app/composites"));
+        assertTrue(RemoteStateSnapshot.isAffected("PUT", "/client-scopes/1", "/clients/2/default-client-scopes"));
+        assertTrue(RemoteStateSnapshot.isAffected("POST", "/partialImport", "/clients/2"));
+
+        assertFalse(RemoteStateSnapshot.isAffected("PUT", "/clients/1", "/roles/default-roles-app/composites"));
+        assertFalse(RemoteStateSnapshot.isAffected("POST", "/client-scopes/1/protocol-mappers/models", "/client-scopes/2"));
+        assertFalse(RemoteStateSnapshot.isAffected("PUT", "/authentication/flows/1", "/identity-provider/instances"));
+    }
+
+    @Test
+    public void realmWriteClearsThatRealmAndTheRealmList() {
+
+        RemoteStateSnapshot snapshot = snapshotOf("", "/app", "/app/clients/1", "/other", "/other/clients/1");
+
+        snapshot.invalidate("PUT", uri("/app"));
+
+        assertNull(snapshot.get(uri("")));
+        assertNull(snapshot.get(uri("/app")));
+        assertNull(snapshot.get(uri("/app/clients/1")));
+        assertNotNull(snapshot.get(uri("/other")));
+        assertNotNull(snapshot.get(uri("/other/clients/1")));
+    }
+
+    @Test
+    public void writeOutsideARealmClearsEverything() {
+
+        RemoteStateSnapshot snapshot = snapshotOf("/app/clients/1", "/other/clients/1");
+
+        snapshot.invalidate("POST", URI.create("https://keycloak/admin/serverinfo"));
+
+        assertNull(snapshot.get(uri("/app/clients/1")));
+        assertNull(snapshot.get(uri("/other/clients/1")));
+    }
+
+    @Test
+    public void readInFlightDuringWriteIsOnlyDroppedForThatRealm() {
+
+        RemoteStateSnapshot snapshot = new RemoteStateSnapshot();
+
+        long generation = snapshot.getGeneration();
+
+        snapshot.invalidate("PUT", uri("/app/clients/1"));
+
+        snapshot.put(uri("/app/client-scopes"), ENTRY, generation);
+        snapshot.put(uri("/other/client-scopes"), ENTRY, generation);
+        snapshot.put(uri(""), ENTRY, generation);
+
+        assertNull(snapshot.get(uri("/app/client-scopes")));
+        assertNotNull(snapshot.get(uri("/other/client-scopes")));
+        assertNull(snapshot.get(uri("")));
+
+        snapshot.put(uri("/app/client-scopes"), ENTRY, snapshot.getGeneration());
+
+        assertNotNull(snapshot.get(uri("/app/client-scopes")));
+    }
+
+    @Test
+    public void readInFlightDuringClearIsDropped() {
+
+        RemoteStateSnapshot snapshot = new RemoteStateSnapshot();
+
+        long generation = snapshot.getGeneration();
+
+        snapshot.clear();
+
+        snapshot.put(uri("/other/client-scopes"), ENTRY, generation);
+
+        assertNull(snapshot.get(uri("/other/client-scopes")));
+    }
+
+    @Test
+    public void evictDropsTheClientAndThePages() {
+
+        RemoteStateSnapshot snapshot = snapshotOf(
+                "/app/clients?first=0&max=100",
+                "/app/clients/1/client-secret",
+                "/app/clients/2/client-secret",
+                "/app/client-scopes"
+        );
+
+        snapshot.evict("app", "/clients/1");
+
+        assertNull(snapshot.get(uri("/app/clients?first=0&max=100")));
+        assertNull(snapshot.get(uri("/app/clients/1/client-secret")));
+        assertNotNull(snapshot.get(uri("/app/clients/2/client-secret")));
+        assertNotNull(snapshot.get(uri("/app/client-scopes")));
+    }
+}
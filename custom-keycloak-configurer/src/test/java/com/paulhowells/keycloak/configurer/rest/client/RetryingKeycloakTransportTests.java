@@ -0,0 +1,113 @@
+package com.paulhowells.keycloak.configurer.rest.client;
+
+import org.apache.hc.client5.http.classic.methods.HttpGet;
+import org.apache.hc.client5.http.classic.methods.HttpPost;
+import org.apache.hc.core5.http.ClassicHttpRequest;
+import org.apache.hc.core5.http.ClassicHttpResponse;
+import org.apache.hc.core5.http.HttpException;
+import org.apache.hc.core5.http.io.HttpClientResponseHandler;
+import org.apache.hc.core5.http.message.BasicClassicHttpResponse;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RetryingKeycloakTransportTests {
+
+    /**
+     * Answers each request with the next of the provided responses.
+     */
+    private static class ScriptedTransport implements KeycloakTransport {
+
+        private final Deque<ClassicHttpResponse> responses;
+        private int requests;
+
+        ScriptedTransport(ClassicHttpResponse... responses) {
+            this.responses = new ArrayDeque<>(List.of(responses));
+        }
+
+        @Override
+        public <T> T execute(ClassicHttpRequest request, HttpClientResponseHandler<T> responseHandler) throws IOException {
+
+            ++requests;
+
+            try {
+                return responseHandler.handleResponse(responses.poll());
+            } catch (HttpException e) {
+                throw new IOException(e);
+            }
+        }
+
+        @Override
+        public <T> CompletableFuture<T> executeAsync(ClassicHttpRequest request, HttpClientResponseHandler<T> responseHandler) {
+
+            try {
+                return CompletableFuture.completedFuture(execute(request, responseHandler));
+            } catch (IOException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    private static ClassicHttpResponse response(int statusCode) {
+        return new BasicClassicHttpResponse(statusCode);
+    }
+
+    private static final HttpClientResponseHandler<Integer> STATUS_CODE = ClassicHttpResponse::getCode;
+
+    @Test
+    public void idempotentRequestIsRetried() throws Exception {
+
+        ScriptedTransport transport = new ScriptedTransport(response(503), response(200));
+        RetryingKeycloakTransport retryingTransport = new RetryingKeycloakTransport(transport, new AdaptiveConcurrencyLimiter(4, 4));
+
+        assertEquals(200, retryingTransport.execute(new HttpGet("https://keycloak/admin/realms"), STATUS_CODE));
+        assertEquals(2, transport.requests);
+    }
+
+    @Test
+    public void postIsNotRetried() throws Exception {
+
+        ScriptedTransport transport = new ScriptedTransport(response(503), response(200));
+        RetryingKeycloakTransport retryingTransport = new RetryingKeycloakTransport(transport, new AdaptiveConcurrencyLimiter(4, 4));
+
+        assertEquals(503, retryingTransport.execute(new HttpPost("https://keycloak/admin/realms"), STATUS_CODE));
+        assertEquals(1, transport.requests);
+    }
+
+    @Test
+    public void retryWaitsAtLeastTheRetryAfter() throws Exception {
+
+        ClassicHttpResponse tooManyRequests = response(429);
+        tooManyRequests.setHeader("Retry-After", "1");
+
+        ScriptedTransport transport = new ScriptedTransport(tooManyRequests, response(200));
+        RetryingKeycloakTransport retryingTransport = new RetryingKeycloakTransport(transport, new AdaptiveConcurrencyLimiter(4, 4));
+
+        long start = System.nanoTime();
+
+        assertEquals(200, retryingTransport.execute(new HttpGet("https://keycloak/admin/realms"), STATUS_CODE));
+        assertTrue(System.nanoTime() - start >= 1_000_000_000L);
+    }
+
+    @Test
+    public void delayIsWithinTheWindowUnlessTheServerAsksForLonger() {
+
+        for (int i = 0; i < 100; ++i) {
+
+            long delay = RetryingKeycloakTransport.getDelay(1, 0);
+            assertTrue(delay >= 0 && delay <= 200, "delay " + delay);
+
+            assertTrue(RetryingKeycloakTransport.getDelay(1, 3000) >= 3000);
+        }
+    }
+}